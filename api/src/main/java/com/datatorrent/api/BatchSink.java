@@ -0,0 +1,40 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package com.datatorrent.api;
+
+import org.apache.hadoop.classification.InterfaceStability;
+
+/**
+ * A {@link Sink} which can process a run of data tuples in a single call.
+ *
+ * @since 4.0.0
+ */
+@InterfaceStability.Evolving
+public interface BatchSink<T> extends Sink<T>
+{
+  /**
+   * Process a run of data tuples in the order they were emitted. The array is reused by the caller once this method
+   * returns, so the sink must not keep a reference to it.
+   *
+   * @param tuples array that holds the data tuples
+   * @param offset index of the first tuple of the run in the array
+   * @param length number of tuples in the run
+   */
+  void putBatch(Object[] tuples, int offset, int length);
+}
@@ -119,6 +119,20 @@ public interface Context
     ENABLE, FOLLOW_HADOOP_AUTH, FOLLOW_HADOOP_HTTP_AUTH, DISABLE
   }
 
+  /**
+   * The way an operator waits for tuples when there are none available on any of its input ports.<br/><br/>
+   * SLEEP - Sleep for a period that grows from 0 to {@link OperatorContext#SPIN_MILLIS}.<br/>
+   * BUSY_SPIN - Poll the input ports without ever releasing the processor. Lowest latency at the cost of a core.<br/>
+   * SPIN_YIELD - Poll the input ports for a short while, then yield the processor between the polls.<br/>
+   * PARK - Poll the input ports for a short while, then park until a tuple is added to one of them. An input operator
+   *        inside a streaming window, which needs to be polled for tuples, is parked for the same periods it would
+   *        sleep for.
+   */
+  enum IdleStrategy
+  {
+    SLEEP, BUSY_SPIN, SPIN_YIELD, PARK
+  }
+
   interface PortContext extends Context
   {
     /**
@@ -184,6 +198,24 @@ public interface Context
      */
     Attribute<Class<?>> TUPLE_CLASS = new Attribute<>(Class2String.getInstance());
 
+    /**
+     * Input port attribute. Number of threads that deserialize the tuples received from the buffer server before
+     * they are delivered to the port, in order and along with the window boundaries. It helps operators whose stream
+     * codec is expensive compared to their processing. The codec is copied for every thread, so a codec that is
+     * neither stateful nor serializable is always used on the operator thread. The default value 0 deserializes the
+     * tuples on the operator thread.
+     */
+    Attribute<Integer> DESERIALIZATION_THREADS = new Attribute<>(0);
+
+    /**
+     * Output port attribute. Whether the tuples sent to the buffer server are compressed with LZ4. The compression
+     * applies to the payloads of the stream on the network and to the blocks of the stream that the buffer server
+     * spools to disk, it pays off for streams with verbose tuples, such as JSON or text, where the network or the disk
+     * rather than the CPU limits the throughput. The subscribers decompress the payloads. The default value false
+     * sends the tuples uncompressed.
+     */
+    Attribute<Boolean> BUFFER_SERVER_COMPRESSION = new Attribute<>(false);
+
     @SuppressWarnings("FieldNameHidesFieldInSuperclass")
     long serialVersionUID = AttributeMap.AttributeInitializer.initialize(PortContext.class);
   }
@@ -203,6 +235,12 @@ public interface Context
      * Default value is 10 milliseconds.
      */
     Attribute<Integer> SPIN_MILLIS = new Attribute<>(10);
+    /**
+     * The way the operator waits for tuples when there are none available on any of its input ports, see
+     * {@link IdleStrategy}. The attribute is ignored when the operators of the container share threads.
+     * Default value is IdleStrategy.SLEEP.
+     */
+    Attribute<IdleStrategy> IDLE_STRATEGY = new Attribute<>(IdleStrategy.SLEEP);
     /**
      * The maximum number of attempts to restart a failing operator before shutting down the application.
      * Until this number is reached, when an operator fails to start it is re-spawned in a new container. Once all the
@@ -40,11 +40,55 @@ public interface Stats extends Serializable
   {
     public long checkpointStartTime;
     public long checkpointTime;
+    /**
+     * size of the serialized operator state
+     */
+    public long checkpointBytes;
+    /**
+     * bytes written to the local disk of the container before they were uploaded
+     */
+    public long spillBytes;
+    /**
+     * upload throughput to the checkpoint location
+     */
+    public long uploadBytesPerSecond;
 
     @Override
     public String toString()
     {
-      return "CheckpointStats{" + "checkpointStartTime=" + checkpointStartTime + ", checkpointTime=" + checkpointTime + '}';
+      return "CheckpointStats{" + "checkpointStartTime=" + checkpointStartTime + ", checkpointTime=" + checkpointTime +
+          ", checkpointBytes=" + checkpointBytes + ", spillBytes=" + spillBytes + ", uploadBytesPerSecond=" +
+          uploadBytesPerSecond + '}';
+    }
+  }
+
+  /**
+   * Time in nanoseconds that an operator spent waiting for tuples, broken down by the way it waited.
+   */
+  class IdleStats implements Stats
+  {
+    /**
+     * time spent polling the input ports without releasing the processor
+     */
+    public long spinTime;
+    /**
+     * time spent polling the input ports while yielding the processor between the polls
+     */
+    public long yieldTime;
+    /**
+     * time spent sleeping or parked
+     */
+    public long parkTime;
+    /**
+     * number of times the operator became idle
+     */
+    public long idleCount;
+
+    @Override
+    public String toString()
+    {
+      return "IdleStats{" + "spinTime=" + spinTime + ", yieldTime=" + yieldTime + ", parkTime=" + parkTime +
+          ", idleCount=" + idleCount + '}';
     }
   }
 
@@ -56,6 +100,7 @@ public interface Stats extends Serializable
     public ArrayList<PortStats> outputPorts;
     public long cpuTimeUsed;
     public CheckpointStats checkpointStats;
+    public IdleStats idleStats;
     /**
      * @deprecated use {@link #metrics}
      */
@@ -68,6 +113,26 @@ public interface Stats extends Serializable
      */
     public String recordingId;
 
+    /**
+     * Number of streaming windows the stats cover. It is more than one when the container rolls up the stats of the
+     * windows between two heartbeats, in which case the tuple counts, the buffer server bytes, the processor and idle
+     * times are the sums over the windows, and the other values are those of the last window.
+     */
+    public int windowCount = 1;
+    /**
+     * Minimum over the windows of the time in milliseconds from the operator taking the end of a window off its input
+     * ports to it emitting the end of the window.
+     */
+    public long minEndWindowLatency;
+    /**
+     * Maximum over the windows of the end window latency, see {@link #minEndWindowLatency}.
+     */
+    public long maxEndWindowLatency;
+    /**
+     * Sum over the windows of the end window latency, see {@link #minEndWindowLatency}.
+     */
+    public long totalEndWindowLatency;
+
     public static class PortStats implements Stats
     {
       private static final long serialVersionUID = 201309131906L;
@@ -75,6 +140,12 @@ public interface Stats extends Serializable
       public int tupleCount;
       public long endWindowTimestamp;
       public long bufferServerBytes;
+      /**
+       * Number of bytes the port would have exchanged with the buffer server if the payloads were not compressed. It
+       * is the same as bufferServerBytes unless the stream is compressed, the ratio of the two is the compression
+       * ratio of the stream.
+       */
+      public long bufferServerUncompressedBytes;
       public int queueSize;
       /**
        * If there is a recording on the port, this contains the recording id, otherwise null
@@ -89,7 +160,7 @@ public interface Stats extends Serializable
       @Override
       public String toString()
       {
-        return "PortStats{" + "portname=" + id + ", processedCount=" + tupleCount + ", bufferServerBytes = " + bufferServerBytes + ", queueSize = " + queueSize + ", endWindowTimestamp=" + endWindowTimestamp + '}';
+        return "PortStats{" + "portname=" + id + ", processedCount=" + tupleCount + ", bufferServerBytes = " + bufferServerBytes + ", bufferServerUncompressedBytes = " + bufferServerUncompressedBytes + ", queueSize = " + queueSize + ", endWindowTimestamp=" + endWindowTimestamp + '}';
       }
 
     }
@@ -98,7 +169,7 @@ public interface Stats extends Serializable
     public String toString()
     {
       return "OperatorStats{" + "windowId=" + windowId + ", checkpointedWindowId=" + checkpoint + ", inputPorts=" + inputPorts + ", outputPorts=" + outputPorts + ", cpuTimeUsed=" + cpuTimeUsed +
-        ", checkpointStats=" + checkpointStats + '}';
+        ", checkpointStats=" + checkpointStats + ", idleStats=" + idleStats + ", windowCount=" + windowCount + '}';
     }
 
     private static final long serialVersionUID = 201309131905L;
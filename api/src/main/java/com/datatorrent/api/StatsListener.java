@@ -184,6 +184,16 @@ public interface StatsListener
   {
   }
 
+  /**
+   * This is used to tell the operator stats listener needs the stats of every window, which the container otherwise
+   * may roll up into fewer entries between two heartbeats, see {@link OperatorStats#windowCount}.
+   */
+  @Target(ElementType.TYPE)
+  @Retention(RetentionPolicy.RUNTIME)
+  @interface PerWindowStats
+  {
+  }
+
   /**
    * This interface extends existing {@link StatsListener} interface to provide addition argument of type
    * {@link StatsListenerContext} to {@link StatsListener#processStats(BatchedOperatorStats)},
@@ -0,0 +1,58 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.apex.api;
+
+import org.apache.hadoop.classification.InterfaceStability;
+
+import com.datatorrent.api.BatchSink;
+import com.datatorrent.api.DefaultInputPort;
+
+/**
+ * Default abstract implementation for an input port which receives the data tuples available between two control
+ * tuples in runs, instead of one at a time. Override {@link #processBatch(Object[], int, int)} to process a run at
+ * once.
+ *
+ * @since 4.0.0
+ */
+@InterfaceStability.Evolving
+public abstract class BatchAwareDefaultInputPort<T> extends DefaultInputPort<T> implements BatchSink<T>
+{
+  @Override
+  public void putBatch(Object[] tuples, int offset, int length)
+  {
+    incrementCount(length);
+    processBatch(tuples, offset, length);
+  }
+
+  /**
+   * Process a run of data tuples. The default implementation calls {@link #process(Object)} for each one of them.
+   * The array is reused once this method returns.
+   *
+   * @param tuples array that holds the data tuples
+   * @param offset index of the first tuple of the run in the array
+   * @param length number of tuples in the run
+   */
+  @SuppressWarnings("unchecked")
+  public void processBatch(Object[] tuples, int offset, int length)
+  {
+    for (int i = offset, end = offset + length; i < end; i++) {
+      process((T)tuples[i]);
+    }
+  }
+}
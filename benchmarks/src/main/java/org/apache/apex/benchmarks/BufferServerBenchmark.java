@@ -0,0 +1,185 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.apex.benchmarks;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.datatorrent.api.Sink;
+import com.datatorrent.bufferserver.packet.MessageType;
+import com.datatorrent.bufferserver.server.Server;
+import com.datatorrent.bufferserver.util.SharedMemoryRing;
+import com.datatorrent.netlet.DefaultEventLoop;
+import com.datatorrent.stram.codec.DefaultStatefulStreamCodec;
+import com.datatorrent.stram.engine.StreamContext;
+import com.datatorrent.stram.engine.SweepableReservoir;
+import com.datatorrent.stram.stream.BufferServerPublisher;
+import com.datatorrent.stram.stream.BufferServerSubscriber;
+import com.datatorrent.stram.tuple.EndWindowTuple;
+import com.datatorrent.stram.tuple.Tuple;
+
+/**
+ * Sends windows of tuples from a {@link BufferServerPublisher} through a buffer {@link Server} to a
+ * {@link BufferServerSubscriber} over the loopback interface, and waits for the end of each window to be swept from
+ * the subscriber reservoir. The subscriber receives the tuples either through its socket or through the shared memory
+ * ring of the buffer server.
+ *
+ * @since 4.0.0
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(1)
+public class BufferServerBenchmark
+{
+  static final int TUPLES_PER_WINDOW = 1000;
+  /**
+   * number of windows after which the windows that were delivered are purged from the server, as they would be once
+   * committed.
+   */
+  static final int PURGE_WINDOWS = 100;
+  static final String STREAM = "stream";
+  static final String UPSTREAM = "upstream";
+  static final String DOWNSTREAM = "downstream";
+
+  @Param({"16", "256"})
+  public int tupleSize;
+
+  @Param({"socket", "sharedMemory"})
+  public String transport;
+
+  private DefaultEventLoop serverEventLoop;
+  private DefaultEventLoop clientEventLoop;
+  private Server server;
+  private BufferServerPublisher publisher;
+  private BufferServerSubscriber subscriber;
+  private SweepableReservoir reservoir;
+  private String tuple;
+  private int windowId;
+  long received;
+
+  @Setup
+  public void setup() throws IOException
+  {
+    char[] chars = new char[tupleSize];
+    Arrays.fill(chars, 'x');
+    tuple = new String(chars);
+
+    serverEventLoop = DefaultEventLoop.createEventLoop("server");
+    serverEventLoop.start();
+    clientEventLoop = DefaultEventLoop.createEventLoop("client");
+    clientEventLoop.start();
+    server = new Server(serverEventLoop, 0);
+    if ("sharedMemory".equals(transport)) {
+      server.setSharedMemoryDirectory(SharedMemoryRing.getDefaultDirectory());
+    }
+    InetSocketAddress address = server.run();
+
+    StreamContext subscriberContext = newContext(address);
+    subscriberContext.setFinishedWindowId(-1);
+    subscriberContext.put(StreamContext.SHARED_MEMORY_TRANSPORT, "sharedMemory".equals(transport));
+    subscriber = new BufferServerSubscriber(DOWNSTREAM, 1024);
+    subscriber.setup(subscriberContext);
+    reservoir = subscriber.acquireReservoir("reservoir", 1024);
+    reservoir.setSink(new Sink<Object>()
+    {
+      @Override
+      public void put(Object tuple)
+      {
+        received++;
+      }
+
+      @Override
+      public int getCount(boolean reset)
+      {
+        return 0;
+      }
+    });
+    subscriber.activate(subscriberContext);
+
+    StreamContext publisherContext = newContext(address);
+    publisher = new BufferServerPublisher(UPSTREAM, 1024);
+    publisher.setup(publisherContext);
+    publisher.activate(publisherContext);
+  }
+
+  @TearDown
+  public void teardown()
+  {
+    publisher.deactivate();
+    subscriber.deactivate();
+    server.stop();
+    clientEventLoop.stop();
+    serverEventLoop.stop();
+  }
+
+  @Benchmark
+  @OperationsPerInvocation(TUPLES_PER_WINDOW)
+  public long window()
+  {
+    final int windowId = this.windowId++;
+    if (windowId % PURGE_WINDOWS == 0 && windowId > 0) {
+      server.purge(windowId - 1);
+    }
+    publisher.put(new Tuple(MessageType.BEGIN_WINDOW, windowId));
+    for (int i = 0; i < TUPLES_PER_WINDOW; i++) {
+      publisher.put(tuple);
+    }
+    publisher.put(new EndWindowTuple(windowId));
+
+    while (true) {
+      Tuple t = reservoir.sweep();
+      if (t != null) {
+        reservoir.remove();
+        if (t.getType() == MessageType.END_WINDOW && (int)t.getWindowId() == windowId) {
+          return received;
+        }
+      }
+    }
+  }
+
+  private StreamContext newContext(InetSocketAddress address)
+  {
+    StreamContext context = new StreamContext(STREAM);
+    context.setSourceId(UPSTREAM);
+    context.setSinkId(DOWNSTREAM);
+    context.setBufferServerAddress(address);
+    context.put(StreamContext.CODEC, new DefaultStatefulStreamCodec<>());
+    context.put(StreamContext.EVENT_LOOP, clientEventLoop);
+    return context;
+  }
+}
@@ -0,0 +1,118 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.apex.benchmarks;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.datatorrent.bufferserver.packet.MessageType;
+import com.datatorrent.bufferserver.server.Server;
+import com.datatorrent.netlet.DefaultEventLoop;
+import com.datatorrent.stram.codec.DefaultStatefulStreamCodec;
+import com.datatorrent.stram.engine.StreamContext;
+import com.datatorrent.stram.stream.BufferServerPublisher;
+import com.datatorrent.stram.tuple.EndWindowTuple;
+import com.datatorrent.stram.tuple.Tuple;
+
+/**
+ * Samples the latency of {@link BufferServerPublisher#put(Object)} of a 64 byte tuple while publishing windows of
+ * tuples to a buffer {@link Server} without subscribers. Run it with {@code -prof gc} for the bytes allocated per
+ * tuple.
+ *
+ * @since 4.0.0
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(1)
+public class BufferServerPublisherBenchmark
+{
+  static final int TUPLES_PER_WINDOW = 10000;
+  /**
+   * number of windows after which the published windows are purged from the server, as they would be once committed.
+   */
+  static final int PURGE_WINDOWS = 100;
+  static final String STREAM = "stream";
+  static final String UPSTREAM = "upstream";
+
+  private DefaultEventLoop eventLoop;
+  private Server server;
+  private BufferServerPublisher publisher;
+  private final byte[] tuple = new byte[64];
+  private int windowId;
+  private int count;
+
+  @Setup
+  public void setup() throws IOException
+  {
+    eventLoop = DefaultEventLoop.createEventLoop("server");
+    eventLoop.start();
+    server = new Server(eventLoop, 0);
+    InetSocketAddress address = server.run();
+
+    StreamContext context = new StreamContext(STREAM);
+    context.setSourceId(UPSTREAM);
+    context.setSinkId("downstream");
+    context.setFinishedWindowId(-1);
+    context.setBufferServerAddress(address);
+    context.put(StreamContext.CODEC, new DefaultStatefulStreamCodec<>());
+    context.put(StreamContext.EVENT_LOOP, eventLoop);
+    publisher = new BufferServerPublisher(UPSTREAM, 1024);
+    publisher.setup(context);
+    publisher.activate(context);
+    publisher.put(new Tuple(MessageType.BEGIN_WINDOW, windowId));
+  }
+
+  @TearDown
+  public void teardown()
+  {
+    publisher.deactivate();
+    server.stop();
+    eventLoop.stop();
+  }
+
+  @Benchmark
+  public void put()
+  {
+    publisher.put(tuple);
+    if (++count == TUPLES_PER_WINDOW) {
+      count = 0;
+      publisher.put(new EndWindowTuple(windowId));
+      if (++windowId % PURGE_WINDOWS == 0) {
+        server.purge(windowId - 1);
+      }
+      publisher.put(new Tuple(MessageType.BEGIN_WINDOW, windowId));
+    }
+  }
+}
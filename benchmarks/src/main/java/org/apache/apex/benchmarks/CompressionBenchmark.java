@@ -0,0 +1,96 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.apex.benchmarks;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.datatorrent.bufferserver.util.LZ4Codec;
+
+/**
+ * Compresses and decompresses payloads with the {@link LZ4Codec} the buffer server streams use, for JSON records that
+ * compress well and for random bytes that do not compress at all. The size of the payload ranges from a single tuple
+ * to a frame buffer of the publisher.
+ *
+ * @since 4.0.0
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(1)
+public class CompressionBenchmark
+{
+  @Param({"json", "random"})
+  public String payload;
+
+  @Param({"256", "65536"})
+  public int size;
+
+  private final LZ4Codec codec = new LZ4Codec();
+  private byte[] data;
+  private byte[] compressed;
+  private int compressedLength;
+  private byte[] decompressed;
+
+  @Setup
+  public void setup()
+  {
+    Random random = new Random(0);
+    data = new byte[size];
+    if ("json".equals(payload)) {
+      StringBuilder sb = new StringBuilder();
+      while (sb.length() < size) {
+        sb.append("{\"id\":").append(random.nextInt(100000)).append(",\"name\":\"customer-").append(random.nextInt(50))
+            .append("\",\"amount\":").append(random.nextInt(1000)).append(",\"status\":\"ACTIVE\"}\n");
+      }
+      System.arraycopy(sb.toString().getBytes(), 0, data, 0, size);
+    } else {
+      random.nextBytes(data);
+    }
+    compressed = new byte[LZ4Codec.maxCompressedLength(size)];
+    compressedLength = codec.compress(data, 0, size, compressed, 0);
+    decompressed = new byte[size];
+  }
+
+  @Benchmark
+  public int compress()
+  {
+    return codec.compress(data, 0, size, compressed, 0);
+  }
+
+  @Benchmark
+  public int decompress()
+  {
+    return LZ4Codec.decompress(compressed, 0, compressedLength, decompressed, 0, size);
+  }
+}
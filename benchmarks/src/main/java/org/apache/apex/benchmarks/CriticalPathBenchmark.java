@@ -0,0 +1,164 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.apex.benchmarks;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import org.apache.commons.io.FileUtils;
+
+import com.datatorrent.api.Stats;
+import com.datatorrent.stram.StreamingContainerManager;
+import com.datatorrent.stram.api.StreamingContainerUmbilicalProtocol.ContainerHeartbeat;
+import com.datatorrent.stram.api.StreamingContainerUmbilicalProtocol.ContainerStats;
+import com.datatorrent.stram.api.StreamingContainerUmbilicalProtocol.OperatorHeartbeat;
+import com.datatorrent.stram.plan.logical.LogicalPlan;
+import com.datatorrent.stram.plan.physical.PTContainer;
+import com.datatorrent.stram.plan.physical.PTOperator;
+
+/**
+ * Measures a tick of the master over a synthetic plan of {@link #operators} operators: the heartbeat carrying the stats
+ * of the next window of every operator is processed and {@link StreamingContainerManager#monitorHeartbeat(boolean)}
+ * calculates the operator latencies and the critical path from them. The plan is a grid of {@link #WIDTH} operators
+ * wide, every operator receives the output of two operators of the previous layer.
+ *
+ * @since 4.0.0
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(1)
+public class CriticalPathBenchmark
+{
+  static final int WIDTH = 10;
+
+  @Param({"100", "1000", "2000"})
+  public int operators;
+
+  private Path directory;
+  private StreamingContainerManager manager;
+  private ContainerHeartbeat heartbeat;
+  private final List<ContainerStats.OperatorStats> windowStats = new ArrayList<>();
+  private long windowId;
+
+  @Setup
+  public void setup() throws IOException
+  {
+    directory = Files.createTempDirectory("critical-path");
+    LogicalPlan dag = new LogicalPlan();
+    dag.setAttribute(LogicalPlan.APPLICATION_PATH, directory.toString());
+    dag.setAttribute(LogicalPlan.CONTAINERS_MAX_COUNT, 1);
+    GenericNodeBenchmark.PassThroughOperator[] layer = new GenericNodeBenchmark.PassThroughOperator[WIDTH];
+    for (int i = 0; i < operators / WIDTH; i++) {
+      GenericNodeBenchmark.PassThroughOperator[] next = new GenericNodeBenchmark.PassThroughOperator[WIDTH];
+      for (int j = 0; j < WIDTH; j++) {
+        next[j] = dag.addOperator("operator" + i + "." + j, new GenericNodeBenchmark.PassThroughOperator());
+      }
+      if (i > 0) {
+        for (int j = 0; j < WIDTH; j++) {
+          dag.addStream("stream" + i + "." + j, layer[j].output, next[j].input0, next[(j + 1) % WIDTH].input1);
+        }
+      }
+      layer = next;
+    }
+
+    manager = new StreamingContainerManager(dag);
+    PTContainer container = manager.getPhysicalPlan().getContainers().get(0);
+    container.setResourceRequestPriority(container.getId());
+    manager.assignContainer(new StreamingContainerManager.ContainerResource(container.getId(), "container1",
+        "localhost", 1024, 0, null), InetSocketAddress.createUnresolved("localhost", 0));
+
+    /* activate the container and deploy its operators */
+    ContainerHeartbeat activate = new ContainerHeartbeat();
+    activate.setContainerStats(new ContainerStats(container.getExternalId()));
+    manager.processHeartbeat(activate);
+    manager.processHeartbeat(activate);
+
+    windowId = (System.currentTimeMillis() / 1000) << 32;
+    heartbeat = new ContainerHeartbeat();
+    heartbeat.jvmName = "1234@localhost";
+    heartbeat.setContainerStats(new ContainerStats(container.getExternalId()));
+    for (PTOperator operator : container.getOperators()) {
+      OperatorHeartbeat operatorHeartbeat = new OperatorHeartbeat();
+      operatorHeartbeat.setNodeId(operator.getId());
+      operatorHeartbeat.setState(OperatorHeartbeat.DeployState.ACTIVE);
+      operatorHeartbeat.setIntervalMs(1000);
+      ContainerStats.OperatorStats stats = new ContainerStats.OperatorStats();
+      stats.inputPorts = new ArrayList<>();
+      stats.outputPorts = new ArrayList<>();
+      for (PTOperator.PTInput input : operator.getInputs()) {
+        stats.inputPorts.add(new Stats.OperatorStats.PortStats(input.portName));
+      }
+      stats.outputPorts.add(new Stats.OperatorStats.PortStats("output"));
+      operatorHeartbeat.windowStats.add(stats);
+      windowStats.add(stats);
+      heartbeat.stats.addNodeStats(operatorHeartbeat);
+    }
+  }
+
+  @TearDown
+  public void teardown() throws IOException
+  {
+    manager.teardown();
+    FileUtils.deleteDirectory(directory.toFile());
+  }
+
+  @Benchmark
+  public StreamingContainerManager.CriticalPathInfo tick()
+  {
+    long now = System.currentTimeMillis();
+    windowId++;
+    heartbeat.sentTms = now;
+    for (int i = 0; i < windowStats.size(); i++) {
+      ContainerStats.OperatorStats stats = windowStats.get(i);
+      stats.windowId = windowId;
+      for (Stats.OperatorStats.PortStats port : stats.inputPorts) {
+        port.tupleCount = 1000;
+        port.endWindowTimestamp = now - 10;
+      }
+      for (Stats.OperatorStats.PortStats port : stats.outputPorts) {
+        port.tupleCount = 1000;
+        port.endWindowTimestamp = now - (i % WIDTH);
+      }
+    }
+    manager.processHeartbeat(heartbeat);
+    manager.monitorHeartbeat(false);
+    return manager.getCriticalPathInfo();
+  }
+}
@@ -0,0 +1,231 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.apex.benchmarks;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import org.apache.commons.io.FileUtils;
+
+import com.datatorrent.bufferserver.internal.DataList;
+import com.datatorrent.bufferserver.packet.BeginWindowTuple;
+import com.datatorrent.bufferserver.packet.EndWindowTuple;
+import com.datatorrent.bufferserver.packet.PayloadTuple;
+import com.datatorrent.bufferserver.packet.ResetWindowTuple;
+import com.datatorrent.bufferserver.storage.DiskStorage;
+import com.datatorrent.bufferserver.util.SerializedData;
+import com.datatorrent.bufferserver.util.VarInt;
+
+/**
+ * Writes windows of tuples into a {@link DataList} the way the buffer server publisher does, iterates over them the
+ * way a subscriber does, and writes them with a spool storage that holds only a few blocks in memory so that they are
+ * iterated from the disk.
+ *
+ * @since 4.0.0
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(1)
+public class DataListBenchmark
+{
+  static final int WINDOWS = 64;
+  static final int TUPLES_PER_WINDOW = 1000;
+  static final int BLOCK_SIZE = 1024 * 1024;
+  static final int BASE_SECONDS = 0x5a5a5a5a;
+
+  @Param({"64", "1024"})
+  public int tupleSize;
+
+  private byte[] resetWindow;
+  private byte[][] beginWindows;
+  private byte[][] endWindows;
+  private byte[] payload;
+
+  private ExecutorService autoFlushExecutor;
+  private ExecutorService storageExecutor;
+  private Path spoolDirectory;
+  private DiskStorage storage;
+  private DataList written;
+
+  @Setup
+  public void setup() throws IOException
+  {
+    resetWindow = frame(ResetWindowTuple.getSerializedTuple(BASE_SECONDS, 500));
+    beginWindows = new byte[WINDOWS][];
+    endWindows = new byte[WINDOWS][];
+    for (int i = 0; i < WINDOWS; i++) {
+      beginWindows[i] = frame(BeginWindowTuple.getSerializedTuple(i));
+      endWindows[i] = frame(EndWindowTuple.getSerializedTuple(i));
+    }
+    payload = frame(PayloadTuple.getSerializedTuple(0, tupleSize));
+
+    autoFlushExecutor = Executors.newSingleThreadExecutor();
+    storageExecutor = Executors.newSingleThreadExecutor();
+    spoolDirectory = Files.createTempDirectory("spool");
+    storage = new DiskStorage(spoolDirectory.toString());
+
+    written = newDataList(8 + WINDOWS * TUPLES_PER_WINDOW * tupleSize / BLOCK_SIZE);
+    write(written);
+  }
+
+  @TearDown
+  public void teardown() throws IOException
+  {
+    autoFlushExecutor.shutdownNow();
+    storageExecutor.shutdownNow();
+    FileUtils.deleteDirectory(spoolDirectory.toFile());
+  }
+
+  @Benchmark
+  @OperationsPerInvocation(WINDOWS * TUPLES_PER_WINDOW)
+  public DataList write()
+  {
+    DataList dl = newDataList(8 + WINDOWS * TUPLES_PER_WINDOW * tupleSize / BLOCK_SIZE);
+    write(dl);
+    return dl;
+  }
+
+  @Benchmark
+  @OperationsPerInvocation(WINDOWS * TUPLES_PER_WINDOW)
+  public long iterate()
+  {
+    return iterate(written);
+  }
+
+  @Benchmark
+  @OperationsPerInvocation(WINDOWS * TUPLES_PER_WINDOW)
+  public long spool() throws InterruptedException, ExecutionException
+  {
+    DataList dl = newDataList(4);
+    dl.setSecondaryStorage(storage, storageExecutor);
+    write(dl);
+    /* let the blocks reach the disk before they are read back */
+    storageExecutor.submit(new Runnable()
+    {
+      @Override
+      public void run()
+      {
+      }
+    }).get();
+    long bytes = iterate(dl);
+    dl.reset();
+    return bytes;
+  }
+
+  private DataList newDataList(int numberOfCacheBlocks)
+  {
+    DataList dl = new DataList("benchmark", BLOCK_SIZE, numberOfCacheBlocks, false);
+    dl.setAutoFlushExecutor(autoFlushExecutor);
+    return dl;
+  }
+
+  private void write(DataList dl)
+  {
+    Writer writer = new Writer(dl, (long)BASE_SECONDS << 32);
+    writer.write(resetWindow);
+    for (int i = 0; i < WINDOWS; i++) {
+      writer.write(beginWindows[i]);
+      for (int j = 0; j < TUPLES_PER_WINDOW; j++) {
+        writer.write(payload);
+      }
+      writer.write(endWindows[i]);
+      writer.flush();
+    }
+  }
+
+  private static long iterate(DataList dl)
+  {
+    long bytes = 0;
+    try (DataList.DataListIterator iterator = dl.newIterator(0)) {
+      while (iterator.hasNext()) {
+        SerializedData sd = iterator.next();
+        bytes += sd.length;
+      }
+    }
+    return bytes;
+  }
+
+  private static byte[] frame(byte[] tuple)
+  {
+    byte[] frame = new byte[VarInt.getSize(tuple.length) + tuple.length];
+    System.arraycopy(tuple, 0, frame, VarInt.write(tuple.length, frame, 0), tuple.length);
+    return frame;
+  }
+
+  /**
+   * Copies the frames into the blocks of a data list the way the publisher on the server reads them from the socket:
+   * a block is filled up to its end and the frame that does not fit is written again at the start of a new block.
+   */
+  private static class Writer
+  {
+    final DataList dl;
+    byte[] buffer;
+    int offset;
+
+    Writer(DataList dl, long windowId)
+    {
+      this.dl = dl;
+      buffer = dl.getBuffer(windowId);
+      offset = dl.getPosition();
+    }
+
+    void write(byte[] frame)
+    {
+      final int remaining = buffer.length - offset;
+      if (frame.length <= remaining) {
+        System.arraycopy(frame, 0, buffer, offset, frame.length);
+        offset += frame.length;
+      } else {
+        System.arraycopy(frame, 0, buffer, offset, remaining);
+        dl.flush(buffer.length);
+        buffer = dl.newBuffer(frame.length);
+        dl.addBuffer(buffer);
+        System.arraycopy(frame, 0, buffer, 0, frame.length);
+        offset = frame.length;
+      }
+    }
+
+    void flush()
+    {
+      dl.flush(offset);
+    }
+  }
+}
@@ -0,0 +1,208 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.apex.benchmarks;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.datatorrent.api.Sink;
+import com.datatorrent.bufferserver.packet.MessageType;
+import com.datatorrent.bufferserver.server.Server;
+import com.datatorrent.netlet.DefaultEventLoop;
+import com.datatorrent.stram.codec.DefaultStatefulStreamCodec;
+import com.datatorrent.stram.engine.StreamContext;
+import com.datatorrent.stram.engine.SweepableReservoir;
+import com.datatorrent.stram.stream.BufferServerPublisher;
+import com.datatorrent.stram.stream.BufferServerSubscriber;
+import com.datatorrent.stram.tuple.EndWindowTuple;
+import com.datatorrent.stram.tuple.Tuple;
+
+/**
+ * Sends windows of tuples over {@link #STREAMS} streams at once through a buffer {@link Server}, with the server and
+ * the stream connections spread over 1, 2 or 4 event loops the way a container spreads them, to measure the
+ * throughput by the number of event loops.
+ *
+ * @since 4.0.0
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(1)
+public class EventLoopBenchmark
+{
+  static final int STREAMS = 8;
+  static final int TUPLES_PER_WINDOW = 1000;
+  static final int PURGE_WINDOWS = 100;
+  static final String STREAM = "stream";
+
+  @Param({"1", "2", "4"})
+  public int eventLoops;
+
+  @Param({"256"})
+  public int tupleSize;
+
+  private DefaultEventLoop[] serverEventLoops;
+  private DefaultEventLoop[] clientEventLoops;
+  private Server server;
+  private BufferServerPublisher[] publishers;
+  private BufferServerSubscriber[] subscribers;
+  private SweepableReservoir[] reservoirs;
+  private String tuple;
+  private int windowId;
+  long received;
+
+  @Setup
+  public void setup() throws IOException
+  {
+    char[] chars = new char[tupleSize];
+    Arrays.fill(chars, 'x');
+    tuple = new String(chars);
+
+    serverEventLoops = newEventLoops("server");
+    clientEventLoops = newEventLoops("client");
+    server = new Server(serverEventLoops[0], 0);
+    if (eventLoops > 1) {
+      server.setEventLoops(serverEventLoops);
+    }
+    InetSocketAddress address = server.run();
+
+    Sink<Object> sink = new Sink<Object>()
+    {
+      @Override
+      public void put(Object tuple)
+      {
+        received++;
+      }
+
+      @Override
+      public int getCount(boolean reset)
+      {
+        return 0;
+      }
+    };
+
+    publishers = new BufferServerPublisher[STREAMS];
+    subscribers = new BufferServerSubscriber[STREAMS];
+    reservoirs = new SweepableReservoir[STREAMS];
+    for (int i = 0; i < STREAMS; i++) {
+      String upstream = "upstream-" + i;
+      String downstream = "downstream-" + i;
+
+      StreamContext subscriberContext = newContext(address, upstream, downstream);
+      subscriberContext.setFinishedWindowId(-1);
+      subscribers[i] = new BufferServerSubscriber(downstream, 1024);
+      subscribers[i].setup(subscriberContext);
+      reservoirs[i] = subscribers[i].acquireReservoir("reservoir", 1024);
+      reservoirs[i].setSink(sink);
+      subscribers[i].activate(subscriberContext);
+
+      StreamContext publisherContext = newContext(address, upstream, downstream);
+      publishers[i] = new BufferServerPublisher(upstream, 1024);
+      publishers[i].setup(publisherContext);
+      publishers[i].activate(publisherContext);
+    }
+  }
+
+  @TearDown
+  public void teardown()
+  {
+    for (int i = 0; i < STREAMS; i++) {
+      publishers[i].deactivate();
+      subscribers[i].deactivate();
+    }
+    server.stop();
+    for (int i = 0; i < eventLoops; i++) {
+      clientEventLoops[i].stop();
+      serverEventLoops[i].stop();
+    }
+  }
+
+  @Benchmark
+  @OperationsPerInvocation(STREAMS * TUPLES_PER_WINDOW)
+  public long window()
+  {
+    final int windowId = this.windowId++;
+    if (windowId % PURGE_WINDOWS == 0 && windowId > 0) {
+      server.purge(windowId - 1);
+    }
+    for (BufferServerPublisher publisher : publishers) {
+      publisher.put(new Tuple(MessageType.BEGIN_WINDOW, windowId));
+    }
+    for (int i = 0; i < TUPLES_PER_WINDOW; i++) {
+      for (BufferServerPublisher publisher : publishers) {
+        publisher.put(tuple);
+      }
+    }
+    for (BufferServerPublisher publisher : publishers) {
+      publisher.put(new EndWindowTuple(windowId));
+    }
+
+    for (SweepableReservoir reservoir : reservoirs) {
+      while (true) {
+        Tuple t = reservoir.sweep();
+        if (t != null) {
+          reservoir.remove();
+          if (t.getType() == MessageType.END_WINDOW && (int)t.getWindowId() == windowId) {
+            break;
+          }
+        }
+      }
+    }
+    return received;
+  }
+
+  private DefaultEventLoop[] newEventLoops(String name) throws IOException
+  {
+    DefaultEventLoop[] loops = new DefaultEventLoop[eventLoops];
+    for (int i = 0; i < eventLoops; i++) {
+      loops[i] = DefaultEventLoop.createEventLoop(name + "-" + i);
+      loops[i].start();
+    }
+    return loops;
+  }
+
+  private StreamContext newContext(InetSocketAddress address, String upstream, String downstream)
+  {
+    StreamContext context = new StreamContext(STREAM);
+    context.setSourceId(upstream);
+    context.setSinkId(downstream);
+    context.setBufferServerAddress(address);
+    context.put(StreamContext.CODEC, new DefaultStatefulStreamCodec<>());
+    context.put(StreamContext.EVENT_LOOP, clientEventLoops[Server.getEventLoopIndex(upstream, eventLoops)]);
+    return context;
+  }
+}
@@ -0,0 +1,145 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.apex.benchmarks;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import org.apache.commons.io.FileUtils;
+import org.apache.hadoop.conf.Configuration;
+
+import com.datatorrent.common.util.FSStorageAgent;
+
+/**
+ * Saves the state of an operator with an {@link FSStorageAgent} on the local file system, deleting the checkpoints
+ * as they become obsolete, and loads it back. A small part of the state changes between two checkpoints, which is
+ * what the incremental checkpoints take advantage of.
+ *
+ * @since 4.0.0
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(1)
+public class FSStorageAgentBenchmark
+{
+  static final int SAVE_OPERATOR_ID = 1;
+  static final int LOAD_OPERATOR_ID = 2;
+  /**
+   * number of checkpoints kept around, the older ones are deleted as they would be once committed.
+   */
+  static final int RETAINED_CHECKPOINTS = 2;
+
+  @Param({"1000", "100000"})
+  public int entries;
+
+  @Param({"false", "true"})
+  public boolean incremental;
+
+  private Path directory;
+  private FSStorageAgent agent;
+  private CheckpointedOperator operator;
+  private long windowId;
+
+  @Setup
+  public void setup() throws IOException
+  {
+    directory = Files.createTempDirectory("checkpoints");
+    agent = new FSStorageAgent(directory.toString(), new Configuration());
+    agent.setIncrementalCheckpoint(incremental);
+    operator = new CheckpointedOperator(entries);
+
+    /* the second checkpoint is a delta against the first one when the checkpoints are incremental */
+    agent.save(operator, LOAD_OPERATOR_ID, 1);
+    operator.update(1);
+    agent.save(operator, LOAD_OPERATOR_ID, 2);
+  }
+
+  @TearDown
+  public void teardown() throws IOException
+  {
+    FileUtils.deleteDirectory(directory.toFile());
+  }
+
+  @Benchmark
+  public long save() throws IOException
+  {
+    final long windowId = ++this.windowId;
+    operator.update(windowId);
+    agent.save(operator, SAVE_OPERATOR_ID, windowId);
+    if (windowId > RETAINED_CHECKPOINTS) {
+      agent.delete(SAVE_OPERATOR_ID, windowId - RETAINED_CHECKPOINTS);
+    }
+    return windowId;
+  }
+
+  @Benchmark
+  public Object load() throws IOException
+  {
+    return agent.load(LOAD_OPERATOR_ID, 2);
+  }
+
+  public static class CheckpointedOperator
+  {
+    private final HashMap<Long, String> values = new HashMap<>();
+    private long count;
+
+    @SuppressWarnings("unused")
+    private CheckpointedOperator()
+    {
+      /* for kryo */
+    }
+
+    CheckpointedOperator(int entries)
+    {
+      for (long i = 0; i < entries; i++) {
+        values.put(i, "value-" + i);
+      }
+    }
+
+    /**
+     * Changes one percent of the values.
+     */
+    void update(long windowId)
+    {
+      final int size = values.size();
+      for (int i = 0; i < size / 100 + 1; i++) {
+        values.put(count++ % size, "value-" + windowId);
+      }
+    }
+  }
+}
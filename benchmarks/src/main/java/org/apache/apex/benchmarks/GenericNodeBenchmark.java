@@ -0,0 +1,198 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.apex.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.datatorrent.api.Attribute.AttributeMap.DefaultAttributeMap;
+import com.datatorrent.api.Context;
+import com.datatorrent.api.DefaultInputPort;
+import com.datatorrent.api.DefaultOutputPort;
+import com.datatorrent.api.Operator;
+import com.datatorrent.api.Sink;
+import com.datatorrent.api.annotation.InputPortFieldAnnotation;
+import com.datatorrent.api.annotation.OutputPortFieldAnnotation;
+import com.datatorrent.bufferserver.packet.MessageType;
+import com.datatorrent.stram.engine.AbstractReservoir;
+import com.datatorrent.stram.engine.GenericNode;
+import com.datatorrent.stram.engine.OperatorContext;
+import com.datatorrent.stram.tuple.EndStreamTuple;
+import com.datatorrent.stram.tuple.EndWindowTuple;
+import com.datatorrent.stram.tuple.Tuple;
+
+/**
+ * Feeds windows of tuples to a {@link GenericNode} with {@link #inputs} input ports, which runs on its own thread and
+ * passes the tuples through to its output, and waits for the end of each window to come out of it.
+ *
+ * @since 4.0.0
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(1)
+public class GenericNodeBenchmark
+{
+  static final int TUPLES_PER_WINDOW = 1200;
+
+  @Param({"1", "2", "4"})
+  public int inputs;
+
+  @Param({"SLEEP", "SPIN_YIELD", "PARK"})
+  public Context.IdleStrategy idleStrategy;
+
+  private AbstractReservoir[] reservoirs;
+  private GenericNode node;
+  private Thread thread;
+  private final Object tuple = "tuple";
+  private long windowId;
+  private volatile long endWindowId;
+
+  @Setup
+  public void setup()
+  {
+    DefaultAttributeMap attributes = new DefaultAttributeMap();
+    attributes.put(Context.OperatorContext.IDLE_STRATEGY, idleStrategy);
+    node = new GenericNode(new PassThroughOperator(), new OperatorContext(1, "operator", attributes, null));
+    node.setId(1);
+    node.firstWindowMillis = 0;
+    node.windowWidthMillis = 500;
+
+    reservoirs = new AbstractReservoir[inputs];
+    for (int i = 0; i < inputs; i++) {
+      reservoirs[i] = AbstractReservoir.newReservoir("input" + i, 1024);
+      node.connectInputPort("input" + i, reservoirs[i]);
+    }
+    node.connectOutputPort("output", new Sink<Object>()
+    {
+      @Override
+      public void put(Object tuple)
+      {
+        if (tuple instanceof Tuple && ((Tuple)tuple).getType() == MessageType.END_WINDOW) {
+          endWindowId = ((Tuple)tuple).getWindowId();
+        }
+      }
+
+      @Override
+      public int getCount(boolean reset)
+      {
+        return 0;
+      }
+    });
+
+    thread = new Thread("node")
+    {
+      @Override
+      public void run()
+      {
+        node.activate();
+        node.run();
+        node.deactivate();
+      }
+    };
+    thread.start();
+  }
+
+  @TearDown
+  public void teardown() throws InterruptedException
+  {
+    for (AbstractReservoir reservoir : reservoirs) {
+      reservoir.put(new EndStreamTuple(windowId));
+    }
+    thread.join();
+  }
+
+  @Benchmark
+  @OperationsPerInvocation(TUPLES_PER_WINDOW)
+  public long window() throws InterruptedException
+  {
+    final long windowId = ++this.windowId;
+    final int tuplesPerInput = TUPLES_PER_WINDOW / inputs;
+    for (AbstractReservoir reservoir : reservoirs) {
+      reservoir.put(new Tuple(MessageType.BEGIN_WINDOW, windowId));
+      for (int i = 0; i < tuplesPerInput; i++) {
+        reservoir.put(tuple);
+      }
+      reservoir.put(new EndWindowTuple(windowId));
+    }
+
+    while (endWindowId != windowId) {
+      /* the window is over once the node emits its end */
+    }
+    return windowId;
+  }
+
+  public static class PassThroughOperator implements Operator
+  {
+    @OutputPortFieldAnnotation(optional = true)
+    public final transient DefaultOutputPort<Object> output = new DefaultOutputPort<>();
+    @InputPortFieldAnnotation(optional = true)
+    public final transient DefaultInputPort<Object> input0 = new PassThroughPort();
+    @InputPortFieldAnnotation(optional = true)
+    public final transient DefaultInputPort<Object> input1 = new PassThroughPort();
+    @InputPortFieldAnnotation(optional = true)
+    public final transient DefaultInputPort<Object> input2 = new PassThroughPort();
+    @InputPortFieldAnnotation(optional = true)
+    public final transient DefaultInputPort<Object> input3 = new PassThroughPort();
+
+    class PassThroughPort extends DefaultInputPort<Object>
+    {
+      @Override
+      public void process(Object tuple)
+      {
+        output.emit(tuple);
+      }
+    }
+
+    @Override
+    public void beginWindow(long windowId)
+    {
+    }
+
+    @Override
+    public void endWindow()
+    {
+    }
+
+    @Override
+    public void setup(Context.OperatorContext context)
+    {
+    }
+
+    @Override
+    public void teardown()
+    {
+    }
+  }
+}
@@ -0,0 +1,202 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.apex.benchmarks;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import org.apache.commons.io.FileUtils;
+import org.apache.hadoop.io.DataInputByteBuffer;
+import org.apache.hadoop.io.DataOutputByteBuffer;
+
+import com.datatorrent.api.Stats;
+import com.datatorrent.stram.StreamingContainerManager;
+import com.datatorrent.stram.api.Checkpoint;
+import com.datatorrent.stram.api.StreamingContainerUmbilicalProtocol.ContainerHeartbeat;
+import com.datatorrent.stram.api.StreamingContainerUmbilicalProtocol.ContainerHeartbeatResponse;
+import com.datatorrent.stram.api.StreamingContainerUmbilicalProtocol.ContainerStats;
+import com.datatorrent.stram.api.StreamingContainerUmbilicalProtocol.OperatorHeartbeat;
+import com.datatorrent.stram.plan.logical.LogicalPlan;
+import com.datatorrent.stram.plan.physical.PTContainer;
+import com.datatorrent.stram.plan.physical.PTOperator;
+
+/**
+ * Processes the heartbeat of a container with {@link #operators} operators the way the master handles the RPC call:
+ * the heartbeat is read, processed by the {@link StreamingContainerManager} and the response written, in the Java
+ * serialization or in the binary encoding. The throughput of {@link #process()} is how many such heartbeats a
+ * heartbeat listener thread of the master handles per second, {@link #read()} is the part of it that decoding takes
+ * and {@link #write()} the cost of encoding the heartbeat in the container.
+ *
+ * @since 4.0.0
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(1)
+public class HeartbeatBenchmark
+{
+  /**
+   * windows in a heartbeat, a 1 s heartbeat with the default 500 ms streaming windows.
+   */
+  static final int WINDOWS = 2;
+
+  @Param({"1", "10", "100"})
+  public int operators;
+
+  @Param({"false", "true"})
+  public boolean binaryEncoding;
+
+  private Path directory;
+  private StreamingContainerManager manager;
+  private ContainerHeartbeat heartbeat;
+  private ByteBuffer[] encoded;
+
+  @Setup
+  public void setup() throws IOException
+  {
+    directory = Files.createTempDirectory("heartbeat");
+    LogicalPlan dag = new LogicalPlan();
+    dag.setAttribute(LogicalPlan.APPLICATION_PATH, directory.toString());
+    dag.setAttribute(LogicalPlan.CONTAINERS_MAX_COUNT, 1);
+    GenericNodeBenchmark.PassThroughOperator upstream = null;
+    for (int i = 0; i < operators; i++) {
+      GenericNodeBenchmark.PassThroughOperator operator = dag.addOperator("operator" + i,
+          new GenericNodeBenchmark.PassThroughOperator());
+      if (upstream != null) {
+        dag.addStream("stream" + i, upstream.output, operator.input0);
+      }
+      upstream = operator;
+    }
+
+    manager = new StreamingContainerManager(dag);
+    PTContainer container = manager.getPhysicalPlan().getContainers().get(0);
+    container.setResourceRequestPriority(container.getId());
+    manager.assignContainer(new StreamingContainerManager.ContainerResource(container.getId(), "container1",
+        "localhost", 1024, 0, null), InetSocketAddress.createUnresolved("localhost", 0));
+
+    /* activate the container and deploy its operators */
+    ContainerHeartbeat activate = new ContainerHeartbeat();
+    activate.setContainerStats(new ContainerStats(container.getExternalId()));
+    manager.processHeartbeat(activate);
+    manager.processHeartbeat(activate);
+
+    long now = System.currentTimeMillis();
+    long windowId = (now / 1000) << 32;
+    heartbeat = new ContainerHeartbeat();
+    heartbeat.setBinaryEncoding(binaryEncoding);
+    heartbeat.jvmName = "1234@localhost";
+    heartbeat.bufferServerHost = "localhost";
+    heartbeat.bufferServerPort = 34567;
+    heartbeat.sentTms = now;
+    heartbeat.setContainerStats(new ContainerStats(container.getExternalId()));
+    for (PTOperator operator : container.getOperators()) {
+      OperatorHeartbeat operatorHeartbeat = new OperatorHeartbeat();
+      operatorHeartbeat.setNodeId(operator.getId());
+      operatorHeartbeat.setState(OperatorHeartbeat.DeployState.ACTIVE);
+      operatorHeartbeat.setGeneratedTms(now);
+      operatorHeartbeat.setIntervalMs(1000);
+      for (int i = 0; i < WINDOWS; i++) {
+        ContainerStats.OperatorStats stats = new ContainerStats.OperatorStats();
+        stats.windowId = windowId + i;
+        stats.checkpoint = new Checkpoint(windowId - 60, 0, 0);
+        stats.cpuTimeUsed = 1000000;
+        stats.inputPorts = new ArrayList<>();
+        stats.outputPorts = new ArrayList<>();
+        Stats.OperatorStats.PortStats input = new Stats.OperatorStats.PortStats("input0");
+        input.tupleCount = 1000;
+        input.endWindowTimestamp = now - 500 * (WINDOWS - i);
+        input.bufferServerBytes = 64000;
+        stats.inputPorts.add(input);
+        Stats.OperatorStats.PortStats output = new Stats.OperatorStats.PortStats("output");
+        output.tupleCount = 1000;
+        output.endWindowTimestamp = now - 500 * (WINDOWS - i);
+        stats.outputPorts.add(output);
+        stats.idleStats = new Stats.IdleStats();
+        operatorHeartbeat.windowStats.add(stats);
+      }
+      heartbeat.stats.addNodeStats(operatorHeartbeat);
+    }
+    encoded = write().getData();
+  }
+
+  @TearDown
+  public void teardown() throws IOException
+  {
+    manager.teardown();
+    FileUtils.deleteDirectory(directory.toFile());
+  }
+
+  @Benchmark
+  public DataOutputByteBuffer write() throws IOException
+  {
+    DataOutputByteBuffer out = new DataOutputByteBuffer();
+    heartbeat.write(out);
+    return out;
+  }
+
+  @Benchmark
+  public ContainerHeartbeat read() throws IOException
+  {
+    DataInputByteBuffer in = new DataInputByteBuffer();
+    in.reset(duplicate(encoded));
+    ContainerHeartbeat heartbeat = new ContainerHeartbeat();
+    heartbeat.readFields(in);
+    return heartbeat;
+  }
+
+  @Benchmark
+  public DataOutputByteBuffer process() throws IOException
+  {
+    ContainerHeartbeat heartbeat = read();
+    ContainerHeartbeatResponse response = manager.processHeartbeat(heartbeat);
+    response.setBinaryEncoding(heartbeat.isBinaryEncoding());
+    DataOutputByteBuffer out = new DataOutputByteBuffer();
+    response.write(out);
+    return out;
+  }
+
+  private static ByteBuffer[] duplicate(ByteBuffer[] buffers)
+  {
+    ByteBuffer[] duplicates = new ByteBuffer[buffers.length];
+    for (int i = 0; i < buffers.length; i++) {
+      duplicates[i] = buffers[i].duplicate();
+    }
+    return duplicates;
+  }
+}
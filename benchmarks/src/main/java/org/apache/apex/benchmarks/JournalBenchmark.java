@@ -0,0 +1,146 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.apex.benchmarks;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import org.apache.commons.io.FileUtils;
+
+import com.datatorrent.stram.Journal;
+import com.datatorrent.stram.StreamingContainerManager;
+import com.datatorrent.stram.plan.logical.LogicalPlan;
+import com.datatorrent.stram.plan.physical.PTOperator;
+
+/**
+ * Measures a redeploy of {@link #operators} operators as the master journals it: every operator changes its state
+ * once and the redeploy completes when the last change is durable. The log is a stream whose flush takes
+ * {@link #flushMicros}, the round trip of an HDFS hflush, and the changes are flushed one by one or with group commit.
+ *
+ * @since 4.0.0
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(1)
+public class JournalBenchmark
+{
+  @Param({"100", "1000"})
+  public int operators;
+
+  @Param({"0", "500"})
+  public int flushMicros;
+
+  @Param({"false", "true"})
+  public boolean groupCommit;
+
+  private Path directory;
+  private StreamingContainerManager manager;
+  private List<PTOperator> deployed;
+  private boolean active;
+
+  @Setup
+  public void setup() throws IOException
+  {
+    directory = Files.createTempDirectory("journal");
+    LogicalPlan dag = new LogicalPlan();
+    dag.setAttribute(LogicalPlan.APPLICATION_PATH, directory.toString());
+    dag.setAttribute(LogicalPlan.JOURNAL_GROUP_COMMIT, groupCommit);
+    for (int i = 0; i < operators; i++) {
+      dag.addOperator("operator" + i, new GenericNodeBenchmark.PassThroughOperator());
+    }
+    manager = new StreamingContainerManager(dag);
+    deployed = new ArrayList<>(manager.getPhysicalPlan().getAllOperators().values());
+    manager.getJournal().setOutputStream(new DataOutputStream(new HflushStream(flushMicros)));
+  }
+
+  @TearDown
+  public void teardown() throws IOException
+  {
+    manager.getJournal().setOutputStream(null);
+    manager.teardown();
+    FileUtils.deleteDirectory(directory.toFile());
+  }
+
+  @Benchmark
+  public void redeploy() throws InterruptedException, ExecutionException
+  {
+    active = !active;
+    PTOperator.State state = active ? PTOperator.State.ACTIVE : PTOperator.State.PENDING_DEPLOY;
+    for (PTOperator operator : deployed) {
+      operator.setState(state);
+    }
+    Journal journal = manager.getJournal();
+    journal.write(manager.getSetPhysicalOperatorProperty(deployed.get(0).getId(), "state", state.name())).get();
+  }
+
+  /**
+   * Discards the log, a flush takes as long as an hflush to the data nodes.
+   */
+  private static class HflushStream extends OutputStream
+  {
+    private final long flushNanos;
+
+    HflushStream(int flushMicros)
+    {
+      flushNanos = TimeUnit.MICROSECONDS.toNanos(flushMicros);
+    }
+
+    @Override
+    public void write(int b)
+    {
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len)
+    {
+    }
+
+    @Override
+    public void flush()
+    {
+      if (flushNanos > 0) {
+        LockSupport.parkNanos(flushNanos);
+      }
+    }
+  }
+}
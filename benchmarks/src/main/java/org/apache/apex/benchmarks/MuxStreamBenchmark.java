@@ -0,0 +1,111 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.apex.benchmarks;
+
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.datatorrent.api.Sink;
+import com.datatorrent.api.StreamCodec;
+import com.datatorrent.stram.codec.DefaultStatefulStreamCodec;
+import com.datatorrent.stram.stream.MuxStream;
+import com.datatorrent.stram.stream.PartitionAwareSink;
+
+/**
+ * Routes tuples to {@link #partitions} partition aware sinks through the dispatcher of a {@link MuxStream}, and puts
+ * them to every sink for comparison, which is the way the stream used to route them.
+ *
+ * @since 4.0.0
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(1)
+public class MuxStreamBenchmark
+{
+  static final int TUPLES = 1024;
+
+  @Param({"2", "8", "32"})
+  public int partitions;
+
+  private final Long[] tuples = new Long[TUPLES];
+  private MuxStream stream;
+  private PartitionAwareSink<Object>[] sinks;
+
+  @Setup
+  @SuppressWarnings("unchecked")
+  public void setup()
+  {
+    for (int i = 0; i < TUPLES; i++) {
+      tuples[i] = (long)i * 7919;
+    }
+
+    final StreamCodec<Object> codec = new DefaultStatefulStreamCodec<>();
+    final int mask = Integer.highestOneBit(partitions * 2 - 1) - 1;
+    stream = new MuxStream();
+    sinks = new PartitionAwareSink[partitions];
+    for (int partition = 0; partition < partitions; partition++) {
+      sinks[partition] = new PartitionAwareSink<>(codec, Collections.singleton(partition), mask, Sink.BLACKHOLE);
+      stream.setSink(Integer.toString(partition), sinks[partition]);
+    }
+    stream.activate(null);
+  }
+
+  @TearDown
+  public void teardown()
+  {
+    stream.deactivate();
+  }
+
+  @Benchmark
+  @OperationsPerInvocation(TUPLES)
+  public void dispatch()
+  {
+    for (Long tuple : tuples) {
+      stream.put(tuple);
+    }
+  }
+
+  @Benchmark
+  @OperationsPerInvocation(TUPLES)
+  public void everySink()
+  {
+    for (Long tuple : tuples) {
+      for (PartitionAwareSink<Object> sink : sinks) {
+        sink.put(tuple);
+      }
+    }
+  }
+}
@@ -0,0 +1,136 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.apex.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.datatorrent.api.BatchSink;
+import com.datatorrent.api.Sink;
+import com.datatorrent.stram.engine.AbstractReservoir;
+import com.datatorrent.stram.tuple.EndWindowTuple;
+import com.datatorrent.stram.tuple.Tuple;
+
+/**
+ * Puts a window of tuples into a reservoir and sweeps them to a sink on the same thread, for each of the
+ * {@link AbstractReservoir} implementations, with a plain sink and with a {@link BatchSink}.
+ *
+ * @since 4.0.0
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(1)
+public class ReservoirBenchmark
+{
+  static final int TUPLES = 1000;
+  /**
+   * system property read by {@link AbstractReservoir#newReservoir(String, int)} to pick the implementation.
+   */
+  private static final String RESERVOIR_CLASS_NAME_PROPERTY = "com.datatorrent.stram.engine.Reservoir";
+
+  @Param({"com.datatorrent.stram.engine.AbstractReservoir$SpscArrayQueueReservoir",
+      "com.datatorrent.stram.engine.AbstractReservoir$SpscArrayBlockingQueueReservoir",
+      "com.datatorrent.stram.engine.AbstractReservoir$ArrayBlockingQueueReservoir",
+      "com.datatorrent.stram.engine.AbstractReservoir$CircularBufferReservoir"})
+  public String reservoir;
+
+  @Param({"false", "true"})
+  public boolean batch;
+
+  private AbstractReservoir instance;
+  private final Object[] tuples = new Object[TUPLES];
+  private final Tuple endWindow = new EndWindowTuple(1);
+  long received;
+
+  @Setup
+  public void setup()
+  {
+    String property = System.getProperty(RESERVOIR_CLASS_NAME_PROPERTY);
+    System.setProperty(RESERVOIR_CLASS_NAME_PROPERTY, reservoir);
+    try {
+      instance = AbstractReservoir.newReservoir("benchmark", 2 * TUPLES);
+    } finally {
+      if (property == null) {
+        System.clearProperty(RESERVOIR_CLASS_NAME_PROPERTY);
+      } else {
+        System.setProperty(RESERVOIR_CLASS_NAME_PROPERTY, property);
+      }
+    }
+    instance.setSink(batch ? new CountingBatchSink() : new CountingSink());
+    for (int i = 0; i < TUPLES; i++) {
+      tuples[i] = (long)i;
+    }
+  }
+
+  @Benchmark
+  @OperationsPerInvocation(TUPLES)
+  public long putAndSweep() throws InterruptedException
+  {
+    for (Object tuple : tuples) {
+      instance.put(tuple);
+    }
+    instance.put(endWindow);
+
+    Tuple t;
+    while ((t = instance.sweep()) == null) {
+      /* the data tuples are swept in runs up to the control tuple */
+    }
+    instance.remove();
+    return received + t.getWindowId();
+  }
+
+  private class CountingSink implements Sink<Object>
+  {
+    @Override
+    public void put(Object tuple)
+    {
+      received++;
+    }
+
+    @Override
+    public int getCount(boolean reset)
+    {
+      return 0;
+    }
+  }
+
+  private class CountingBatchSink extends CountingSink implements BatchSink<Object>
+  {
+    @Override
+    public void putBatch(Object[] tuples, int offset, int length)
+    {
+      received += length;
+    }
+  }
+}
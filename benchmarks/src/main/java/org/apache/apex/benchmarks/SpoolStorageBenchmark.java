@@ -0,0 +1,133 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.apex.benchmarks;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import org.apache.commons.io.FileUtils;
+
+import com.datatorrent.bufferserver.storage.DiskStorage;
+import com.datatorrent.bufferserver.storage.MappedSegmentStorage;
+import com.datatorrent.bufferserver.storage.Storage;
+
+/**
+ * Spools blocks of the size of the data list blocks to a {@link DiskStorage} or a {@link MappedSegmentStorage} and
+ * replays them, the way the buffer server does for the subscribers that fall behind.
+ *
+ * @since 4.0.0
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(1)
+public class SpoolStorageBenchmark
+{
+  static final int BLOCKS = 16;
+  static final String IDENTIFIER = "benchmark";
+
+  @Param({"disk", "mapped"})
+  public String storageType;
+
+  @Param({"65536", "8388608"})
+  public int blockSize;
+
+  private Path spoolDirectory;
+  private Storage storage;
+  private byte[] block;
+  private int[] stored;
+
+  @Setup
+  public void setup() throws IOException
+  {
+    spoolDirectory = Files.createTempDirectory("spool");
+    if ("disk".equals(storageType)) {
+      storage = new DiskStorage(spoolDirectory.toString());
+    } else {
+      storage = new MappedSegmentStorage(spoolDirectory.toString());
+    }
+    block = new byte[blockSize];
+    for (int i = 0; i < blockSize; i++) {
+      block[i] = (byte)i;
+    }
+
+    stored = new int[BLOCKS];
+    for (int i = 0; i < BLOCKS; i++) {
+      stored[i] = storage.store(IDENTIFIER, block, 0, blockSize);
+    }
+  }
+
+  @TearDown
+  public void teardown() throws IOException
+  {
+    for (int i = 0; i < BLOCKS; i++) {
+      storage.discard(IDENTIFIER, stored[i]);
+    }
+    FileUtils.deleteDirectory(spoolDirectory.toFile());
+  }
+
+  /**
+   * Stores blocks and discards them once they are all stored, as the data list does when its subscribers catch up.
+   */
+  @Benchmark
+  @OperationsPerInvocation(BLOCKS)
+  public int spool()
+  {
+    final int[] identifiers = new int[BLOCKS];
+    for (int i = 0; i < BLOCKS; i++) {
+      identifiers[i] = storage.store(IDENTIFIER, block, 0, blockSize);
+    }
+    for (int i = 0; i < BLOCKS; i++) {
+      storage.discard(IDENTIFIER, identifiers[i]);
+    }
+    return identifiers[BLOCKS - 1];
+  }
+
+  /**
+   * Retrieves the stored blocks into the byte arrays the data list blocks are made of.
+   */
+  @Benchmark
+  @OperationsPerInvocation(BLOCKS)
+  public long replay()
+  {
+    long bytes = 0;
+    for (int i = 0; i < BLOCKS; i++) {
+      bytes += storage.retrieve(IDENTIFIER, stored[i]).length;
+    }
+    return bytes;
+  }
+}
@@ -0,0 +1,102 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.apex.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.datatorrent.stram.codec.DefaultStatefulStreamCodec;
+import com.datatorrent.stram.codec.StatefulStreamCodec;
+
+/**
+ * Serializes a tuple with a {@link DefaultStatefulStreamCodec} and deserializes it with the instance on the other end
+ * of the stream, the way {@code BufferServerPublisher} and {@code BufferServerSubscriber} do. The codec state is
+ * reset every {@link #checkpointTuples} tuples, as it is at a checkpoint, which makes the class registrations go over
+ * the stream again.
+ *
+ * @since 4.0.0
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(1)
+public class StreamCodecBenchmark
+{
+  @Param({"string", "pojo"})
+  public String payload;
+
+  @Param({"0", "1000"})
+  public int checkpointTuples;
+
+  private DefaultStatefulStreamCodec<Object> serializer;
+  private DefaultStatefulStreamCodec<Object> deserializer;
+  private Object tuple;
+  private int count;
+
+  @Setup
+  public void setup()
+  {
+    serializer = new DefaultStatefulStreamCodec<>();
+    deserializer = serializer.newInstance();
+    tuple = "string".equals(payload) ? "the quick brown fox jumps over the lazy dog" : new Pojo(42, 1L << 40, "fox");
+  }
+
+  @Benchmark
+  public Object roundTrip()
+  {
+    if (checkpointTuples > 0 && ++count == checkpointTuples) {
+      count = 0;
+      serializer.resetState();
+      deserializer.resetState();
+    }
+    StatefulStreamCodec.DataStatePair dsp = serializer.toDataStatePair(tuple);
+    return deserializer.fromDataStatePair(dsp);
+  }
+
+  public static class Pojo
+  {
+    public int id;
+    public long timestamp;
+    public String name;
+
+    public Pojo()
+    {
+    }
+
+    public Pojo(int id, long timestamp, String name)
+    {
+      this.id = id;
+      this.timestamp = timestamp;
+      this.name = name;
+    }
+  }
+}
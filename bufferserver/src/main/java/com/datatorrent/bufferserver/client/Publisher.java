@@ -24,6 +24,8 @@ import org.slf4j.LoggerFactory;
 
 import com.datatorrent.bufferserver.packet.PublishRequestTuple;
 
+import static com.datatorrent.bufferserver.packet.Tuple.NO_COMPRESSION;
+
 /**
  * <p>Abstract Publisher class.</p>
  *
@@ -49,9 +51,19 @@ public abstract class Publisher extends AuthClient
    * @param windowId
    */
   public void activate(String version, long windowId)
+  {
+    activate(version, windowId, NO_COMPRESSION);
+  }
+
+  /**
+   *
+   * @param windowId
+   * @param compression compression of the payloads that the publisher sends
+   */
+  public void activate(String version, long windowId, int compression)
   {
     sendAuthenticate();
-    write(PublishRequestTuple.getSerializedRequest(version, id, windowId));
+    write(PublishRequestTuple.getSerializedRequest(version, id, windowId, compression));
   }
 
   @Override
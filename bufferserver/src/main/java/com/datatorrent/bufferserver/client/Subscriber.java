@@ -18,12 +18,20 @@
  */
 package com.datatorrent.bufferserver.client;
 
+import java.io.IOException;
 import java.util.Collection;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import com.datatorrent.bufferserver.packet.MessageType;
+import com.datatorrent.bufferserver.packet.SharedMemoryPositionTuple;
+import com.datatorrent.bufferserver.packet.SharedMemoryRingTuple;
+import com.datatorrent.bufferserver.util.SharedMemoryRing;
+
 import static com.datatorrent.bufferserver.packet.SubscribeRequestTuple.getSerializedRequest;
+import static com.datatorrent.bufferserver.packet.Tuple.NO_COMPRESSION;
+import static com.datatorrent.bufferserver.packet.Tuple.SOCKET_TRANSPORT;
 
 /**
  *
@@ -33,12 +41,21 @@ import static com.datatorrent.bufferserver.packet.SubscribeRequestTuple.getSeria
  * <br>
  * Extends SocketInputStream as buffer server and node communicate via a socket<br>
  * This buffer server is a read instance of a stream and takes care of connectivity with upstream buffer server<br>
+ * <br>
+ * With the shared memory transport, the frames are read from the ring the buffer server announces and copied into
+ * buffers of the subscriber before they are passed to {@link #onMessage(byte[], int, int)} like the frames read from
+ * the socket. Subclasses pass every message to {@link #onTransportMessage(byte[], int, int)} first.<br>
  *
  * @since 0.3.2
  */
 public abstract class Subscriber extends AuthClient
 {
+  private static final int RING_READ_BUFFER_SIZE = 64 * 1024;
   private final String id;
+  private SharedMemoryRing ring;
+  private byte[] ringReadBuffer;
+  private int ringReadOffset;
+  private long sentReadPosition;
 
   public Subscriber(String id)
   {
@@ -49,8 +66,91 @@ public abstract class Subscriber extends AuthClient
   public void activate(final String version, final String type, final String sourceId, final int mask,
       final Collection<Integer> partitions, final long windowId, final int bufferSize)
   {
+    activate(version, type, sourceId, mask, partitions, windowId, bufferSize, NO_COMPRESSION);
+  }
+
+  public void activate(final String version, final String type, final String sourceId, final int mask,
+      final Collection<Integer> partitions, final long windowId, final int bufferSize, final int compression)
+  {
+    activate(version, type, sourceId, mask, partitions, windowId, bufferSize, compression, SOCKET_TRANSPORT);
+  }
+
+  public void activate(final String version, final String type, final String sourceId, final int mask,
+      final Collection<Integer> partitions, final long windowId, final int bufferSize, final int compression,
+      final int transport)
+  {
+    ring = null;
     sendAuthenticate();
-    write(getSerializedRequest(version, id, type, sourceId, mask, partitions, windowId, bufferSize));
+    write(getSerializedRequest(version, id, type, sourceId, mask, partitions, windowId, bufferSize, compression,
+        transport));
+  }
+
+  /**
+   * Handles the messages of the shared memory transport. The frames the position message covers are read from the
+   * ring and passed to {@link #onMessage(byte[], int, int)} before the call returns.
+   *
+   * @param buffer buffer containing the message
+   * @param offset offset of the message type byte of the message
+   * @param length length of the message
+   * @return true if the message belongs to the transport and has been handled, false otherwise
+   */
+  protected boolean onTransportMessage(byte[] buffer, int offset, int length)
+  {
+    switch (buffer[offset]) {
+      case MessageType.SHARED_MEMORY_RING_VALUE:
+        final SharedMemoryRingTuple tuple = new SharedMemoryRingTuple(buffer, offset, length);
+        try {
+          ring = SharedMemoryRing.open(tuple.getPath(), tuple.getCapacity());
+        } catch (IOException e) {
+          throw new RuntimeException("Failed to open the shared memory ring " + tuple.getPath(), e);
+        }
+        logger.debug("{} reads the shared memory ring {}", this, ring);
+        sentReadPosition = 0;
+        return true;
+
+      case MessageType.SHARED_MEMORY_POSITION_VALUE:
+        drainRing(SharedMemoryPositionTuple.getPosition(buffer, offset));
+        return true;
+
+      default:
+        return false;
+    }
+  }
+
+  private void drainRing(long writePosition)
+  {
+    final long readPosition = ring.getReadPosition();
+    int length;
+    while ((length = ring.nextFrameLength(writePosition)) != -1) {
+      if (ringReadBuffer == null || ringReadBuffer.length - ringReadOffset < length) {
+        /* the previous buffer is still referenced by the messages passed on */
+        ringReadBuffer = new byte[Math.max(RING_READ_BUFFER_SIZE, length)];
+        ringReadOffset = 0;
+      }
+      ring.readFrame(ringReadBuffer, ringReadOffset);
+      onMessage(ringReadBuffer, ringReadOffset, length);
+      ringReadOffset += length;
+    }
+    readFromRing((int)(ring.getReadPosition() - readPosition));
+
+    /*
+     * reporting the position once a quarter of the ring has been read guarantees a blocked server room for its next
+     * frame without a message for every position the server sends.
+     */
+    if (ring.getReadPosition() - sentReadPosition >= ring.getMaxFrameLength()) {
+      sentReadPosition = ring.getReadPosition();
+      write(SharedMemoryPositionTuple.getSerializedTuple(sentReadPosition));
+    }
+  }
+
+  /**
+   * Called after the given number of bytes have been read from the shared memory ring, the counterpart of
+   * {@link #read(int)} for the bytes read from the socket.
+   *
+   * @param len number of bytes read from the ring
+   */
+  protected void readFromRing(int len)
+  {
   }
 
   @Override
@@ -19,15 +19,17 @@
 package com.datatorrent.bufferserver.internal;
 
 import java.io.IOException;
-import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
-import java.util.HashSet;
 import java.util.Iterator;
 import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -39,15 +41,14 @@ import com.datatorrent.bufferserver.packet.BeginWindowTuple;
 import com.datatorrent.bufferserver.packet.MessageType;
 import com.datatorrent.bufferserver.packet.ResetWindowTuple;
 import com.datatorrent.bufferserver.packet.Tuple;
+import com.datatorrent.bufferserver.storage.CompressedStorage;
 import com.datatorrent.bufferserver.storage.Storage;
-import com.datatorrent.bufferserver.util.BitVector;
 import com.datatorrent.bufferserver.util.Codec;
 import com.datatorrent.bufferserver.util.SerializedData;
 import com.datatorrent.bufferserver.util.VarInt;
 import com.datatorrent.netlet.AbstractClient;
 import com.datatorrent.netlet.util.VarInt.MutableInt;
 
-import static com.google.common.collect.Maps.newHashMap;
 import static com.google.common.collect.Sets.newHashSet;
 
 /**
@@ -63,13 +64,23 @@ public class DataList
   private final int MAX_COUNT_OF_INMEM_BLOCKS;
   protected final String identifier;
   private final int blockSize;
-  private final HashMap<BitVector, HashSet<DataListener>> listeners = newHashMap();
-  protected final HashSet<DataListener> all_listeners = newHashSet();
+  /**
+   * immutable snapshot of the listeners, replaced as a whole when a listener is added or removed so that the notifier
+   * and the publisher never synchronize with subscriber churn.
+   */
+  private final AtomicReference<ListenerRegistry> listeners = new AtomicReference<>(ListenerRegistry.EMPTY);
   protected Block first;
   protected Block last;
   protected Storage storage;
   protected ExecutorService autoFlushExecutor;
   protected ExecutorService storageExecutor;
+  /**
+   * number of the evicted blocks following the block a subscriber moves to that are restored before it reaches them.
+   */
+  protected int readAheadBlocks;
+  private final StorageTaskStats spoolStats = new StorageTaskStats();
+  private final StorageTaskStats restoreStats = new StorageTaskStats();
+  private final AtomicLong numReadAheads = new AtomicLong();
   protected int size;
   protected int processingOffset;
   protected long baseSeconds;
@@ -78,6 +89,11 @@ public class DataList
   private MutableInt nextOffset = new MutableInt();
   private final ListenersNotifier listenersNotifier = new ListenersNotifier();
   private final boolean backPressureEnabled;
+  /**
+   * number of blocks a subscriber can fall behind the last block before it is a laggard.
+   */
+  private final int maxLagBlocks;
+  private volatile FlowControlPolicy flowControlPolicy = FlowControlPolicy.SLOWEST;
 
   public DataList(final String identifier, final int blockSize, final int numberOfCacheBlocks, final boolean backPressureEnabled)
   {
@@ -89,6 +105,7 @@ public class DataList
     this.identifier = identifier;
     this.blockSize = blockSize;
     this.backPressureEnabled = backPressureEnabled;
+    maxLagBlocks = Math.max(MAX_COUNT_OF_INMEM_BLOCKS - 2, 1);
     first = last = new Block(identifier, blockSize);
   }
 
@@ -114,6 +131,10 @@ public class DataList
 
     int numberOfInMemBlockRewound = 0;
     synchronized (this) {
+      /* the listeners send the frames they have not sent yet again once the blocks are rewound */
+      for (DataListener dl : listeners.get().all) {
+        dl.rewindPendingData();
+      }
       for (Block temp = first; temp != null; temp = temp.next) {
         if (temp.starting_window >= longWindowId || temp.ending_window > longWindowId) {
           if (temp != last) {
@@ -124,7 +145,7 @@ public class DataList
               temp.discard(false);
               synchronized (temp) {
                 if (temp.refCount.get() != 0) {
-                  logger.debug("Discarded block {} has positive reference count. Listeners: {}", temp, all_listeners);
+                  logger.debug("Discarded block {} has positive reference count. Listeners: {}", temp, listeners.get());
                   throw new IllegalStateException("Discarded block " + temp + " has positive reference count!");
                 }
                 if (temp.data != null) {
@@ -155,16 +176,19 @@ public class DataList
     resumeSuspendedClients(numberOfInMemBlockPermits);
     logger.debug("Discarded {} in memory blocks during rewind. Number of in memory blocks permits {} after" +
         " rewinding {}.", numberOfInMemBlockRewound, numberOfInMemBlockPermits, this);
+    notifyListeners();
 
   }
 
   public void reset()
   {
     logger.debug("Resetting {}", this);
-    listeners.clear();
-    all_listeners.clear();
 
     synchronized (this) {
+      for (DataListener dl : listeners.get().all) {
+        dl.discardPendingData();
+      }
+      listeners.set(ListenerRegistry.EMPTY);
       if (storage != null) {
         Block temp = first;
         while (temp != last) {
@@ -193,18 +217,24 @@ public class DataList
     synchronized (this) {
       for (Block prev = null, temp = first; temp != null && temp.starting_window <= windowId;
           prev = temp, temp = temp.next) {
-        if (temp.ending_window > windowId || temp == last) {
+        /* a block with views waiting to be written to a subscriber is kept as it is until a later purge */
+        final boolean viewed = temp.viewCount.get() != 0;
+        if (viewed || temp.ending_window > windowId || temp == last) {
           if (prev != null) {
             first = temp;
             first.prev = null;
           }
-          first.purge(windowId);
+          if (viewed) {
+            logger.debug("Not purging {} and the blocks following it with pending views", temp);
+          } else {
+            first.purge(windowId);
+          }
           break;
         }
         temp.discard(false);
         synchronized (temp) {
           if (temp.refCount.get() != 0) {
-            logger.debug("Discarded block {} has positive reference count. Listeners: {}", temp, all_listeners);
+            logger.debug("Discarded block {} has positive reference count. Listeners: {}", temp, listeners.get());
             throw new IllegalStateException("Discarded block " + temp + " has positive reference count!");
           }
           if (temp.data != null) {
@@ -310,9 +340,73 @@ public class DataList
   }
 
   public void setSecondaryStorage(Storage storage, ExecutorService es)
+  {
+    setSecondaryStorage(storage, es, 0);
+  }
+
+  /**
+   * Sets the storage the blocks are spooled to when the memory blocks run out.
+   *
+   * @param storage spool storage
+   * @param es executor that spools and restores the blocks of this data list in the order they are submitted
+   * @param readAheadBlocks number of the spooled blocks ahead of a subscriber that are restored before it needs them
+   */
+  public void setSecondaryStorage(Storage storage, ExecutorService es, int readAheadBlocks)
   {
     this.storage = storage;
     storageExecutor = es;
+    this.readAheadBlocks = readAheadBlocks;
+  }
+
+  private Future<?> submitStorageTask(final Runnable runnable, final StorageTaskStats stats)
+  {
+    final StorageTask task = new StorageTask(runnable, stats);
+    try {
+      storageExecutor.execute(task);
+    } catch (RuntimeException e) {
+      task.cancel(false);
+      throw e;
+    }
+    return task;
+  }
+
+  /**
+   * Restores the spooled blocks following the given block in the background as long as there are memory blocks to
+   * spare, so that a subscriber reading from the spool does not wait for each block to be read.
+   */
+  private void readAhead(Block block)
+  {
+    for (int i = readAheadBlocks; i > 0 && numberOfInMemBlockPermits.get() > 1; i--) {
+      block = getNextBlock(block);
+      if (block == null) {
+        break;
+      }
+      block.readAhead();
+    }
+  }
+
+  /**
+   * Returns the memory block permits of the blocks following the given block that were read ahead for a subscriber
+   * that stopped reading before it got to them.
+   */
+  private void discardReadAhead(Block block)
+  {
+    int numberOfInMemBlockDiscarded = 0;
+    for (int i = readAheadBlocks; i > 0; i--) {
+      block = getNextBlock(block);
+      if (block == null) {
+        break;
+      }
+      if (block.discardReadAhead()) {
+        numberOfInMemBlockDiscarded++;
+      }
+    }
+    if (numberOfInMemBlockDiscarded > 0) {
+      final int numberOfInMemBlockPermits = this.numberOfInMemBlockPermits.addAndGet(numberOfInMemBlockDiscarded);
+      logger.debug("Discarded {} blocks read ahead. Number of in memory blocks permits {}.",
+          numberOfInMemBlockDiscarded, numberOfInMemBlockPermits);
+      resumeSuspendedClients(numberOfInMemBlockPermits);
+    }
   }
 
   /*
@@ -344,50 +438,20 @@ public class DataList
 
   public void addDataListener(DataListener dl)
   {
-    all_listeners.add(dl);
-    //logger.debug("total {} listeners {} -> {}", all_listeners.size(), dl, this);
-    ArrayList<BitVector> partitions = new ArrayList<>();
-    if (dl.getPartitions(partitions) > 0) {
-      for (BitVector partition : partitions) {
-        HashSet<DataListener> set;
-        if (listeners.containsKey(partition)) {
-          set = listeners.get(partition);
-        } else {
-          set = new HashSet<>();
-          listeners.put(partition, set);
-        }
-        set.add(dl);
-      }
-    } else {
-      HashSet<DataListener> set;
-      if (listeners.containsKey(DataListener.NULL_PARTITION)) {
-        set = listeners.get(DataListener.NULL_PARTITION);
-      } else {
-        set = new HashSet<>();
-        listeners.put(DataListener.NULL_PARTITION, set);
-      }
-
-      set.add(dl);
-    }
-    listenersNotifier.run();
+    ListenerRegistry registry;
+    do {
+      registry = listeners.get();
+    } while (!listeners.compareAndSet(registry, registry.add(dl)));
+    //logger.debug("total {} listeners {} -> {}", registry.all.length + 1, dl, this);
+    listenersNotifier.moreDataAvailable();
   }
 
   public void removeDataListener(DataListener dl)
   {
-    ArrayList<BitVector> partitions = new ArrayList<>();
-    if (dl.getPartitions(partitions) > 0) {
-      for (BitVector partition : partitions) {
-        if (listeners.containsKey(partition)) {
-          listeners.get(partition).remove(dl);
-        }
-      }
-    } else {
-      if (listeners.containsKey(DataListener.NULL_PARTITION)) {
-        listeners.get(DataListener.NULL_PARTITION).remove(dl);
-      }
-    }
-
-    all_listeners.remove(dl);
+    ListenerRegistry registry;
+    do {
+      registry = listeners.get();
+    } while (!listeners.compareAndSet(registry, registry.remove(dl)));
   }
 
   public boolean suspendRead(final AbstractClient client)
@@ -404,7 +468,7 @@ public class DataList
       resumedSuspendedClients = resumeSuspendedClients();
     } else {
       logger.debug("Keeping clients: {} suspended, numberOfInMemBlockPermits={}, Listeners: {}", suspendedClients,
-          numberOfInMemBlockPermits, all_listeners);
+          numberOfInMemBlockPermits, listeners.get());
     }
     return resumedSuspendedClients;
   }
@@ -426,6 +490,66 @@ public class DataList
     return (numberOfInMemBlockPermits.get() > 0);
   }
 
+  public FlowControlPolicy getFlowControlPolicy()
+  {
+    return flowControlPolicy;
+  }
+
+  /**
+   * Sets the policy that decides which subscriber groups hold back the publisher when back pressure is enabled.
+   *
+   * @param flowControlPolicy flow control policy
+   */
+  public void setFlowControlPolicy(FlowControlPolicy flowControlPolicy)
+  {
+    this.flowControlPolicy = flowControlPolicy;
+  }
+
+  /**
+   * Tells whether the publisher may add a new block under the {@link FlowControlPolicy} of the data list.
+   *
+   * @return true if the publisher may add a new block, false if it has to wait for the subscribers
+   */
+  public boolean hasCreditForNewBlock()
+  {
+    final boolean memoryBlockAvailable = isMemoryBlockAvailable();
+    if (backPressureEnabled) {
+      switch (flowControlPolicy) {
+        case QUORUM:
+          return (memoryBlockAvailable || storage == null) && hasQuorum();
+
+        case SPILL_SLOWEST:
+          if (storage != null) {
+            return memoryBlockAvailable;
+          }
+          break;
+
+        default:
+          break;
+      }
+    }
+    return memoryBlockAvailable || storage == null && !areSubscribersBehindByMax();
+  }
+
+  /**
+   * @return true if a majority of the listeners has credits and, without spooling, no listener is behind by twice the
+   * credits of a group
+   */
+  private boolean hasQuorum()
+  {
+    final DataListener[] all = listeners.get().all;
+    int credited = 0;
+    for (DataListener dl : all) {
+      final int credits = dl.getCredits();
+      if (credits > 0) {
+        credited++;
+      } else if (storage == null && credits <= -maxLagBlocks) {
+        return false;
+      }
+    }
+    return all.length == 0 || credited * 2 > all.length;
+  }
+
   public boolean areSubscribersBehindByMax()
   {
     boolean behind = false;
@@ -469,8 +593,27 @@ public class DataList
     }
     last.next = new Block(identifier, array, last.ending_window, last.ending_window);
     last.next.prev = last;
+    last.next.sequence = last.sequence + 1;
     last.release(false, true);
     last = last.next;
+    if (backPressureEnabled && storage != null && flowControlPolicy != FlowControlPolicy.SLOWEST) {
+      spillBehindCredits();
+    }
+  }
+
+  /**
+   * Spills the block that just fell behind the credits of the subscribers unless a laggard is still reading it. The
+   * laggards read it back from the spool when they get to it.
+   */
+  private void spillBehindCredits()
+  {
+    Block block = last;
+    for (int i = maxLagBlocks; i > 0 && block != null; i--) {
+      block = block.prev;
+    }
+    if (block != null && block.refCount.get() == 0 && block.data != null) {
+      block.evictBlock(false);
+    }
   }
 
   public byte[] getBuffer(long windowId)
@@ -494,11 +637,93 @@ public class DataList
     public long numBytesWaiting = 0;
     public long numBytesAllocated = 0;
     public String slowestConsumer;
+    /**
+     * number of times the listeners were notified about new data.
+     */
+    public long numNotifications;
+    /**
+     * number of notification requests that were folded into an already scheduled notification.
+     */
+    public long numCoalescedNotifications;
+    /**
+     * total time between scheduling a notification and the notifier starting to run.
+     */
+    public long totalNotifyLatencyNanos;
+    /**
+     * largest time between scheduling a notification and the notifier starting to run since the previous status.
+     */
+    public long maxNotifyLatencyNanos;
+    /**
+     * number of blocks waiting to be written to the spool.
+     */
+    public int numPendingSpools;
+    /**
+     * number of blocks written to the spool.
+     */
+    public long numSpools;
+    /**
+     * total time between scheduling a block to be written to the spool and the write completing.
+     */
+    public long totalSpoolLatencyNanos;
+    /**
+     * largest time between scheduling a block to be written to the spool and the write completing since the previous
+     * status.
+     */
+    public long maxSpoolLatencyNanos;
+    /**
+     * number of blocks waiting to be read back from the spool.
+     */
+    public int numPendingRestores;
+    /**
+     * number of blocks read back from the spool.
+     */
+    public long numRestores;
+    /**
+     * total time between a block being needed or read ahead and its read from the spool completing.
+     */
+    public long totalRestoreLatencyNanos;
+    /**
+     * largest time between a block being needed or read ahead and its read from the spool completing since the
+     * previous status.
+     */
+    public long maxRestoreLatencyNanos;
+    /**
+     * number of blocks that were scheduled to be read back from the spool ahead of the subscribers.
+     */
+    public long numReadAheads;
+    /**
+     * number of bytes of the blocks written to the spool before they were compressed, 0 unless the data list
+     * compresses the spooled blocks.
+     */
+    public long numSpoolBytes;
+    /**
+     * number of bytes of the compressed blocks written to the spool.
+     */
+    public long numSpoolCompressedBytes;
+    /**
+     * number of listeners that have run out of credits.
+     */
+    public int numLaggingListeners;
   }
 
   public Status getStatus()
   {
     Status status = new Status();
+    listenersNotifier.getStatus(status);
+    status.numPendingSpools = spoolStats.pending.get();
+    status.numSpools = spoolStats.count.get();
+    status.totalSpoolLatencyNanos = spoolStats.totalLatencyNanos.get();
+    status.maxSpoolLatencyNanos = spoolStats.maxLatencyNanos.getAndSet(0);
+    status.numPendingRestores = restoreStats.pending.get();
+    status.numRestores = restoreStats.count.get();
+    status.totalRestoreLatencyNanos = restoreStats.totalLatencyNanos.get();
+    status.maxRestoreLatencyNanos = restoreStats.maxLatencyNanos.getAndSet(0);
+    status.numReadAheads = numReadAheads.get();
+    final Storage storage = this.storage;
+    if (storage instanceof CompressedStorage) {
+      status.numSpoolBytes = ((CompressedStorage)storage).getNumBytes();
+      status.numSpoolCompressedBytes = ((CompressedStorage)storage).getNumStoredBytes();
+    }
 
     // When the number of subscribers becomes high or the number of blocks becomes high, consider optimize it.
     Block b = first;
@@ -511,9 +736,12 @@ public class DataList
     int oldestBlockIndex = Integer.MAX_VALUE;
     int oldestReadOffset = Integer.MAX_VALUE;
 
-    for (DataListener dl : all_listeners) {
+    for (DataListener dl : listeners.get().all) {
       LogicalNode logicalNode = (LogicalNode)dl;
       DataListIterator dli = logicalNode.getIterator();
+      if (dli.getCredits() <= 0) {
+        status.numLaggingListeners++;
+      }
       Integer index = indices.get(dli.da);
       if (index == null) {
         // error
@@ -532,7 +760,10 @@ public class DataList
     b = first;
     i = 0;
     while (b != null) {
-      status.numBytesAllocated += b.data.length;
+      final byte[] data = b.data;
+      if (data != null) {
+        status.numBytesAllocated += data.length;
+      }
       if (oldestBlockIndex == i) {
         status.numBytesWaiting += b.writingOffset - oldestReadOffset;
       } else if (oldestBlockIndex < i) {
@@ -590,11 +821,27 @@ public class DataList
      * the previous in the chain
      */
     Block prev;
+    /**
+     * position of the block in the chain, one more than the position of the previous block.
+     */
+    long sequence;
     /**
      * how count of references to this block.
      */
     private final AtomicInteger refCount;
+    /**
+     * count of the references held by the views of the block queued for gathering writes to the subscribers.
+     */
+    private final AtomicInteger viewCount = new AtomicInteger();
     private Future<?> future;
+    /**
+     * restore of the block scheduled ahead of the subscribers, guarded by the block.
+     */
+    private Future<?> readAhead;
+    /**
+     * whether the data was read ahead and no subscriber acquired the block since, guarded by the block.
+     */
+    private boolean readAheadUnused;
 
     public Block(String id, int size)
     {
@@ -632,6 +879,7 @@ public class DataList
     {
       long bs = starting_window & 0x7fffffff00000000L;
       try (DataListIterator dli = getIterator(this)) {
+        dli.awaitData();
         done:
         while (dli.hasNext()) {
           final SerializedData sd = dli.next();
@@ -684,6 +932,7 @@ public class DataList
       SerializedData lastReset = null;
 
       try (DataListIterator dli = getIterator(this)) {
+        dli.awaitData();
         done:
         while (dli.hasNext()) {
           SerializedData sd = dli.next();
@@ -767,50 +1016,126 @@ public class DataList
       }
     }
 
-    private Runnable getRetriever()
+    private Runnable getRetriever(final boolean readingAhead)
     {
       return new Runnable()
       {
         @Override
         public void run()
         {
-          byte[] data = storage.retrieve(identifier, uniqueIdentifier);
-          synchronized (Block.this) {
-            if (Block.this.data == null) {
-              Block.this.data = data;
-              readingOffset = 0;
-              writingOffset = data.length;
-              Block.this.notifyAll();
-              int numberOfInMemBlockPermits = DataList.this.numberOfInMemBlockPermits.decrementAndGet();
-              if (numberOfInMemBlockPermits < 0) {
-                logger.warn("Exceeded allowed memory block allocation by {}", -numberOfInMemBlockPermits);
+          byte[] data = null;
+          boolean restored = false;
+          try {
+            data = storage.retrieve(identifier, uniqueIdentifier);
+          } finally {
+            synchronized (Block.this) {
+              if (readingAhead && readAhead == null) {
+                logger.debug("Block {} was discarded while it was read ahead", Block.this);
+              } else if (data == null) {
+                logger.warn("Block {} could not be read from the storage", Block.this);
+              } else if (Block.this.data == null) {
+                Block.this.data = data;
+                readingOffset = 0;
+                writingOffset = data.length;
+                readAheadUnused = readingAhead;
+                restored = refCount.get() != 0;
+                int numberOfInMemBlockPermits = DataList.this.numberOfInMemBlockPermits.decrementAndGet();
+                if (numberOfInMemBlockPermits < 0) {
+                  logger.warn("Exceeded allowed memory block allocation by {}", -numberOfInMemBlockPermits);
+                }
+              } else {
+                logger.debug("Block {} was already loaded into memory", Block.this);
               }
-            } else {
-              logger.debug("Block {} was already loaded into memory", Block.this);
+              if (readingAhead) {
+                readAhead = null;
+              }
+              Block.this.notifyAll();
             }
           }
+          if (restored) {
+            /* the listeners that ran out of data while the block was restored resume with it */
+            notifyListeners();
+          }
         }
       };
     }
 
+    private void readAhead()
+    {
+      synchronized (Block.this) {
+        if (data == null && readAhead == null && (future == null || future.isDone()) && uniqueIdentifier != 0 &&
+            refCount.get() == 0) {
+          readAhead = submitStorageTask(getRetriever(true), restoreStats);
+          numReadAheads.incrementAndGet();
+        }
+      }
+    }
+
+    /**
+     * Drops the data read ahead for a subscriber that went away before it acquired the block, the block is still in
+     * the spool.
+     *
+     * @return true if the memory block permit of the data is to be returned
+     */
+    private boolean discardReadAhead()
+    {
+      synchronized (Block.this) {
+        if (refCount.get() != 0) {
+          return false;
+        }
+        if (readAhead != null) {
+          readAhead.cancel(false);
+          readAhead = null;
+        }
+        if (readAheadUnused && data != null) {
+          readAheadUnused = false;
+          data = null;
+          return true;
+        }
+      }
+      return false;
+    }
+
     protected void acquire(boolean wait)
     {
       int refCount = this.refCount.getAndIncrement();
       synchronized (Block.this) {
         if (data != null) {
+          readAheadUnused = false;
           return;
         }
+        if (readAhead != null) {
+          if (readAhead.cancel(false)) {
+            readAhead = null;
+          } else if (wait) {
+            try {
+              while (data == null && readAhead != null) {
+                wait();
+              }
+            } catch (InterruptedException ex) {
+              throw new RuntimeException("Interrupted while waiting for data to be read ahead!", ex);
+            }
+            if (data != null) {
+              readAheadUnused = false;
+              return;
+            }
+          } else {
+            return;
+          }
+        }
       }
       if (refCount == 0 && storage != null) {
-        final Runnable retriever = getRetriever();
+        final Runnable retriever = getRetriever(false);
         if (future != null && future.cancel(false)) {
           logger.debug("Block {} future is cancelled", this);
         }
         if (wait) {
           future = null;
+          final long start = System.nanoTime();
           retriever.run();
+          restoreStats.record(System.nanoTime() - start);
         } else {
-          future = storageExecutor.submit(retriever);
+          future = submitStorageTask(retriever, restoreStats);
         }
       } else if (wait) {
         try {
@@ -828,6 +1153,15 @@ public class DataList
       }
     }
 
+    /**
+     * Releases the reference taken for a view of the block with {@link DataListIterator#acquireBlock()}.
+     */
+    void releaseView()
+    {
+      viewCount.decrementAndGet();
+      release(false, false);
+    }
+
     private Runnable getStorer(final byte[] data, final int readingOffset, final int writingOffset,
         final Storage storage)
     {
@@ -872,6 +1206,13 @@ public class DataList
           }
         }
       }
+
+      /*
+       * with a quorum, the publisher may be waiting for a group that now has credits again.
+       */
+      if (refCount == 0 && !writer && flowControlPolicy == FlowControlPolicy.QUORUM && hasCreditForNewBlock()) {
+        resumeSuspendedClients();
+      }
     }
 
     private void evictBlock(boolean wait)
@@ -885,7 +1226,7 @@ public class DataList
         future = null;
         storer.run();
       } else if (numberOfInMemBlockPermits < MAX_COUNT_OF_INMEM_BLOCKS / 2) {
-        future = storageExecutor.submit(storer);
+        future = submitStorageTask(storer, spoolStats);
       } else {
         future = null;
       }
@@ -895,7 +1236,12 @@ public class DataList
     {
       if (refCount == 0) {
         if (backPressureEnabled) {
-          if (!writer) {
+          if (storage != null && flowControlPolicy != FlowControlPolicy.SLOWEST) {
+            /* the laggards read the block back from the spool */
+            final boolean evict = !writer && !isReferencedBeforeByCreditedListener();
+            logger.debug("Block {} evict {}", this, evict);
+            return evict;
+          } else if (!writer) {
             boolean evict = true;
             // Search backwards from current block as opposed to searching forward from first block till current block as
             // it is more likely to find the match quicker.
@@ -920,6 +1266,23 @@ public class DataList
       return false;
     }
 
+    /**
+     * Tells whether a block before this one is referenced by a subscriber that still has credits. The blocks that are
+     * further behind the last block than the credits of a group are only referenced by laggards.
+     */
+    private boolean isReferencedBeforeByCreditedListener()
+    {
+      synchronized (DataList.this) {
+        final long lastSequence = last.sequence;
+        for (Block temp = this.prev; temp != null && lastSequence - temp.sequence < maxLagBlocks; temp = temp.prev) {
+          if (temp.refCount.get() != 0) {
+            return true;
+          }
+        }
+      }
+      return false;
+    }
+
     private boolean isPublisherAheadByMax()
     {
       boolean ahead = false;
@@ -964,6 +1327,12 @@ public class DataList
         if (future != null && future.cancel(false)) {
           logger.debug("Block {} future is cancelled", this);
         }
+        synchronized (Block.this) {
+          if (readAhead != null) {
+            readAhead.cancel(false);
+            readAhead = null;
+          }
+        }
         if (wait) {
           future = null;
           discarder.run();
@@ -1003,15 +1372,16 @@ public class DataList
     int size;
 
     /**
+     * Creates an iterator reading from the given block. A spooled block is restored by the spool worker, see
+     * {@link #hasData()}.
      *
-     * @param da
+     * @param da block to start reading from
      */
     DataListIterator(Block da)
     {
-      da.acquire(true);
+      da.acquire(false);
       this.da = da;
-      buffer = da.data;
-      readOffset = da.readingOffset;
+      hasData();
     }
 
     // this is a hack! Get rid of it.
@@ -1025,6 +1395,49 @@ public class DataList
       return readOffset;
     }
 
+    /**
+     * Takes a reference for a view to the block of the frame last returned by the iterator, so that the block is
+     * neither spooled, purged nor discarded until the reference is released with {@link Block#releaseView()}.
+     *
+     * @return the referenced block
+     */
+    Block acquireBlock()
+    {
+      final Block da = this.da;
+      da.viewCount.incrementAndGet();
+      da.acquire(false);
+      return da;
+    }
+
+    /**
+     * Moves the iterator to a frame it returned before. The caller holds a reference to the block of the frame, so
+     * its data is in memory.
+     *
+     * @param block block of the frame
+     * @param offset offset of the frame in the block
+     */
+    void rewind(Block block, int offset)
+    {
+      block.acquire(false);
+      da.release(false, false);
+      da = block;
+      size = 0;
+      buffer = null;
+      hasData();
+      readOffset = offset;
+    }
+
+    /**
+     * @return number of blocks the iterator can still fall behind the last block before it is a laggard
+     */
+    public int getCredits()
+    {
+      synchronized (DataList.this) {
+        final Block da = this.da;
+        return da == null ? maxLagBlocks : (int)(maxLagBlocks - (last.sequence - da.sequence));
+      }
+    }
+
     protected boolean switchToNextBlock()
     {
       Block next = getNextBlock(da);
@@ -1032,15 +1445,57 @@ public class DataList
         return false;
       }
       //logger.debug("{}: switching to the next block {}->{}", this, da, da.next);
-      next.acquire(true);
+      next.acquire(false);
       da.release(false, false);
+      if (readAheadBlocks > 0 && storage != null) {
+        readAhead(next);
+      }
       da = next;
       size = 0;
-      buffer = da.data;
-      readOffset = da.readingOffset;
+      buffer = null;
+      hasData();
+      return true;
+    }
+
+    /**
+     * Picks up the data of the block the iterator is on once it is in memory. The spool worker restores a spooled
+     * block instead of the thread that iterates, which is the event loop of the subscriber. Until the restore
+     * completes the iterator has no next element, so the listener suspends, and the restore notifies the listeners
+     * to resume.
+     *
+     * @return true if the data of the block is in memory
+     */
+    protected boolean hasData()
+    {
+      if (buffer == null) {
+        synchronized (da) {
+          if (da.data == null) {
+            return false;
+          }
+          buffer = da.data;
+          readOffset = da.readingOffset;
+        }
+      }
       return true;
     }
 
+    /**
+     * Waits for the spool worker to restore the block the iterator is on, for the maintenance of the data list that
+     * needs the data right away.
+     */
+    void awaitData()
+    {
+      synchronized (da) {
+        try {
+          while (!hasData()) {
+            da.wait();
+          }
+        } catch (InterruptedException ex) {
+          throw new RuntimeException("Interrupted while waiting for block " + da + " to be restored!", ex);
+        }
+      }
+    }
+
     /**
      *
      * @return boolean
@@ -1049,6 +1504,9 @@ public class DataList
     public boolean hasNext()
     {
       while (size == 0) {
+        if (!hasData()) {
+          return false;
+        }
         size = VarInt.read(buffer, readOffset, da.writingOffset, nextOffset);
         if (nextOffset.integer > -5 && nextOffset.integer < 1) {
           if (da.writingOffset == buffer.length && switchToNextBlock()) {
@@ -1104,6 +1562,9 @@ public class DataList
     public void close()
     {
       if (da != null) {
+        if (readAheadBlocks > 0 && storage != null) {
+          discardReadAhead(da);
+        }
         da.release(false, false);
         da = null;
         buffer = null;
@@ -1124,47 +1585,178 @@ public class DataList
 
   }
 
+  /**
+   * Immutable view of the registered listeners.
+   */
+  private static final class ListenerRegistry
+  {
+    private static final ListenerRegistry EMPTY = new ListenerRegistry(new DataListener[0]);
+
+    private final DataListener[] all;
+
+    private ListenerRegistry(DataListener[] all)
+    {
+      this.all = all;
+    }
+
+    private ListenerRegistry add(DataListener dl)
+    {
+      for (DataListener listener : all) {
+        if (listener == dl) {
+          return this;
+        }
+      }
+
+      final DataListener[] all = Arrays.copyOf(this.all, this.all.length + 1);
+      all[this.all.length] = dl;
+      return new ListenerRegistry(all);
+    }
+
+    private ListenerRegistry remove(DataListener dl)
+    {
+      int index = -1;
+      for (int i = all.length; i-- > 0;) {
+        if (all[i] == dl) {
+          index = i;
+          break;
+        }
+      }
+      if (index == -1) {
+        return this;
+      }
+
+      final DataListener[] all = new DataListener[this.all.length - 1];
+      System.arraycopy(this.all, 0, all, 0, index);
+      System.arraycopy(this.all, index + 1, all, index, all.length - index);
+      return new ListenerRegistry(all);
+    }
+
+    @Override
+    public String toString()
+    {
+      return Arrays.toString(all);
+    }
+  }
+
+  /**
+   * Notifies the listeners on the auto flush executor. Requests to notify that arrive while a notification is already
+   * scheduled or running are coalesced into at most one more run, so a burst of flushes results in a single wakeup.
+   * Requesting a notification never takes a lock.
+   */
+  /**
+   * Queue depth and latency of the spool writes or reads of the data list.
+   */
+  private static final class StorageTaskStats
+  {
+    private final AtomicInteger pending = new AtomicInteger();
+    private final AtomicLong count = new AtomicLong();
+    private final AtomicLong totalLatencyNanos = new AtomicLong();
+    private final AtomicLong maxLatencyNanos = new AtomicLong();
+
+    private void record(final long latency)
+    {
+      count.incrementAndGet();
+      totalLatencyNanos.addAndGet(latency);
+      long max;
+      do {
+        max = maxLatencyNanos.get();
+      } while (latency > max && !maxLatencyNanos.compareAndSet(max, latency));
+    }
+  }
+
+  /**
+   * Spool write or read that counts as pending from its submission until it completes or is cancelled.
+   */
+  private static final class StorageTask extends FutureTask<Void>
+  {
+    private final StorageTaskStats stats;
+    private final long submittedNanos;
+
+    private StorageTask(final Runnable runnable, final StorageTaskStats stats)
+    {
+      super(runnable, null);
+      this.stats = stats;
+      submittedNanos = System.nanoTime();
+      stats.pending.incrementAndGet();
+    }
+
+    @Override
+    protected void done()
+    {
+      stats.pending.decrementAndGet();
+      if (!isCancelled()) {
+        stats.record(System.nanoTime() - submittedNanos);
+      }
+    }
+  }
+
   private class ListenersNotifier implements Runnable
   {
-    private volatile Future<?> future;
-    private boolean isMoreDataAvailable = false;
+    private static final int IDLE = 0;
+    private static final int SCHEDULED = 1;
+    private static final int RUNNING = 2;
+    private static final int RUNNING_MORE_DATA_AVAILABLE = 3;
+
+    private final AtomicInteger state = new AtomicInteger(IDLE);
+    private volatile long scheduledNanos;
+    private final AtomicLong numNotifications = new AtomicLong();
+    private final AtomicLong numCoalescedNotifications = new AtomicLong();
+    private final AtomicLong totalNotifyLatencyNanos = new AtomicLong();
+    private final AtomicLong maxNotifyLatencyNanos = new AtomicLong();
 
     private void moreDataAvailable()
     {
-      final Future<?> future = this.future;
-      if (future == null || future.isDone() || future.isCancelled()) {
-        // Do not schedule a new task if there is an existing one that is still running or is waiting in the queue
-        this.future = autoFlushExecutor.submit(this);
-      } else {
-        synchronized (this) {
-          if (this.future == null) {
-            // future is set to null before run() exists, no need to check whether future isDone() or isCancelled()
-            this.future = autoFlushExecutor.submit(this);
-          } else {
-            isMoreDataAvailable = true;
-          }
+      while (true) {
+        switch (state.get()) {
+          case IDLE:
+            if (state.compareAndSet(IDLE, SCHEDULED)) {
+              schedule();
+              return;
+            }
+            break;
+
+          case RUNNING:
+            if (state.compareAndSet(RUNNING, RUNNING_MORE_DATA_AVAILABLE)) {
+              return;
+            }
+            break;
+
+          default:
+            // a run is already scheduled or will be rescheduled, it is going to see the new data
+            numCoalescedNotifications.incrementAndGet();
+            return;
         }
       }
     }
 
-    private boolean addedData()
+    private void schedule()
+    {
+      scheduledNanos = System.nanoTime();
+      try {
+        autoFlushExecutor.submit(this);
+      } catch (RuntimeException e) {
+        state.set(IDLE);
+        throw e;
+      }
+    }
+
+    private boolean addedData(final DataListener[] listeners)
     {
       boolean doesAtLeastOneListenerHaveDataToSend = false;
-      for (DataListener dl : all_listeners) {
+      for (DataListener dl : listeners) {
         try {
           doesAtLeastOneListenerHaveDataToSend |= dl.addedData(false);
         } catch (RuntimeException e) {
           logger.warn("{} removing {} due to exception", this, dl, e);
           removeDataListener(dl);
-          break;
         }
       }
       return doesAtLeastOneListenerHaveDataToSend;
     }
 
-    private boolean checkIfListenersHaveDataToSendOnly()
+    private boolean checkIfListenersHaveDataToSendOnly(final DataListener[] listeners)
     {
-      for (DataListener dl : all_listeners) {
+      for (DataListener dl : listeners) {
         try {
           if (dl.addedData(true)) {
             return true;
@@ -1172,32 +1764,51 @@ public class DataList
         } catch (RuntimeException e) {
           logger.warn("{} removing {} due to exception", this, dl, e);
           removeDataListener(dl);
-          return checkIfListenersHaveDataToSendOnly();
         }
       }
       return false;
     }
 
+    private void recordLatency()
+    {
+      final long latency = System.nanoTime() - scheduledNanos;
+      numNotifications.incrementAndGet();
+      totalNotifyLatencyNanos.addAndGet(latency);
+      long max;
+      do {
+        max = maxNotifyLatencyNanos.get();
+      } while (latency > max && !maxNotifyLatencyNanos.compareAndSet(max, latency));
+    }
+
+    private void getStatus(final Status status)
+    {
+      status.numNotifications = numNotifications.get();
+      status.numCoalescedNotifications = numCoalescedNotifications.get();
+      status.totalNotifyLatencyNanos = totalNotifyLatencyNanos.get();
+      status.maxNotifyLatencyNanos = maxNotifyLatencyNanos.getAndSet(0);
+    }
+
     @Override
     public void run()
     {
       logger.debug("{} entered run", this);
+      state.set(RUNNING);
+      recordLatency();
+      boolean hasDataToSend = false;
       try {
-        if (addedData() || checkIfListenersHaveDataToSendOnly()) {
-          future = autoFlushExecutor.submit(this);
-        } else {
-          synchronized (this) {
-            if (isMoreDataAvailable) {
-              isMoreDataAvailable = false;
-              future = autoFlushExecutor.submit(this);
-            } else {
-              future = null;
-            }
-          }
-        }
+        final DataListener[] listeners = DataList.this.listeners.get().all;
+        hasDataToSend = addedData(listeners) || checkIfListenersHaveDataToSendOnly(listeners);
       } catch (RuntimeException e) {
         logger.warn("{}", this, e);
       } finally {
+        if (hasDataToSend || !state.compareAndSet(RUNNING, IDLE)) {
+          state.set(SCHEDULED);
+          try {
+            schedule();
+          } catch (RuntimeException e) {
+            logger.warn("{}", this, e);
+          }
+        }
         logger.debug("{} exiting run", this);
       }
     }
@@ -1205,9 +1816,8 @@ public class DataList
     @Override
     public String toString()
     {
-      return new ToStringBuilder(this, ToStringStyle.DEFAULT).append(DataList.this)
-          .append("future", future == null ? null : future.getClass().getSimpleName() + '@' + Integer.toHexString(System.identityHashCode(future)))
-          .append("isMoreDataAvailable", isMoreDataAvailable).toString();
+      return new ToStringBuilder(this, ToStringStyle.DEFAULT).append(DataList.this).append("state", state.get())
+          .toString();
     }
   }
 }
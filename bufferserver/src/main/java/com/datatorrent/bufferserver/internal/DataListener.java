@@ -45,4 +45,24 @@ public interface DataListener
    */
   int getPartitions(Collection<BitVector> partitions);
 
+  /**
+   * Advertises how much more the listener can consume, the number of blocks it can still fall behind the publisher
+   * before it is a laggard under the {@link FlowControlPolicy} of the data list.
+   *
+   * @return credits of the listener, 0 or less for a laggard
+   */
+  int getCredits();
+
+  /**
+   * Drops the data the listener took from the data list but has not sent yet, before the data list discards its
+   * blocks.
+   */
+  void discardPendingData();
+
+  /**
+   * Drops the data the listener took from the data list but has not sent yet and goes back to the first frame it has
+   * not sent, before the data list rewinds its blocks. Called with the data list locked.
+   */
+  void rewindPendingData();
+
 }
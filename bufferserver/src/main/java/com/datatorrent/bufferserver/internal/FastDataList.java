@@ -178,6 +178,9 @@ public class FastDataList extends DataList
     public boolean hasNext()
     {
       while (size == 0) {
+        if (!hasData()) {
+          return false;
+        }
         if (da.writingOffset - readOffset >= 2) {
           size = buffer[readOffset];
           size |= (buffer[readOffset + 1] << 8);
@@ -0,0 +1,47 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package com.datatorrent.bufferserver.internal;
+
+/**
+ * Decides which subscriber groups hold back the publisher of a {@link DataList} when back pressure is enabled.<p>
+ * <br>
+ * Every {@link DataListener} advertises its credits, the number of blocks it can still fall behind the publisher
+ * before it is a laggard. A group that keeps up with the publisher has as many credits as the data list keeps blocks
+ * in memory, less two, a group that has run out of credits is a laggard.<br>
+ *
+ * @since 4.0.0
+ */
+public enum FlowControlPolicy
+{
+  /**
+   * The publisher waits for the slowest group, so one laggard holds back all the groups.
+   */
+  SLOWEST,
+  /**
+   * The publisher waits only while less than a majority of the groups have credits. With spooling, the blocks the
+   * laggards have not read yet are spooled and the laggards read them back. Without spooling, the blocks stay in
+   * memory, so the publisher still waits for a laggard that has fallen behind by twice the credits of a group.
+   */
+  QUORUM,
+  /**
+   * The publisher never waits for the laggards, the blocks they have not read yet are spooled and the laggards read
+   * them back while the other groups keep reading from memory. Without spooling, it is the same as {@link #SLOWEST}.
+   */
+  SPILL_SLOWEST
+}
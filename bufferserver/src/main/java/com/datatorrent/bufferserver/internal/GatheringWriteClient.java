@@ -0,0 +1,47 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package com.datatorrent.bufferserver.internal;
+
+import java.nio.channels.SocketChannel;
+
+/**
+ * Subscriber connection that lets the {@link PhysicalNode} write views of {@link DataList} blocks straight to the
+ * socket with gathering writes instead of copying every tuple into the connection send buffer.<p>
+ * <br>
+ * Frames stored in a classic {@link DataList} block are already length prepended the same way they are sent to the
+ * subscriber, so contiguous frames can be written to the socket as they are.
+ *
+ * @since 4.0.0
+ */
+public interface GatheringWriteClient
+{
+  /**
+   *
+   * @return the socket channel of the subscriber connection
+   */
+  SocketChannel getSocketChannel();
+
+  /**
+   * Requests a call to {@link PhysicalNode#writePendingViews()} from the event loop of the connection once the socket
+   * can accept more data. The socket is only ever written from that event loop.
+   *
+   * @param node physical node with pending block views
+   */
+  void notifyWhenWritable(PhysicalNode node);
+}
@@ -20,12 +20,15 @@ package com.datatorrent.bufferserver.internal;
 
 import java.util.Collection;
 import java.util.HashSet;
+import java.util.Iterator;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import com.datatorrent.bufferserver.internal.DataList.DataListIterator;
+import com.datatorrent.bufferserver.packet.CompressedPayloadTuple;
 import com.datatorrent.bufferserver.packet.MessageType;
+import com.datatorrent.bufferserver.packet.PayloadTuple;
 import com.datatorrent.bufferserver.packet.Tuple;
 import com.datatorrent.bufferserver.policy.GiveAll;
 import com.datatorrent.bufferserver.policy.Policy;
@@ -34,6 +37,7 @@ import com.datatorrent.bufferserver.util.Codec;
 import com.datatorrent.bufferserver.util.SerializedData;
 import com.datatorrent.netlet.EventLoop;
 import com.datatorrent.netlet.WriteOnlyClient;
+import com.datatorrent.netlet.util.VarInt;
 
 /**
  * LogicalNode represents a logical node in a DAG<p>
@@ -51,12 +55,22 @@ public class LogicalNode implements DataListener
   private final String group;
   private final HashSet<PhysicalNode> physicalNodes;
   private final HashSet<BitVector> partitions;
+  private PartitionRoutingTable routingTable;
   private final Policy policy = GiveAll.getInstance();
   private final DataListIterator iterator;
   private final long skipWindowId;
   private final EventLoop eventloop;
   private long baseSeconds;
   private boolean caughtup;
+  private boolean decompressPayloads;
+  /**
+   * first frame the physical nodes did not get when the data list was rewound, guarded by this.
+   */
+  private PhysicalNode.UnsentFrame unsentFrame;
+  /**
+   * whether the data list was rewound since the iterator was last moved back, guarded by this.
+   */
+  private boolean rewound;
 
   /**
    *
@@ -103,7 +117,7 @@ public class LogicalNode implements DataListener
    */
   public void addConnection(WriteOnlyClient connection)
   {
-    PhysicalNode pn = new PhysicalNode(connection);
+    PhysicalNode pn = new PhysicalNode(connection, iterator);
     if (!physicalNodes.contains(pn)) {
       physicalNodes.add(pn);
     }
@@ -115,7 +129,16 @@ public class LogicalNode implements DataListener
    */
   public void removeChannel(WriteOnlyClient client)
   {
-    physicalNodes.removeIf(node -> (node.getClient().equals(client)));
+    for (Iterator<PhysicalNode> i = physicalNodes.iterator(); i.hasNext(); ) {
+      final PhysicalNode pn = i.next();
+      if (pn.getClient().equals(client)) {
+        pn.discardPendingViews();
+        i.remove();
+      }
+    }
+    if (physicalNodes.isEmpty()) {
+      dropUnsentFrame();
+    }
   }
 
   /**
@@ -126,6 +149,18 @@ public class LogicalNode implements DataListener
   public void addPartition(int partition, int mask)
   {
     partitions.add(new BitVector(partition, mask));
+    routingTable = new PartitionRoutingTable(partitions);
+  }
+
+  /**
+   * Sets whether the compressed payloads are decompressed before they are sent to the physical nodes, which is the
+   * case when the subscribers do not accept the compression of the publisher.
+   *
+   * @param decompressPayloads true if the compressed payloads are to be decompressed
+   */
+  public void setDecompressPayloads(boolean decompressPayloads)
+  {
+    this.decompressPayloads = decompressPayloads;
   }
 
   boolean ready = true;
@@ -173,6 +208,7 @@ public class LogicalNode implements DataListener
           switch (data.buffer[data.dataOffset]) {
 
             case MessageType.PAYLOAD_VALUE:
+            case MessageType.COMPRESSED_PAYLOAD_VALUE:
               ++skippedPayloadTuples;
               break;
 
@@ -210,6 +246,7 @@ public class LogicalNode implements DataListener
                   physicalNodes);
           }
         }
+        flushPhysicalNodes();
       } catch (Exception e) {
         logger.error("Disconnecting {}", this, e);
         boot();
@@ -226,6 +263,9 @@ public class LogicalNode implements DataListener
   @Override
   public boolean addedData(boolean checkIfListenerHaveDataToSendOnly)
   {
+    if (!checkIfListenerHaveDataToSendOnly) {
+      moveBackAfterRewind();
+    }
     if (!checkIfListenerHaveDataToSendOnly && isReady()) {
       if (caughtup) {
         try {
@@ -240,6 +280,10 @@ public class LogicalNode implements DataListener
                   ready = policy.distribute(physicalNodes, data);
                   break;
 
+                case MessageType.COMPRESSED_PAYLOAD_VALUE:
+                  ready = policy.distribute(physicalNodes, decompressPayloads ? decompress(data) : data);
+                  break;
+
                 case MessageType.NO_MESSAGE_VALUE:
                 case MessageType.NO_MESSAGE_ODD_VALUE:
                   break;
@@ -260,16 +304,16 @@ public class LogicalNode implements DataListener
           } else {
             while (ready && iterator.hasNext()) {
               SerializedData data = iterator.next();
-              final int length = data.length - data.dataOffset + data.offset;
               switch (data.buffer[data.dataOffset]) {
                 case MessageType.PAYLOAD_VALUE:
-                  Tuple tuple = Tuple.getTuple(data.buffer, data.dataOffset, length);
-                  int value = tuple.getPartition();
-                  for (BitVector bv : partitions) {
-                    if (bv.matches(value)) {
-                      ready = policy.distribute(physicalNodes, data);
-                      break;
-                    }
+                  if (routingTable.matches(PayloadTuple.getPartition(data.buffer, data.dataOffset))) {
+                    ready = policy.distribute(physicalNodes, data);
+                  }
+                  break;
+
+                case MessageType.COMPRESSED_PAYLOAD_VALUE:
+                  if (routingTable.matches(PayloadTuple.getPartition(data.buffer, data.dataOffset))) {
+                    ready = policy.distribute(physicalNodes, decompressPayloads ? decompress(data) : data);
                   }
                   break;
 
@@ -278,7 +322,8 @@ public class LogicalNode implements DataListener
                   break;
 
                 case MessageType.RESET_WINDOW_VALUE:
-                  tuple = Tuple.getTuple(data.buffer, data.dataOffset, length);
+                  final int length = data.length - data.dataOffset + data.offset;
+                  Tuple tuple = Tuple.getTuple(data.buffer, data.dataOffset, length);
                   baseSeconds = (long)tuple.getBaseSeconds() << 32;
                   ready = GiveAll.getInstance().distribute(physicalNodes, data);
                   break;
@@ -289,6 +334,7 @@ public class LogicalNode implements DataListener
               }
             }
           }
+          flushPhysicalNodes();
         } catch (Exception e) {
           logger.error("Disconnecting {}", this, e);
           boot();
@@ -297,9 +343,38 @@ public class LogicalNode implements DataListener
         catchUp();
       }
     }
+    /* no data while the iterator waits for a block restored from the spool, the restore notifies the data list again */
     return iterator.hasNext();
   }
 
+  /**
+   * Decompresses a compressed payload tuple into a payload tuple prefixed with its length.
+   *
+   * @param data serialized compressed payload tuple
+   * @return serialized payload tuple
+   */
+  private static SerializedData decompress(SerializedData data)
+  {
+    final byte[] tuple = CompressedPayloadTuple.getSerializedPayloadTuple(data.buffer, data.dataOffset,
+        data.length - data.dataOffset + data.offset);
+    final byte[] array = new byte[VarInt.getSize(tuple.length) + tuple.length];
+    final int dataOffset = VarInt.write(tuple.length, array, 0);
+    System.arraycopy(tuple, 0, array, dataOffset, tuple.length);
+    final SerializedData decompressed = new SerializedData(array, 0, array.length);
+    decompressed.dataOffset = dataOffset;
+    return decompressed;
+  }
+
+  /**
+   * Writes out the data that physical nodes with gathering writes queued while distributing.
+   */
+  private void flushPhysicalNodes()
+  {
+    for (PhysicalNode pn : physicalNodes) {
+      pn.flush();
+    }
+  }
+
   /**
    *
    * @param partitions
@@ -312,6 +387,99 @@ public class LogicalNode implements DataListener
     return partitions.size();
   }
 
+  @Override
+  public int getCredits()
+  {
+    return iterator.getCredits();
+  }
+
+  /**
+   * Drops the block views the physical nodes have not written yet. A subscriber that got a part of a frame is
+   * disconnected as the rest of its stream would not make sense.
+   */
+  @Override
+  public void discardPendingData()
+  {
+    for (PhysicalNode pn : physicalNodes) {
+      if (pn.discardPendingViews()) {
+        logger.warn("Disconnecting {} with a partly written frame.", pn);
+        eventloop.disconnect(pn.getClient());
+      }
+    }
+    dropUnsentFrame();
+  }
+
+  /**
+   * Has the physical nodes drop their pending views, the iterator is moved back to the first frame they did not get
+   * on the thread that iterates, see {@link #moveBackAfterRewind()}.
+   */
+  @Override
+  public void rewindPendingData()
+  {
+    PhysicalNode.UnsentFrame first = null;
+    for (PhysicalNode pn : physicalNodes) {
+      first = earlier(first, pn.rewindPendingViews());
+    }
+    synchronized (this) {
+      unsentFrame = earlier(unsentFrame, first);
+      rewound = true;
+    }
+  }
+
+  private static PhysicalNode.UnsentFrame earlier(PhysicalNode.UnsentFrame frame1, PhysicalNode.UnsentFrame frame2)
+  {
+    if (frame1 == null) {
+      return frame2;
+    }
+    if (frame2 == null) {
+      return frame1;
+    }
+    if (frame2.isBefore(frame1)) {
+      frame1.release();
+      return frame2;
+    }
+    frame2.release();
+    return frame1;
+  }
+
+  /**
+   * Moves the iterator back to the first frame the physical nodes did not get before the data list was rewound. The
+   * physical nodes skip the frames they got before, so that they get each frame once.
+   */
+  private void moveBackAfterRewind()
+  {
+    final PhysicalNode.UnsentFrame frame;
+    synchronized (this) {
+      if (!rewound) {
+        return;
+      }
+      rewound = false;
+      frame = unsentFrame;
+      unsentFrame = null;
+      for (PhysicalNode pn : physicalNodes) {
+        pn.resumeAfterRewind();
+      }
+    }
+    if (frame != null) {
+      logger.debug("Moving {} back to offset {} of {} after a rewind", this, frame.offset, frame.block);
+      iterator.rewind(frame.block, frame.offset);
+      frame.release();
+    }
+  }
+
+  private void dropUnsentFrame()
+  {
+    final PhysicalNode.UnsentFrame frame;
+    synchronized (this) {
+      frame = unsentFrame;
+      unsentFrame = null;
+      rewound = false;
+    }
+    if (frame != null) {
+      frame.release();
+    }
+  }
+
   /**
    *
    * @return int
@@ -341,9 +509,11 @@ public class LogicalNode implements DataListener
   public void boot()
   {
     for (PhysicalNode pn : physicalNodes) {
+      pn.discardPendingViews();
       eventloop.disconnect(pn.getClient());
     }
     physicalNodes.clear();
+    dropUnsentFrame();
   }
 
   @Override
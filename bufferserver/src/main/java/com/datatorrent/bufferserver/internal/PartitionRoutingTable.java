@@ -0,0 +1,98 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package com.datatorrent.bufferserver.internal;
+
+import java.util.Arrays;
+import java.util.Collection;
+
+import com.datatorrent.bufferserver.util.BitVector;
+
+/**
+ * Lookup table that tells whether a tuple partition matches any of the partitions of a subscriber group.<p>
+ * <br>
+ * The union of the partition masks of the group is used to index a table that is computed once, so routing a tuple
+ * costs a single array access regardless of the number of partitions. When the union of the masks is too wide for a
+ * table, the partitions are scanned linearly.
+ *
+ * @since 4.0.0
+ */
+public final class PartitionRoutingTable
+{
+  /**
+   * widest union of partition masks for which a lookup table is built.
+   */
+  public static final int MAX_TABLE_MASK = 0xffff;
+  private final BitVector[] partitions;
+  private final int mask;
+  private final boolean[] table;
+
+  public PartitionRoutingTable(Collection<BitVector> partitions)
+  {
+    this.partitions = partitions.toArray(new BitVector[partitions.size()]);
+    int mask = 0;
+    for (BitVector bv : this.partitions) {
+      mask |= bv.getMask();
+    }
+    this.mask = mask;
+
+    if (mask >= 0 && mask <= MAX_TABLE_MASK) {
+      table = new boolean[mask + 1];
+      for (BitVector bv : this.partitions) {
+        /*
+         * mark every index that agrees with the partition bits, i.e. all the combinations of the bits which are in
+         * the union of the masks but not in the mask of this partition.
+         */
+        final int free = mask & ~bv.getMask();
+        int combination = free;
+        do {
+          table[bv.getBits() | combination] = true;
+          combination = (combination - 1) & free;
+        } while (combination != free);
+      }
+    } else {
+      table = null;
+    }
+  }
+
+  /**
+   *
+   * @param partition partition of the tuple
+   * @return true if the partition matches any of the partitions the table was built from
+   */
+  public boolean matches(int partition)
+  {
+    if (table != null) {
+      return table[partition & mask];
+    }
+
+    for (BitVector bv : partitions) {
+      if (bv.matches(partition)) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  @Override
+  public String toString()
+  {
+    return "PartitionRoutingTable{" + "mask=" + Integer.toBinaryString(mask) + ", partitions=" +
+        Arrays.toString(partitions) + ", table=" + (table == null ? "null" : table.length) + '}';
+  }
+}
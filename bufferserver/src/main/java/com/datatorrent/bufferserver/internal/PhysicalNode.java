@@ -18,11 +18,18 @@
  */
 package com.datatorrent.bufferserver.internal;
 
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import com.datatorrent.bufferserver.packet.MessageType;
 import com.datatorrent.bufferserver.util.SerializedData;
+import com.datatorrent.bufferserver.util.SharedMemoryRing;
 import com.datatorrent.netlet.WriteOnlyClient;
 
 /**
@@ -32,20 +39,71 @@ import com.datatorrent.netlet.WriteOnlyClient;
  */
 public class PhysicalNode
 {
+  /**
+   * maximum number of bytes referenced by pending block views before the node reports itself as blocked.
+   */
+  public static final int MAX_PENDING_BYTES = 1024 * 1024;
+  /**
+   * maximum number of views passed to a single gathering write, kept below the usual IOV_MAX.
+   */
+  private static final int MAX_VIEWS_PER_WRITE = 1024;
   private final long starttime;
   private final WriteOnlyClient client;
   private long processedMessageCount;
   private SerializedData blocker;
+  private final GatheringWriteClient gatheringClient;
+  private final DataList.DataListIterator iterator;
+  private final ArrayDeque<PendingView> pendingViews;
+  private ByteBuffer[] writeViews;
+  private long pendingBytes;
+  /**
+   * whether the client was asked to write the pending views from its event loop, guarded by the pending views.
+   */
+  private boolean writeRequested;
+  /**
+   * whether the pending views were dropped for a rewind the iterator has not been moved back for yet, guarded by the
+   * pending views.
+   */
+  private boolean rewound;
+  /**
+   * sequence of the block of the first frame the subscriber did not get before a rewind, -1 unless frames that were
+   * sent before the rewind are to be skipped, guarded by the pending views.
+   */
+  private long resumeSequence = -1;
+  private int resumeOffset;
+  private final SharedMemoryWriteClient sharedMemoryClient;
+  private long sentWritePosition;
 
   /**
    *
    * @param client
    */
   public PhysicalNode(WriteOnlyClient client)
+  {
+    this(client, null);
+  }
+
+  /**
+   *
+   * @param client
+   * @param iterator iterator the frames sent to the node come from, the blocks of the views queued for gathering writes
+   * are referenced through it
+   */
+  public PhysicalNode(WriteOnlyClient client, DataList.DataListIterator iterator)
   {
     this.client = client;
+    this.iterator = iterator;
     starttime = System.currentTimeMillis();
     processedMessageCount = 0;
+    if (client instanceof GatheringWriteClient) {
+      gatheringClient = (GatheringWriteClient)client;
+      pendingViews = new ArrayDeque<>();
+      writeViews = new ByteBuffer[16];
+    } else {
+      gatheringClient = null;
+      pendingViews = null;
+    }
+    sharedMemoryClient = client instanceof SharedMemoryWriteClient ? (SharedMemoryWriteClient)client : null;
   }
 
   /**
@@ -73,7 +131,12 @@ public class PhysicalNode
    */
   public boolean send(SerializedData d)
   {
-    if (client.send(d.buffer, d.dataOffset, d.length - (d.dataOffset - d.offset))) {
+    if (gatheringClient != null) {
+      return sendView(d);
+    }
+
+    if (sharedMemoryClient == null ? client.send(d.buffer, d.dataOffset, d.length - (d.dataOffset - d.offset)) :
+        sendToRing(d)) {
       return true;
     }
     if (blocker == null) {
@@ -84,13 +147,292 @@ public class PhysicalNode
     return false;
   }
 
+  /**
+   * Appends the length prepended frame to the pending views, extending the last view when the frame immediately
+   * follows it in the same block. No bytes are copied, a new view holds a reference to its block until it is written
+   * out by {@link #writePendingViews()} or discarded, so the block is neither spooled nor discarded meanwhile.
+   */
+  private boolean sendView(SerializedData d)
+  {
+    final byte messageType = d.buffer[d.dataOffset];
+    if (messageType == MessageType.NO_MESSAGE_VALUE || messageType == MessageType.NO_MESSAGE_ODD_VALUE) {
+      return true;
+    }
+
+    synchronized (pendingViews) {
+      if (rewound || resumeSequence != -1) {
+        final long sequence = iterator.da.sequence;
+        final int offset = iterator.current.offset;
+        if (rewound) {
+          /* the frame is sent again once the iterator has been moved back */
+          if (resumeSequence == -1) {
+            resumeSequence = sequence;
+            resumeOffset = offset;
+          }
+          return true;
+        }
+        if (sequence < resumeSequence || sequence == resumeSequence && offset < resumeOffset) {
+          /* the subscriber got the frame before the rewind */
+          return true;
+        }
+        resumeSequence = -1;
+      }
+      final PendingView last = pendingViews.peekLast();
+      if (last != null && last.view.array() == d.buffer && last.view.limit() == d.offset) {
+        last.view.limit(d.offset + d.length);
+        last.sourceEnd = d.offset + d.length;
+      } else if (iterator == null) {
+        pendingViews.add(new PendingView(ByteBuffer.wrap(d.buffer, d.offset, d.length), null, 0, 0));
+      } else {
+        /* the frame sent may be a decompressed copy of the frame the iterator returned */
+        final SerializedData source = iterator.current;
+        pendingViews.add(new PendingView(ByteBuffer.wrap(d.buffer, d.offset, d.length), iterator.acquireBlock(),
+            source.offset, source.offset + source.length));
+      }
+      pendingBytes += d.length;
+      processedMessageCount++;
+      if (pendingBytes >= MAX_PENDING_BYTES) {
+        flush();
+      }
+      return pendingBytes < MAX_PENDING_BYTES;
+    }
+  }
+
+  /**
+   * Writes the length prepended frame to the shared memory ring. A frame too large for the ring is sent over the
+   * socket once the subscriber has been told about the frames written to the ring before it.
+   */
+  private boolean sendToRing(SerializedData d)
+  {
+    final byte messageType = d.buffer[d.dataOffset];
+    if (messageType == MessageType.NO_MESSAGE_VALUE || messageType == MessageType.NO_MESSAGE_ODD_VALUE) {
+      return true;
+    }
+
+    final SharedMemoryRing ring = sharedMemoryClient.getRing();
+    if (d.length > ring.getMaxFrameLength()) {
+      if (!sendWritePosition() || !client.send(d.buffer, d.dataOffset, d.length - (d.dataOffset - d.offset))) {
+        return false;
+      }
+    } else if (!ring.offer(d.buffer, d.offset, d.length)) {
+      /* the subscriber reports its read position only after reading the frames it has been told about */
+      sendWritePosition();
+      return false;
+    }
+    processedMessageCount++;
+    return true;
+  }
+
+  private boolean sendWritePosition()
+  {
+    final long position = sharedMemoryClient.getRing().getWritePosition();
+    if (position != sentWritePosition) {
+      if (!sharedMemoryClient.sendWritePosition(position)) {
+        return false;
+      }
+      sentWritePosition = position;
+    }
+    return true;
+  }
+
+  /**
+   * Hands the pending block views over to the event loop of the client, which writes them to the subscriber socket
+   * with {@link #writePendingViews()}. With the shared memory transport, tells the subscriber up to which position the
+   * ring has been written.
+   *
+   * @return true if there is no data left to be written, false otherwise
+   */
+  public boolean flush()
+  {
+    if (sharedMemoryClient != null) {
+      return sendWritePosition();
+    }
+
+    if (gatheringClient == null) {
+      return true;
+    }
+
+    synchronized (pendingViews) {
+      if (pendingViews.isEmpty()) {
+        return true;
+      }
+      if (!writeRequested) {
+        writeRequested = true;
+        gatheringClient.notifyWhenWritable(this);
+      }
+      return false;
+    }
+  }
+
+  /**
+   * Writes the pending block views to the subscriber socket with gathering writes, called from the event loop of the
+   * client only. The blocks of the views that were written out are released.
+   *
+   * @return true if there is no data left to be written, false if the socket can't take all the data
+   */
+  public boolean writePendingViews()
+  {
+    final ArrayList<PendingView> writtenViews = new ArrayList<>();
+    try {
+      return writePendingViews(writtenViews);
+    } finally {
+      /* released outside of the lock of the pending views, as the data list locks itself to evict the blocks */
+      release(writtenViews);
+    }
+  }
+
+  private boolean writePendingViews(ArrayList<PendingView> writtenViews)
+  {
+    synchronized (pendingViews) {
+      try {
+        while (!pendingViews.isEmpty()) {
+          final int count = Math.min(pendingViews.size(), MAX_VIEWS_PER_WRITE);
+          if (writeViews.length < count) {
+            writeViews = new ByteBuffer[Math.min(Integer.highestOneBit(count) << 1, MAX_VIEWS_PER_WRITE)];
+          }
+          int i = 0;
+          long offered = 0;
+          for (PendingView pendingView : pendingViews) {
+            if (i == count) {
+              break;
+            }
+            offered += pendingView.view.remaining();
+            writeViews[i++] = pendingView.view;
+          }
+
+          final long written = gatheringClient.getSocketChannel().write(writeViews, 0, count);
+          Arrays.fill(writeViews, 0, count, null);
+          pendingBytes -= written;
+          while (!pendingViews.isEmpty() && !pendingViews.peekFirst().view.hasRemaining()) {
+            writtenViews.add(pendingViews.removeFirst());
+          }
+          if (written < offered) {
+            /* socket send buffer is full */
+            break;
+          }
+        }
+      } catch (IOException ex) {
+        throw new RuntimeException(ex);
+      }
+
+      if (pendingViews.isEmpty()) {
+        writeRequested = false;
+        return true;
+      }
+      return false;
+    }
+  }
+
+  /**
+   * Drops the block views that were not written out yet and releases their blocks, before the data list discards the
+   * blocks or when the subscriber goes away.
+   *
+   * @return true if a view was partly written, in which case the subscriber may have received a partial frame
+   */
+  public boolean discardPendingViews()
+  {
+    if (gatheringClient == null) {
+      return false;
+    }
+
+    final ArrayList<PendingView> discardedViews;
+    final boolean partial;
+    synchronized (pendingViews) {
+      final PendingView first = pendingViews.peekFirst();
+      partial = first != null && first.view.position() != first.start;
+      discardedViews = new ArrayList<>(pendingViews);
+      pendingViews.clear();
+      pendingBytes = 0;
+      rewound = false;
+      resumeSequence = -1;
+    }
+    release(discardedViews);
+    return partial;
+  }
+
+  /**
+   * Drops the block views that were not written out yet before the data list rewinds its blocks, and stops queueing
+   * views until {@link #resumeAfterRewind()}. A partly written view is kept, so that the subscriber gets the rest of
+   * its frames.
+   *
+   * @return first frame of the data list the subscriber did not get, with a reference to its block, null if the
+   * subscriber got all the frames sent to the node
+   */
+  UnsentFrame rewindPendingViews()
+  {
+    if (gatheringClient == null || iterator == null) {
+      return null;
+    }
+
+    final ArrayList<PendingView> discardedViews = new ArrayList<>();
+    UnsentFrame unsentFrame = null;
+    synchronized (pendingViews) {
+      rewound = true;
+      PendingView first = pendingViews.peekFirst();
+      if (first != null && first.view.position() != first.start) {
+        pendingViews.removeFirst();
+        unsentFrame = new UnsentFrame(first.block, first.sourceEnd);
+        discardedViews.addAll(pendingViews);
+        pendingViews.clear();
+        pendingViews.add(first);
+        pendingBytes = first.view.remaining();
+        resumeSequence = first.block.sequence;
+        resumeOffset = first.sourceEnd;
+      } else {
+        if (first != null) {
+          unsentFrame = new UnsentFrame(first.block, first.sourceStart);
+          resumeSequence = first.block.sequence;
+          resumeOffset = first.sourceStart;
+        }
+        discardedViews.addAll(pendingViews);
+        pendingViews.clear();
+        pendingBytes = 0;
+      }
+    }
+    release(discardedViews);
+    return unsentFrame;
+  }
+
+  /**
+   * Queues views again once the iterator has been moved back to the first unsent frame after a rewind.
+   */
+  void resumeAfterRewind()
+  {
+    if (gatheringClient != null) {
+      synchronized (pendingViews) {
+        rewound = false;
+        if (resumeSequence == -1 && iterator != null) {
+          /* the subscriber got all the frames the iterator returned before the rewind */
+          resumeSequence = iterator.da.sequence;
+          resumeOffset = iterator.readOffset;
+        }
+      }
+    }
+  }
+
+  private static void release(ArrayList<PendingView> views)
+  {
+    for (PendingView view : views) {
+      view.release();
+    }
+  }
+
   public boolean unblock()
   {
+    if (gatheringClient != null) {
+      flush();
+      synchronized (pendingViews) {
+        return pendingBytes < MAX_PENDING_BYTES;
+      }
+    }
+
     if (blocker == null) {
       return true;
     }
 
-    if (client.send(blocker.buffer, blocker.dataOffset, blocker.length - (blocker.dataOffset - blocker.offset))) {
+    if (sharedMemoryClient == null ?
+        client.send(blocker.buffer, blocker.dataOffset, blocker.length - (blocker.dataOffset - blocker.offset)) :
+        sendToRing(blocker)) {
       blocker = null;
       return true;
     }
@@ -151,5 +493,66 @@ public class PhysicalNode
     return "PhysicalNode." + client;
   }
 
+  /**
+   * View of a data list block waiting to be written to the subscriber socket.
+   */
+  private static class PendingView
+  {
+    final ByteBuffer view;
+    final int start;
+    final DataList.Block block;
+    /**
+     * offset in the block of the first frame of the view.
+     */
+    final int sourceStart;
+    /**
+     * offset in the block following the last frame of the view.
+     */
+    int sourceEnd;
+
+    PendingView(ByteBuffer view, DataList.Block block, int sourceStart, int sourceEnd)
+    {
+      this.view = view;
+      this.block = block;
+      this.sourceStart = sourceStart;
+      this.sourceEnd = sourceEnd;
+      start = view.position();
+    }
+
+    void release()
+    {
+      if (block != null) {
+        block.releaseView();
+      }
+    }
+  }
+
+  /**
+   * Position in the data list of the first frame a subscriber did not get, which holds a reference to its block until
+   * it is released.
+   */
+  static final class UnsentFrame
+  {
+    final DataList.Block block;
+    final int offset;
+
+    private UnsentFrame(DataList.Block block, int offset)
+    {
+      block.acquire(false);
+      this.block = block;
+      this.offset = offset;
+    }
+
+    boolean isBefore(UnsentFrame frame)
+    {
+      return block.sequence < frame.block.sequence || block == frame.block && offset < frame.offset;
+    }
+
+    void release()
+    {
+      block.release(false, false);
+    }
+  }
+
   private static final Logger logger = LoggerFactory.getLogger(PhysicalNode.class);
 }
@@ -0,0 +1,45 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package com.datatorrent.bufferserver.internal;
+
+import com.datatorrent.bufferserver.util.SharedMemoryRing;
+
+/**
+ * Subscriber connection on the same host as the buffer server that lets the {@link PhysicalNode} write the frames of
+ * the {@link DataList} blocks to a {@link SharedMemoryRing} instead of the socket. The socket only carries the
+ * positions up to which the ring has been written and read, and the frames too large for the ring.
+ *
+ * @since 4.0.0
+ */
+public interface SharedMemoryWriteClient
+{
+  /**
+   *
+   * @return the ring the frames of the subscriber are written to
+   */
+  SharedMemoryRing getRing();
+
+  /**
+   * Tells the subscriber up to which position the ring has been written.
+   *
+   * @param position position up to which the ring has been written
+   * @return true if the position was sent, false if the send buffer of the connection is full
+   */
+  boolean sendWritePosition(long position);
+}
@@ -0,0 +1,114 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package com.datatorrent.bufferserver.packet;
+
+import java.util.Arrays;
+
+import com.datatorrent.bufferserver.util.LZ4Codec;
+import com.datatorrent.netlet.util.Slice;
+import com.datatorrent.netlet.util.VarInt;
+import com.datatorrent.netlet.util.VarInt.MutableInt;
+
+/**
+ * Payload tuple whose data is compressed with {@link LZ4Codec}. It is serialized as the message type, the partition,
+ * the length of the uncompressed data and the compressed data so that the buffer server routes it like a
+ * {@link PayloadTuple} without decompressing it.
+ *
+ * @since 4.0.0
+ */
+public class CompressedPayloadTuple extends PayloadTuple
+{
+  public CompressedPayloadTuple(byte[] array, int offset, int length)
+  {
+    super(array, offset, length);
+  }
+
+  @Override
+  public MessageType getType()
+  {
+    return MessageType.COMPRESSED_PAYLOAD;
+  }
+
+  /**
+   * @return length of the uncompressed data
+   */
+  public int getUncompressedLength()
+  {
+    return VarInt.read(buffer, offset + 4, limit, new MutableInt());
+  }
+
+  @Override
+  public Slice getData()
+  {
+    final MutableInt compressedOffset = new MutableInt();
+    final int uncompressedLength = VarInt.read(buffer, offset + 4, limit, compressedOffset);
+    final byte[] data = new byte[uncompressedLength];
+    LZ4Codec.decompress(buffer, compressedOffset.integer, limit - compressedOffset.integer, data, 0,
+        uncompressedLength);
+    return new Slice(data);
+  }
+
+  @Override
+  public String toString()
+  {
+    return "CompressedPayloadTuple{" + getPartition() + ", " + getUncompressedLength() + '}';
+  }
+
+  /**
+   * Serializes the data as a compressed payload tuple.
+   *
+   * @param partition partition of the tuple
+   * @param f data of the tuple
+   * @param codec codec that compresses the data
+   * @return serialized compressed payload tuple
+   */
+  public static byte[] getSerializedTuple(int partition, Slice f, LZ4Codec codec)
+  {
+    final byte[] array = new byte[5 + VarInt.getSize(f.length) + LZ4Codec.maxCompressedLength(f.length)];
+    array[0] = MessageType.COMPRESSED_PAYLOAD_VALUE;
+    array[1] = (byte)(partition >> 24);
+    array[2] = (byte)(partition >> 16);
+    array[3] = (byte)(partition >> 8);
+    array[4] = (byte)partition;
+    final int offset = VarInt.write(f.length, array, 5);
+    return Arrays.copyOf(array, offset + codec.compress(f.buffer, f.offset, f.length, array, offset));
+  }
+
+  /**
+   * Decompresses a serialized compressed payload tuple into a serialized {@link PayloadTuple}.
+   *
+   * @param buffer buffer containing the serialized tuple
+   * @param offset offset of the message type byte of the tuple
+   * @param length length of the serialized tuple
+   * @return serialized payload tuple
+   */
+  public static byte[] getSerializedPayloadTuple(byte[] buffer, int offset, int length)
+  {
+    final int limit = offset + length;
+    final MutableInt compressedOffset = new MutableInt();
+    final int uncompressedLength = VarInt.read(buffer, offset + 5, limit, compressedOffset);
+    final byte[] array = new byte[5 + uncompressedLength];
+    array[0] = MessageType.PAYLOAD_VALUE;
+    System.arraycopy(buffer, offset + 1, array, 1, 4);
+    LZ4Codec.decompress(buffer, compressedOffset.integer, limit - compressedOffset.integer, array, 5,
+        uncompressedLength);
+    return array;
+  }
+
+}
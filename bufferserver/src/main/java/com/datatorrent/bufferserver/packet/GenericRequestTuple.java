@@ -38,6 +38,7 @@ public class GenericRequestTuple extends RequestTuple
   protected String identifier;
   protected int baseSeconds;
   protected int windowId;
+  protected int compression;
 
   public GenericRequestTuple(byte[] buffer, int offset, int length)
   {
@@ -91,6 +92,13 @@ public class GenericRequestTuple extends RequestTuple
 
       windowId = readVarInt();
 
+      /*
+       * the compression is optional so that the requests of the older clients remain valid.
+       */
+      if (offset < limit) {
+        compression = readVarInt();
+      }
+
       valid = true;
     } catch (NumberFormatException nfe) {
       logger.warn("Unparseable Tuple", nfe);
@@ -121,7 +129,21 @@ public class GenericRequestTuple extends RequestTuple
     return identifier;
   }
 
+  /**
+   * @return compression of the payloads that follow the request
+   */
+  public int getCompression()
+  {
+    return compression;
+  }
+
   public static byte[] getSerializedRequest(String version, String identifier, long startingWindowId, byte type)
+  {
+    return getSerializedRequest(version, identifier, startingWindowId, type, NO_COMPRESSION);
+  }
+
+  public static byte[] getSerializedRequest(String version, String identifier, long startingWindowId, byte type,
+      int compression)
   {
     byte[] array = new byte[4096];
     int offset = 0;
@@ -146,6 +168,11 @@ public class GenericRequestTuple extends RequestTuple
     int windowId = (int)startingWindowId;
     offset = VarInt.write(windowId, array, offset);
 
+    /* write the compression */
+    if (compression != NO_COMPRESSION) {
+      offset = VarInt.write(compression, array, offset);
+    }
+
     return Arrays.copyOfRange(array, 0, offset);
   }
 
@@ -153,7 +180,7 @@ public class GenericRequestTuple extends RequestTuple
   public String toString()
   {
     return getClass().getSimpleName() + "{" + "version=" + version + ", identifier=" + identifier + ", windowId=" +
-        Codec.getStringWindowId((long)baseSeconds << 32 | windowId) + '}';
+        Codec.getStringWindowId((long)baseSeconds << 32 | windowId) + ", compression=" + compression + '}';
   }
 
   private static final Logger logger = LoggerFactory.getLogger(GenericRequestTuple.class);
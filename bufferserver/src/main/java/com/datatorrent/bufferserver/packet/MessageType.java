@@ -38,6 +38,9 @@ public enum MessageType
   CHECKPOINT(10),
   CODEC_STATE(11),
   CUSTOM_CONTROL(12),
+  COMPRESSED_PAYLOAD(13),
+  SHARED_MEMORY_RING(14),
+  SHARED_MEMORY_POSITION(15),
   NO_MESSAGE_ODD(127);
 
   public static final byte NO_MESSAGE_VALUE = 0;
@@ -53,6 +56,9 @@ public enum MessageType
   public static final byte CHECKPOINT_VALUE = 10;
   public static final byte CODEC_STATE_VALUE = 11;
   public static final byte CUSTOM_CONTROL_VALUE = 12;
+  public static final byte COMPRESSED_PAYLOAD_VALUE = 13;
+  public static final byte SHARED_MEMORY_RING_VALUE = 14;
+  public static final byte SHARED_MEMORY_POSITION_VALUE = 15;
   public static final byte NO_MESSAGE_ODD_VALUE = 127;
 
   public final int getNumber()
@@ -89,6 +95,12 @@ public enum MessageType
         return CODEC_STATE;
       case 12:
         return CUSTOM_CONTROL;
+      case 13:
+        return COMPRESSED_PAYLOAD;
+      case 14:
+        return SHARED_MEMORY_RING;
+      case 15:
+        return SHARED_MEMORY_POSITION;
       case 127:
         return NO_MESSAGE_ODD;
       default:
@@ -46,6 +46,19 @@ public class PayloadTuple extends Tuple
     return ByteBuffer.wrap(buffer, offset, 4).getInt();
   }
 
+  /**
+   * Reads the partition of a serialized payload tuple without creating a tuple instance.
+   *
+   * @param buffer buffer containing the serialized tuple
+   * @param offset offset of the message type byte of the tuple
+   * @return partition of the tuple
+   */
+  public static int getPartition(byte[] buffer, int offset)
+  {
+    return buffer[offset + 1] << 24 | (buffer[offset + 2] & 0xff) << 16 | (buffer[offset + 3] & 0xff) << 8 |
+        (buffer[offset + 4] & 0xff);
+  }
+
   @Override
   public Slice getData()
   {
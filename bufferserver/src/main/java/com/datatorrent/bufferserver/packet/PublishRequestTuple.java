@@ -41,4 +41,11 @@ public class PublishRequestTuple extends GenericRequestTuple
         MessageType.PUBLISHER_REQUEST_VALUE);
   }
 
+  public static byte[] getSerializedRequest(final String version, final String identifier, final long startingWindowId,
+      final int compression)
+  {
+    return GenericRequestTuple.getSerializedRequest(version, identifier, startingWindowId,
+        MessageType.PUBLISHER_REQUEST_VALUE, compression);
+  }
+
 }
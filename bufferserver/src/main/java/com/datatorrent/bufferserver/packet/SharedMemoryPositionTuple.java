@@ -0,0 +1,78 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package com.datatorrent.bufferserver.packet;
+
+/**
+ * Tuple of the {@link Tuple#SHARED_MEMORY_TRANSPORT} that carries a position in the shared memory ring of a
+ * subscriber. The buffer server sends the position up to which it has written the ring after writing frames to it,
+ * the subscriber sends the position up to which it has read the ring so that the buffer server can reuse that part.
+ * It is serialized as the message type and the position as 8 bytes in big endian order.
+ *
+ * @since 4.0.0
+ */
+public class SharedMemoryPositionTuple extends Tuple
+{
+  public SharedMemoryPositionTuple(byte[] array, int offset, int length)
+  {
+    super(array, offset, length);
+  }
+
+  @Override
+  public MessageType getType()
+  {
+    return MessageType.SHARED_MEMORY_POSITION;
+  }
+
+  public long getPosition()
+  {
+    return getPosition(buffer, offset - 1);
+  }
+
+  @Override
+  public String toString()
+  {
+    return "SharedMemoryPositionTuple{" + getPosition() + '}';
+  }
+
+  /**
+   * @param buffer buffer containing the serialized tuple
+   * @param offset offset of the message type byte of the tuple
+   * @return position carried by the tuple
+   */
+  public static long getPosition(byte[] buffer, int offset)
+  {
+    long position = 0;
+    for (int i = offset + 1; i < offset + 9; i++) {
+      position = position << 8 | buffer[i] & 0xff;
+    }
+    return position;
+  }
+
+  public static byte[] getSerializedTuple(long position)
+  {
+    final byte[] array = new byte[9];
+    array[0] = MessageType.SHARED_MEMORY_POSITION_VALUE;
+    for (int i = 8; i > 0; i--) {
+      array[i] = (byte)position;
+      position >>>= 8;
+    }
+    return array;
+  }
+
+}
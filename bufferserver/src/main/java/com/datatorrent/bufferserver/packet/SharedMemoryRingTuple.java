@@ -0,0 +1,82 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package com.datatorrent.bufferserver.packet;
+
+import java.util.Arrays;
+
+import com.datatorrent.netlet.util.VarInt;
+
+/**
+ * Tuple the buffer server sends to a subscriber that requested the {@link Tuple#SHARED_MEMORY_TRANSPORT} to tell it
+ * the path and the capacity of the shared memory ring it writes the frames of the subscriber to. It is serialized as
+ * the message type, the path and the capacity.
+ *
+ * @since 4.0.0
+ */
+public class SharedMemoryRingTuple extends Tuple
+{
+  private final String path;
+  private final int capacity;
+
+  public SharedMemoryRingTuple(byte[] array, int offset, int length)
+  {
+    super(array, offset, length);
+    final int pathLength = readVarInt();
+    path = new String(buffer, this.offset, pathLength);
+    this.offset += pathLength;
+    capacity = readVarInt();
+  }
+
+  @Override
+  public MessageType getType()
+  {
+    return MessageType.SHARED_MEMORY_RING;
+  }
+
+  /**
+   * @return path of the file of the ring
+   */
+  public String getPath()
+  {
+    return path;
+  }
+
+  /**
+   * @return capacity of the ring
+   */
+  public int getCapacity()
+  {
+    return capacity;
+  }
+
+  @Override
+  public String toString()
+  {
+    return "SharedMemoryRingTuple{" + path + ", " + capacity + '}';
+  }
+
+  public static byte[] getSerializedTuple(String path, int capacity)
+  {
+    final byte[] array = new byte[1 + 5 + path.getBytes().length + 5];
+    array[0] = MessageType.SHARED_MEMORY_RING_VALUE;
+    final int offset = Tuple.writeString(path, array, 1);
+    return Arrays.copyOf(array, VarInt.write(capacity, array, offset));
+  }
+
+}
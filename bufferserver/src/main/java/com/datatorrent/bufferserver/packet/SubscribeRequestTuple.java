@@ -44,6 +44,8 @@ public class SubscribeRequestTuple extends RequestTuple
   private int mask;
   private int[] partitions;
   private int bufferSize;
+  private int compression;
+  private int transport;
 
   @Override
   public MessageType getType()
@@ -132,6 +134,16 @@ public class SubscribeRequestTuple extends RequestTuple
         return;
       }
 
+      /*
+       * the compression and the transport are optional so that the requests of the older clients remain valid.
+       */
+      if (offset < limit) {
+        compression = readVarInt();
+      }
+      if (offset < limit) {
+        transport = readVarInt();
+      }
+
       valid = true;
     } catch (NumberFormatException nfe) {
       logger.warn("Unparseable Tuple", nfe);
@@ -213,9 +225,41 @@ public class SubscribeRequestTuple extends RequestTuple
     return bufferSize;
   }
 
+  /**
+   * @return compression of the payloads the subscriber accepts
+   */
+  public int getCompression()
+  {
+    return compression;
+  }
+
+  /**
+   * @return transport of the data the subscriber requests
+   */
+  public int getTransport()
+  {
+    return transport;
+  }
+
   public static byte[] getSerializedRequest(final String version, final String id, final String down_type,
       final String upstream_id, final int mask, final Collection<Integer> partitions, final long startingWindowId,
       final int bufferSize)
+  {
+    return getSerializedRequest(version, id, down_type, upstream_id, mask, partitions, startingWindowId, bufferSize,
+        NO_COMPRESSION);
+  }
+
+  public static byte[] getSerializedRequest(final String version, final String id, final String down_type,
+      final String upstream_id, final int mask, final Collection<Integer> partitions, final long startingWindowId,
+      final int bufferSize, final int compression)
+  {
+    return getSerializedRequest(version, id, down_type, upstream_id, mask, partitions, startingWindowId, bufferSize,
+        compression, SOCKET_TRANSPORT);
+  }
+
+  public static byte[] getSerializedRequest(final String version, final String id, final String down_type,
+      final String upstream_id, final int mask, final Collection<Integer> partitions, final long startingWindowId,
+      final int bufferSize, final int compression, final int transport)
   {
     byte[] array = new byte[4096];
     int offset = 0;
@@ -257,6 +301,16 @@ public class SubscribeRequestTuple extends RequestTuple
     /* write the buffer size */
     offset = VarInt.write(bufferSize, array, offset);
 
+    /* write the compression */
+    if (compression != NO_COMPRESSION || transport != SOCKET_TRANSPORT) {
+      offset = VarInt.write(compression, array, offset);
+    }
+
+    /* write the transport */
+    if (transport != SOCKET_TRANSPORT) {
+      offset = VarInt.write(transport, array, offset);
+    }
+
     return Arrays.copyOfRange(array, 0, offset);
   }
 
@@ -267,7 +321,8 @@ public class SubscribeRequestTuple extends RequestTuple
         ", windowId=" + Codec.getStringWindowId((long)baseSeconds << 32 | windowId) + ", type=" + streamType +
         ", upstreamIdentifier=" + upstreamIdentifier + ", mask=" + mask +
         ", partitions=" + (partitions == null ? "null" : Arrays.toString(partitions)) +
-        ", bufferSize=" + bufferSize + '}';
+        ", bufferSize=" + bufferSize + ", compression=" + compression +
+        ", transport=" + transport + '}';
   }
 
   private static final Logger logger = LoggerFactory.getLogger(SubscribeRequestTuple.class);
@@ -35,6 +35,16 @@ public abstract class Tuple
 {
   public static final String CLASSIC_VERSION = "1.0";
   public static final String FAST_VERSION = "1.1";
+  /**
+   * compression of the payloads that a publisher sends or a subscriber accepts.
+   */
+  public static final int NO_COMPRESSION = 0;
+  public static final int LZ4_COMPRESSION = 1;
+  /**
+   * transport of the data that a subscriber requests.
+   */
+  public static final int SOCKET_TRANSPORT = 0;
+  public static final int SHARED_MEMORY_TRANSPORT = 1;
   protected final byte[] buffer;
   protected int offset;
   protected final int limit;
@@ -64,6 +74,15 @@ public abstract class Tuple
       case PAYLOAD:
         return new PayloadTuple(buffer, offset, length);
 
+      case COMPRESSED_PAYLOAD:
+        return new CompressedPayloadTuple(buffer, offset, length);
+
+      case SHARED_MEMORY_RING:
+        return new SharedMemoryRingTuple(buffer, offset, length);
+
+      case SHARED_MEMORY_POSITION:
+        return new SharedMemoryPositionTuple(buffer, offset, length);
+
       case RESET_WINDOW:
         return new ResetWindowTuple(buffer, offset, length);
 
@@ -18,34 +18,44 @@
  */
 package com.datatorrent.bufferserver.server;
 
+import java.io.File;
 import java.io.IOException;
 import java.net.InetSocketAddress;
 import java.nio.ByteBuffer;
 import java.nio.channels.SelectionKey;
 import java.nio.channels.ServerSocketChannel;
 import java.nio.channels.SocketChannel;
-import java.util.concurrent.ArrayBlockingQueue;
+import java.util.Arrays;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.RejectedExecutionException;
-import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import com.datatorrent.bufferserver.internal.DataList;
 import com.datatorrent.bufferserver.internal.FastDataList;
+import com.datatorrent.bufferserver.internal.FlowControlPolicy;
+import com.datatorrent.bufferserver.internal.GatheringWriteClient;
 import com.datatorrent.bufferserver.internal.LogicalNode;
+import com.datatorrent.bufferserver.internal.PhysicalNode;
+import com.datatorrent.bufferserver.internal.SharedMemoryWriteClient;
+import com.datatorrent.bufferserver.packet.MessageType;
 import com.datatorrent.bufferserver.packet.PayloadTuple;
 import com.datatorrent.bufferserver.packet.PublishRequestTuple;
 import com.datatorrent.bufferserver.packet.PurgeRequestTuple;
 import com.datatorrent.bufferserver.packet.ResetRequestTuple;
+import com.datatorrent.bufferserver.packet.SharedMemoryPositionTuple;
+import com.datatorrent.bufferserver.packet.SharedMemoryRingTuple;
 import com.datatorrent.bufferserver.packet.SubscribeRequestTuple;
 import com.datatorrent.bufferserver.packet.Tuple;
+import com.datatorrent.bufferserver.storage.CompressedStorage;
 import com.datatorrent.bufferserver.storage.Storage;
+import com.datatorrent.bufferserver.util.SharedMemoryRing;
 import com.datatorrent.common.util.NameableThreadFactory;
 import com.datatorrent.netlet.AbstractLengthPrependerClient;
 import com.datatorrent.netlet.AbstractServer;
@@ -64,17 +74,25 @@ public class Server extends AbstractServer
 {
   public static final int DEFAULT_BUFFER_SIZE = 64 * 1024 * 1024;
   public static final int DEFAULT_NUMBER_OF_CACHED_BLOCKS = 8;
+  public static final int DEFAULT_READ_AHEAD_BLOCKS = 2;
   private final int port;
   private String identity;
   private Storage storage;
   private final EventLoop eventloop;
+  private EventLoop[] eventloops;
   private final ExecutorService serverHelperExecutor;
-  private final ExecutorService storageHelperExecutor;
+  private ExecutorService[] storageHelperExecutors;
+  private int readAheadBlocks = DEFAULT_READ_AHEAD_BLOCKS;
+  private FlowControlPolicy flowControlPolicy = FlowControlPolicy.SLOWEST;
+  private File sharedMemoryDirectory;
+  private int sharedMemoryRingCapacity = SharedMemoryRing.DEFAULT_CAPACITY;
   private volatile CountDownLatch latch;
 
   private byte[] authToken;
 
   private static final boolean BACK_PRESSURE_ENABLED = !Boolean.getBoolean("org.apache.apex.bufferserver.backpressure.disable");
+  private static final boolean GATHERING_WRITES_ENABLED = Boolean.getBoolean("org.apache.apex.bufferserver.gatheringwrites.enable");
+  private boolean gatheringWritesEnabled = GATHERING_WRITES_ENABLED;
 
   /**
    * @param port - port number to bind to or 0 to auto select a free port
@@ -87,14 +105,12 @@ public class Server extends AbstractServer
   public Server(EventLoop eventloop, int port, int blocksize, int numberOfCacheBlocks)
   {
     this.eventloop = eventloop;
+    this.eventloops = new EventLoop[] {eventloop};
     this.port = port;
     this.blockSize = blocksize;
     this.numberOfCacheBlocks = numberOfCacheBlocks;
     serverHelperExecutor = Executors.newSingleThreadExecutor(new NameableThreadFactory("ServerHelper"));
-    final ArrayBlockingQueue<Runnable> workQueue = new ArrayBlockingQueue<>(numberOfCacheBlocks);
-    final NameableThreadFactory threadFactory = new NameableThreadFactory("StorageHelper");
-    storageHelperExecutor = new ThreadPoolExecutor(1, 1, 0L, TimeUnit.MILLISECONDS, workQueue, threadFactory,
-        new ThreadPoolExecutor.CallerRunsPolicy());
+    storageHelperExecutors = newStorageHelperExecutors(1);
   }
 
   public void setSpoolStorage(Storage storage)
@@ -102,6 +118,154 @@ public class Server extends AbstractServer
     this.storage = storage;
   }
 
+  /**
+   * Sets the spool storage along with the number of workers that write the blocks to it and read them back, typically
+   * one per disk backing the storage. The blocks of a data list are always handled by the same worker, in order, and
+   * never by the event loop thread.
+   *
+   * @param storage spool storage
+   * @param workers number of spool workers
+   */
+  public void setSpoolStorage(Storage storage, int workers)
+  {
+    if (workers < 1) {
+      throw new IllegalArgumentException("Invalid number of spool workers " + workers);
+    }
+    if (workers != storageHelperExecutors.length) {
+      for (ExecutorService executor : storageHelperExecutors) {
+        executor.shutdown();
+      }
+      storageHelperExecutors = newStorageHelperExecutors(workers);
+    }
+    this.storage = storage;
+  }
+
+  /**
+   * Sets the number of spooled blocks that are read back ahead of a subscriber reading from the spool.
+   *
+   * @param readAheadBlocks number of blocks to read ahead, 0 to read a block only when a subscriber reaches it
+   */
+  public void setReadAheadBlocks(int readAheadBlocks)
+  {
+    this.readAheadBlocks = readAheadBlocks;
+  }
+
+  /**
+   * Sets the policy that decides which subscriber groups hold back a publisher once they run out of credits.
+   *
+   * @param flowControlPolicy flow control policy of the data lists of the publishers
+   */
+  public void setFlowControlPolicy(FlowControlPolicy flowControlPolicy)
+  {
+    this.flowControlPolicy = flowControlPolicy;
+  }
+
+  private static ExecutorService[] newStorageHelperExecutors(int workers)
+  {
+    final ExecutorService[] executors = new ExecutorService[workers];
+    for (int i = 0; i < workers; i++) {
+      executors[i] = Executors.newSingleThreadExecutor(new NameableThreadFactory("StorageHelper-" + i));
+    }
+    return executors;
+  }
+
+  private ExecutorService getStorageHelperExecutor(String identifier)
+  {
+    return storageHelperExecutors[(identifier.hashCode() & Integer.MAX_VALUE) % storageHelperExecutors.length];
+  }
+
+  /**
+   * When enabled, subscribers of classic data lists receive contiguous runs of data list block bytes with gathering
+   * socket writes instead of having every tuple copied into their send buffers.
+   *
+   * @param gatheringWritesEnabled
+   */
+  public void setGatheringWritesEnabled(boolean gatheringWritesEnabled)
+  {
+    this.gatheringWritesEnabled = gatheringWritesEnabled;
+  }
+
+  /**
+   * Enables the shared memory transport for the subscribers on the same host that request it. The frames of such a
+   * subscriber are written to a {@link SharedMemoryRing} in a file of the directory instead of its socket, and the
+   * socket only carries the positions in the ring and the frames too large for it. Windows, purge and reset requests
+   * are handled the same way as for the other subscribers.
+   *
+   * @param sharedMemoryDirectory directory of the ring files, null to disable the transport
+   */
+  public void setSharedMemoryDirectory(File sharedMemoryDirectory)
+  {
+    this.sharedMemoryDirectory = sharedMemoryDirectory;
+  }
+
+  /**
+   * Sets the capacity of the shared memory ring of a subscriber.
+   *
+   * @param sharedMemoryRingCapacity capacity of the ring, a power of 2
+   */
+  public void setSharedMemoryRingCapacity(int sharedMemoryRingCapacity)
+  {
+    if (sharedMemoryRingCapacity < 64 || Integer.bitCount(sharedMemoryRingCapacity) != 1) {
+      throw new IllegalArgumentException("Invalid shared memory ring capacity " + sharedMemoryRingCapacity);
+    }
+    this.sharedMemoryRingCapacity = sharedMemoryRingCapacity;
+  }
+
+  /**
+   * Spreads the identified publisher and subscriber connections over the given event loops. The event loop the server
+   * was created with keeps accepting connections; once a connection identifies itself, it is moved to the loop that
+   * {@link #getEventLoopIndex(String, int)} picks for its data list, so a publisher and all the subscribers of its data
+   * list share one selector thread. The caller owns the event loops and has to start them before the server is run.
+   *
+   * @param eventloops event loops serving the identified connections
+   */
+  public void setEventLoops(EventLoop... eventloops)
+  {
+    if (eventloops.length == 0) {
+      throw new IllegalArgumentException("At least one event loop is required");
+    }
+    this.eventloops = eventloops.clone();
+  }
+
+  /**
+   * Returns the index of the event loop that serves the data list with the given identifier. Publishers and
+   * subscribers use the same mapping on both ends of the connection.
+   *
+   * @param identifier identifier of the data list, i.e. of the publisher
+   * @param eventLoopCount number of event loops to pick from
+   * @return index of the event loop in the range [0, eventLoopCount)
+   */
+  public static int getEventLoopIndex(String identifier, int eventLoopCount)
+  {
+    return (identifier.hashCode() & Integer.MAX_VALUE) % eventLoopCount;
+  }
+
+  private EventLoop getEventLoop(String identifier)
+  {
+    return eventloops[getEventLoopIndex(identifier, eventloops.length)];
+  }
+
+  /**
+   * Moves the channel of an identified connection from the accepting event loop to the event loop that owns its data
+   * list. Must be called on the accepting event loop thread once the key is no longer interested in any operation.
+   */
+  private void transfer(final SelectionKey key, final EventLoop target, final int ops, final ClientListener client,
+      final Runnable connected)
+  {
+    eventloop.submit(new Runnable()
+    {
+      @Override
+      public void run()
+      {
+        key.cancel();
+        target.register((SocketChannel)key.channel(), ops, client);
+        if (connected != null) {
+          target.submit(connected);
+        }
+      }
+    });
+  }
+
   @Override
   public void registered(SelectionKey key)
   {
@@ -128,10 +292,14 @@ public class Server extends AbstractServer
       public void run()
       {
         serverHelperExecutor.shutdown();
-        storageHelperExecutor.shutdown();
+        for (ExecutorService executor : storageHelperExecutors) {
+          executor.shutdown();
+        }
         try {
           serverHelperExecutor.awaitTermination(5000, TimeUnit.MILLISECONDS);
-          storageHelperExecutor.awaitTermination(5000, TimeUnit.MILLISECONDS);
+          for (ExecutorService executor : storageHelperExecutors) {
+            executor.awaitTermination(5000, TimeUnit.MILLISECONDS);
+          }
         } catch (InterruptedException ex) {
           logger.debug("Executor Termination", ex);
         }
@@ -217,9 +385,11 @@ public class Server extends AbstractServer
           logger.warn("Forcing termination of {}", serverHelperExecutor);
           serverHelperExecutor.shutdownNow();
         }
-        if (!storageHelperExecutor.isTerminated()) {
-          logger.warn("Forcing termination of {}", storageHelperExecutor);
-          storageHelperExecutor.shutdownNow();
+        for (ExecutorService executor : storageHelperExecutors) {
+          if (!executor.isTerminated()) {
+            logger.warn("Forcing termination of {}", executor);
+            executor.shutdownNow();
+          }
         }
       } catch (RuntimeException e) {
         logger.error("Exception while terminating executors", e);
@@ -305,7 +475,7 @@ public class Server extends AbstractServer
     } else {
       AbstractLengthPrependerClient channel = publisherChannels.remove(request.getIdentifier());
       if (channel != null) {
-        eventloop.disconnect(channel);
+        getEventLoop(request.getIdentifier()).disconnect(channel);
       }
       dl.reset();
       message = ("Request sent for processing: " + request).getBytes();
@@ -355,8 +525,11 @@ public class Server extends AbstractServer
           final String identifier = request.getIdentifier();
           final String type = request.getStreamType();
           final long skipWindowId = (long)request.getBaseSeconds() << 32 | request.getWindowId();
+          final EventLoop target = getEventLoop(upstream_identifier);
           final LogicalNode ln = new LogicalNode(identifier, upstream_identifier, type, dl
-              .newIterator(skipWindowId), skipWindowId, eventloop);
+              .newIterator(skipWindowId), skipWindowId, target);
+
+          ln.setDecompressPayloads(request.getCompression() != Tuple.LZ4_COMPRESSION);
 
           int mask = request.getMask();
           if (mask != 0) {
@@ -368,17 +541,28 @@ public class Server extends AbstractServer
           if (oln != null) {
             oln.boot();
           }
-          final Subscriber subscriber = new Subscriber(ln, request.getBufferSize());
-          eventloop.submit(new Runnable()
-          {
-            @Override
-            public void run()
+          final Subscriber subscriber = newSubscriber(request, ln, dl);
+          if (target == eventloop) {
+            eventloop.submit(new Runnable()
             {
-              key.attach(subscriber);
-              subscriber.registered(key);
-              subscriber.connected();
-            }
-          });
+              @Override
+              public void run()
+              {
+                key.attach(subscriber);
+                subscriber.registered(key);
+                subscriber.connected();
+              }
+            });
+          } else {
+            transfer(key, target, 0, subscriber, new Runnable()
+            {
+              @Override
+              public void run()
+              {
+                subscriber.connected();
+              }
+            });
+          }
         }
       });
     } catch (RejectedExecutionException e) {
@@ -393,6 +577,23 @@ public class Server extends AbstractServer
     }
   }
 
+  private Subscriber newSubscriber(SubscribeRequestTuple request, LogicalNode ln, DataList dl)
+  {
+    if (sharedMemoryDirectory != null && request.getTransport() == Tuple.SHARED_MEMORY_TRANSPORT &&
+        !(dl instanceof FastDataList)) {
+      try {
+        final SharedMemoryRing ring = SharedMemoryRing.create(sharedMemoryDirectory, "bufferserver-",
+            sharedMemoryRingCapacity);
+        return new SharedMemorySubscriber(ln, request.getBufferSize(), ring);
+      } catch (IOException e) {
+        logger.warn("Failed to create the shared memory ring in {}, {} falls back to the socket.",
+            sharedMemoryDirectory, request, e);
+      }
+    }
+    return gatheringWritesEnabled && !(dl instanceof FastDataList) ?
+        new GatheringSubscriber(ln, request.getBufferSize()) : new Subscriber(ln, request.getBufferSize());
+  }
+
   private void handleSubscriberTeardown(final SelectionKey key)
   {
     try {
@@ -457,7 +658,7 @@ public class Server extends AbstractServer
        */
       AbstractLengthPrependerClient previous = publisherChannels.put(identifier, connection);
       if (previous != null) {
-        eventloop.disconnect(previous);
+        getEventLoop(identifier).disconnect(previous);
       }
 
       try {
@@ -474,7 +675,13 @@ public class Server extends AbstractServer
         dl = odl;
       }
     }
-    dl.setSecondaryStorage(storage, storageHelperExecutor);
+    /*
+     * the publishers that compress their payloads also have the blocks of their data list compressed when spooled.
+     */
+    final Storage spoolStorage = storage != null && request.getCompression() == Tuple.LZ4_COMPRESSION ?
+        new CompressedStorage(storage) : storage;
+    dl.setSecondaryStorage(spoolStorage, getStorageHelperExecutor(identifier), readAheadBlocks);
+    dl.setFlowControlPolicy(flowControlPolicy);
 
     return dl;
   }
@@ -557,9 +764,10 @@ public class Server extends AbstractServer
           DataList dl = handlePublisherRequest(publisherRequest, this);
           dl.setAutoFlushExecutor(serverHelperExecutor);
 
+          final EventLoop target = getEventLoop(publisherRequest.getIdentifier());
           Publisher publisher;
           if (publisherRequest.getVersion().equals(Tuple.FAST_VERSION)) {
-            publisher = new Publisher(dl, (long)request.getBaseSeconds() << 32 | request.getWindowId())
+            publisher = new Publisher(dl, (long)request.getBaseSeconds() << 32 | request.getWindowId(), target)
             {
               @Override
               public int readSize()
@@ -574,16 +782,28 @@ public class Server extends AbstractServer
 
             };
           } else {
-            publisher = new Publisher(dl, (long)request.getBaseSeconds() << 32 | request.getWindowId());
+            publisher = new Publisher(dl, (long)request.getBaseSeconds() << 32 | request.getWindowId(), target);
           }
 
-          key.attach(publisher);
-          key.interestOps(SelectionKey.OP_READ);
-          publisher.registered(key);
-
           int len = writeOffset - readOffset - size;
-          if (len > 0) {
-            publisher.transferBuffer(this.buffer, readOffset + size, len);
+          if (target == eventloop) {
+            key.attach(publisher);
+            key.interestOps(SelectionKey.OP_READ);
+            publisher.registered(key);
+
+            if (len > 0) {
+              publisher.transferBuffer(this.buffer, readOffset + size, len);
+            }
+          } else {
+            /*
+             * data that arrived along with the request is handed over once the publisher is registered with its
+             * event loop, before the channel is selected for read there.
+             */
+            if (len > 0) {
+              publisher.pending = Arrays.copyOfRange(this.buffer, readOffset + size, readOffset + size + len);
+            }
+            key.interestOps(0);
+            transfer(key, target, SelectionKey.OP_READ, publisher, null);
           }
           ignore = true;
 
@@ -670,6 +890,198 @@ public class Server extends AbstractServer
     }
   }
 
+  /**
+   * Subscriber connection that lets its physical node write views of the data list blocks straight to the socket.
+   */
+  private class GatheringSubscriber extends Subscriber implements GatheringWriteClient
+  {
+    private final EventLoop owner;
+    private SelectionKey selectionKey;
+    private volatile PhysicalNode writable;
+
+    GatheringSubscriber(LogicalNode ln, int bufferSize)
+    {
+      super(ln, bufferSize);
+      owner = getEventLoop(ln.getUpstream());
+    }
+
+    @Override
+    public void registered(SelectionKey key)
+    {
+      super.registered(key);
+      selectionKey = key;
+    }
+
+    @Override
+    public SocketChannel getSocketChannel()
+    {
+      return (SocketChannel)selectionKey.channel();
+    }
+
+    @Override
+    public void notifyWhenWritable(final PhysicalNode node)
+    {
+      writable = node;
+      owner.submit(new Runnable()
+      {
+        @Override
+        public void run()
+        {
+          if (selectionKey.isValid()) {
+            selectionKey.interestOps(selectionKey.interestOps() | SelectionKey.OP_WRITE);
+          }
+        }
+      });
+    }
+
+    @Override
+    public void write() throws IOException
+    {
+      final PhysicalNode node = writable;
+      if (node == null) {
+        super.write();
+      } else if (node.writePendingViews()) {
+        selectionKey.interestOps(selectionKey.interestOps() & ~SelectionKey.OP_WRITE);
+      }
+    }
+  }
+
+  /**
+   * Subscriber connection on the same host whose physical node writes the frames to a shared memory ring. The socket
+   * carries the positions in the ring in both directions, so unlike the other subscribers, it is also read.
+   */
+  private class SharedMemorySubscriber extends Subscriber implements SharedMemoryWriteClient
+  {
+    /**
+     * length of the serialized position tuple prepended with its length.
+     */
+    private static final int POSITION_MESSAGE_LENGTH = 10;
+    private final SharedMemoryRing ring;
+    private final EventLoop owner;
+    private final ByteBuffer readBuffer = ByteBuffer.allocate(POSITION_MESSAGE_LENGTH * 64);
+    private final byte[] positionTuple = new byte[POSITION_MESSAGE_LENGTH - 1];
+    /**
+     * write position that did not fit in the send buffer, -1 if there is none.
+     */
+    private final AtomicLong unsentWritePosition = new AtomicLong(-1);
+    private SelectionKey selectionKey;
+
+    SharedMemorySubscriber(LogicalNode ln, int bufferSize, SharedMemoryRing ring)
+    {
+      super(ln, bufferSize);
+      this.ring = ring;
+      owner = getEventLoop(ln.getUpstream());
+    }
+
+    @Override
+    public void registered(SelectionKey key)
+    {
+      super.registered(key);
+      selectionKey = key;
+    }
+
+    @Override
+    public void connected()
+    {
+      if (!send(SharedMemoryRingTuple.getSerializedTuple(ring.getPath(), ring.getCapacity()))) {
+        throw new IllegalStateException("Failed to announce the shared memory ring " + ring + " to " + this);
+      }
+      selectionKey.interestOps(selectionKey.interestOps() | SelectionKey.OP_READ);
+      super.connected();
+    }
+
+    @Override
+    public SharedMemoryRing getRing()
+    {
+      return ring;
+    }
+
+    /**
+     * Sends the write position, or has the event loop resend it once the send buffer has room when it is full. The
+     * subscriber may be waiting for the position before it reads the ring and reports the room the physical node waits
+     * for, so the position must not get lost.
+     */
+    @Override
+    public boolean sendWritePosition(long position)
+    {
+      if (send(SharedMemoryPositionTuple.getSerializedTuple(position))) {
+        return true;
+      }
+      unsentWritePosition.set(position);
+      owner.submit(new Runnable()
+      {
+        @Override
+        public void run()
+        {
+          if (selectionKey.isValid()) {
+            selectionKey.interestOps(selectionKey.interestOps() | SelectionKey.OP_WRITE);
+          }
+        }
+      });
+      return false;
+    }
+
+    /**
+     * Writes out the send buffer, then resends the write position that did not fit in it and lets the physical node
+     * that could not send it retry.
+     */
+    @Override
+    public void write() throws IOException
+    {
+      super.write();
+      final long position = unsentWritePosition.get();
+      if (position != -1 && send(SharedMemoryPositionTuple.getSerializedTuple(position))) {
+        unsentWritePosition.compareAndSet(position, -1);
+        notifyDataList();
+      }
+    }
+
+    /**
+     * Reads the positions up to which the subscriber has read the ring and lets the blocked physical node retry.
+     */
+    @Override
+    public void read() throws IOException
+    {
+      if (((SocketChannel)selectionKey.channel()).read(readBuffer) < 0) {
+        owner.disconnect(this);
+        return;
+      }
+
+      long position = -1;
+      readBuffer.flip();
+      while (readBuffer.remaining() >= POSITION_MESSAGE_LENGTH) {
+        final byte length = readBuffer.get();
+        readBuffer.get(positionTuple);
+        if (length != positionTuple.length || positionTuple[0] != MessageType.SHARED_MEMORY_POSITION_VALUE) {
+          throw new IOException("Unexpected message " + Arrays.toString(positionTuple) + " from " + this);
+        }
+        position = SharedMemoryPositionTuple.getPosition(positionTuple, 0);
+      }
+      readBuffer.compact();
+
+      if (position != -1) {
+        ring.release(position);
+        notifyDataList();
+      }
+    }
+
+    private void notifyDataList()
+    {
+      final LogicalNode ln = super.ln;
+      final DataList dl = ln == null ? null : publisherBuffers.get(ln.getUpstream());
+      if (dl != null) {
+        dl.notifyListeners();
+      }
+    }
+
+    @Override
+    public void unregistered(final SelectionKey key)
+    {
+      super.unregistered(key);
+      ring.close();
+    }
+  }
+
   /**
    * When the publisher connects to the server and starts publishing the data,
    * this is the end on the server side which handles all the communication.
@@ -678,12 +1090,26 @@ public class Server extends AbstractServer
   class Publisher extends SeedDataClient
   {
     private final DataList datalist;
+    private final EventLoop owner;
+    private byte[] pending;
     boolean dirty;
 
-    Publisher(DataList dl, long windowId)
+    Publisher(DataList dl, long windowId, EventLoop owner)
     {
       super(dl.getBuffer(windowId), dl.getPosition(), 1024);
       this.datalist = dl;
+      this.owner = owner;
+    }
+
+    @Override
+    public void registered(SelectionKey key)
+    {
+      super.registered(key);
+      if (pending != null) {
+        final byte[] array = pending;
+        pending = null;
+        transferBuffer(array, 0, array.length);
+      }
     }
 
     @Override
@@ -707,7 +1133,7 @@ public class Server extends AbstractServer
     @Override
     public boolean resumeReadIfSuspended()
     {
-      eventloop.submit(new Runnable()
+      owner.submit(new Runnable()
       {
         @Override
         public void run()
@@ -805,7 +1231,7 @@ public class Server extends AbstractServer
 
     private boolean switchToNewBuffer(final byte[] array, final int offset, final int size)
     {
-      if ((datalist.isMemoryBlockAvailable() || ((storage == null)) && !datalist.areSubscribersBehindByMax())) {
+      if (datalist.hasCreditForNewBlock()) {
         final byte[] newBuffer = datalist.newBuffer(size);
         byteBuffer = ByteBuffer.wrap(newBuffer);
         if (array == null || array.length - offset == 0) {
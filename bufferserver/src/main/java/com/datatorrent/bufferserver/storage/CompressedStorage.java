@@ -0,0 +1,129 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package com.datatorrent.bufferserver.storage;
+
+import java.io.IOException;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.datatorrent.bufferserver.util.LZ4Codec;
+
+/**
+ * Storage that compresses the blocks with {@link LZ4Codec} before they are stored by the underlying storage.<p>
+ * <br>
+ * The stored blocks begin with a header of a flag byte and the length of the block, the blocks that do not compress
+ * are stored as they are after the header. The counts of the bytes before and after compression provide the
+ * compression ratio of the spooled data.<br>
+ *
+ * @since 4.0.0
+ */
+public class CompressedStorage implements Storage
+{
+  private static final int HEADER_SIZE = 5;
+  private static final byte UNCOMPRESSED = 0;
+  private static final byte COMPRESSED = 1;
+  private final Storage storage;
+  private final LZ4Codec codec = new LZ4Codec();
+  private final AtomicLong numBytes = new AtomicLong();
+  private final AtomicLong numStoredBytes = new AtomicLong();
+
+  public CompressedStorage(Storage storage)
+  {
+    this.storage = storage;
+  }
+
+  @Override
+  public Storage getInstance() throws IOException
+  {
+    return new CompressedStorage(storage.getInstance());
+  }
+
+  @Override
+  public int store(String identifier, byte[] bytes, int start, int end)
+  {
+    final int length = end - start;
+    final byte[] block = new byte[HEADER_SIZE + LZ4Codec.maxCompressedLength(length)];
+    int compressedLength;
+    synchronized (codec) {
+      compressedLength = codec.compress(bytes, start, length, block, HEADER_SIZE);
+    }
+    if (compressedLength < length) {
+      block[0] = COMPRESSED;
+    } else {
+      block[0] = UNCOMPRESSED;
+      System.arraycopy(bytes, start, block, HEADER_SIZE, length);
+      compressedLength = length;
+    }
+    block[1] = (byte)(length >> 24);
+    block[2] = (byte)(length >> 16);
+    block[3] = (byte)(length >> 8);
+    block[4] = (byte)length;
+
+    final int uniqueIdentifier = storage.store(identifier, block, 0, HEADER_SIZE + compressedLength);
+    numBytes.addAndGet(length);
+    numStoredBytes.addAndGet(HEADER_SIZE + compressedLength);
+    return uniqueIdentifier;
+  }
+
+  @Override
+  public byte[] retrieve(String identifier, int uniqueIdentifier)
+  {
+    final byte[] block = storage.retrieve(identifier, uniqueIdentifier);
+    if (block == null) {
+      return null;
+    }
+
+    final int length = block[1] << 24 | (block[2] & 0xff) << 16 | (block[3] & 0xff) << 8 | (block[4] & 0xff);
+    final byte[] bytes = new byte[length];
+    if (block[0] == COMPRESSED) {
+      LZ4Codec.decompress(block, HEADER_SIZE, block.length - HEADER_SIZE, bytes, 0, length);
+    } else {
+      System.arraycopy(block, HEADER_SIZE, bytes, 0, length);
+    }
+    return bytes;
+  }
+
+  @Override
+  public void discard(String identifier, int uniqueIdentifier)
+  {
+    storage.discard(identifier, uniqueIdentifier);
+  }
+
+  /**
+   * @return number of bytes of the blocks before they were compressed
+   */
+  public long getNumBytes()
+  {
+    return numBytes.get();
+  }
+
+  /**
+   * @return number of bytes the underlying storage received for the blocks
+   */
+  public long getNumStoredBytes()
+  {
+    return numStoredBytes.get();
+  }
+
+  @Override
+  public String toString()
+  {
+    return "CompressedStorage{" + "storage=" + storage + ", numBytes=" + numBytes + ", numStoredBytes=" +
+        numStoredBytes + '}';
+  }
+}
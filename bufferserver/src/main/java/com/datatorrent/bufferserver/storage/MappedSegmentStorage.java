@@ -0,0 +1,324 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package com.datatorrent.bufferserver.storage;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.common.io.Files;
+
+/**
+ * Storage that appends spooled blocks into large, preallocated, memory mapped segment files.<p>
+ * <br>
+ * Unlike {@link DiskStorage}, which creates a file per block and validates the identity file on every call, this
+ * storage keeps an in-memory index of (segment, offset, length) per stored block and validates the identity of the
+ * spool directory only once when the identifier is first seen. Blocks are written into the mapping of the active
+ * segment and read back from it without any read system calls. A retrieved block is still copied out of the mapping
+ * into a byte array, as that is what the blocks of the data list are made of. A segment file is unmapped and deleted
+ * once all the blocks stored in it have been discarded and a newer segment has taken over.
+ *
+ * @since 4.0.0
+ */
+public class MappedSegmentStorage implements Storage
+{
+  private static final Logger logger = LoggerFactory.getLogger(MappedSegmentStorage.class);
+  public static final int DEFAULT_SEGMENT_SIZE = 256 * 1024 * 1024;
+  final String basePath;
+  final int segmentSize;
+  private final ConcurrentHashMap<String, SegmentedLog> logs = new ConcurrentHashMap<>();
+
+  public MappedSegmentStorage(String baseDirectory, int segmentSize)
+  {
+    if (segmentSize <= 0) {
+      throw new IllegalArgumentException("Invalid segment size " + segmentSize);
+    }
+    basePath = baseDirectory;
+    this.segmentSize = segmentSize;
+    logger.info("Using {} as the basepath for spooling with segment size {}.", basePath, segmentSize);
+  }
+
+  public MappedSegmentStorage(String baseDirectory)
+  {
+    this(baseDirectory, DEFAULT_SEGMENT_SIZE);
+  }
+
+  public MappedSegmentStorage() throws IOException
+  {
+    File tempFile = File.createTempFile("msp", "msp");
+    basePath = tempFile.getParent();
+    tempFile.delete();
+    segmentSize = DEFAULT_SEGMENT_SIZE;
+    logger.info("using {} as the basepath for spooling.", basePath);
+  }
+
+  @Override
+  public Storage getInstance() throws IOException
+  {
+    return new MappedSegmentStorage(basePath, segmentSize);
+  }
+
+  private SegmentedLog getLog(String identifier)
+  {
+    SegmentedLog log = logs.get(identifier);
+    if (log == null) {
+      log = new SegmentedLog(identifier);
+      SegmentedLog olog = logs.putIfAbsent(identifier, log);
+      if (olog != null) {
+        log = olog;
+      }
+    }
+    return log;
+  }
+
+  private SegmentedLog getExistingLog(String identifier)
+  {
+    SegmentedLog log = logs.get(identifier);
+    if (log == null) {
+      throw new RuntimeException("Nothing was stored for identifier " + identifier);
+    }
+    return log;
+  }
+
+  @Override
+  public int store(String identifier, byte[] bytes, int startingOffset, int endingOffset)
+  {
+    try {
+      return getLog(identifier).append(bytes, startingOffset, endingOffset - startingOffset);
+    } catch (IOException ex) {
+      throw new RuntimeException(ex);
+    }
+  }
+
+  @Override
+  public byte[] retrieve(String identifier, int uniqueIdentifier)
+  {
+    return getExistingLog(identifier).retrieve(uniqueIdentifier);
+  }
+
+  @Override
+  public void discard(String identifier, int uniqueIdentifier)
+  {
+    getExistingLog(identifier).discard(uniqueIdentifier);
+  }
+
+  private class SegmentedLog
+  {
+    private final String identifier;
+    private final File directory;
+    private final HashMap<Integer, Location> index = new HashMap<>();
+    private Segment active;
+    private int segmentSequence;
+    private int uniqueIdentifier;
+
+    SegmentedLog(String identifier)
+    {
+      this.identifier = identifier;
+      directory = new File(basePath, DiskStorage.normalizeFileName(identifier));
+      File identityFile = new File(directory, "identity");
+      try {
+        if (directory.exists()) {
+          if (!identityFile.isFile()) {
+            throw new IllegalStateException("Identity file is hijacked!");
+          }
+          byte[] stored = Files.toByteArray(identityFile);
+          if (!Arrays.equals(stored, identifier.getBytes())) {
+            throw new IllegalStateException("Collision in identifier name, please ensure that the slug for " +
+                "the identifiers is different");
+          }
+        } else if (directory.mkdir()) {
+          Files.write(identifier.getBytes(), identityFile);
+        } else {
+          throw new RuntimeException("directory " + directory.getAbsolutePath() + " could not be created!");
+        }
+      } catch (IOException ex) {
+        throw new RuntimeException(ex);
+      }
+    }
+
+    synchronized int append(byte[] bytes, int offset, int length) throws IOException
+    {
+      if (active == null || active.remaining() < length) {
+        rollSegment(length);
+      }
+      final int position = active.append(bytes, offset, length);
+      index.put(++uniqueIdentifier, new Location(active, position, length));
+      return uniqueIdentifier;
+    }
+
+    private void rollSegment(int length) throws IOException
+    {
+      final Segment previous = active;
+      active = new Segment(new File(directory, "segment-" + ++segmentSequence), Math.max(segmentSize, length));
+      if (previous != null && previous.liveBlocks == 0) {
+        previous.delete();
+      }
+    }
+
+    /**
+     * Copies the block while the log is locked, so that its segment cannot be unmapped during the copy.
+     */
+    synchronized byte[] retrieve(int uniqueIdentifier)
+    {
+      final ByteBuffer slice = getLocation(uniqueIdentifier).slice();
+      final byte[] bytes = new byte[slice.remaining()];
+      slice.get(bytes);
+      return bytes;
+    }
+
+    private Location getLocation(int uniqueIdentifier)
+    {
+      final Location location = index.get(uniqueIdentifier);
+      if (location == null) {
+        throw new RuntimeException("Block " + uniqueIdentifier + " for " + identifier + " either was never stored or" +
+            " was discarded!");
+      }
+      return location;
+    }
+
+    synchronized void discard(int uniqueIdentifier)
+    {
+      final Location location = index.remove(uniqueIdentifier);
+      if (location == null) {
+        throw new RuntimeException("Block " + uniqueIdentifier + " for " + identifier + " either was never stored or" +
+            " was already discarded!");
+      }
+      if (--location.segment.liveBlocks == 0 && location.segment != active) {
+        location.segment.delete();
+      }
+    }
+  }
+
+  private static class Segment
+  {
+    private final File file;
+    private final MappedByteBuffer buffer;
+    private int writeOffset;
+    private int liveBlocks;
+
+    Segment(File file, int size) throws IOException
+    {
+      this.file = file;
+      try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+        raf.setLength(size);
+        buffer = raf.getChannel().map(FileChannel.MapMode.READ_WRITE, 0, size);
+      }
+    }
+
+    int remaining()
+    {
+      return buffer.capacity() - writeOffset;
+    }
+
+    int append(byte[] bytes, int offset, int length)
+    {
+      final ByteBuffer view = buffer.duplicate();
+      view.position(writeOffset);
+      view.put(bytes, offset, length);
+      final int position = writeOffset;
+      writeOffset += length;
+      liveBlocks++;
+      return position;
+    }
+
+    ByteBuffer slice(int offset, int length)
+    {
+      final ByteBuffer view = buffer.asReadOnlyBuffer();
+      view.position(offset);
+      view.limit(offset + length);
+      return view.slice();
+    }
+
+    void delete()
+    {
+      unmap(buffer);
+      if (!file.delete()) {
+        logger.warn("Segment {} could not be deleted!", file);
+      }
+    }
+  }
+
+  /**
+   * Releases the mapping of the buffer right away through its cleaner rather than when the buffer is garbage
+   * collected, so that the memory and the space of a deleted segment file are given back as soon as it is deleted.
+   * The buffer must not be accessed afterwards. Falls back to the garbage collector when the cleaner is not
+   * accessible.
+   *
+   * @param buffer buffer to unmap
+   */
+  static void unmap(MappedByteBuffer buffer)
+  {
+    try {
+      /* Java 9 and later */
+      final Class<?> unsafeClass = Class.forName("sun.misc.Unsafe");
+      final Method invokeCleaner = unsafeClass.getMethod("invokeCleaner", ByteBuffer.class);
+      final Field theUnsafe = unsafeClass.getDeclaredField("theUnsafe");
+      theUnsafe.setAccessible(true);
+      invokeCleaner.invoke(theUnsafe.get(null), buffer);
+      return;
+    } catch (NoSuchMethodException ex) {
+      logger.trace("Unsafe cannot invoke the cleaner", ex);
+    } catch (ReflectiveOperationException | RuntimeException ex) {
+      logger.debug("Mapping of {} is released when it is garbage collected", buffer, ex);
+      return;
+    }
+
+    try {
+      /* Java 8 */
+      final Method cleanerMethod = buffer.getClass().getMethod("cleaner");
+      cleanerMethod.setAccessible(true);
+      final Object cleaner = cleanerMethod.invoke(buffer);
+      if (cleaner != null) {
+        cleaner.getClass().getMethod("clean").invoke(cleaner);
+      }
+    } catch (ReflectiveOperationException | RuntimeException ex) {
+      logger.debug("Mapping of {} is released when it is garbage collected", buffer, ex);
+    }
+  }
+
+  private static class Location
+  {
+    final Segment segment;
+    final int offset;
+    final int length;
+
+    Location(Segment segment, int offset, int length)
+    {
+      this.segment = segment;
+      this.offset = offset;
+      this.length = length;
+    }
+
+    ByteBuffer slice()
+    {
+      return segment.slice(offset, length);
+    }
+  }
+}
@@ -62,6 +62,16 @@ public class BitVector
     return true;
   }
 
+  public int getMask()
+  {
+    return mask;
+  }
+
+  public int getBits()
+  {
+    return bits;
+  }
+
   public boolean matches(int value)
   {
     return (value & mask) == bits;
@@ -0,0 +1,257 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package com.datatorrent.bufferserver.util;
+
+import java.util.Arrays;
+
+/**
+ * Pure Java implementation of the LZ4 block format used to compress the payloads and the spooled blocks of the
+ * buffer server streams.<p>
+ * <br>
+ * The compressor trades ratio for speed with a single probe hash table of the previous positions and skips ahead
+ * faster through the data that does not compress. An instance reuses its hash table and hence is not thread safe,
+ * decompression is stateless.<br>
+ *
+ * @since 4.0.0
+ */
+public class LZ4Codec
+{
+  private static final int MIN_MATCH = 4;
+  private static final int HASH_LOG = 12;
+  /**
+   * a match starts at least this many bytes before the end of the input.
+   */
+  private static final int MF_LIMIT = 12;
+  /**
+   * the last bytes of the input are always literals.
+   */
+  private static final int LAST_LITERALS = 5;
+  private static final int MAX_DISTANCE = 0xffff;
+  private static final int SKIP_STRENGTH = 6;
+  private final int[] hashTable = new int[1 << HASH_LOG];
+
+  /**
+   * Returns the size of the buffer that is large enough for the compressed form of any input of the given length.
+   *
+   * @param length length of the input
+   * @return maximum length of the compressed input
+   */
+  public static int maxCompressedLength(int length)
+  {
+    return length + length / 255 + 16;
+  }
+
+  /**
+   * Compresses the input into the destination which has room for at least {@link #maxCompressedLength(int)} bytes.
+   *
+   * @param src input
+   * @param srcOffset offset of the first byte of the input
+   * @param length length of the input
+   * @param dest destination of the compressed input
+   * @param destOffset offset at which the compressed input is written
+   * @return length of the compressed input
+   */
+  public int compress(byte[] src, int srcOffset, int length, byte[] dest, int destOffset)
+  {
+    final int srcEnd = srcOffset + length;
+    int anchor = srcOffset;
+    int d = destOffset;
+
+    if (length > MF_LIMIT) {
+      Arrays.fill(hashTable, -1);
+      final int matchLimit = srcEnd - LAST_LITERALS;
+      final int mfLimit = srcEnd - MF_LIMIT;
+      int s = srcOffset;
+      while (s < mfLimit) {
+        final int sequence = readInt(src, s);
+        final int h = hash(sequence);
+        int ref = hashTable[h];
+        hashTable[h] = s;
+        if (ref < 0 || s - ref > MAX_DISTANCE || readInt(src, ref) != sequence) {
+          s += 1 + ((s - anchor) >>> SKIP_STRENGTH);
+          continue;
+        }
+
+        while (s > anchor && ref > srcOffset && src[s - 1] == src[ref - 1]) {
+          --s;
+          --ref;
+        }
+        int matchLength = MIN_MATCH;
+        while (s + matchLength < matchLimit && src[s + matchLength] == src[ref + matchLength]) {
+          ++matchLength;
+        }
+
+        d = writeSequence(src, anchor, s - anchor, s - ref, matchLength, dest, d);
+        s += matchLength;
+        anchor = s;
+        if (s < mfLimit) {
+          hashTable[hash(readInt(src, s - 2))] = s - 2;
+        }
+      }
+    }
+
+    final int literals = srcEnd - anchor;
+    final int token = d++;
+    if (literals >= 15) {
+      dest[token] = (byte)0xf0;
+      d = writeLength(literals - 15, dest, d);
+    } else {
+      dest[token] = (byte)(literals << 4);
+    }
+    java.lang.System.arraycopy(src, anchor, dest, d, literals);
+    return d + literals - destOffset;
+  }
+
+  /**
+   * Decompresses the input into the destination.
+   *
+   * @param src compressed input
+   * @param srcOffset offset of the first byte of the compressed input
+   * @param length length of the compressed input
+   * @param dest destination of the decompressed input
+   * @param destOffset offset at which the decompressed input is written
+   * @param maxLength number of bytes available in the destination
+   * @return length of the decompressed input
+   * @throws IllegalArgumentException if the input is malformed or does not fit the destination
+   */
+  public static int decompress(byte[] src, int srcOffset, int length, byte[] dest, int destOffset, int maxLength)
+  {
+    final int srcEnd = srcOffset + length;
+    final int destEnd = destOffset + maxLength;
+    int s = srcOffset;
+    int d = destOffset;
+
+    while (s < srcEnd) {
+      final int token = src[s++] & 0xff;
+
+      int literals = token >>> 4;
+      if (literals == 15) {
+        int b;
+        do {
+          if (s == srcEnd) {
+            throw malformed(s);
+          }
+          b = src[s++] & 0xff;
+          literals += b;
+        } while (b == 0xff);
+      }
+      if (literals > srcEnd - s || literals > destEnd - d) {
+        throw malformed(s);
+      }
+      java.lang.System.arraycopy(src, s, dest, d, literals);
+      s += literals;
+      d += literals;
+      if (s == srcEnd) {
+        break;
+      }
+
+      if (srcEnd - s < 2) {
+        throw malformed(s);
+      }
+      final int distance = (src[s] & 0xff) | (src[s + 1] & 0xff) << 8;
+      s += 2;
+      int ref = d - distance;
+      if (distance == 0 || ref < destOffset) {
+        throw malformed(s);
+      }
+
+      int matchLength = token & 0x0f;
+      if (matchLength == 15) {
+        int b;
+        do {
+          if (s == srcEnd) {
+            throw malformed(s);
+          }
+          b = src[s++] & 0xff;
+          matchLength += b;
+        } while (b == 0xff);
+      }
+      matchLength += MIN_MATCH;
+      if (matchLength > destEnd - d) {
+        throw malformed(s);
+      }
+      if (distance >= matchLength) {
+        java.lang.System.arraycopy(dest, ref, dest, d, matchLength);
+        d += matchLength;
+      } else {
+        /* the match overlaps the bytes it produces */
+        final int end = d + matchLength;
+        while (d < end) {
+          dest[d++] = dest[ref++];
+        }
+      }
+    }
+
+    return d - destOffset;
+  }
+
+  private static int writeSequence(byte[] src, int anchor, int literals, int distance, int matchLength, byte[] dest,
+      int d)
+  {
+    final int token = d++;
+    int tokenValue;
+    if (literals >= 15) {
+      tokenValue = 0xf0;
+      d = writeLength(literals - 15, dest, d);
+    } else {
+      tokenValue = literals << 4;
+    }
+    java.lang.System.arraycopy(src, anchor, dest, d, literals);
+    d += literals;
+
+    dest[d++] = (byte)distance;
+    dest[d++] = (byte)(distance >>> 8);
+
+    final int remaining = matchLength - MIN_MATCH;
+    if (remaining >= 15) {
+      tokenValue |= 0x0f;
+      d = writeLength(remaining - 15, dest, d);
+    } else {
+      tokenValue |= remaining;
+    }
+    dest[token] = (byte)tokenValue;
+    return d;
+  }
+
+  private static int writeLength(int length, byte[] dest, int d)
+  {
+    while (length >= 0xff) {
+      dest[d++] = (byte)0xff;
+      length -= 0xff;
+    }
+    dest[d++] = (byte)length;
+    return d;
+  }
+
+  private static int readInt(byte[] buffer, int offset)
+  {
+    return (buffer[offset] & 0xff) | (buffer[offset + 1] & 0xff) << 8 | (buffer[offset + 2] & 0xff) << 16 |
+        buffer[offset + 3] << 24;
+  }
+
+  private static int hash(int sequence)
+  {
+    return (sequence * -1640531535) >>> (32 - HASH_LOG);
+  }
+
+  private static IllegalArgumentException malformed(int offset)
+  {
+    return new IllegalArgumentException("Malformed compressed data at offset " + offset);
+  }
+}
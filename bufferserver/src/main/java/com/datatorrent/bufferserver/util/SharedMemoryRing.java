@@ -0,0 +1,291 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package com.datatorrent.bufferserver.util;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Single producer, single consumer ring of length prepended frames in a memory mapped file, used by the buffer server
+ * to hand the frames of a data list to a subscriber on the same host without going through the loopback socket.<p>
+ * <br>
+ * A frame is stored exactly as it is stored in a data list block, the length of the frame as a varint followed by the
+ * frame itself, and never wraps around the end of the ring. When the frame does not fit before the end, a zero byte
+ * marks the rest of the ring as padding and the frame is written at the beginning. The positions are byte counts that
+ * only grow, the index into the ring is the position modulo the capacity.<br>
+ * <br>
+ * The positions are not shared through the mapping. The producer tells the consumer up to which position it has
+ * written and the consumer tells the producer up to which position it has read with messages over the socket of the
+ * subscriber. The socket calls order the accesses to the mapping on both sides, which Java 8 can't do for a mapping
+ * on its own.<br>
+ * <br>
+ * A frame takes at most a quarter of the ring, larger frames have to be sent over the socket. As long as the consumer
+ * reports its position once it has read at least a quarter of the ring, a producer that finds the ring full always
+ * finds room for the next frame once the consumer has read the frames it has been told about.<br>
+ *
+ * @since 4.0.0
+ */
+public class SharedMemoryRing implements Closeable
+{
+  /**
+   * capacity of the ring of a subscriber.
+   */
+  public static final int DEFAULT_CAPACITY = 8 * 1024 * 1024;
+  private final File file;
+  private final MappedByteBuffer buffer;
+  private final boolean producer;
+  private final int capacity;
+  private final int mask;
+  private long writePosition;
+  /**
+   * position up to which the consumer has reported to have read the ring, updated on the event loop of the
+   * subscriber and read by the producer.
+   */
+  private volatile long releasedPosition;
+  private long readPosition;
+  private int frameIndex;
+  private int frameLength;
+  private long frameEndPosition;
+
+  private SharedMemoryRing(File file, MappedByteBuffer buffer, boolean producer)
+  {
+    this.file = file;
+    this.buffer = buffer;
+    this.producer = producer;
+    capacity = buffer.capacity();
+    mask = capacity - 1;
+  }
+
+  /**
+   * Creates the file of a new ring in the directory and maps it for writing. The pages of the file are allocated as
+   * the ring is written, and a process that writes to a mapping the file system has no space for crashes, so the ring
+   * is only created while the file system has room for it and as much again.
+   *
+   * @param directory directory of the file, preferably on a memory backed file system
+   * @param prefix prefix of the file name
+   * @param capacity capacity of the ring, a power of 2
+   * @return the ring for the producer
+   * @throws IOException if the file can't be created or mapped or the file system is short of space
+   */
+  public static SharedMemoryRing create(File directory, String prefix, int capacity) throws IOException
+  {
+    if (capacity < 64 || Integer.bitCount(capacity) != 1) {
+      throw new IllegalArgumentException("Invalid ring capacity " + capacity);
+    }
+    final long usableSpace = directory.getUsableSpace();
+    if (usableSpace < 2L * capacity) {
+      throw new IOException("Only " + usableSpace + " bytes are free in " + directory + " for a ring of " + capacity +
+          " bytes");
+    }
+    final File file = File.createTempFile(prefix, ".ring", directory);
+    try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+      raf.setLength(capacity);
+      return new SharedMemoryRing(file, raf.getChannel().map(FileChannel.MapMode.READ_WRITE, 0, capacity), true);
+    } catch (IOException | RuntimeException e) {
+      file.delete();
+      throw e;
+    }
+  }
+
+  /**
+   * Maps the file of a ring created by the producer for reading.
+   *
+   * @param path path of the file of the ring
+   * @param capacity capacity of the ring
+   * @return the ring for the consumer
+   * @throws IOException if the file can't be mapped
+   */
+  public static SharedMemoryRing open(String path, int capacity) throws IOException
+  {
+    if (capacity < 64 || Integer.bitCount(capacity) != 1) {
+      throw new IllegalArgumentException("Invalid ring capacity " + capacity);
+    }
+    final File file = new File(path);
+    try (RandomAccessFile raf = new RandomAccessFile(file, "r")) {
+      if (raf.length() < capacity) {
+        throw new IOException("Ring file " + path + " is shorter than its capacity " + capacity);
+      }
+      return new SharedMemoryRing(file, raf.getChannel().map(FileChannel.MapMode.READ_ONLY, 0, capacity), false);
+    }
+  }
+
+  /**
+   * Returns the directory for the files of the rings, the memory backed /dev/shm when it is available.
+   *
+   * @return directory for the files of the rings
+   */
+  public static File getDefaultDirectory()
+  {
+    final File shm = new File("/dev/shm");
+    return shm.isDirectory() && shm.canWrite() ? shm : new File(java.lang.System.getProperty("java.io.tmpdir"));
+  }
+
+  public String getPath()
+  {
+    return file.getPath();
+  }
+
+  public int getCapacity()
+  {
+    return capacity;
+  }
+
+  /**
+   * @return length of the largest length prepended frame that can be written to the ring
+   */
+  public int getMaxFrameLength()
+  {
+    return capacity >> 2;
+  }
+
+  /**
+   * Writes a length prepended frame to the ring.
+   *
+   * @param src buffer with the frame
+   * @param offset offset of the length of the frame
+   * @param length length of the frame including its length
+   * @return true if the frame was written, false if the ring is too full to take it
+   */
+  public boolean offer(byte[] src, int offset, int length)
+  {
+    if (length > getMaxFrameLength()) {
+      throw new IllegalArgumentException("Frame of " + length + " bytes does not fit in the ring of " + capacity);
+    }
+
+    int index = (int)writePosition & mask;
+    final int padding = capacity - index < length ? capacity - index : 0;
+    if (writePosition + padding + length - releasedPosition > capacity) {
+      return false;
+    }
+
+    if (padding > 0) {
+      buffer.put(index, (byte)0);
+      writePosition += padding;
+      index = 0;
+    }
+    buffer.position(index);
+    buffer.put(src, offset, length);
+    writePosition += length;
+    return true;
+  }
+
+  /**
+   * @return position up to which the producer has written the ring
+   */
+  public long getWritePosition()
+  {
+    return writePosition;
+  }
+
+  /**
+   * Lets the producer reuse the part of the ring the consumer has read.
+   *
+   * @param position position up to which the consumer has read the ring
+   */
+  public void release(long position)
+  {
+    if (position > writePosition || position < releasedPosition) {
+      throw new IllegalArgumentException("Invalid read position " + position + " of the ring " + this);
+    }
+    releasedPosition = position;
+  }
+
+  /**
+   * Finds the next frame the producer has written before the limit.
+   *
+   * @param limit position up to which the producer has written the ring
+   * @return length of the frame without its length or -1 if there is no frame before the limit
+   */
+  public int nextFrameLength(long limit)
+  {
+    while (readPosition < limit) {
+      final int start = (int)readPosition & mask;
+      if (buffer.get(start) == 0) {
+        readPosition += capacity - start;
+        continue;
+      }
+
+      int index = start;
+      int length = 0;
+      int shift = 0;
+      byte b;
+      do {
+        b = buffer.get(index++);
+        length |= (b & 0x7f) << shift;
+        shift += 7;
+      } while (b < 0);
+
+      frameIndex = index;
+      frameLength = length;
+      frameEndPosition = readPosition + index - start + length;
+      return length;
+    }
+
+    return -1;
+  }
+
+  /**
+   * Copies the frame found by {@link #nextFrameLength(long)} without its length and moves past it.
+   *
+   * @param dest destination buffer
+   * @param destOffset offset in the destination buffer
+   */
+  public void readFrame(byte[] dest, int destOffset)
+  {
+    buffer.position(frameIndex);
+    buffer.get(dest, destOffset, frameLength);
+    readPosition = frameEndPosition;
+  }
+
+  /**
+   * @return position up to which the consumer has read the ring
+   */
+  public long getReadPosition()
+  {
+    return readPosition;
+  }
+
+  /**
+   * Deletes the file of the ring on the producer side, the consumer keeps its mapping until it is garbage collected.
+   */
+  @Override
+  public void close()
+  {
+    if (producer && !file.delete() && file.exists()) {
+      logger.warn("Failed to delete the ring file {}", file);
+    }
+  }
+
+  @Override
+  public String toString()
+  {
+    return "SharedMemoryRing{" + "path=" + file + ", capacity=" + capacity + ", writePosition=" + writePosition +
+        ", releasedPosition=" + releasedPosition + ", readPosition=" + readPosition + '}';
+  }
+
+  private static final Logger logger = LoggerFactory.getLogger(SharedMemoryRing.class);
+
+}
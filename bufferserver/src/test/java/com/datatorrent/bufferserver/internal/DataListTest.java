@@ -0,0 +1,627 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package com.datatorrent.bufferserver.internal;
+
+import java.io.ByteArrayOutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import com.datatorrent.bufferserver.packet.BeginWindowTuple;
+import com.datatorrent.bufferserver.packet.EndWindowTuple;
+import com.datatorrent.bufferserver.packet.MessageType;
+import com.datatorrent.bufferserver.packet.PayloadTuple;
+import com.datatorrent.bufferserver.packet.ResetWindowTuple;
+import com.datatorrent.bufferserver.storage.CompressedStorage;
+import com.datatorrent.bufferserver.storage.Storage;
+import com.datatorrent.bufferserver.util.BitVector;
+import com.datatorrent.bufferserver.util.SerializedData;
+import com.datatorrent.bufferserver.util.VarInt;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertTrue;
+
+/**
+ *
+ */
+public class DataListTest
+{
+  private ExecutorService executor;
+
+  @BeforeMethod
+  public void setup()
+  {
+    executor = Executors.newSingleThreadExecutor();
+  }
+
+  @AfterMethod
+  public void teardown()
+  {
+    executor.shutdownNow();
+  }
+
+  private static class CountingListener implements DataListener
+  {
+    final AtomicInteger count = new AtomicInteger();
+
+    @Override
+    public boolean addedData(boolean checkIfListenerHaveDataToSendOnly)
+    {
+      if (!checkIfListenerHaveDataToSendOnly) {
+        count.incrementAndGet();
+      }
+      return false;
+    }
+
+    @Override
+    public int getPartitions(Collection<BitVector> partitions)
+    {
+      return 0;
+    }
+
+    @Override
+    public int getCredits()
+    {
+      return Integer.MAX_VALUE;
+    }
+
+    @Override
+    public void discardPendingData()
+    {
+    }
+
+    @Override
+    public void rewindPendingData()
+    {
+    }
+  }
+
+  @Test
+  public void testNotificationsAreCoalesced() throws Exception
+  {
+    DataList dl = new DataList("test", 1024, 8, false);
+    dl.setAutoFlushExecutor(executor);
+    CountingListener listener = new CountingListener();
+    dl.addDataListener(listener);
+
+    // keep the executor busy so that all the notifications below queue up behind it
+    final CountDownLatch latch = new CountDownLatch(1);
+    executor.submit(new Runnable()
+    {
+      @Override
+      public void run()
+      {
+        try {
+          latch.await();
+        } catch (InterruptedException e) {
+          throw new RuntimeException(e);
+        }
+      }
+    });
+
+    final int initial = listener.count.get();
+    for (int i = 0; i < 1000; i++) {
+      dl.notifyListeners();
+    }
+    latch.countDown();
+    executor.submit(new Runnable()
+    {
+      @Override
+      public void run()
+      {
+      }
+    }).get(10, TimeUnit.SECONDS);
+
+    assertTrue(listener.count.get() - initial <= 2, "notifications " + (listener.count.get() - initial));
+    dl.removeDataListener(listener);
+    DataList.Status status = dl.getStatus();
+    assertTrue(status.numNotifications >= 1);
+    assertTrue(status.numCoalescedNotifications >= 998);
+    assertTrue(status.totalNotifyLatencyNanos >= status.maxNotifyLatencyNanos);
+  }
+
+  @Test
+  public void testListenerChurnDuringNotification() throws Exception
+  {
+    final DataList dl = new DataList("test", 1024, 8, false);
+    dl.setAutoFlushExecutor(executor);
+    final CountingListener stable = new CountingListener();
+    dl.addDataListener(stable);
+
+    Thread churn = new Thread()
+    {
+      @Override
+      public void run()
+      {
+        for (int i = 0; i < 10000; i++) {
+          CountingListener listener = new CountingListener();
+          dl.addDataListener(listener);
+          dl.removeDataListener(listener);
+        }
+      }
+    };
+    churn.start();
+    for (int i = 0; i < 10000; i++) {
+      dl.notifyListeners();
+    }
+    churn.join();
+
+    final int before = stable.count.get();
+    dl.notifyListeners();
+    for (int i = 0; i < 1000 && stable.count.get() == before; i++) {
+      Thread.sleep(10);
+    }
+    assertTrue(stable.count.get() > before);
+
+    dl.removeDataListener(stable);
+    assertEquals(dl.getStatus().slowestConsumer, null);
+  }
+
+  private static class MemoryStorage implements Storage
+  {
+    final Map<Integer, byte[]> blocks = new ConcurrentHashMap<>();
+    final AtomicInteger uniqueIdentifier = new AtomicInteger();
+
+    @Override
+    public Storage getInstance()
+    {
+      return this;
+    }
+
+    @Override
+    public int store(String identifier, byte[] bytes, int start, int end)
+    {
+      int id = uniqueIdentifier.incrementAndGet();
+      blocks.put(id, Arrays.copyOfRange(bytes, start, end));
+      return id;
+    }
+
+    @Override
+    public byte[] retrieve(String identifier, int uniqueIdentifier)
+    {
+      return blocks.get(uniqueIdentifier);
+    }
+
+    @Override
+    public void discard(String identifier, int uniqueIdentifier)
+    {
+      blocks.remove(uniqueIdentifier);
+    }
+  }
+
+  @Test
+  public void testReadAheadOfSpooledBlocks() throws Exception
+  {
+    DataList.Status status = spoolAndReadAhead(new MemoryStorage());
+    assertEquals(status.numSpoolBytes, 0);
+    assertEquals(status.numSpoolCompressedBytes, 0);
+  }
+
+  @Test
+  public void testCompressedSpooledBlocks() throws Exception
+  {
+    DataList.Status status = spoolAndReadAhead(new CompressedStorage(new MemoryStorage()));
+    assertTrue(status.numSpoolBytes > 0, "spool bytes " + status.numSpoolBytes);
+    assertTrue(status.numSpoolCompressedBytes < status.numSpoolBytes / 2,
+        "compressed " + status.numSpoolBytes + " spool bytes to " + status.numSpoolCompressedBytes);
+  }
+
+  private DataList.Status spoolAndReadAhead(Storage storage) throws Exception
+  {
+    final ExecutorService storageExecutor = Executors.newSingleThreadExecutor();
+    try {
+      DataList dl = new DataList("test", 1024, 8, false);
+      dl.setAutoFlushExecutor(executor);
+      dl.setSecondaryStorage(storage, storageExecutor, 2);
+
+      final int windows = 50;
+      final int tuplesPerWindow = 20;
+      publish(dl, windows, tuplesPerWindow);
+      awaitTasks(storageExecutor);
+
+      DataList.Status status = dl.getStatus();
+      assertTrue(status.numSpools > 0, "spools " + status.numSpools);
+      assertEquals(status.numPendingSpools, 0);
+
+      int payloads = 0;
+      int endWindows = 0;
+      try (DataList.DataListIterator iterator = dl.newIterator(0)) {
+        // the blocks are restored in the background, the iterator has the data once the spool worker is through
+        while (iterator.hasNext() || awaitTasks(storageExecutor) && iterator.hasNext()) {
+          SerializedData sd = iterator.next();
+          switch (sd.buffer[sd.dataOffset]) {
+            case MessageType.PAYLOAD_VALUE:
+              payloads++;
+              break;
+
+            case MessageType.END_WINDOW_VALUE:
+              endWindows++;
+              break;
+
+            default:
+              break;
+          }
+        }
+      }
+      assertEquals(payloads, windows * tuplesPerWindow);
+      assertEquals(endWindows, windows);
+
+      status = dl.getStatus();
+      assertTrue(status.numReadAheads > 0, "read aheads " + status.numReadAheads);
+      assertTrue(status.numRestores > 0, "restores " + status.numRestores);
+      assertTrue(status.totalRestoreLatencyNanos >= status.maxRestoreLatencyNanos);
+      dl.reset();
+      return status;
+    } finally {
+      storageExecutor.shutdownNow();
+    }
+  }
+
+  @Test
+  public void testRestoreOnSpoolWorker() throws Exception
+  {
+    final ExecutorService storageExecutor = Executors.newSingleThreadExecutor();
+    try {
+      final Set<Thread> retrievingThreads = Collections.newSetFromMap(new ConcurrentHashMap<Thread, Boolean>());
+      DataList dl = new DataList("test", 1024, 8, false);
+      dl.setAutoFlushExecutor(executor);
+      // without read ahead, every spooled block is restored when the iterator gets to it
+      dl.setSecondaryStorage(new MemoryStorage()
+      {
+        @Override
+        public byte[] retrieve(String identifier, int uniqueIdentifier)
+        {
+          retrievingThreads.add(Thread.currentThread());
+          return super.retrieve(identifier, uniqueIdentifier);
+        }
+      }, storageExecutor, 0);
+      final int windows = 50;
+      final int tuplesPerWindow = 20;
+      publish(dl, windows, tuplesPerWindow);
+      awaitTasks(storageExecutor);
+      assertTrue(dl.getStatus().numSpools > 0, "spools " + dl.getStatus().numSpools);
+      CountingListener listener = new CountingListener();
+      dl.addDataListener(listener);
+      awaitTasks(executor);
+
+      int payloads = 0;
+      int suspensions = 0;
+      try (DataList.DataListIterator iterator = dl.newIterator(0)) {
+        while (payloads < windows * tuplesPerWindow) {
+          if (iterator.hasNext()) {
+            final SerializedData sd = iterator.next();
+            if (sd.buffer[sd.dataOffset] == MessageType.PAYLOAD_VALUE) {
+              payloads++;
+            }
+          } else {
+            // the listener of a block that is being restored is notified once the block is back in memory
+            final int notifications = listener.count.get();
+            awaitTasks(storageExecutor);
+            awaitTasks(executor);
+            assertTrue(listener.count.get() > notifications, "notifications " + listener.count.get());
+            assertTrue(iterator.hasNext());
+            suspensions++;
+          }
+        }
+      }
+      assertTrue(suspensions > 0, "suspensions " + suspensions);
+      assertTrue(retrievingThreads.size() > 0);
+      assertFalse(retrievingThreads.contains(Thread.currentThread()), "retrieved on " + retrievingThreads);
+      dl.removeDataListener(listener);
+      dl.reset();
+    } finally {
+      storageExecutor.shutdownNow();
+    }
+  }
+
+  @Test
+  public void testReadAheadOfLeavingSubscriberIsDiscarded() throws Exception
+  {
+    final ExecutorService storageExecutor = Executors.newSingleThreadExecutor();
+    try {
+      DataList dl = new DataList("test", 1024, 8, false);
+      dl.setAutoFlushExecutor(executor);
+      dl.setSecondaryStorage(new MemoryStorage(), storageExecutor, 2);
+      publish(dl, 50, 20);
+      awaitTasks(storageExecutor);
+
+      DataList.DataListIterator iterator = dl.newIterator(0);
+      while (dl.getStatus().numReadAheads == 0) {
+        if (iterator.hasNext()) {
+          iterator.next();
+        } else {
+          awaitTasks(storageExecutor);
+        }
+      }
+      awaitTasks(storageExecutor);
+      final DataList.Block block = iterator.da;
+      iterator.close();
+      awaitTasks(storageExecutor);
+
+      // a subscriber that leaves returns the memory of the blocks read ahead for it
+      for (DataList.Block next = block.next; next != null; next = next.next) {
+        if (next.uniqueIdentifier != 0) {
+          assertNull(next.data, "data of spooled " + next);
+        }
+      }
+      dl.reset();
+    } finally {
+      storageExecutor.shutdownNow();
+    }
+  }
+
+  @Test
+  public void testPurgeKeepsPendingViews() throws Exception
+  {
+    DataList dl = new DataList("test", 1024, 8, false);
+    publish(dl, 50, 20);
+    final byte[] expected = PhysicalNodeTest.getFrames(dl);
+    try (ServerSocketChannel server = ServerSocketChannel.open()) {
+      server.bind(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0));
+      try (SocketChannel out = SocketChannel.open(server.getLocalAddress()); SocketChannel in = server.accept()) {
+        in.configureBlocking(false);
+        DataList.DataListIterator iterator = dl.newIterator(0);
+        PhysicalNode pn = new PhysicalNode(new PhysicalNodeTest.GatheringClient(out), iterator);
+        while (iterator.hasNext()) {
+          assertTrue(pn.send(iterator.next()));
+        }
+        assertFalse(pn.flush());
+
+        // the blocks of the windows purged while their views wait for the event loop are kept
+        final long windowId = 25;
+        final DataList.Block head = dl.first;
+        dl.purge(windowId);
+        assertTrue(dl.first == head, "purged block with pending views");
+        ByteArrayOutputStream received = new ByteArrayOutputStream();
+        ByteBuffer buffer = ByteBuffer.allocate(4096);
+        boolean written = false;
+        for (int i = 0; i < 1000 && (!written || received.size() < expected.length); i++) {
+          written = written || pn.writePendingViews();
+          buffer.clear();
+          if (in.read(buffer) == 0) {
+            Thread.sleep(1);
+          }
+          received.write(buffer.array(), 0, buffer.position());
+        }
+        assertEquals(received.toByteArray(), expected);
+
+        // and purged once the views are written
+        dl.purge(windowId);
+        assertTrue(dl.first != head && dl.first.ending_window > windowId, "first block after purge " + dl.first);
+        iterator.close();
+      }
+    }
+  }
+
+  private static void publish(DataList dl, int windows, int tuplesPerWindow)
+  {
+    List<byte[]> frames = new ArrayList<>();
+    frames.add(frame(ResetWindowTuple.getSerializedTuple(0, 500)));
+    for (int i = 0; i < windows; i++) {
+      frames.add(frame(BeginWindowTuple.getSerializedTuple(i)));
+      for (int j = 0; j < tuplesPerWindow; j++) {
+        frames.add(frame(PayloadTuple.getSerializedTuple(0, 64)));
+      }
+      frames.add(frame(EndWindowTuple.getSerializedTuple(i)));
+    }
+
+    byte[] buffer = dl.getBuffer(0);
+    int offset = dl.getPosition();
+    for (byte[] frame : frames) {
+      if (frame.length > buffer.length - offset) {
+        System.arraycopy(frame, 0, buffer, offset, buffer.length - offset);
+        dl.flush(buffer.length);
+        buffer = dl.newBuffer(frame.length);
+        dl.addBuffer(buffer);
+        offset = 0;
+      }
+      System.arraycopy(frame, 0, buffer, offset, frame.length);
+      offset += frame.length;
+      dl.flush(offset);
+    }
+  }
+
+  /**
+   * Waits for the tasks submitted to the single threaded executor so far to complete.
+   *
+   * @return true
+   */
+  private static boolean awaitTasks(ExecutorService executor) throws Exception
+  {
+    executor.submit(new Runnable()
+    {
+      @Override
+      public void run()
+      {
+      }
+    }).get(10, TimeUnit.SECONDS);
+    return true;
+  }
+
+  private static class IteratorListener implements DataListener
+  {
+    final DataList.DataListIterator iterator;
+
+    IteratorListener(DataList.DataListIterator iterator)
+    {
+      this.iterator = iterator;
+    }
+
+    @Override
+    public boolean addedData(boolean checkIfListenerHaveDataToSendOnly)
+    {
+      return false;
+    }
+
+    @Override
+    public int getPartitions(Collection<BitVector> partitions)
+    {
+      return 0;
+    }
+
+    @Override
+    public int getCredits()
+    {
+      return iterator.getCredits();
+    }
+
+    @Override
+    public void discardPendingData()
+    {
+    }
+
+    @Override
+    public void rewindPendingData()
+    {
+    }
+
+    int drain(ExecutorService storageExecutor) throws Exception
+    {
+      int payloads = 0;
+      while (iterator.hasNext() || awaitTasks(storageExecutor) && iterator.hasNext()) {
+        SerializedData sd = iterator.next();
+        if (sd.buffer[sd.dataOffset] == MessageType.PAYLOAD_VALUE) {
+          payloads++;
+        }
+      }
+      return payloads;
+    }
+  }
+
+  @Test
+  public void testSlowestFlowControl() throws Exception
+  {
+    assertEquals(publishWithLaggard(FlowControlPolicy.SLOWEST, 1, 30), 7);
+  }
+
+  @Test
+  public void testSpillSlowestFlowControl() throws Exception
+  {
+    assertEquals(publishWithLaggard(FlowControlPolicy.SPILL_SLOWEST, 1, 30), 30);
+  }
+
+  @Test
+  public void testQuorumFlowControl() throws Exception
+  {
+    assertEquals(publishWithLaggard(FlowControlPolicy.QUORUM, 1, 30), 6);
+    assertEquals(publishWithLaggard(FlowControlPolicy.QUORUM, 2, 30), 30);
+  }
+
+  /**
+   * Publishes blocks until the publisher runs out of credits while one listener never reads and the others read all.
+   *
+   * @return number of blocks added by the publisher
+   */
+  private int publishWithLaggard(FlowControlPolicy policy, int fastListeners, int maxBlocks) throws Exception
+  {
+    final ExecutorService storageExecutor = Executors.newSingleThreadExecutor();
+    try {
+      DataList dl = new DataList("test", 1024, 8, true);
+      dl.setAutoFlushExecutor(executor);
+      dl.setFlowControlPolicy(policy);
+      dl.setSecondaryStorage(new MemoryStorage(), storageExecutor, 0);
+
+      byte[] buffer = dl.getBuffer(0);
+      int offset = dl.getPosition();
+      for (byte[] frame : Arrays.asList(frame(ResetWindowTuple.getSerializedTuple(0, 500)),
+          frame(BeginWindowTuple.getSerializedTuple(0)))) {
+        System.arraycopy(frame, 0, buffer, offset, frame.length);
+        offset += frame.length;
+      }
+      dl.flush(offset);
+
+      IteratorListener slow = new IteratorListener(dl.newIterator(0));
+      List<IteratorListener> fast = new ArrayList<>();
+      for (int i = 0; i < fastListeners; i++) {
+        fast.add(new IteratorListener(dl.newIterator(0)));
+      }
+      dl.addDataListener(slow);
+      for (IteratorListener listener : fast) {
+        dl.addDataListener(listener);
+      }
+
+      int blocks = 0;
+      int payloads = 0;
+      final byte[] frame = frame(PayloadTuple.getSerializedTuple(0, 64));
+      while (true) {
+        if (frame.length > buffer.length - offset) {
+          System.arraycopy(frame, 0, buffer, offset, buffer.length - offset);
+          dl.flush(buffer.length);
+          for (IteratorListener listener : fast) {
+            listener.drain(storageExecutor);
+          }
+          awaitTasks(storageExecutor);
+          if (blocks == maxBlocks || !dl.hasCreditForNewBlock()) {
+            break;
+          }
+          buffer = dl.newBuffer(frame.length);
+          dl.addBuffer(buffer);
+          offset = 0;
+          blocks++;
+        }
+        System.arraycopy(frame, 0, buffer, offset, frame.length);
+        offset += frame.length;
+        dl.flush(offset);
+        payloads++;
+      }
+
+      assertTrue(slow.getCredits() <= 0, "credits " + slow.getCredits());
+      assertEquals(slow.drain(storageExecutor), payloads);
+
+      dl.removeDataListener(slow);
+      for (IteratorListener listener : fast) {
+        dl.removeDataListener(listener);
+        listener.iterator.close();
+      }
+      slow.iterator.close();
+      dl.reset();
+      return blocks;
+    } finally {
+      storageExecutor.shutdownNow();
+    }
+  }
+
+  private static byte[] frame(byte[] tuple)
+  {
+    byte[] frame = new byte[VarInt.getSize(tuple.length) + tuple.length];
+    System.arraycopy(tuple, 0, frame, VarInt.write(tuple.length, frame, 0), tuple.length);
+    return frame;
+  }
+}
@@ -0,0 +1,152 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package com.datatorrent.bufferserver.internal;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Random;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.testng.annotations.DataProvider;
+import org.testng.annotations.Test;
+
+import com.datatorrent.bufferserver.packet.PayloadTuple;
+import com.datatorrent.bufferserver.packet.Tuple;
+import com.datatorrent.bufferserver.util.BitVector;
+
+import static org.testng.Assert.assertEquals;
+
+/**
+ *
+ */
+public class PartitionRoutingTableTest
+{
+  private static boolean scan(Iterable<BitVector> partitions, int value)
+  {
+    for (BitVector bv : partitions) {
+      if (bv.matches(value)) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  @DataProvider(name = "masks")
+  public Object[][] masks()
+  {
+    return new Object[][] {{0x1, new int[] {1}}, {0x3, new int[] {0, 2}}, {0xff, new int[] {3, 17, 255}},
+        {0xa, new int[] {2, 8}}, {0x7fff0000, new int[] {0x10000}}, {0xffffffff, new int[] {-1, 5}}};
+  }
+
+  @Test(dataProvider = "masks")
+  public void testMatchesLikeBitVectors(int mask, int[] bits)
+  {
+    HashSet<BitVector> partitions = new HashSet<>();
+    for (int b : bits) {
+      partitions.add(new BitVector(b, mask));
+    }
+    PartitionRoutingTable table = new PartitionRoutingTable(partitions);
+
+    Random random = new Random(mask);
+    for (int i = 0; i < 10000; i++) {
+      int value = random.nextInt();
+      assertEquals(table.matches(value), scan(partitions, value), "value " + value + " in " + table);
+    }
+    for (int b : bits) {
+      assertEquals(table.matches(b), true);
+    }
+  }
+
+  @Test
+  public void testMixedMasks()
+  {
+    HashSet<BitVector> partitions = new HashSet<>(Arrays.asList(new BitVector(1, 0x1), new BitVector(2, 0x6)));
+    PartitionRoutingTable table = new PartitionRoutingTable(partitions);
+    for (int value = 0; value < 64; value++) {
+      assertEquals(table.matches(value), scan(partitions, value), "value " + value);
+    }
+  }
+
+  @Test
+  public void testPartitionFromBuffer()
+  {
+    byte[] tuple = PayloadTuple.getSerializedTuple(0xcafebabe, 3);
+    assertEquals(PayloadTuple.getPartition(tuple, 0), 0xcafebabe);
+    assertEquals(PayloadTuple.getPartition(tuple, 0), Tuple.getTuple(tuple, 0, tuple.length).getPartition());
+  }
+
+  @DataProvider(name = "partitionCounts")
+  public Object[][] partitionCounts()
+  {
+    return new Object[][] {{1}, {16}, {64}, {256}};
+  }
+
+  /**
+   * Compares routing through {@link Tuple} instances and a linear scan of the partitions with the lookup table.
+   */
+  @Test(dataProvider = "partitionCounts", enabled = false)
+  public void benchmarkRouting(int partitionCount)
+  {
+    final int mask = Integer.highestOneBit(partitionCount) * 2 - 1;
+    final HashSet<BitVector> partitions = new HashSet<>();
+    for (int i = 0; i < partitionCount; i++) {
+      partitions.add(new BitVector(i, mask));
+    }
+    final PartitionRoutingTable table = new PartitionRoutingTable(partitions);
+
+    final ArrayList<byte[]> tuples = new ArrayList<>();
+    final Random random = new Random();
+    for (int i = 0; i < 1024; i++) {
+      tuples.add(PayloadTuple.getSerializedTuple(random.nextInt(), 32));
+    }
+
+    final int iterations = 10000;
+    for (int round = 0; round < 3; round++) {
+      int matched = 0;
+      long start = System.nanoTime();
+      for (int i = 0; i < iterations; i++) {
+        for (byte[] tuple : tuples) {
+          if (scan(partitions, Tuple.getTuple(tuple, 0, tuple.length).getPartition())) {
+            matched++;
+          }
+        }
+      }
+      final long scanNanos = System.nanoTime() - start;
+
+      start = System.nanoTime();
+      for (int i = 0; i < iterations; i++) {
+        for (byte[] tuple : tuples) {
+          if (table.matches(PayloadTuple.getPartition(tuple, 0))) {
+            matched--;
+          }
+        }
+      }
+      final long tableNanos = System.nanoTime() - start;
+
+      assertEquals(matched, 0);
+      final double count = (double)iterations * tuples.size();
+      logger.info("{} partitions: scan {} ns/tuple, table {} ns/tuple", partitionCount, scanNanos / count,
+          tableNanos / count);
+    }
+  }
+
+  private static final Logger logger = LoggerFactory.getLogger(PartitionRoutingTableTest.class);
+}
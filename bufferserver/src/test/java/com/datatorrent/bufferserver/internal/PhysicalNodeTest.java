@@ -0,0 +1,236 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package com.datatorrent.bufferserver.internal;
+
+import java.io.ByteArrayOutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.Arrays;
+
+import org.testng.annotations.Test;
+
+import com.datatorrent.bufferserver.packet.BeginWindowTuple;
+import com.datatorrent.bufferserver.packet.PayloadTuple;
+import com.datatorrent.bufferserver.packet.ResetWindowTuple;
+import com.datatorrent.bufferserver.util.SerializedData;
+import com.datatorrent.bufferserver.util.VarInt;
+import com.datatorrent.netlet.WriteOnlyLengthPrependerClient;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+
+/**
+ * Gathering writes of the block views of a physical node.
+ */
+public class PhysicalNodeTest
+{
+  static class GatheringClient extends WriteOnlyLengthPrependerClient implements GatheringWriteClient
+  {
+    final SocketChannel channel;
+    int notifications;
+    PhysicalNode node;
+
+    GatheringClient(SocketChannel channel)
+    {
+      super(1024, 1024);
+      this.channel = channel;
+    }
+
+    @Override
+    public SocketChannel getSocketChannel()
+    {
+      return channel;
+    }
+
+    @Override
+    public void notifyWhenWritable(PhysicalNode node)
+    {
+      notifications++;
+      this.node = node;
+    }
+  }
+
+  @Test
+  public void testViewsAreWrittenByTheEventLoop() throws Exception
+  {
+    DataList dl = newDataList();
+    try (ServerSocketChannel server = ServerSocketChannel.open()) {
+      server.bind(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0));
+      try (SocketChannel out = SocketChannel.open(server.getLocalAddress()); SocketChannel in = server.accept()) {
+        in.configureBlocking(false);
+        GatheringClient client = new GatheringClient(out);
+        DataList.DataListIterator iterator = dl.newIterator(0);
+        PhysicalNode pn = new PhysicalNode(client, iterator);
+        ByteArrayOutputStream expected = new ByteArrayOutputStream();
+        send(iterator, pn, expected);
+
+        assertFalse(pn.flush());
+        assertFalse(pn.flush());
+        assertEquals(client.notifications, 1, "write requests");
+        ByteBuffer received = ByteBuffer.allocate(expected.size() + 1);
+        assertEquals(in.read(received), 0, "bytes written before the event loop writes");
+
+        assertTrue(pn.writePendingViews());
+        for (int i = 0; i < 1000 && received.position() < expected.size(); i++) {
+          if (in.read(received) == 0) {
+            Thread.sleep(1);
+          }
+        }
+        assertEquals(Arrays.copyOf(received.array(), received.position()), expected.toByteArray());
+        assertTrue(pn.flush());
+        iterator.close();
+      }
+    }
+  }
+
+  @Test
+  public void testDiscardPendingViews() throws Exception
+  {
+    DataList dl = newDataList();
+    try (ServerSocketChannel server = ServerSocketChannel.open()) {
+      server.bind(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0));
+      try (SocketChannel out = SocketChannel.open(server.getLocalAddress()); SocketChannel in = server.accept()) {
+        in.configureBlocking(false);
+        DataList.DataListIterator iterator = dl.newIterator(0);
+        PhysicalNode pn = new PhysicalNode(new GatheringClient(out), iterator);
+        send(iterator, pn, new ByteArrayOutputStream());
+
+        assertFalse(pn.discardPendingViews(), "partly written view");
+        assertTrue(pn.writePendingViews());
+        assertEquals(in.read(ByteBuffer.allocate(1024)), 0, "bytes of discarded views");
+
+        // the blocks of the discarded views are released, so the data list purges them
+        dl.purge(Long.MAX_VALUE);
+        iterator.close();
+      }
+    }
+  }
+
+  @Test
+  public void testRewindResendsUnsentFrames() throws Exception
+  {
+    DataList dl = newDataList();
+    try (ServerSocketChannel server = ServerSocketChannel.open()) {
+      server.bind(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0));
+      try (SocketChannel out = SocketChannel.open(server.getLocalAddress()); SocketChannel in = server.accept()) {
+        in.configureBlocking(false);
+        GatheringClient client = new GatheringClient(out);
+        LogicalNode ln = new LogicalNode("subscriber", "publisher", "group", dl.newIterator(0), -1L, null);
+        ln.addConnection(client);
+
+        // the views dropped by a rewind are sent again
+        ln.addedData(false);
+        ln.rewindPendingData();
+        ln.addedData(false);
+        assertTrue(client.node.writePendingViews());
+        final byte[] expected = getFrames(dl);
+        assertEquals(receive(in, expected.length), expected);
+
+        // the frames written out before a rewind are not sent again
+        publish(dl, 50, 30);
+        ln.addedData(false);
+        ln.rewindPendingData();
+        ln.addedData(false);
+        assertTrue(client.node.writePendingViews());
+        final byte[] all = getFrames(dl);
+        assertEquals(receive(in, all.length - expected.length), Arrays.copyOfRange(all, expected.length, all.length));
+        assertEquals(in.read(ByteBuffer.allocate(1)), 0, "bytes sent twice");
+        ln.removeChannel(client);
+        ln.getIterator().close();
+        dl.purge(Long.MAX_VALUE);
+      }
+    }
+  }
+
+  /**
+   * Reads the given number of bytes from the non blocking channel.
+   */
+  static byte[] receive(SocketChannel in, int length) throws Exception
+  {
+    ByteBuffer received = ByteBuffer.allocate(length);
+    for (int i = 0; i < 1000 && received.hasRemaining(); i++) {
+      if (in.read(received) == 0) {
+        Thread.sleep(1);
+      }
+    }
+    return Arrays.copyOf(received.array(), received.position());
+  }
+
+  private static DataList newDataList()
+  {
+    DataList dl = new DataList("test", 1024, 8, false);
+    publish(dl, 0, 50);
+    return dl;
+  }
+
+  private static void publish(DataList dl, int first, int count)
+  {
+    byte[] buffer = dl.getBuffer(0);
+    int offset = dl.getPosition();
+    for (int i = first; i < first + count; i++) {
+      final byte[] frame = frame(i == 0 ? ResetWindowTuple.getSerializedTuple(0, 500) : i == 1 ?
+          BeginWindowTuple.getSerializedTuple(0) : PayloadTuple.getSerializedTuple(0, 64));
+      if (frame.length > buffer.length - offset) {
+        System.arraycopy(frame, 0, buffer, offset, buffer.length - offset);
+        dl.flush(buffer.length);
+        buffer = dl.newBuffer(frame.length);
+        dl.addBuffer(buffer);
+        offset = 0;
+      }
+      System.arraycopy(frame, 0, buffer, offset, frame.length);
+      offset += frame.length;
+    }
+    dl.flush(offset);
+  }
+
+  /**
+   * @return the frames of the data list one after the other
+   */
+  static byte[] getFrames(DataList dl)
+  {
+    ByteArrayOutputStream frames = new ByteArrayOutputStream();
+    try (DataList.DataListIterator iterator = dl.newIterator(0)) {
+      while (iterator.hasNext()) {
+        SerializedData sd = iterator.next();
+        frames.write(sd.buffer, sd.offset, sd.length);
+      }
+    }
+    return frames.toByteArray();
+  }
+
+  private static void send(DataList.DataListIterator iterator, PhysicalNode pn, ByteArrayOutputStream sent)
+  {
+    while (iterator.hasNext()) {
+      SerializedData sd = iterator.next();
+      assertTrue(pn.send(sd));
+      sent.write(sd.buffer, sd.offset, sd.length);
+    }
+  }
+
+  private static byte[] frame(byte[] tuple)
+  {
+    byte[] frame = new byte[VarInt.getSize(tuple.length) + tuple.length];
+    System.arraycopy(tuple, 0, frame, VarInt.write(tuple.length, frame, 0), tuple.length);
+    return frame;
+  }
+}
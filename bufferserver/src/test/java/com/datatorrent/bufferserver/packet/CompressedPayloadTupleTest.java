@@ -0,0 +1,60 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package com.datatorrent.bufferserver.packet;
+
+import java.util.Arrays;
+
+import org.testng.annotations.Test;
+
+import com.datatorrent.bufferserver.util.LZ4Codec;
+import com.datatorrent.netlet.util.Slice;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertTrue;
+
+/**
+ *
+ */
+public class CompressedPayloadTupleTest
+{
+  @Test
+  public void testSerializedTuple()
+  {
+    byte[] data = new byte[4096];
+    for (int i = 0; i < data.length; i++) {
+      data[i] = (byte)("payload-" + (i / 256)).charAt(i % 9);
+    }
+    byte[] serial = CompressedPayloadTuple.getSerializedTuple(0x12345678, new Slice(data, 0, data.length),
+        new LZ4Codec());
+    assertTrue(serial.length < data.length / 4, "serialized " + serial.length);
+    assertEquals(PayloadTuple.getPartition(serial, 0), 0x12345678, "Partition");
+
+    CompressedPayloadTuple tuple = (CompressedPayloadTuple)Tuple.getTuple(serial, 0, serial.length);
+    assertEquals(tuple.getType(), MessageType.COMPRESSED_PAYLOAD, "Type");
+    assertEquals(tuple.getPartition(), 0x12345678, "Partition");
+    assertEquals(tuple.getUncompressedLength(), data.length, "Length");
+    assertEquals(tuple.getData().toByteArray(), data, "Data");
+
+    byte[] payload = CompressedPayloadTuple.getSerializedPayloadTuple(serial, 0, serial.length);
+    PayloadTuple payloadTuple = (PayloadTuple)Tuple.getTuple(payload, 0, payload.length);
+    assertEquals(payloadTuple.getType(), MessageType.PAYLOAD, "Type");
+    assertEquals(payloadTuple.getPartition(), 0x12345678, "Partition");
+    assertEquals(Arrays.copyOfRange(payload, 5, payload.length), data, "Data");
+  }
+}
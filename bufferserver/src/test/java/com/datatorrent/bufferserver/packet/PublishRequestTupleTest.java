@@ -41,6 +41,20 @@ public class PublishRequestTupleTest
 
     assertEquals(request.identifier, pubId, "Identifier");
     assertEquals((long)request.baseSeconds << 32 | request.windowId, windowId, "Window");
+    assertEquals(request.getCompression(), Tuple.NO_COMPRESSION, "Compression");
+  }
+
+  @Test
+  public void testGetSerializedRequestWithCompression()
+  {
+    String pubId = "TestPublisher";
+    long windowId = 0xcafebabe000000ffL;
+    byte[] serial = PublishRequestTuple.getSerializedRequest(null, pubId, windowId, Tuple.LZ4_COMPRESSION);
+    PublishRequestTuple request = (PublishRequestTuple)Tuple.getTuple(serial, 0, serial.length);
+
+    assertEquals(request.getIdentifier(), pubId, "Identifier");
+    assertEquals((long)request.getBaseSeconds() << 32 | request.getWindowId(), windowId, "Window");
+    assertEquals(request.getCompression(), Tuple.LZ4_COMPRESSION, "Compression");
   }
 
 }
@@ -54,6 +54,7 @@ public class SubscribeRequestTupleTest
     assertEquals(tuple.getUpstreamIdentifier(), upstream_id, "UpstreamId");
     assertEquals(tuple.getMask(), mask, "Mask");
     assertEquals(tuple.getBufferSize(), 32 * 1024, "BufferSize");
+    assertEquals(tuple.getCompression(), Tuple.NO_COMPRESSION, "Compression");
     int[] parts = tuple.getPartitions();
     assertNotNull(parts);
     assertEquals(parts.length, 1);
@@ -71,4 +72,39 @@ public class SubscribeRequestTupleTest
     assertNull(tuple.getPartitions());
     assertEquals((long)tuple.getBaseSeconds() << 32 | tuple.getWindowId(), startingWindowId, "Window");
   }
+
+  @Test
+  public void testGetSerializedRequestWithCompression()
+  {
+    long startingWindowId = 0xcafebabe00000078L;
+    byte[] serial = getSerializedRequest(null, "SubscriberId", "SubscriberId/StreamType", "PublisherId", 0, null,
+        startingWindowId, 32 * 1024, Tuple.LZ4_COMPRESSION);
+    SubscribeRequestTuple tuple = (SubscribeRequestTuple)Tuple.getTuple(serial, 0, serial.length);
+
+    assertEquals(tuple.getIdentifier(), "SubscriberId", "Identifier");
+    assertEquals(tuple.getBufferSize(), 32 * 1024, "BufferSize");
+    assertEquals(tuple.getCompression(), Tuple.LZ4_COMPRESSION, "Compression");
+    assertEquals((long)tuple.getBaseSeconds() << 32 | tuple.getWindowId(), startingWindowId, "Window");
+  }
+
+  @Test
+  public void testGetSerializedRequestWithTransport()
+  {
+    long startingWindowId = 0xcafebabe00000078L;
+    byte[] serial = getSerializedRequest(null, "SubscriberId", "SubscriberId/StreamType", "PublisherId", 0, null,
+        startingWindowId, 32 * 1024, Tuple.NO_COMPRESSION, Tuple.SHARED_MEMORY_TRANSPORT);
+    SubscribeRequestTuple tuple = (SubscribeRequestTuple)Tuple.getTuple(serial, 0, serial.length);
+
+    assertEquals(tuple.getIdentifier(), "SubscriberId", "Identifier");
+    assertEquals(tuple.getBufferSize(), 32 * 1024, "BufferSize");
+    assertEquals(tuple.getCompression(), Tuple.NO_COMPRESSION, "Compression");
+    assertEquals(tuple.getTransport(), Tuple.SHARED_MEMORY_TRANSPORT, "Transport");
+
+    serial = getSerializedRequest(null, "SubscriberId", "SubscriberId/StreamType", "PublisherId", 0, null,
+        startingWindowId, 32 * 1024, Tuple.LZ4_COMPRESSION);
+    tuple = (SubscribeRequestTuple)Tuple.getTuple(serial, 0, serial.length);
+
+    assertEquals(tuple.getCompression(), Tuple.LZ4_COMPRESSION, "Compression");
+    assertEquals(tuple.getTransport(), Tuple.SOCKET_TRANSPORT, "Transport");
+  }
 }
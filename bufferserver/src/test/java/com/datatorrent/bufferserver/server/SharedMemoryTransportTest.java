@@ -0,0 +1,122 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package com.datatorrent.bufferserver.server;
+
+import java.io.File;
+import java.net.InetSocketAddress;
+
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+
+import com.datatorrent.bufferserver.packet.BeginWindowTuple;
+import com.datatorrent.bufferserver.packet.EndWindowTuple;
+import com.datatorrent.bufferserver.packet.PayloadTuple;
+import com.datatorrent.bufferserver.packet.Tuple;
+import com.datatorrent.bufferserver.support.Publisher;
+import com.datatorrent.bufferserver.support.Subscriber;
+import com.datatorrent.netlet.DefaultEventLoop;
+
+import static java.lang.Thread.sleep;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+
+/**
+ * Subscribers that read the frames from a shared memory ring small enough to wrap around and fill up.
+ */
+public class SharedMemoryTransportTest
+{
+  static final int RING_CAPACITY = 4096;
+  static DefaultEventLoop eventloopServer;
+  static DefaultEventLoop eventloopClient;
+  static Server instance;
+  static int spinCount = 500;
+  static InetSocketAddress address;
+
+  @BeforeClass
+  public static void setupServerAndClients() throws Exception
+  {
+    eventloopServer = DefaultEventLoop.createEventLoop("server");
+    eventloopServer.start();
+
+    eventloopClient = DefaultEventLoop.createEventLoop("client");
+    eventloopClient.start();
+
+    instance = new Server(eventloopServer, 0, 64 * 1024, 8);
+    instance.setSharedMemoryDirectory(new File(System.getProperty("java.io.tmpdir")));
+    instance.setSharedMemoryRingCapacity(RING_CAPACITY);
+
+    address = instance.run();
+    assertFalse(address.isUnresolved());
+  }
+
+  @AfterClass
+  public static void teardownServerAndClients()
+  {
+    instance.stop();
+    eventloopClient.stop();
+    eventloopServer.stop();
+  }
+
+  @Test
+  @SuppressWarnings("SleepWhileInLoop")
+  public void testSharedMemoryTransport() throws InterruptedException
+  {
+    Subscriber ringSubscriber = new Subscriber("RingSubscriber");
+    eventloopClient.connect(address, ringSubscriber);
+    ringSubscriber.activate(null, "BufferServerOutput/RingSubscriber", "MyPublisher", 0, null, 0L, 0,
+        Tuple.NO_COMPRESSION, Tuple.SHARED_MEMORY_TRANSPORT);
+
+    Subscriber socketSubscriber = new Subscriber("SocketSubscriber");
+    eventloopClient.connect(address, socketSubscriber);
+    socketSubscriber.activate(null, "BufferServerOutput/SocketSubscriber", "MyPublisher", 0, null, 0L, 0);
+
+    Publisher bsp = new Publisher("MyPublisher");
+    eventloopClient.connect(address, bsp);
+    bsp.activate(null, 0x7afebabe, 0);
+
+    long windowId = 0x7afebabe00000000L;
+    for (int w = 0; w < 2; w++, windowId++) {
+      bsp.publishMessage(BeginWindowTuple.getSerializedTuple((int)windowId));
+      for (int i = 0; i < 1000; i++) {
+        byte[] buff = PayloadTuple.getSerializedTuple(0, 1);
+        buff[buff.length - 1] = (byte)i;
+        bsp.publishMessage(buff);
+      }
+      /* too large for the ring, sent over the socket in order with the frames in the ring */
+      bsp.publishMessage(PayloadTuple.getSerializedTuple(0, RING_CAPACITY));
+      bsp.publishMessage(EndWindowTuple.getSerializedTuple((int)windowId));
+    }
+
+    for (Subscriber subscriber : new Subscriber[] {ringSubscriber, socketSubscriber}) {
+      for (int i = 0; i < spinCount && subscriber.tupleCount.get() < 2006; i++) {
+        sleep(10);
+      }
+    }
+    Thread.sleep(10); // wait some more to receive more tuples if possible
+
+    eventloopClient.disconnect(bsp);
+    for (Subscriber subscriber : new Subscriber[] {ringSubscriber, socketSubscriber}) {
+      eventloopClient.disconnect(subscriber);
+      assertEquals(subscriber.tupleCount.get(), 2006);
+      assertEquals(subscriber.lastPayload.getWindowId(), (int)(windowId - 1));
+    }
+  }
+
+}
@@ -0,0 +1,90 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package com.datatorrent.bufferserver.storage;
+
+import java.io.File;
+import java.util.Arrays;
+import java.util.Random;
+
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import com.google.common.io.Files;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertTrue;
+
+/**
+ *
+ */
+public class CompressedStorageTest
+{
+  private static final String IDENTIFIER = "1.output";
+  private File baseDirectory;
+
+  @BeforeMethod
+  public void setup()
+  {
+    baseDirectory = Files.createTempDir();
+  }
+
+  @AfterMethod
+  public void teardown()
+  {
+    delete(baseDirectory);
+  }
+
+  private static void delete(File file)
+  {
+    File[] files = file.listFiles();
+    if (files != null) {
+      for (File child : files) {
+        delete(child);
+      }
+    }
+    file.delete();
+  }
+
+  @Test
+  public void testStoreAndRetrieve()
+  {
+    CompressedStorage storage = new CompressedStorage(new DiskStorage(baseDirectory.getPath()));
+
+    byte[] compressible = new byte[64 * 1024];
+    for (int i = 0; i < compressible.length; i++) {
+      compressible[i] = (byte)("window-" + (i / 1024)).charAt(i % 8);
+    }
+    byte[] random = new byte[16 * 1024];
+    new Random(0).nextBytes(random);
+
+    int first = storage.store(IDENTIFIER, compressible, 1024, compressible.length);
+    int second = storage.store(IDENTIFIER, random, 0, random.length);
+
+    long numBytes = compressible.length - 1024 + random.length;
+    assertEquals(storage.getNumBytes(), numBytes, "bytes");
+    assertTrue(storage.getNumStoredBytes() < random.length + 1024, "stored bytes " + storage.getNumStoredBytes());
+
+    assertEquals(storage.retrieve(IDENTIFIER, first), Arrays.copyOfRange(compressible, 1024, compressible.length));
+    assertEquals(storage.retrieve(IDENTIFIER, second), random);
+
+    storage.discard(IDENTIFIER, first);
+    storage.discard(IDENTIFIER, second);
+  }
+}
@@ -0,0 +1,138 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package com.datatorrent.bufferserver.storage;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import com.google.common.io.Files;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+
+/**
+ *
+ */
+public class MappedSegmentStorageTest
+{
+  private static final String IDENTIFIER = "1.output";
+  private File baseDirectory;
+
+  @BeforeMethod
+  public void setup()
+  {
+    baseDirectory = Files.createTempDir();
+  }
+
+  @AfterMethod
+  public void teardown()
+  {
+    delete(baseDirectory);
+  }
+
+  private static void delete(File file)
+  {
+    File[] files = file.listFiles();
+    if (files != null) {
+      for (File child : files) {
+        delete(child);
+      }
+    }
+    file.delete();
+  }
+
+  private static byte[] block(int size, int seed)
+  {
+    byte[] bytes = new byte[size];
+    for (int i = 0; i < size; i++) {
+      bytes[i] = (byte)(seed + i);
+    }
+    return bytes;
+  }
+
+  @Test
+  public void testStoreRetrieveDiscard()
+  {
+    MappedSegmentStorage storage = new MappedSegmentStorage(baseDirectory.getPath(), 1024);
+    byte[] first = block(512, 1);
+    byte[] second = block(512, 2);
+    byte[] third = block(100, 3);
+
+    int firstId = storage.store(IDENTIFIER, first, 0, first.length);
+    int secondId = storage.store(IDENTIFIER, second, 0, second.length);
+    int thirdId = storage.store(IDENTIFIER, third, 10, third.length);
+    assertTrue(firstId > 0);
+    assertEquals(new File(baseDirectory, DiskStorage.normalizeFileName(IDENTIFIER)).list().length, 3);
+
+    assertTrue(Arrays.equals(storage.retrieve(IDENTIFIER, firstId), first));
+    assertTrue(Arrays.equals(storage.retrieve(IDENTIFIER, secondId), second));
+    assertTrue(Arrays.equals(storage.retrieve(IDENTIFIER, thirdId), Arrays.copyOfRange(third, 10, third.length)));
+
+    storage.discard(IDENTIFIER, firstId);
+    storage.discard(IDENTIFIER, secondId);
+    assertEquals(new File(baseDirectory, DiskStorage.normalizeFileName(IDENTIFIER)).list().length, 2,
+        "first segment is deleted once all of its blocks are discarded");
+  }
+
+  @Test
+  public void testDiscardedSegmentIsUnmapped() throws IOException
+  {
+    MappedSegmentStorage storage = new MappedSegmentStorage(baseDirectory.getPath(), 1024);
+    byte[] bytes = block(1024, 5);
+    int firstId = storage.store(IDENTIFIER, bytes, 0, bytes.length);
+    int secondId = storage.store(IDENTIFIER, bytes, 0, bytes.length);
+    final File segment = new File(new File(baseDirectory, DiskStorage.normalizeFileName(IDENTIFIER)), "segment-1");
+    assertTrue(segment.isFile());
+
+    storage.discard(IDENTIFIER, firstId);
+    assertFalse(segment.exists(), "deleted segment");
+    final File maps = new File("/proc/self/maps");
+    if (maps.isFile()) {
+      assertFalse(Files.toString(maps, StandardCharsets.UTF_8).contains(segment.getCanonicalPath()),
+          "mapping of the deleted segment");
+    }
+    assertTrue(Arrays.equals(storage.retrieve(IDENTIFIER, secondId), bytes));
+  }
+
+  @Test
+  public void testBlockLargerThanSegment()
+  {
+    MappedSegmentStorage storage = new MappedSegmentStorage(baseDirectory.getPath(), 64);
+    byte[] bytes = block(1000, 7);
+    int id = storage.store(IDENTIFIER, bytes, 0, bytes.length);
+    assertTrue(Arrays.equals(storage.retrieve(IDENTIFIER, id), bytes));
+  }
+
+  @Test(expectedExceptions = RuntimeException.class)
+  public void testRetrieveDiscarded()
+  {
+    MappedSegmentStorage storage = new MappedSegmentStorage(baseDirectory.getPath(), 1024);
+    byte[] bytes = block(10, 0);
+    int id = storage.store(IDENTIFIER, bytes, 0, bytes.length);
+    storage.discard(IDENTIFIER, id);
+    storage.retrieve(IDENTIFIER, id);
+  }
+}
@@ -52,9 +52,24 @@ public class Subscriber extends com.datatorrent.bufferserver.client.Subscriber
     super.activate(version, type, sourceId, mask, partitions, windowId, bufferSize);
   }
 
+  @Override
+  public void activate(final String version, final String type, final String sourceId, final int mask,
+      final Collection<Integer> partitions, final long windowId, final int bufferSize, final int compression,
+      final int transport)
+  {
+    tupleCount.set(0);
+    firstPayload = lastPayload = null;
+    resetPayloads.clear();
+    super.activate(version, type, sourceId, mask, partitions, windowId, bufferSize, compression, transport);
+  }
+
   @Override
   public void onMessage(byte[] buffer, int offset, int size)
   {
+    if (onTransportMessage(buffer, offset, size)) {
+      return;
+    }
+
     Tuple tuple = Tuple.getTuple(buffer, offset, size);
     tupleCount.incrementAndGet();
     switch (tuple.getType()) {
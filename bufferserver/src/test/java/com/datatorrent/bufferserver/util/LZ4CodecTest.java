@@ -0,0 +1,106 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package com.datatorrent.bufferserver.util;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import org.testng.annotations.Test;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertTrue;
+
+/**
+ *
+ */
+public class LZ4CodecTest
+{
+  private final LZ4Codec codec = new LZ4Codec();
+
+  private void assertRoundTrip(byte[] data, int offset, int length)
+  {
+    byte[] compressed = new byte[3 + LZ4Codec.maxCompressedLength(length)];
+    int compressedLength = codec.compress(data, offset, length, compressed, 3);
+    assertTrue(compressedLength <= LZ4Codec.maxCompressedLength(length), "compressed length " + compressedLength);
+
+    byte[] decompressed = new byte[length + 2];
+    assertEquals(LZ4Codec.decompress(compressed, 3, compressedLength, decompressed, 2, length), length);
+    assertEquals(Arrays.copyOfRange(decompressed, 2, 2 + length), Arrays.copyOfRange(data, offset, offset + length));
+  }
+
+  @Test
+  public void testRoundTrip()
+  {
+    Random random = new Random(0);
+    for (int length = 0; length < 1024; length++) {
+      byte[] data = new byte[length + 4];
+      random.nextBytes(data);
+      assertRoundTrip(data, 2, length);
+
+      for (int i = 0; i < data.length; i++) {
+        data[i] = (byte)random.nextInt(4);
+      }
+      assertRoundTrip(data, 2, length);
+    }
+  }
+
+  @Test
+  public void testCompressible()
+  {
+    StringBuilder sb = new StringBuilder();
+    Random random = new Random(0);
+    while (sb.length() < 64 * 1024) {
+      sb.append("{\"id\":").append(random.nextInt(100000)).append(",\"name\":\"customer-").append(random.nextInt(50))
+          .append("\",\"status\":\"ACTIVE\"}\n");
+    }
+    byte[] data = sb.toString().getBytes();
+    byte[] compressed = new byte[LZ4Codec.maxCompressedLength(data.length)];
+    int compressedLength = codec.compress(data, 0, data.length, compressed, 0);
+    assertTrue(compressedLength < data.length / 3, "compressed " + data.length + " bytes to " + compressedLength);
+    assertRoundTrip(data, 0, data.length);
+
+    /* long runs produce matches that overlap the bytes they produce and lengths that take several bytes */
+    data = new byte[256 * 1024];
+    Arrays.fill(data, (byte)'a');
+    compressed = new byte[LZ4Codec.maxCompressedLength(data.length)];
+    compressedLength = codec.compress(data, 0, data.length, compressed, 0);
+    assertTrue(compressedLength < 2048, "compressed " + data.length + " bytes to " + compressedLength);
+    assertRoundTrip(data, 0, data.length);
+  }
+
+  @Test(expectedExceptions = IllegalArgumentException.class)
+  public void testTruncated()
+  {
+    byte[] data = new byte[1024];
+    Arrays.fill(data, (byte)'b');
+    byte[] compressed = new byte[LZ4Codec.maxCompressedLength(data.length)];
+    int compressedLength = codec.compress(data, 0, data.length, compressed, 0);
+    LZ4Codec.decompress(compressed, 0, compressedLength - 2, new byte[data.length], 0, data.length);
+  }
+
+  @Test(expectedExceptions = IllegalArgumentException.class)
+  public void testDestinationTooSmall()
+  {
+    byte[] data = new byte[1024];
+    Arrays.fill(data, (byte)'c');
+    byte[] compressed = new byte[LZ4Codec.maxCompressedLength(data.length)];
+    int compressedLength = codec.compress(data, 0, data.length, compressed, 0);
+    LZ4Codec.decompress(compressed, 0, compressedLength, new byte[512], 0, 512);
+  }
+}
@@ -0,0 +1,168 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package com.datatorrent.bufferserver.util;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Arrays;
+
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import com.datatorrent.bufferserver.packet.SharedMemoryPositionTuple;
+import com.datatorrent.bufferserver.packet.SharedMemoryRingTuple;
+import com.datatorrent.bufferserver.packet.Tuple;
+import com.datatorrent.netlet.util.VarInt;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+
+/**
+ *
+ */
+public class SharedMemoryRingTest
+{
+  private static final int CAPACITY = 1024;
+  private SharedMemoryRing producer;
+  private SharedMemoryRing consumer;
+
+  @BeforeMethod
+  public void setup() throws IOException
+  {
+    producer = SharedMemoryRing.create(new File(java.lang.System.getProperty("java.io.tmpdir")), "ring-test-",
+        CAPACITY);
+    consumer = SharedMemoryRing.open(producer.getPath(), producer.getCapacity());
+  }
+
+  @AfterMethod
+  public void teardown()
+  {
+    consumer.close();
+    producer.close();
+    assertFalse(new File(producer.getPath()).exists(), "ring file deleted");
+  }
+
+  /**
+   * @return the frame with the given data length prepended with its length, filled with the given value
+   */
+  private static byte[] frame(int length, int value)
+  {
+    final byte[] frame = new byte[VarInt.getSize(length) + length];
+    final int offset = VarInt.write(length, frame, 0);
+    Arrays.fill(frame, offset, frame.length, (byte)value);
+    return frame;
+  }
+
+  private void assertNextFrame(long limit, int length, int value)
+  {
+    assertEquals(consumer.nextFrameLength(limit), length, "frame length");
+    final byte[] data = new byte[length + 1];
+    consumer.readFrame(data, 1);
+    for (int i = 1; i <= length; i++) {
+      assertEquals(data[i], (byte)value, "frame data");
+    }
+  }
+
+  @Test
+  public void testOfferAndRead()
+  {
+    assertEquals(consumer.nextFrameLength(producer.getWritePosition()), -1, "empty ring");
+
+    for (int i = 1; i <= 10; i++) {
+      assertTrue(producer.offer(frame(i * 10, i), 0, i * 10 + 1));
+    }
+    final long limit = producer.getWritePosition();
+    assertTrue(producer.offer(frame(7, 11), 0, 8));
+
+    for (int i = 1; i <= 10; i++) {
+      assertNextFrame(limit, i * 10, i);
+    }
+    assertEquals(consumer.nextFrameLength(limit), -1, "frame past the limit");
+    assertEquals(consumer.getReadPosition(), limit, "read position");
+
+    assertNextFrame(producer.getWritePosition(), 7, 11);
+    assertEquals(consumer.getReadPosition(), producer.getWritePosition(), "read position");
+  }
+
+  @Test
+  public void testWrapAround()
+  {
+    for (int i = 0; i < 100; i++) {
+      final int length = 1 + i * 37 % 200;
+      final byte[] frame = frame(length, i);
+      assertTrue(producer.offer(frame, 0, frame.length), "offer " + i);
+      assertNextFrame(producer.getWritePosition(), length, i);
+      assertEquals(consumer.getReadPosition(), producer.getWritePosition(), "read position");
+      producer.release(consumer.getReadPosition());
+    }
+    assertTrue(producer.getWritePosition() > 5 * CAPACITY, "wrapped around");
+  }
+
+  @Test
+  public void testFullRing()
+  {
+    final byte[] frame = frame(CAPACITY / 4 - 2, 1);
+    assertEquals(frame.length, producer.getMaxFrameLength());
+    for (int i = 0; i < 4; i++) {
+      assertTrue(producer.offer(frame, 0, frame.length), "offer " + i);
+    }
+    assertFalse(producer.offer(frame, 0, frame.length), "full ring");
+
+    assertNextFrame(producer.getWritePosition(), frame.length - 2, 1);
+    assertFalse(producer.offer(frame, 0, frame.length), "read position not released");
+    producer.release(consumer.getReadPosition());
+    assertTrue(producer.offer(frame, 0, frame.length), "released ring");
+  }
+
+  @Test(expectedExceptions = IllegalArgumentException.class)
+  public void testFrameTooLarge()
+  {
+    final byte[] frame = frame(CAPACITY / 4, 1);
+    producer.offer(frame, 0, frame.length);
+  }
+
+  @Test(expectedExceptions = IOException.class)
+  public void testNoSpaceForRing() throws IOException
+  {
+    final File directory = new File(producer.getPath()).getParentFile();
+    SharedMemoryRing.create(new File(directory.getPath())
+    {
+      @Override
+      public long getUsableSpace()
+      {
+        return CAPACITY;
+      }
+    }, "ring-test-", CAPACITY);
+  }
+
+  @Test
+  public void testTransportTuples()
+  {
+    byte[] serial = SharedMemoryRingTuple.getSerializedTuple(producer.getPath(), CAPACITY);
+    SharedMemoryRingTuple ring = (SharedMemoryRingTuple)Tuple.getTuple(serial, 0, serial.length);
+    assertEquals(ring.getPath(), producer.getPath(), "path");
+    assertEquals(ring.getCapacity(), CAPACITY, "capacity");
+
+    serial = SharedMemoryPositionTuple.getSerializedTuple(0x123456789aL);
+    SharedMemoryPositionTuple position = (SharedMemoryPositionTuple)Tuple.getTuple(serial, 0, serial.length);
+    assertEquals(position.getPosition(), 0x123456789aL, "position");
+  }
+}
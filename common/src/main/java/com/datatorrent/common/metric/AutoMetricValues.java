@@ -0,0 +1,318 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package com.datatorrent.common.metric;
+
+import java.io.Serializable;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+import com.datatorrent.api.AutoMetric;
+
+/**
+ * Values of the {@link AutoMetric}s of a physical operator at the end of an application window.
+ * <p/>
+ * The values of the primitive metrics are held in flat arrays of longs and doubles laid out by a {@link Schema} that
+ * all the windows of the operator share, so that they are neither boxed when they are collected nor when they are
+ * aggregated by the aggregators that read them with {@link #getLong(int)} and {@link #getDouble(int)}. For everybody
+ * else the values are an unmodifiable map from the name of the metric to its value boxed as the type of the metric.
+ *
+ * @since 4.0.0
+ */
+public final class AutoMetricValues extends AbstractMap<String, Object> implements Serializable
+{
+  public static final byte TYPE_OBJECT = 0;
+  public static final byte TYPE_BYTE = 1;
+  public static final byte TYPE_SHORT = 2;
+  public static final byte TYPE_INT = 3;
+  public static final byte TYPE_LONG = 4;
+  public static final byte TYPE_FLOAT = 5;
+  public static final byte TYPE_DOUBLE = 6;
+
+  private final Schema schema;
+  private final long[] longs;
+  private final double[] doubles;
+  private final Object[] objects;
+
+  public AutoMetricValues(Schema schema)
+  {
+    this.schema = schema;
+    longs = new long[schema.longCount];
+    doubles = new double[schema.doubleCount];
+    objects = new Object[schema.objectCount];
+  }
+
+  public Schema getSchema()
+  {
+    return schema;
+  }
+
+  public String getName(int index)
+  {
+    return schema.names[index];
+  }
+
+  public byte getType(int index)
+  {
+    return schema.types[index];
+  }
+
+  /**
+   * @param index index of the metric in the schema
+   * @return true if the metric is an integral primitive, the value of which is read with {@link #getLong(int)}
+   */
+  public boolean isLong(int index)
+  {
+    return isLong(schema.types[index]);
+  }
+
+  /**
+   * @param index index of the metric in the schema
+   * @return true if the metric is a floating point primitive, the value of which is read with {@link #getDouble(int)}
+   */
+  public boolean isDouble(int index)
+  {
+    return isDouble(schema.types[index]);
+  }
+
+  public long getLong(int index)
+  {
+    return longs[schema.slots[index]];
+  }
+
+  public double getDouble(int index)
+  {
+    return doubles[schema.slots[index]];
+  }
+
+  /**
+   * @param index index of the metric in the schema
+   * @return value of the metric boxed as the type of the metric
+   */
+  public Object getObject(int index)
+  {
+    final int slot = schema.slots[index];
+    switch (schema.types[index]) {
+      case TYPE_BYTE:
+        return (byte)longs[slot];
+      case TYPE_SHORT:
+        return (short)longs[slot];
+      case TYPE_INT:
+        return (int)longs[slot];
+      case TYPE_LONG:
+        return longs[slot];
+      case TYPE_FLOAT:
+        return (float)doubles[slot];
+      case TYPE_DOUBLE:
+        return doubles[slot];
+      default:
+        return objects[slot];
+    }
+  }
+
+  public void setLong(int index, long value)
+  {
+    longs[schema.slots[index]] = value;
+  }
+
+  public void setDouble(int index, double value)
+  {
+    doubles[schema.slots[index]] = value;
+  }
+
+  public void setObject(int index, Object value)
+  {
+    objects[schema.slots[index]] = value;
+  }
+
+  @Override
+  public int size()
+  {
+    return schema.names.length;
+  }
+
+  @Override
+  public boolean containsKey(Object key)
+  {
+    return key instanceof String && schema.indexOf((String)key) >= 0;
+  }
+
+  @Override
+  public Object get(Object key)
+  {
+    final int index = key instanceof String ? schema.indexOf((String)key) : -1;
+    return index < 0 ? null : getObject(index);
+  }
+
+  @Override
+  public Set<Entry<String, Object>> entrySet()
+  {
+    return new AbstractSet<Entry<String, Object>>()
+    {
+      @Override
+      public Iterator<Entry<String, Object>> iterator()
+      {
+        return new Iterator<Entry<String, Object>>()
+        {
+          private int index;
+
+          @Override
+          public boolean hasNext()
+          {
+            return index < schema.names.length;
+          }
+
+          @Override
+          public Entry<String, Object> next()
+          {
+            if (index >= schema.names.length) {
+              throw new NoSuchElementException();
+            }
+            final int i = index++;
+            return new SimpleImmutableEntry<>(schema.names[i], getObject(i));
+          }
+
+          @Override
+          public void remove()
+          {
+            throw new UnsupportedOperationException();
+          }
+        };
+      }
+
+      @Override
+      public int size()
+      {
+        return schema.names.length;
+      }
+    };
+  }
+
+  static boolean isLong(byte type)
+  {
+    return type >= TYPE_BYTE && type <= TYPE_LONG;
+  }
+
+  static boolean isDouble(byte type)
+  {
+    return type == TYPE_FLOAT || type == TYPE_DOUBLE;
+  }
+
+  /**
+   * Names and types of the metrics of an operator, and the positions of their values in the arrays of
+   * {@link AutoMetricValues}.
+   */
+  public static final class Schema implements Serializable
+  {
+    private final String[] names;
+    private final byte[] types;
+    private final int[] slots;
+    private final int longCount;
+    private final int doubleCount;
+    private final int objectCount;
+    private transient Map<String, Integer> indexes;
+
+    public Schema(String[] names, byte[] types)
+    {
+      if (names.length != types.length) {
+        throw new IllegalArgumentException("Expected " + names.length + " types, got " + types.length);
+      }
+      this.names = names.clone();
+      this.types = types.clone();
+      slots = new int[names.length];
+      int longCount = 0;
+      int doubleCount = 0;
+      int objectCount = 0;
+      for (int i = 0; i < types.length; i++) {
+        if (isLong(types[i])) {
+          slots[i] = longCount++;
+        } else if (isDouble(types[i])) {
+          slots[i] = doubleCount++;
+        } else {
+          slots[i] = objectCount++;
+        }
+      }
+      this.longCount = longCount;
+      this.doubleCount = doubleCount;
+      this.objectCount = objectCount;
+    }
+
+    public int size()
+    {
+      return names.length;
+    }
+
+    public String getName(int index)
+    {
+      return names[index];
+    }
+
+    public byte getType(int index)
+    {
+      return types[index];
+    }
+
+    /**
+     * @param name name of a metric
+     * @return index of the metric, or -1 if there is no such metric in the schema
+     */
+    public int indexOf(String name)
+    {
+      Map<String, Integer> indexes = this.indexes;
+      if (indexes == null) {
+        indexes = new HashMap<>();
+        for (int i = 0; i < names.length; i++) {
+          indexes.put(names[i], i);
+        }
+        this.indexes = indexes;
+      }
+      final Integer index = indexes.get(name);
+      return index == null ? -1 : index;
+    }
+
+    /**
+     * @param names names of the metrics to keep
+     * @return schema of the metrics of this schema that are among the given names, in the order of this schema
+     */
+    public Schema select(Collection<String> names)
+    {
+      int count = 0;
+      final String[] selectedNames = new String[this.names.length];
+      final byte[] selectedTypes = new byte[this.names.length];
+      for (int i = 0; i < this.names.length; i++) {
+        if (names.contains(this.names[i])) {
+          selectedNames[count] = this.names[i];
+          selectedTypes[count++] = types[i];
+        }
+      }
+      return count == this.names.length ? this : new Schema(Arrays.copyOf(selectedNames, count),
+          Arrays.copyOf(selectedTypes, count));
+    }
+
+    private static final long serialVersionUID = 202610171201L;
+  }
+
+  private static final long serialVersionUID = 202610171200L;
+}
@@ -26,10 +26,8 @@ import java.util.Map;
 import javax.validation.constraints.NotNull;
 
 import com.google.common.base.Preconditions;
-import com.google.common.collect.ArrayListMultimap;
 import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
-import com.google.common.collect.Multimap;
 
 import com.datatorrent.api.AutoMetric;
 import com.datatorrent.api.annotation.Name;
@@ -63,28 +61,54 @@ public class MetricsAggregator implements AutoMetric.Aggregator, Serializable
   @Override
   public Map<String, Object> aggregate(long windowId, Collection<AutoMetric.PhysicalMetricsContext> physicalMetrics)
   {
-    Multimap<String, Object> metricValues = ArrayListMultimap.create();
+    Map<String, MetricColumn> columns = Maps.newHashMap();
 
     for (AutoMetric.PhysicalMetricsContext pmCtx : physicalMetrics) {
-      for (Map.Entry<String, Object> entry : pmCtx.getMetrics().entrySet()) {
-        metricValues.put(entry.getKey(), entry.getValue());
+      Map<String, Object> metrics = pmCtx.getMetrics();
+      if (metrics instanceof AutoMetricValues) {
+        AutoMetricValues values = (AutoMetricValues)metrics;
+        for (int i = 0; i < values.size(); i++) {
+          MetricColumn column = getColumn(columns, values.getName(i), physicalMetrics.size());
+          if (column != null) {
+            column.add(values, i);
+          }
+        }
+      } else {
+        for (Map.Entry<String, Object> entry : metrics.entrySet()) {
+          MetricColumn column = getColumn(columns, entry.getKey(), physicalMetrics.size());
+          if (column != null) {
+            column.add(entry.getValue());
+          }
+        }
       }
     }
 
     Map<String, Object> aggregates = Maps.newHashMap();
-    for (String metric : metricValues.keySet()) {
-      List<LogicalMetricMeta> logicalMetricMetas = metricLogicalAggregates.get(metric);
-      if (logicalMetricMetas != null) {
-        for (LogicalMetricMeta logicalMetricMeta : logicalMetricMetas) {
-
-          Object aggregatedVal = logicalMetricMeta.aggregator.aggregate(metricValues.get(metric));
-          aggregates.put(logicalMetricMeta.name, aggregatedVal);
-        }
+    for (MetricColumn column : columns.values()) {
+      for (LogicalMetricMeta logicalMetricMeta : column.logicalMetricMetas) {
+        aggregates.put(logicalMetricMeta.name, column.aggregate(logicalMetricMeta.aggregator));
       }
     }
     return aggregates;
   }
 
+  /**
+   * @return the column that collects the values of the given physical metric, null if the metric is not aggregated
+   */
+  private MetricColumn getColumn(Map<String, MetricColumn> columns, String metric, int capacity)
+  {
+    MetricColumn column = columns.get(metric);
+    if (column == null) {
+      List<LogicalMetricMeta> logicalMetricMetas = metricLogicalAggregates.get(metric);
+      if (logicalMetricMetas == null) {
+        return null;
+      }
+      column = new MetricColumn(logicalMetricMetas, capacity);
+      columns.put(metric, column);
+    }
+    return column;
+  }
+
   /**
    * This can be overridden to change logical metric name.
    *
@@ -164,6 +188,73 @@ public class MetricsAggregator implements AutoMetric.Aggregator, Serializable
     this.aggregatorMetricSeparator = aggregatorMetricSeparator;
   }
 
+  /**
+   * Values of a physical metric of all the physical operators. The values of a primitive metric are kept unboxed
+   * when all the aggregators of the metric are {@link NumericMetricAggregator}s.
+   */
+  private static class MetricColumn
+  {
+    final List<LogicalMetricMeta> logicalMetricMetas;
+    final boolean numeric;
+    final long[] longs;
+    final double[] doubles;
+    int longCount;
+    int doubleCount;
+    List<Object> objects;
+
+    MetricColumn(List<LogicalMetricMeta> logicalMetricMetas, int capacity)
+    {
+      this.logicalMetricMetas = logicalMetricMetas;
+      boolean numeric = true;
+      for (LogicalMetricMeta logicalMetricMeta : logicalMetricMetas) {
+        numeric &= logicalMetricMeta.aggregator instanceof NumericMetricAggregator;
+      }
+      this.numeric = numeric;
+      longs = new long[numeric ? capacity : 0];
+      doubles = new double[numeric ? capacity : 0];
+    }
+
+    void add(AutoMetricValues values, int index)
+    {
+      if (numeric && values.isLong(index)) {
+        longs[longCount++] = values.getLong(index);
+      } else if (numeric && values.isDouble(index)) {
+        doubles[doubleCount++] = values.getDouble(index);
+      } else {
+        add(values.getObject(index));
+      }
+    }
+
+    void add(Object value)
+    {
+      if (objects == null) {
+        objects = Lists.newArrayList();
+      }
+      objects.add(value);
+    }
+
+    Object aggregate(SingleMetricAggregator aggregator)
+    {
+      if (objects == null) {
+        if (doubleCount == 0) {
+          return ((NumericMetricAggregator)aggregator).aggregate(longs, longCount);
+        } else if (longCount == 0) {
+          return ((NumericMetricAggregator)aggregator).aggregate(doubles, doubleCount);
+        }
+      }
+
+      /* values of different types, box them all */
+      List<Object> values = objects == null ? Lists.newArrayList() : Lists.newArrayList(objects);
+      for (int i = 0; i < longCount; i++) {
+        values.add(longs[i]);
+      }
+      for (int i = 0; i < doubleCount; i++) {
+        values.add(doubles[i]);
+      }
+      return aggregator.aggregate(values);
+    }
+  }
+
   public static class LogicalMetricMeta implements Serializable
   {
     private SingleMetricAggregator aggregator;
@@ -0,0 +1,42 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package com.datatorrent.common.metric;
+
+/**
+ * A {@link SingleMetricAggregator} that aggregates the values of a primitive metric without boxing them.
+ * {@link MetricsAggregator} uses it when all the physical operators report the metric in {@link AutoMetricValues}.
+ *
+ * @since 4.0.0
+ */
+public interface NumericMetricAggregator extends SingleMetricAggregator
+{
+  /**
+   * @param values values of an integral metric of the physical operators
+   * @param length number of values in the array
+   * @return aggregated value
+   */
+  Object aggregate(long[] values, int length);
+
+  /**
+   * @param values values of a floating point metric of the physical operators
+   * @param length number of values in the array
+   * @return aggregated value
+   */
+  Object aggregate(double[] values, int length);
+}
@@ -23,7 +23,7 @@ import java.util.Collection;
 
 import com.datatorrent.api.annotation.Name;
 
-import com.datatorrent.common.metric.SingleMetricAggregator;
+import com.datatorrent.common.metric.NumericMetricAggregator;
 
 /**
  * <p>DoubleSumAggregator class.</p>
@@ -31,7 +31,7 @@ import com.datatorrent.common.metric.SingleMetricAggregator;
  * @since 3.2.0
  */
 @Name("sum")
-public class DoubleSumAggregator implements SingleMetricAggregator, Serializable
+public class DoubleSumAggregator implements NumericMetricAggregator, Serializable
 {
   @Override
   public Object aggregate(Collection<Object> metricValues)
@@ -44,5 +44,25 @@ public class DoubleSumAggregator implements SingleMetricAggregator, Serializable
     return sum;
   }
 
+  @Override
+  public Object aggregate(long[] values, int length)
+  {
+    double sum = 0;
+    for (int i = 0; i < length; i++) {
+      sum += values[i];
+    }
+    return sum;
+  }
+
+  @Override
+  public Object aggregate(double[] values, int length)
+  {
+    double sum = 0;
+    for (int i = 0; i < length; i++) {
+      sum += values[i];
+    }
+    return sum;
+  }
+
   private static final long serialVersionUID = 201504081008L;
 }
@@ -24,8 +24,18 @@ import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.ObjectStreamException;
+import java.io.OutputStream;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
 import java.nio.file.Files;
 import java.util.EnumSet;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -52,6 +62,13 @@ public class AsyncFSStorageAgent extends FSStorageAgent implements AsyncStorageA
   private transient volatile String localBasePath;
 
   private boolean syncCheckpoint = false;
+  private boolean streamingCheckpoint = false;
+  private int streamingBufferSize = 64 * 1024 * 1024;
+  private int streamingChunkSize = 4 * 1024 * 1024;
+  private transient volatile ConcurrentHashMap<Pair<Integer, Long>, StreamingUpload> uploads;
+  private transient volatile ConcurrentHashMap<Integer, StreamingUpload> lastUploads;
+  private static final ExecutorService uploadExecutor = Executors.newCachedThreadPool(
+      new NameableThreadFactory("CheckpointUpload", true));
 
   @SuppressWarnings("unused")
   private AsyncFSStorageAgent()
@@ -84,6 +101,20 @@ public class AsyncFSStorageAgent extends FSStorageAgent implements AsyncStorageA
       return;
     }
 
+    if (streamingCheckpoint) {
+      saveStreaming(object, operatorId, windowId);
+      return;
+    }
+
+    File file = new File(getLocalDirectory(operatorId), String.valueOf(windowId));
+    try (FileOutputStream stream = new FileOutputStream(file)) {
+      store(stream, object);
+    }
+    recordCheckpointStats(operatorId, windowId, file.length(), file.length(), 0, 0);
+  }
+
+  private File getLocalDirectory(int operatorId) throws IOException
+  {
     if (localBasePath == null) {
       synchronized (this) {
         if (localBasePath == null) {
@@ -97,13 +128,49 @@ public class AsyncFSStorageAgent extends FSStorageAgent implements AsyncStorageA
     if (!directory.exists()) {
       directory.mkdirs();
     }
-    try (FileOutputStream stream = new FileOutputStream(new File(directory, String.valueOf(windowId)))) {
-      store(stream, object);
+    return directory;
+  }
+
+  private void saveStreaming(final Object object, final int operatorId, final long windowId) throws IOException
+  {
+    if (uploads == null) {
+      synchronized (this) {
+        if (uploads == null) {
+          lastUploads = new ConcurrentHashMap<>();
+          uploads = new ConcurrentHashMap<>();
+        }
+      }
+    }
+
+    StreamingUpload upload = new StreamingUpload(operatorId, windowId,
+        new File(getLocalDirectory(operatorId), windowId + ".spill"));
+    upload.previous = lastUploads.put(operatorId, upload);
+    uploads.put(new Pair<>(operatorId, windowId), upload);
+    uploadExecutor.submit(upload);
+    boolean stored = false;
+    try {
+      store(upload.stream, object);
+      stored = true;
+    } finally {
+      if (!stored) {
+        // the upload discards the partial checkpoint instead of committing it
+        upload.aborted = true;
+        uploads.remove(new Pair<>(operatorId, windowId), upload);
+      }
+      upload.stream.close();
     }
   }
 
   public void copyToHDFS(final int operatorId, final long windowId) throws IOException
   {
+    if (uploads != null) {
+      StreamingUpload upload = uploads.remove(new Pair<>(operatorId, windowId));
+      if (upload != null) {
+        upload.await();
+        lastUploads.remove(operatorId, upload);
+        return;
+      }
+    }
     if (this.localBasePath == null) {
       throw new AssertionError("save() was not called before copyToHDFS");
     }
@@ -112,6 +179,23 @@ public class AsyncFSStorageAgent extends FSStorageAgent implements AsyncStorageA
     String window = Long.toHexString(windowId);
     Path lPath = new Path(path + Path.SEPARATOR + operatorIdStr + Path.SEPARATOR + TMP_FILE);
     File srcFile = new File(directory, String.valueOf(windowId));
+    final long start = System.nanoTime();
+    if (isIncremental(windowId)) {
+      try {
+        IncrementalSave incrementalSave = new IncrementalSave(operatorId, windowId);
+        try (InputStream in = new FileInputStream(srcFile)) {
+          IOUtils.copyBytes(in, incrementalSave.stream, conf, false);
+          incrementalSave.commit();
+          recordCheckpointStats(operatorId, windowId, 0, 0, incrementalSave.stream.inlineBytes,
+              System.nanoTime() - start);
+        } finally {
+          incrementalSave.stream.close();
+        }
+      } finally {
+        FileUtil.fullyDelete(srcFile);
+      }
+      return;
+    }
     FSDataOutputStream stream = null;
     boolean stateSaved = false;
     try {
@@ -124,6 +208,7 @@ public class AsyncFSStorageAgent extends FSStorageAgent implements AsyncStorageA
       } finally {
         IOUtils.closeStream(in);
       }
+      recordCheckpointStats(operatorId, windowId, 0, 0, srcFile.length(), System.nanoTime() - start);
       stateSaved = true;
     } catch (Throwable t) {
       logger.debug("while saving {} {}", operatorId, window, t);
@@ -161,6 +246,10 @@ public class AsyncFSStorageAgent extends FSStorageAgent implements AsyncStorageA
   {
     AsyncFSStorageAgent asyncFSStorageAgent = new AsyncFSStorageAgent(this.path, null);
     asyncFSStorageAgent.setSyncCheckpoint(syncCheckpoint);
+    asyncFSStorageAgent.setStreamingCheckpoint(streamingCheckpoint);
+    asyncFSStorageAgent.setStreamingBufferSize(streamingBufferSize);
+    asyncFSStorageAgent.setStreamingChunkSize(streamingChunkSize);
+    copyIncrementalCheckpointSettings(asyncFSStorageAgent);
     return asyncFSStorageAgent;
   }
 
@@ -175,6 +264,340 @@ public class AsyncFSStorageAgent extends FSStorageAgent implements AsyncStorageA
     this.syncCheckpoint = syncCheckpoint;
   }
 
+  public boolean isStreamingCheckpoint()
+  {
+    return streamingCheckpoint;
+  }
+
+  /**
+   * When enabled, the serialized operator is handed over to an upload thread in chunks held in a bounded in memory
+   * buffer, and the checkpoint is uploaded while the operator is still being serialized. Chunks are written to the
+   * local disk only when the buffer is full.
+   *
+   * @param streamingCheckpoint
+   */
+  public void setStreamingCheckpoint(boolean streamingCheckpoint)
+  {
+    this.streamingCheckpoint = streamingCheckpoint;
+  }
+
+  public int getStreamingBufferSize()
+  {
+    return streamingBufferSize;
+  }
+
+  /**
+   * Maximum memory used to buffer a streaming checkpoint.
+   *
+   * @param streamingBufferSize
+   */
+  public void setStreamingBufferSize(int streamingBufferSize)
+  {
+    this.streamingBufferSize = streamingBufferSize;
+  }
+
+  public int getStreamingChunkSize()
+  {
+    return streamingChunkSize;
+  }
+
+  /**
+   * Size of the chunks a streaming checkpoint is handed over to the upload thread in.
+   *
+   * @param streamingChunkSize
+   */
+  public void setStreamingChunkSize(int streamingChunkSize)
+  {
+    this.streamingChunkSize = streamingChunkSize;
+  }
+
+  /**
+   * Upload of a streaming checkpoint. The operator thread writes the serialized operator to {@link #stream} which
+   * hands full chunks over to the upload through a queue. A chunk that does not fit in the memory buffer is appended
+   * to a local spill file and the queue carries its position in the file instead. Uploads of an operator run one
+   * after another.
+   */
+  private class StreamingUpload implements Runnable
+  {
+    private final int operatorId;
+    private final long windowId;
+    private final File spillFile;
+    private final ArrayBlockingQueue<byte[]> freeBuffers;
+    private final int maxBuffers;
+    private int allocatedBuffers;
+    private final LinkedBlockingQueue<Segment> segments = new LinkedBlockingQueue<>();
+    private final CountDownLatch done = new CountDownLatch(1);
+    private volatile Throwable failure;
+    private volatile boolean aborted;
+    /**
+     * channel of the spill file, opened by the operator thread with the first chunk that is spilled and closed by the
+     * upload thread when it is done, guarded by this.
+     */
+    private FileChannel spillChannel;
+    /**
+     * whether the upload is done and the spill file was deleted, guarded by this.
+     */
+    private boolean spillDeleted;
+    private long spillBytes;
+    private long checkpointBytes;
+    StreamingUpload previous;
+    final OutputStream stream;
+
+    StreamingUpload(int operatorId, long windowId, File spillFile)
+    {
+      this.operatorId = operatorId;
+      this.windowId = windowId;
+      this.spillFile = spillFile;
+      maxBuffers = Math.max(1, streamingBufferSize / streamingChunkSize);
+      freeBuffers = new ArrayBlockingQueue<>(maxBuffers);
+      stream = new ChunkOutputStream();
+    }
+
+    /**
+     * Chunk of the serialized operator, either in memory or in the spill file.
+     */
+    private class Segment
+    {
+      final byte[] buffer;
+      final long position;
+      final int length;
+
+      Segment(byte[] buffer, long position, int length)
+      {
+        this.buffer = buffer;
+        this.position = position;
+        this.length = length;
+      }
+    }
+
+    private final Segment end = new Segment(null, -1, 0);
+    private final Segment abort = new Segment(null, -1, 0);
+
+    private class ChunkOutputStream extends OutputStream
+    {
+      private byte[] buffer;
+      private byte[] spillBuffer;
+      private int count;
+      private boolean closed;
+
+      private void nextBuffer()
+      {
+        buffer = freeBuffers.poll();
+        if (buffer == null) {
+          if (allocatedBuffers < maxBuffers) {
+            allocatedBuffers++;
+            buffer = new byte[streamingChunkSize];
+          } else {
+            if (spillBuffer == null) {
+              spillBuffer = new byte[streamingChunkSize];
+            }
+            buffer = spillBuffer;
+          }
+        }
+        count = 0;
+      }
+
+      private void handOver() throws IOException
+      {
+        if (failure != null) {
+          throw new IOException("Upload of checkpoint " + windowId + " failed", failure);
+        }
+        if (count > 0) {
+          checkpointBytes += count;
+          if (buffer == spillBuffer) {
+            segments.add(new Segment(null, spill(buffer, count), count));
+          } else {
+            segments.add(new Segment(buffer, -1, count));
+          }
+        }
+        buffer = null;
+      }
+
+      @Override
+      public void write(int b) throws IOException
+      {
+        if (buffer == null) {
+          nextBuffer();
+        }
+        buffer[count++] = (byte)b;
+        if (count == buffer.length) {
+          handOver();
+        }
+      }
+
+      @Override
+      public void write(byte[] b, int off, int len) throws IOException
+      {
+        while (len > 0) {
+          if (buffer == null) {
+            nextBuffer();
+          }
+          final int n = Math.min(len, buffer.length - count);
+          System.arraycopy(b, off, buffer, count, n);
+          count += n;
+          off += n;
+          len -= n;
+          if (count == buffer.length) {
+            handOver();
+          }
+        }
+      }
+
+      @Override
+      public void close() throws IOException
+      {
+        if (!closed) {
+          closed = true;
+          try {
+            if (buffer != null && !aborted) {
+              handOver();
+            }
+          } finally {
+            segments.add(aborted ? abort : end);
+          }
+        }
+      }
+    }
+
+    @Override
+    public void run()
+    {
+      try {
+        if (previous != null) {
+          previous.done.await();
+          previous = null;
+        }
+        upload();
+      } catch (Throwable t) {
+        logger.warn("Upload of checkpoint {} {} failed", operatorId, windowId, t);
+        failure = t;
+        segments.clear();
+      } finally {
+        deleteSpillFile();
+        done.countDown();
+      }
+    }
+
+    /**
+     * Appends the chunk to the spill file, which is opened with the first chunk. Locked against the upload deleting
+     * the spill file when it fails meanwhile, so that the file is not created again and left behind.
+     *
+     * @return position of the chunk in the spill file
+     */
+    private synchronized long spill(byte[] buffer, int count) throws IOException
+    {
+      if (spillDeleted) {
+        throw new IOException("Upload of checkpoint " + windowId + " failed", failure);
+      }
+      if (spillChannel == null) {
+        spillChannel = new RandomAccessFile(spillFile, "rw").getChannel();
+      }
+      final long position = spillBytes;
+      ByteBuffer bb = ByteBuffer.wrap(buffer, 0, count);
+      while (bb.hasRemaining()) {
+        spillChannel.write(bb, position + bb.position());
+      }
+      spillBytes += count;
+      return position;
+    }
+
+    private synchronized FileChannel getSpillChannel()
+    {
+      return spillChannel;
+    }
+
+    private synchronized void deleteSpillFile()
+    {
+      spillDeleted = true;
+      try {
+        if (spillChannel != null) {
+          spillChannel.close();
+        }
+      } catch (IOException ex) {
+        logger.debug("Closing {}", spillFile, ex);
+      }
+      FileUtil.fullyDelete(spillFile);
+    }
+
+    private void upload() throws IOException, InterruptedException
+    {
+      final long start = System.nanoTime();
+      final String operatorIdStr = String.valueOf(operatorId);
+      final Path tmpPath = new Path(path + Path.SEPARATOR + operatorIdStr + Path.SEPARATOR + TMP_FILE);
+      IncrementalSave incrementalSave = null;
+      OutputStream out;
+      if (isIncremental(windowId)) {
+        incrementalSave = new IncrementalSave(operatorId, windowId);
+        out = incrementalSave.stream;
+      } else {
+        out = fileContext.create(tmpPath, EnumSet.of(CreateFlag.CREATE, CreateFlag.OVERWRITE),
+            Options.CreateOpts.CreateParent.createParent());
+      }
+
+      long uploadedBytes = 0;
+      boolean committed = false;
+      try {
+        byte[] spilled = null;
+        FileChannel channel = null;
+        for (Segment segment = segments.take(); segment != end; segment = segments.take()) {
+          if (segment == abort) {
+            throw new IOException("Checkpoint " + windowId + " of operator " + operatorId + " was not serialized");
+          } else if (segment.buffer != null) {
+            out.write(segment.buffer, 0, segment.length);
+            freeBuffers.offer(segment.buffer);
+          } else {
+            if (spilled == null) {
+              spilled = new byte[streamingChunkSize];
+              channel = getSpillChannel();
+            }
+            ByteBuffer bb = ByteBuffer.wrap(spilled, 0, segment.length);
+            while (bb.hasRemaining()) {
+              if (channel.read(bb, segment.position + bb.position()) < 0) {
+                throw new IOException("Unexpected end of " + spillFile);
+              }
+            }
+            out.write(spilled, 0, segment.length);
+          }
+          uploadedBytes += segment.length;
+        }
+
+        if (incrementalSave != null) {
+          incrementalSave.commit();
+          uploadedBytes = incrementalSave.stream.inlineBytes;
+        } else {
+          out.close();
+          fileContext.rename(tmpPath, new Path(path + Path.SEPARATOR + operatorIdStr + Path.SEPARATOR +
+              Long.toHexString(windowId)), Options.Rename.OVERWRITE);
+        }
+        committed = true;
+      } finally {
+        out.close();
+        if (!committed) {
+          try {
+            fileContext.delete(tmpPath, false);
+          } catch (IOException ex) {
+            logger.debug("Deleting {}", tmpPath, ex);
+          }
+        }
+      }
+      recordCheckpointStats(operatorId, windowId, checkpointBytes, spillBytes, uploadedBytes,
+          System.nanoTime() - start);
+    }
+
+    void await() throws IOException
+    {
+      try {
+        done.await();
+      } catch (InterruptedException ex) {
+        throw new IOException(ex);
+      }
+      if (failure != null) {
+        throw new IOException("Upload of checkpoint " + windowId + " for operator " + operatorId + " failed",
+            failure);
+      }
+    }
+  }
+
   private static final long serialVersionUID = 201507241610L;
   private static final Logger logger = LoggerFactory.getLogger(AsyncFSStorageAgent.class);
 }
@@ -26,12 +26,20 @@ import java.io.OutputStream;
 import java.io.Serializable;
 import java.net.URI;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.EnumSet;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import org.apache.apex.common.util.CheckpointStatsReporter;
 import org.apache.hadoop.conf.Configuration;
 import org.apache.hadoop.fs.CreateFlag;
 import org.apache.hadoop.fs.FSDataInputStream;
@@ -48,6 +56,7 @@ import com.esotericsoftware.kryo.io.Input;
 import com.esotericsoftware.kryo.io.Output;
 import com.google.common.base.Throwables;
 
+import com.datatorrent.api.Stats;
 import com.datatorrent.api.StorageAgent;
 import com.datatorrent.api.annotation.Stateless;
 
@@ -56,13 +65,24 @@ import com.datatorrent.api.annotation.Stateless;
  *
  * @since 0.3.2
  */
-public class FSStorageAgent implements StorageAgent, Serializable
+public class FSStorageAgent implements StorageAgent, CheckpointStatsReporter, Serializable
 {
   public static final String TMP_FILE = "_tmp";
   protected static final String STATELESS_CHECKPOINT_WINDOW_ID = Long.toHexString(Stateless.WINDOW_ID);
   public final String path;
   protected final transient FileContext fileContext;
+  /**
+   * @deprecated {@link #store(OutputStream, Object)} and {@link #retrieve(InputStream)} no longer serialize through
+   * this instance, they borrow a {@link Kryo} from a bounded pool instead.
+   */
+  @Deprecated
   protected static final transient Kryo kryo;
+  private static final KryoPool kryoPool = new KryoPool(2 * Runtime.getRuntime().availableProcessors());
+  private boolean incrementalCheckpoint = false;
+  private int checkpointChunkSize = 256 * 1024;
+  private int maxCheckpointDeltas = 16;
+  private transient volatile ConcurrentHashMap<Integer, IncrementalCheckpoint.Base> bases;
+  private transient volatile Map<Pair<Integer, Long>, Stats.CheckpointStats> checkpointStats;
 
   static {
     kryo = new Kryo();
@@ -96,6 +116,20 @@ public class FSStorageAgent implements StorageAgent, Serializable
   @Override
   public void save(Object object, int operatorId, long windowId) throws IOException
   {
+    if (isIncremental(windowId)) {
+      IncrementalSave incrementalSave = new IncrementalSave(operatorId, windowId);
+      try {
+        final long start = System.nanoTime();
+        store(incrementalSave.stream, object);
+        incrementalSave.commit();
+        recordCheckpointStats(operatorId, windowId, incrementalSave.stream.totalBytes, 0,
+            incrementalSave.stream.inlineBytes, System.nanoTime() - start);
+      } finally {
+        incrementalSave.stream.close();
+      }
+      return;
+    }
+
     String operatorIdStr = String.valueOf(operatorId);
     Path lPath = new Path(path + Path.SEPARATOR + operatorIdStr + Path.SEPARATOR + TMP_FILE);
     String window = Long.toHexString(windowId);
@@ -104,7 +138,9 @@ public class FSStorageAgent implements StorageAgent, Serializable
     try {
       stream = fileContext.create(lPath, EnumSet.of(CreateFlag.CREATE, CreateFlag.OVERWRITE),
         Options.CreateOpts.CreateParent.createParent());
+      final long start = System.nanoTime();
       store(stream, object);
+      recordCheckpointStats(operatorId, windowId, stream.getPos(), 0, stream.getPos(), System.nanoTime() - start);
       stateSaved = true;
     } catch (Throwable t) {
       logger.debug("while saving {} {}", operatorId, window, t);
@@ -136,7 +172,23 @@ public class FSStorageAgent implements StorageAgent, Serializable
 
     FSDataInputStream stream = fileContext.open(lPath);
     try {
-      return retrieve(stream);
+      Long baseWindowId = IncrementalCheckpoint.readBaseWindowId(stream);
+      if (baseWindowId == null) {
+        stream.seek(0);
+        return retrieve(stream);
+      }
+
+      List<IncrementalCheckpoint.Chunk> chunks = IncrementalCheckpoint.readTable(stream,
+          fileContext.getFileStatus(lPath).getLen());
+      Path basePath = new Path(lPath.getParent(), IncrementalCheckpoint.getBaseName(baseWindowId));
+      try (FSDataInputStream base = fileContext.open(basePath)) {
+        if (incrementalCheckpoint && getBases().get(operatorId) == null) {
+          // continue writing deltas against the base image of the recovered checkpoint
+          getBases().put(operatorId, new IncrementalCheckpoint.Base(baseWindowId,
+              IncrementalCheckpoint.readTable(base, fileContext.getFileStatus(basePath).getLen())));
+        }
+        return retrieve(new IncrementalCheckpoint.ChunkInputStream(stream, base, chunks));
+      }
     } finally {
       stream.close();
     }
@@ -149,6 +201,48 @@ public class FSStorageAgent implements StorageAgent, Serializable
     logger.debug("Deleting: {}", lPath);
 
     fileContext.delete(lPath, false);
+    if (incrementalCheckpoint) {
+      purgeBases(lPath.getParent(), windowId);
+    }
+  }
+
+  /**
+   * Deletes the base images up to the given window that are not referenced by any remaining checkpoint. Base images
+   * of later windows are left alone as their checkpoint may still be in the process of being written.
+   */
+  private void purgeBases(Path directory, long windowId) throws IOException
+  {
+    Set<Long> referenced = new HashSet<>();
+    List<Path> candidates = new ArrayList<>();
+    RemoteIterator<FileStatus> it = fileContext.listStatus(directory);
+    while (it.hasNext()) {
+      Path path = it.next().getPath();
+      String name = path.getName();
+      if (name.equals(TMP_FILE)) {
+        continue;
+      }
+      if (IncrementalCheckpoint.isBase(name)) {
+        if (IncrementalCheckpoint.getBaseWindowId(name) <= windowId) {
+          candidates.add(path);
+        }
+      } else {
+        try (FSDataInputStream stream = fileContext.open(path)) {
+          Long baseWindowId = IncrementalCheckpoint.readBaseWindowId(stream);
+          if (baseWindowId != null) {
+            referenced.add(baseWindowId);
+          }
+        } catch (FileNotFoundException ex) {
+          logger.debug("Checkpoint {} deleted while purging base images", path);
+        }
+      }
+    }
+
+    for (Path candidate : candidates) {
+      if (!referenced.contains(IncrementalCheckpoint.getBaseWindowId(candidate.getName()))) {
+        logger.debug("Deleting base image {}", candidate);
+        fileContext.delete(candidate, false);
+      }
+    }
   }
 
   @Override
@@ -170,7 +264,7 @@ public class FSStorageAgent implements StorageAgent, Serializable
     while (fileStatusRemoteIterator.hasNext()) {
       FileStatus fileStatus = fileStatusRemoteIterator.next();
       String name = fileStatus.getPath().getName();
-      if (name.equals(TMP_FILE)) {
+      if (name.equals(TMP_FILE) || IncrementalCheckpoint.isBase(name)) {
         continue;
       }
       lwindows.add(STATELESS_CHECKPOINT_WINDOW_ID.equals(name) ? Stateless.WINDOW_ID : Long.parseLong(name, 16));
@@ -184,28 +278,238 @@ public class FSStorageAgent implements StorageAgent, Serializable
 
   public static void store(OutputStream stream, Object operator)
   {
-    synchronized (kryo) {
+    final Kryo kryo = kryoPool.borrow();
+    try {
       Output output = new Output(4096, Integer.MAX_VALUE);
       output.setOutputStream(stream);
       kryo.writeClassAndObject(output, operator);
       output.flush();
+    } finally {
+      kryoPool.release(kryo);
     }
   }
 
   public static Object retrieve(InputStream stream)
   {
-    synchronized (kryo) {
+    final Kryo kryo = kryoPool.borrow();
+    try {
       kryo.setClassLoader(Thread.currentThread().getContextClassLoader());
       Input input = new Input(stream);
       return kryo.readClassAndObject(input);
+    } finally {
+      kryoPool.release(kryo);
     }
   }
 
   public Object readResolve() throws ObjectStreamException
   {
-    return new FSStorageAgent(this.path, null);
+    FSStorageAgent fsStorageAgent = new FSStorageAgent(this.path, null);
+    copyIncrementalCheckpointSettings(fsStorageAgent);
+    return fsStorageAgent;
+  }
+
+  /**
+   * Records the statistics of a checkpoint, to be picked up by {@link #reportCheckpointStats(int, long,
+   * Stats.CheckpointStats)}. Statistics recorded for a checkpoint more than once are added up.
+   */
+  protected void recordCheckpointStats(int operatorId, long windowId, long checkpointBytes, long spillBytes,
+      long uploadBytes, long uploadNanos)
+  {
+    if (checkpointStats == null) {
+      synchronized (this) {
+        if (checkpointStats == null) {
+          checkpointStats = Collections.synchronizedMap(new LinkedHashMap<Pair<Integer, Long>, Stats.CheckpointStats>()
+          {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Pair<Integer, Long>, Stats.CheckpointStats> eldest)
+            {
+              // stats of checkpoints that are never reported, e.g. when used outside of a container, are dropped
+              return size() > MAX_UNREPORTED_CHECKPOINT_STATS;
+            }
+
+            private static final long serialVersionUID = 201610170000L;
+          });
+        }
+      }
+    }
+
+    final Pair<Integer, Long> key = new Pair<>(operatorId, windowId);
+    synchronized (checkpointStats) {
+      Stats.CheckpointStats stats = checkpointStats.get(key);
+      if (stats == null) {
+        stats = new Stats.CheckpointStats();
+        checkpointStats.put(key, stats);
+      }
+      stats.checkpointBytes += checkpointBytes;
+      stats.spillBytes += spillBytes;
+      if (uploadNanos > 0) {
+        stats.uploadBytesPerSecond = uploadBytes * 1000000000L / uploadNanos;
+      }
+    }
+  }
+
+  @Override
+  public void reportCheckpointStats(int operatorId, long windowId, Stats.CheckpointStats stats)
+  {
+    if (checkpointStats != null) {
+      Stats.CheckpointStats recorded = checkpointStats.remove(new Pair<>(operatorId, windowId));
+      if (recorded != null) {
+        stats.checkpointBytes = recorded.checkpointBytes;
+        stats.spillBytes = recorded.spillBytes;
+        stats.uploadBytesPerSecond = recorded.uploadBytesPerSecond;
+      }
+    }
+  }
+
+  void copyIncrementalCheckpointSettings(FSStorageAgent storageAgent)
+  {
+    storageAgent.incrementalCheckpoint = incrementalCheckpoint;
+    storageAgent.checkpointChunkSize = checkpointChunkSize;
+    storageAgent.maxCheckpointDeltas = maxCheckpointDeltas;
+  }
+
+  boolean isIncremental(long windowId)
+  {
+    return incrementalCheckpoint && windowId != Stateless.WINDOW_ID;
+  }
+
+  private ConcurrentHashMap<Integer, IncrementalCheckpoint.Base> getBases()
+  {
+    if (bases == null) {
+      synchronized (this) {
+        if (bases == null) {
+          bases = new ConcurrentHashMap<>();
+        }
+      }
+    }
+    return bases;
+  }
+
+  public boolean isIncrementalCheckpoint()
+  {
+    return incrementalCheckpoint;
+  }
+
+  /**
+   * When enabled, a checkpoint stores only the chunks of the serialized operator that are not found in the base image
+   * written by an earlier checkpoint. A new base image is written after {@link #getMaxCheckpointDeltas()} checkpoints
+   * or when more than half of the state changed since the base image.
+   *
+   * @param incrementalCheckpoint
+   */
+  public void setIncrementalCheckpoint(boolean incrementalCheckpoint)
+  {
+    this.incrementalCheckpoint = incrementalCheckpoint;
+  }
+
+  public int getCheckpointChunkSize()
+  {
+    return checkpointChunkSize;
+  }
+
+  /**
+   * Average size of the chunks the serialized operator is split into for incremental checkpoints, rounded down to a
+   * power of 2.
+   *
+   * @param checkpointChunkSize
+   */
+  public void setCheckpointChunkSize(int checkpointChunkSize)
+  {
+    this.checkpointChunkSize = checkpointChunkSize;
+  }
+
+  public int getMaxCheckpointDeltas()
+  {
+    return maxCheckpointDeltas;
+  }
+
+  /**
+   * Number of incremental checkpoints written against a base image before the base image is compacted.
+   *
+   * @param maxCheckpointDeltas
+   */
+  public void setMaxCheckpointDeltas(int maxCheckpointDeltas)
+  {
+    this.maxCheckpointDeltas = maxCheckpointDeltas;
+  }
+
+  /**
+   * Incremental checkpoint in the process of being written. The checkpoint is written against the base image of the
+   * operator if there is one, otherwise a new base image is written.
+   */
+  class IncrementalSave
+  {
+    final int operatorId;
+    final long windowId;
+    final IncrementalCheckpoint.Base base;
+    final Path directory;
+    final Path tmpPath;
+    final IncrementalCheckpoint.ChunkingOutputStream stream;
+
+    IncrementalSave(int operatorId, long windowId) throws IOException
+    {
+      this.operatorId = operatorId;
+      this.windowId = windowId;
+      base = getBases().get(operatorId);
+      directory = new Path(path + Path.SEPARATOR + String.valueOf(operatorId));
+      tmpPath = new Path(directory, TMP_FILE);
+      stream = new IncrementalCheckpoint.ChunkingOutputStream(IncrementalCheckpoint.create(fileContext, tmpPath),
+          base == null ? IncrementalCheckpoint.NO_BASE : base.windowId, base, checkpointChunkSize);
+    }
+
+    void commit() throws IOException
+    {
+      stream.close();
+      final Path checkpointPath = new Path(directory, Long.toHexString(windowId));
+      if (base == null) {
+        fileContext.rename(tmpPath, new Path(directory, IncrementalCheckpoint.getBaseName(windowId)),
+            Options.Rename.OVERWRITE);
+        IncrementalCheckpoint.writeReferences(fileContext, tmpPath, windowId, stream.chunks);
+        fileContext.rename(tmpPath, checkpointPath, Options.Rename.OVERWRITE);
+        getBases().put(operatorId, new IncrementalCheckpoint.Base(windowId, stream.chunks));
+        logger.debug("Saved base image {}: {} ({} bytes)", operatorId, windowId, stream.totalBytes);
+      } else {
+        fileContext.rename(tmpPath, checkpointPath, Options.Rename.OVERWRITE);
+        logger.debug("Saved {}: {} ({} of {} bytes changed)", operatorId, windowId, stream.inlineBytes,
+            stream.totalBytes);
+        if (++base.deltaCount >= maxCheckpointDeltas || stream.inlineBytes * 2 > stream.totalBytes) {
+          // compact, i.e. the next checkpoint is written as a new base image
+          getBases().remove(operatorId, base);
+        }
+      }
+    }
+  }
+
+  /**
+   * Bounded pool of {@link Kryo} instances that lets operators of a container checkpoint concurrently. An instance is
+   * created when the pool is empty and dropped when the pool is full, so the pool never blocks.
+   */
+  private static class KryoPool
+  {
+    private final ArrayBlockingQueue<Kryo> pool;
+    private final ClassLoader defaultClassLoader;
+
+    KryoPool(int capacity)
+    {
+      pool = new ArrayBlockingQueue<>(capacity);
+      defaultClassLoader = new Kryo().getClassLoader();
+    }
+
+    Kryo borrow()
+    {
+      final Kryo kryo = pool.poll();
+      return kryo == null ? new Kryo() : kryo;
+    }
+
+    void release(Kryo kryo)
+    {
+      // do not let a pooled instance hold on to the class loader of an application
+      kryo.setClassLoader(defaultClassLoader);
+      pool.offer(kryo);
+    }
   }
 
+  private static final int MAX_UNREPORTED_CHECKPOINT_STATS = 64;
   private static final long serialVersionUID = 201404031201L;
   private static final Logger logger = LoggerFactory.getLogger(FSStorageAgent.class);
 }
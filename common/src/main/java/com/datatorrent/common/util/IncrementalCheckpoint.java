@@ -0,0 +1,381 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package com.datatorrent.common.util;
+
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Random;
+
+import org.apache.hadoop.fs.CreateFlag;
+import org.apache.hadoop.fs.FSDataInputStream;
+import org.apache.hadoop.fs.FSDataOutputStream;
+import org.apache.hadoop.fs.FileContext;
+import org.apache.hadoop.fs.Options;
+import org.apache.hadoop.fs.Path;
+
+/**
+ * File format and chunking used by the incremental checkpoints of {@link FSStorageAgent}.<p>
+ * <br>
+ * The serialized operator is split into content defined chunks and every chunk is identified by its SHA-1 digest. A
+ * base image file (named {@link #BASE_PREFIX} followed by the window id) stores all the chunks of a full checkpoint.
+ * The checkpoint file of a window stores only the chunks that are not found in its base image, the other chunks are
+ * references into the base image. Both files share one layout:
+ * <pre>
+ * magic (int), version (byte), base window id (long)
+ * inline chunk data
+ * chunk count (int), for every chunk: kind (byte), offset (long), length (int), digest (20 bytes)
+ * offset of the chunk table (long)
+ * </pre>
+ * Content defined chunk boundaries keep unchanged regions of the state aligned with the chunks of the base image even
+ * when data is inserted or removed in front of them.
+ */
+final class IncrementalCheckpoint
+{
+  static final String BASE_PREFIX = "base-";
+  static final int MAGIC = 0xac1dc4e7;
+  static final byte VERSION = 1;
+  static final long NO_BASE = -1;
+  static final int HEADER_SIZE = 4 + 1 + 8;
+  static final byte INLINE = 0;
+  static final byte REFERENCE = 1;
+  static final int DIGEST_LENGTH = 20;
+  private static final long[] GEAR = new long[256];
+
+  static {
+    Random random = new Random(0x5eedL);
+    for (int i = 0; i < GEAR.length; i++) {
+      GEAR[i] = random.nextLong();
+    }
+  }
+
+  private IncrementalCheckpoint()
+  {
+  }
+
+  static class Chunk
+  {
+    final byte kind;
+    final long offset;
+    final int length;
+    final byte[] digest;
+
+    Chunk(byte kind, long offset, int length, byte[] digest)
+    {
+      this.kind = kind;
+      this.offset = offset;
+      this.length = length;
+      this.digest = digest;
+    }
+  }
+
+  /**
+   * Chunks of a base image indexed by digest, along with the number of checkpoints written against it.
+   */
+  static class Base
+  {
+    final long windowId;
+    final HashMap<ByteBuffer, Chunk> chunks;
+    int deltaCount;
+
+    Base(long windowId, List<Chunk> chunks)
+    {
+      this.windowId = windowId;
+      this.chunks = new HashMap<>(chunks.size() * 2);
+      for (Chunk chunk : chunks) {
+        this.chunks.put(ByteBuffer.wrap(chunk.digest), chunk);
+      }
+    }
+  }
+
+  /**
+   * Output stream that splits the bytes written to it into content defined chunks. Chunks that are present in the base
+   * are recorded as references, the others are written to the underlying stream.
+   */
+  static class ChunkingOutputStream extends OutputStream
+  {
+    private final FSDataOutputStream out;
+    private final Base base;
+    private final MessageDigest md;
+    private final int minChunkSize;
+    private final long boundaryMask;
+    private final byte[] buffer;
+    private int count;
+    private long gear;
+    private boolean closed;
+    final List<Chunk> chunks = new ArrayList<>();
+    long totalBytes;
+    long inlineBytes;
+
+    ChunkingOutputStream(FSDataOutputStream out, long baseWindowId, Base base, int averageChunkSize)
+        throws IOException
+    {
+      this.out = out;
+      this.base = base;
+      try {
+        md = MessageDigest.getInstance("SHA-1");
+      } catch (NoSuchAlgorithmException ex) {
+        throw new RuntimeException(ex);
+      }
+      final int bits = 31 - Integer.numberOfLeadingZeros(Math.max(averageChunkSize, 64));
+      minChunkSize = (1 << bits) / 4;
+      boundaryMask = ((1L << bits) - 1) << (64 - bits);
+      buffer = new byte[(1 << bits) * 4];
+      out.writeInt(MAGIC);
+      out.writeByte(VERSION);
+      out.writeLong(baseWindowId);
+    }
+
+    @Override
+    public void write(int b) throws IOException
+    {
+      buffer[count++] = (byte)b;
+      gear = (gear << 1) + GEAR[b & 0xff];
+      if (count == buffer.length || (count >= minChunkSize && (gear & boundaryMask) == 0)) {
+        endChunk();
+      }
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) throws IOException
+    {
+      final int end = off + len;
+      for (int i = off; i < end; i++) {
+        final byte value = b[i];
+        buffer[count++] = value;
+        gear = (gear << 1) + GEAR[value & 0xff];
+        if (count == buffer.length || (count >= minChunkSize && (gear & boundaryMask) == 0)) {
+          endChunk();
+        }
+      }
+    }
+
+    private void endChunk() throws IOException
+    {
+      md.update(buffer, 0, count);
+      final byte[] digest = md.digest();
+      final Chunk existing = base == null ? null : base.chunks.get(ByteBuffer.wrap(digest));
+      if (existing != null && existing.length == count) {
+        chunks.add(new Chunk(REFERENCE, existing.offset, count, digest));
+      } else {
+        chunks.add(new Chunk(INLINE, out.getPos(), count, digest));
+        out.write(buffer, 0, count);
+        inlineBytes += count;
+      }
+      totalBytes += count;
+      count = 0;
+      gear = 0;
+    }
+
+    /**
+     * Writes the pending chunk and the chunk table, and closes the underlying stream.
+     */
+    @Override
+    public void close() throws IOException
+    {
+      if (closed) {
+        return;
+      }
+      closed = true;
+      if (count > 0) {
+        endChunk();
+      }
+      writeTable(out, chunks);
+      out.close();
+    }
+  }
+
+  static void writeTable(FSDataOutputStream out, List<Chunk> chunks) throws IOException
+  {
+    final long tableOffset = out.getPos();
+    out.writeInt(chunks.size());
+    for (Chunk chunk : chunks) {
+      out.writeByte(chunk.kind);
+      out.writeLong(chunk.offset);
+      out.writeInt(chunk.length);
+      out.write(chunk.digest);
+    }
+    out.writeLong(tableOffset);
+  }
+
+  /**
+   * Writes a checkpoint file that references every chunk of the base image.
+   */
+  static void writeReferences(FileContext fileContext, Path path, long baseWindowId, List<Chunk> baseChunks)
+      throws IOException
+  {
+    List<Chunk> references = new ArrayList<>(baseChunks.size());
+    for (Chunk chunk : baseChunks) {
+      references.add(new Chunk(REFERENCE, chunk.offset, chunk.length, chunk.digest));
+    }
+    try (FSDataOutputStream out = create(fileContext, path)) {
+      out.writeInt(MAGIC);
+      out.writeByte(VERSION);
+      out.writeLong(baseWindowId);
+      writeTable(out, references);
+    }
+  }
+
+  static FSDataOutputStream create(FileContext fileContext, Path path) throws IOException
+  {
+    return fileContext.create(path, EnumSet.of(CreateFlag.CREATE, CreateFlag.OVERWRITE),
+        Options.CreateOpts.CreateParent.createParent());
+  }
+
+  /**
+   *
+   * @param stream stream positioned at the beginning of a file
+   * @return the base window id if the file is an incremental checkpoint, null otherwise
+   * @throws IOException
+   */
+  static Long readBaseWindowId(InputStream stream) throws IOException
+  {
+    byte[] header = new byte[HEADER_SIZE];
+    try {
+      new DataInputStream(stream).readFully(header);
+    } catch (EOFException ex) {
+      return null;
+    }
+    ByteBuffer bb = ByteBuffer.wrap(header);
+    if (bb.getInt() != MAGIC || bb.get() != VERSION) {
+      return null;
+    }
+    return bb.getLong();
+  }
+
+  static List<Chunk> readTable(FSDataInputStream in, long fileLength) throws IOException
+  {
+    in.seek(fileLength - 8);
+    in.seek(in.readLong());
+    final int chunkCount = in.readInt();
+    List<Chunk> chunks = new ArrayList<>(chunkCount);
+    for (int i = 0; i < chunkCount; i++) {
+      final byte kind = in.readByte();
+      final long offset = in.readLong();
+      final int length = in.readInt();
+      final byte[] digest = new byte[DIGEST_LENGTH];
+      in.readFully(digest);
+      chunks.add(new Chunk(kind, offset, length, digest));
+    }
+    return chunks;
+  }
+
+  static boolean isBase(String name)
+  {
+    return name.startsWith(BASE_PREFIX);
+  }
+
+  static String getBaseName(long windowId)
+  {
+    return BASE_PREFIX + Long.toHexString(windowId);
+  }
+
+  static long getBaseWindowId(String name)
+  {
+    return Long.parseLong(name.substring(BASE_PREFIX.length()), 16);
+  }
+
+  /**
+   * Input stream that reassembles the serialized operator from the inline chunks of a checkpoint and the chunks it
+   * references in the base image. Every chunk is fetched with one positioned read.
+   */
+  static class ChunkInputStream extends InputStream
+  {
+    private final FSDataInputStream checkpoint;
+    private final FSDataInputStream base;
+    private final List<Chunk> chunks;
+    private int index;
+    private byte[] buffer = new byte[0];
+    private int position;
+    private int limit;
+
+    ChunkInputStream(FSDataInputStream checkpoint, FSDataInputStream base, List<Chunk> chunks)
+    {
+      this.checkpoint = checkpoint;
+      this.base = base;
+      this.chunks = chunks;
+    }
+
+    private boolean fill() throws IOException
+    {
+      while (position == limit) {
+        if (index == chunks.size()) {
+          return false;
+        }
+        final Chunk chunk = chunks.get(index++);
+        if (buffer.length < chunk.length) {
+          buffer = new byte[chunk.length];
+        }
+        if (chunk.kind == REFERENCE) {
+          if (base == null) {
+            throw new IOException("Checkpoint references a missing base image");
+          }
+          base.readFully(chunk.offset, buffer, 0, chunk.length);
+        } else {
+          checkpoint.readFully(chunk.offset, buffer, 0, chunk.length);
+        }
+        position = 0;
+        limit = chunk.length;
+      }
+      return true;
+    }
+
+    @Override
+    public int read() throws IOException
+    {
+      return fill() ? buffer[position++] & 0xff : -1;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException
+    {
+      if (len == 0) {
+        return 0;
+      }
+      if (!fill()) {
+        return -1;
+      }
+      final int n = Math.min(len, limit - position);
+      System.arraycopy(buffer, position, b, off, n);
+      position += n;
+      return n;
+    }
+
+    @Override
+    public void close() throws IOException
+    {
+      try {
+        checkpoint.close();
+      } finally {
+        if (base != null) {
+          base.close();
+        }
+      }
+    }
+  }
+}
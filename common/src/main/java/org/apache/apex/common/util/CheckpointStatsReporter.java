@@ -0,0 +1,42 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.apex.common.util;
+
+import org.apache.hadoop.classification.InterfaceStability;
+
+import com.datatorrent.api.Stats;
+
+/**
+ * Storage agent that keeps track of the size and upload throughput of the checkpoints it takes.
+ *
+ * @since 4.0.0
+ */
+@InterfaceStability.Evolving
+public interface CheckpointStatsReporter
+{
+  /**
+   * Adds the statistics collected while saving, and for asynchronous checkpoints flushing, the given checkpoint to
+   * the stats. Statistics of a checkpoint are reported once.
+   *
+   * @param operatorId
+   * @param windowId
+   * @param stats stats of the checkpoint
+   */
+  void reportCheckpointStats(int operatorId, long windowId, Stats.CheckpointStats stats);
+}
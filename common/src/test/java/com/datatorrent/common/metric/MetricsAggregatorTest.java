@@ -0,0 +1,107 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package com.datatorrent.common.metric;
+
+import java.util.Collection;
+import java.util.Map;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.Lists;
+
+import com.datatorrent.api.AutoMetric;
+import com.datatorrent.common.metric.sum.DoubleSumAggregator;
+import com.datatorrent.common.metric.sum.LongSumAggregator;
+
+public class MetricsAggregatorTest
+{
+  private static final AutoMetricValues.Schema SCHEMA = new AutoMetricValues.Schema(
+      new String[] {"count", "rate", "label"},
+      new byte[] {AutoMetricValues.TYPE_INT, AutoMetricValues.TYPE_DOUBLE, AutoMetricValues.TYPE_OBJECT});
+
+  private static MetricsAggregator newAggregator()
+  {
+    MetricsAggregator aggregator = new MetricsAggregator();
+    aggregator.addAggregators("count", new SingleMetricAggregator[] {new LongSumAggregator()});
+    aggregator.addAggregators("rate", new SingleMetricAggregator[] {new DoubleSumAggregator()});
+    return aggregator;
+  }
+
+  private static AutoMetricValues newValues(int count, double rate)
+  {
+    AutoMetricValues values = new AutoMetricValues(SCHEMA);
+    values.setLong(0, count);
+    values.setDouble(1, rate);
+    values.setObject(2, "partition");
+    return values;
+  }
+
+  private static AutoMetric.PhysicalMetricsContext newContext(final int operatorId, final Map<String, Object> metrics)
+  {
+    return new AutoMetric.PhysicalMetricsContext()
+    {
+      @Override
+      public Map<String, Object> getMetrics()
+      {
+        return metrics;
+      }
+
+      @Override
+      public int operatorId()
+      {
+        return operatorId;
+      }
+    };
+  }
+
+  @Test
+  public void testValuesView()
+  {
+    AutoMetricValues values = newValues(3, 0.5);
+    Assert.assertEquals("size", 3, values.size());
+    Assert.assertEquals("count", 3, values.get("count"));
+    Assert.assertEquals("rate", 0.5, values.get("rate"));
+    Assert.assertEquals("label", "partition", values.get("label"));
+    Assert.assertEquals("map", ImmutableMap.of("count", 3, "rate", 0.5, "label", "partition"), values);
+  }
+
+  @Test
+  public void testAggregateValues()
+  {
+    Collection<AutoMetric.PhysicalMetricsContext> physicalMetrics = Lists.newArrayList();
+    physicalMetrics.add(newContext(1, newValues(3, 0.5)));
+    physicalMetrics.add(newContext(2, newValues(4, 1.5)));
+
+    Map<String, Object> aggregates = newAggregator().aggregate(1, physicalMetrics);
+    Assert.assertEquals("aggregates", ImmutableMap.<String, Object>of("count", 7L, "rate", 2.0), aggregates);
+  }
+
+  @Test
+  public void testAggregateMixed()
+  {
+    Collection<AutoMetric.PhysicalMetricsContext> physicalMetrics = Lists.newArrayList();
+    physicalMetrics.add(newContext(1, newValues(3, 0.5)));
+    physicalMetrics.add(newContext(2, ImmutableMap.<String, Object>of("count", 4, "rate", 1.5f)));
+
+    Map<String, Object> aggregates = newAggregator().aggregate(1, physicalMetrics);
+    Assert.assertEquals("aggregates", ImmutableMap.<String, Object>of("count", 7L, "rate", 2.0), aggregates);
+  }
+}
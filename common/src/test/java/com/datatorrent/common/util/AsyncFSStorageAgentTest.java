@@ -21,6 +21,7 @@ package com.datatorrent.common.util;
 import java.io.File;
 import java.io.IOException;
 import java.util.Map;
+import java.util.TreeMap;
 
 import org.junit.Assert;
 import org.junit.Rule;
@@ -32,10 +33,15 @@ import org.apache.commons.io.FileUtils;
 import org.apache.hadoop.fs.FileContext;
 import org.apache.hadoop.fs.Path;
 
+import com.esotericsoftware.kryo.Kryo;
+import com.esotericsoftware.kryo.KryoSerializable;
+import com.esotericsoftware.kryo.io.Input;
+import com.esotericsoftware.kryo.io.Output;
 import com.google.common.collect.Maps;
 
 import com.datatorrent.api.Attribute;
 import com.datatorrent.api.DAG;
+import com.datatorrent.api.Stats;
 
 public class AsyncFSStorageAgentTest
 {
@@ -134,4 +140,112 @@ public class AsyncFSStorageAgentTest
     Assert.assertTrue("operator 2 window 1", fileContext.util().exists(new Path(appPath + "/" + 2 + "/" + 1)));
     Assert.assertFalse("operator 1 window 1", fileContext.util().exists(new Path(appPath + "/" + 1 + "/" + 1)));
   }
+
+  @Test
+  public void testStreamingSave() throws IOException
+  {
+    AsyncFSStorageAgent storageAgent = testMeta.storageAgent;
+    storageAgent.setStreamingCheckpoint(true);
+    storageAgent.setStreamingBufferSize(64 * 1024);
+    storageAgent.setStreamingChunkSize(16 * 1024);
+
+    TreeMap<Integer, String> data = new TreeMap<>();
+    for (int i = 0; i < 100000; i++) {
+      data.put(i, "value " + i);
+    }
+    // the second checkpoint waits for the upload of the first one and spills to the local disk
+    storageAgent.save(data, 1, 1);
+    data.put(-1, "minus one");
+    storageAgent.save(data, 1, 2);
+
+    for (long windowId = 1; windowId <= 2; windowId++) {
+      storageAgent.flush(1, windowId);
+      Stats.CheckpointStats stats = new Stats.CheckpointStats();
+      storageAgent.reportCheckpointStats(1, windowId, stats);
+      Assert.assertTrue("checkpoint bytes " + stats, stats.checkpointBytes > 1024 * 1024);
+      Assert.assertTrue("spill bytes " + stats, stats.spillBytes < stats.checkpointBytes);
+      Assert.assertTrue("upload throughput " + stats, stats.uploadBytesPerSecond > 0);
+    }
+    Assert.assertEquals("data of 2", data, storageAgent.load(1, 2));
+  }
+
+  /**
+   * Operator state that fails to serialize after a part of it has been written.
+   */
+  public static class FailingState implements KryoSerializable
+  {
+    @Override
+    public void write(Kryo kryo, Output output)
+    {
+      output.writeBytes(new byte[100 * 1024]);
+      throw new IllegalStateException("serialization failed");
+    }
+
+    @Override
+    public void read(Kryo kryo, Input input)
+    {
+    }
+  }
+
+  @Test
+  public void testFailedStreamingSave() throws IOException
+  {
+    AsyncFSStorageAgent storageAgent = testMeta.storageAgent;
+    storageAgent.setStreamingCheckpoint(true);
+    storageAgent.setStreamingBufferSize(64 * 1024);
+    storageAgent.setStreamingChunkSize(16 * 1024);
+
+    try {
+      storageAgent.save(new FailingState(), 1, 1);
+      Assert.fail("save of state that does not serialize");
+    } catch (RuntimeException ex) {
+      // expected
+    }
+
+    // the upload of the next checkpoint waits for the failed one
+    Map<Integer, String> data = Maps.newHashMap();
+    data.put(1, "one");
+    storageAgent.save(data, 1, 2);
+    storageAgent.flush(1, 2);
+
+    Path operatorPath = new Path(testMeta.applicationPath + "/" + 1);
+    FileContext fileContext = FileContext.getFileContext();
+    Assert.assertFalse("checkpoint 1", fileContext.util().exists(new Path(operatorPath, Long.toHexString(1))));
+    Assert.assertFalse("temporary file", fileContext.util().exists(new Path(operatorPath, FSStorageAgent.TMP_FILE)));
+    Assert.assertEquals("data of 2", data, storageAgent.load(1, 2));
+  }
+
+  @Test
+  public void testFailedStreamingUploadDeletesSpillFile() throws Exception
+  {
+    // the upload fails as the parent of the application path is a file
+    File file = new File(testMeta.basePath, "file");
+    FileUtils.touch(file);
+    File localBasePath = new File(testMeta.basePath, "local");
+    AsyncFSStorageAgent storageAgent = new AsyncFSStorageAgent(localBasePath.getPath(), file.getPath() + "/app", null);
+    storageAgent.setStreamingCheckpoint(true);
+    storageAgent.setStreamingBufferSize(16 * 1024);
+    storageAgent.setStreamingChunkSize(4 * 1024);
+
+    TreeMap<Integer, String> data = new TreeMap<>();
+    for (int i = 0; i < 100000; i++) {
+      data.put(i, "value " + i);
+    }
+    for (long windowId = 1; windowId <= 2; windowId++) {
+      try {
+        storageAgent.save(data, 1, windowId);
+        storageAgent.flush(1, windowId);
+        Assert.fail("upload to " + file);
+      } catch (IOException | RuntimeException ex) {
+        // expected
+      }
+    }
+
+    // the uploads either failed before the spill file was opened or delete it when they fail
+    File localDirectory = new File(localBasePath, "1");
+    for (int i = 0; i < 1000 && localDirectory.list().length > 0; i++) {
+      Thread.sleep(10);
+    }
+    Assert.assertArrayEquals("spill files", new String[0], localDirectory.list());
+  }
 }
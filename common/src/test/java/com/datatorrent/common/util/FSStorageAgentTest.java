@@ -20,13 +20,23 @@ package com.datatorrent.common.util;
 
 import java.io.File;
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import org.junit.Assert;
+import org.junit.Ignore;
 import org.junit.Rule;
 import org.junit.Test;
 import org.junit.rules.TestWatcher;
 import org.junit.runner.Description;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 import org.apache.commons.io.FileUtils;
 import org.apache.hadoop.fs.FileContext;
@@ -131,4 +141,142 @@ public class FSStorageAgentTest
     Assert.assertFalse("operator 1 window 1", fileContext.util().exists(new Path(appPath + "/" + 1 + "/" + 1)));
   }
 
+  @Test
+  public void testIncrementalSaveLoad() throws IOException
+  {
+    FSStorageAgent storageAgent = testMeta.storageAgent;
+    storageAgent.setIncrementalCheckpoint(true);
+    storageAgent.setCheckpointChunkSize(4096);
+
+    TreeMap<Integer, String> data = new TreeMap<>();
+    for (int i = 0; i < 100000; i++) {
+      data.put(i, "value " + i);
+    }
+    storageAgent.save(data, 1, 1);
+    TreeMap<Integer, String> data2 = new TreeMap<>(data);
+    data2.put(-1, "inserted");
+    data2.put(50000, "changed");
+    storageAgent.save(data2, 1, 2);
+
+    File directory = new File(testMeta.applicationPath, "1");
+    Assert.assertTrue("base image", new File(directory, "base-1").exists());
+    Assert.assertTrue("delta " + new File(directory, "2").length(),
+        new File(directory, "2").length() * 10 < new File(directory, "base-1").length());
+    Assert.assertEquals("window ids", 2, storageAgent.getWindowIds(1).length);
+    Assert.assertEquals("data of 1", data, storageAgent.load(1, 1));
+    Assert.assertEquals("data of 2", data2, storageAgent.load(1, 2));
+
+    FSStorageAgent recovered = new FSStorageAgent(testMeta.applicationPath, null);
+    Assert.assertEquals("data of 2 after recovery", data2, recovered.load(1, 2));
+  }
+
+  @Test
+  public void testIncrementalDeleteAndCompaction() throws IOException
+  {
+    FSStorageAgent storageAgent = testMeta.storageAgent;
+    storageAgent.setIncrementalCheckpoint(true);
+    storageAgent.setCheckpointChunkSize(4096);
+    storageAgent.setMaxCheckpointDeltas(2);
+
+    TreeMap<Integer, String> data = new TreeMap<>();
+    for (int i = 0; i < 10000; i++) {
+      data.put(i, "value " + i);
+    }
+    for (long windowId = 1; windowId <= 4; windowId++) {
+      data.put((int)windowId, "window " + windowId);
+      storageAgent.save(data, 1, windowId);
+    }
+
+    File directory = new File(testMeta.applicationPath, "1");
+    Assert.assertTrue("compacted base image", new File(directory, "base-4").exists());
+    storageAgent.delete(1, 1);
+    storageAgent.delete(1, 2);
+    Assert.assertTrue("base image referenced by window 3", new File(directory, "base-1").exists());
+    Assert.assertEquals("data of 4", data, storageAgent.load(1, 4));
+    storageAgent.delete(1, 3);
+    Assert.assertFalse("base image no longer referenced", new File(directory, "base-1").exists());
+    Assert.assertEquals("data of 4", data, storageAgent.load(1, 4));
+  }
+
+  private static long checkpointAll(final FSStorageAgent storageAgent, final Object[] states, final long windowId,
+      final Object lock) throws Exception
+  {
+    ExecutorService executor = Executors.newFixedThreadPool(states.length);
+    try {
+      List<Future<Void>> futures = new ArrayList<>();
+      final long start = System.nanoTime();
+      for (int i = 0; i < states.length; i++) {
+        final int operatorId = i;
+        futures.add(executor.submit(new Callable<Void>()
+        {
+          @Override
+          public Void call() throws Exception
+          {
+            if (lock == null) {
+              storageAgent.save(states[operatorId], operatorId, windowId);
+            } else {
+              synchronized (lock) {
+                storageAgent.save(states[operatorId], operatorId, windowId);
+              }
+            }
+            return null;
+          }
+        }));
+      }
+      for (Future<Void> future : futures) {
+        future.get();
+      }
+      return System.nanoTime() - start;
+    } finally {
+      executor.shutdown();
+    }
+  }
+
+  private static Object[] operatorStates(int operatorCount, int entries)
+  {
+    Object[] states = new Object[operatorCount];
+    for (int i = 0; i < operatorCount; i++) {
+      Map<Integer, String> state = Maps.newHashMap();
+      for (int j = 0; j < entries; j++) {
+        state.put(j, "operator " + i + " value " + j);
+      }
+      states[i] = state;
+    }
+    return states;
+  }
+
+  @Test
+  public void testConcurrentSaveLoad() throws Exception
+  {
+    Object[] states = operatorStates(16, 1000);
+    checkpointAll(testMeta.storageAgent, states, 1, null);
+    for (int i = 0; i < states.length; i++) {
+      Assert.assertEquals("state of " + i, states[i], testMeta.storageAgent.load(i, 1));
+    }
+  }
+
+  /**
+   * Measures the end window stall of a container whose operators all checkpoint in the same window, with the
+   * checkpoints serialized one after another (as with a single shared Kryo) and with pooled Kryo instances.
+   */
+  @Test
+  @Ignore
+  public void testMultiOperatorCheckpointStall() throws Exception
+  {
+    for (int operatorCount : new int[] {1, 8, 24, 48}) {
+      Object[] states = operatorStates(operatorCount, 50000);
+      checkpointAll(testMeta.storageAgent, states, 1, null);
+
+      long serialized = Long.MAX_VALUE;
+      long pooled = Long.MAX_VALUE;
+      for (int round = 0; round < 5; round++) {
+        serialized = Math.min(serialized, checkpointAll(testMeta.storageAgent, states, 2 + round, new Object()));
+        pooled = Math.min(pooled, checkpointAll(testMeta.storageAgent, states, 2 + round, null));
+      }
+      logger.info("{} operators: serialized checkpoints {} ms, pooled checkpoints {} ms", operatorCount,
+          serialized / 1000000, pooled / 1000000);
+    }
+  }
+
+  private static final Logger logger = LoggerFactory.getLogger(FSStorageAgentTest.class);
 }
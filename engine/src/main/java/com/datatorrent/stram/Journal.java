@@ -21,7 +21,10 @@ package com.datatorrent.stram;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.Future;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicReference;
 
@@ -34,6 +37,8 @@ import com.esotericsoftware.kryo.KryoException;
 import com.esotericsoftware.kryo.io.Input;
 import com.esotericsoftware.kryo.io.Output;
 import com.google.common.collect.ImmutableMap;
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.SettableFuture;
 
 import com.datatorrent.stram.plan.physical.PTContainer;
 import com.datatorrent.stram.plan.physical.PTOperator;
@@ -42,6 +47,10 @@ import com.datatorrent.stram.plan.physical.PTOperator;
  * Write ahead log for DAG changes.
  * Operations need to be registered with the journal instance before writing.
  * Registered prototype instances will be used to apply changes on read.
+ * <p/>
+ * With group commit the operations are serialized by the writing thread and appended to the log by a journal writer
+ * thread, which flushes all the operations written while the previous flush was in progress at once. A caller that
+ * needs the operation to be durable waits for the future returned by {@link #write(Recoverable)}.
  *
  * @since 0.9.2
  */
@@ -91,15 +100,35 @@ public final class Journal
     void write(Output out) throws KryoException;
   }
 
+  private static final Future<Void> WRITTEN = Futures.immediateFuture(null);
+
   private final StreamingContainerManager scm;
   private final AtomicReference<Output> output;
   private final AtomicBoolean replayMode;
+  private final Thread writer;
+  // operations waiting for the journal writer, guarded by this
+  private List<Record> pending = new ArrayList<>();
+  private boolean writing;
+  private boolean closed;
+  private Throwable writerFailure;
 
   public Journal(StreamingContainerManager scm)
+  {
+    this(scm, false);
+  }
+
+  public Journal(StreamingContainerManager scm, boolean groupCommit)
   {
     this.scm = scm;
     output = new AtomicReference<>();
     replayMode = new AtomicBoolean(false);
+    if (groupCommit) {
+      writer = new Thread(new Writer(), "journal-writer");
+      writer.setDaemon(true);
+      writer.start();
+    } else {
+      writer = null;
+    }
   }
 
   public void setOutputStream(@Nullable final OutputStream out) throws IOException
@@ -125,7 +154,27 @@ public final class Journal
       output = null;
     }
 
-    final Output oldOut = this.output.getAndSet(output);
+    final Output oldOut;
+    synchronized (this) {
+      // the pending operations belong to the old stream
+      boolean interrupted = false;
+      while (writing) {
+        try {
+          wait();
+        } catch (InterruptedException e) {
+          interrupted = true;
+        }
+      }
+      if (interrupted) {
+        Thread.currentThread().interrupt();
+      }
+      if (!pending.isEmpty()) {
+        List<Record> records = pending;
+        pending = new ArrayList<>();
+        write(this.output.get(), records);
+      }
+      oldOut = this.output.getAndSet(output);
+    }
     if (oldOut != null && oldOut.getOutputStream() != out) {
       synchronized (oldOut) {
         oldOut.close();
@@ -133,7 +182,13 @@ public final class Journal
     }
   }
 
-  final void write(Recoverable op)
+  /**
+   * Writes the operation to the log.
+   *
+   * @param op the operation
+   * @return future that is done when the operation was flushed to the log, or failed to be written
+   */
+  public final Future<Void> write(Recoverable op)
   {
     if (replayMode.get()) {
       throw new IllegalStateException("Request to write while journal is replaying operations");
@@ -142,6 +197,9 @@ public final class Journal
     if (classId == null) {
       throw new IllegalArgumentException("Class not registered " + op.getClass());
     }
+    if (writer != null) {
+      return append(classId, op);
+    }
     while (true) {
       final Output out = output.get();
       if (out != null) {
@@ -166,6 +224,77 @@ public final class Journal
         break;
       }
     }
+    return WRITTEN;
+  }
+
+  private Future<Void> append(int classId, Recoverable op)
+  {
+    // the operation may refer to mutable state, serialize it in the calling thread
+    Output buffer = new Output(256, -1);
+    buffer.writeInt(classId);
+    op.write(buffer);
+    Record record = new Record(classId, buffer.toBytes());
+    synchronized (this) {
+      if (closed) {
+        throw writerFailure == null ? new IllegalStateException("Request to write after the journal was closed") :
+            new IllegalStateException("Request to write after the journal writer failed", writerFailure);
+      }
+      if (output.get() == null) {
+        LOG.warn("Journal output stream is null. Skipping write to the WAL.");
+        return WRITTEN;
+      }
+      pending.add(record);
+      notifyAll();
+    }
+    return record.future;
+  }
+
+  /**
+   * Writes the operations that are still pending and stops the journal writer.
+   */
+  void close()
+  {
+    if (writer != null) {
+      synchronized (this) {
+        closed = true;
+        notifyAll();
+      }
+      try {
+        writer.join();
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+    }
+  }
+
+  private static void write(Output out, List<Record> records)
+  {
+    try {
+      if (out != null) {
+        synchronized (out) {
+          for (Record record : records) {
+            LOG.debug("WAL write {}", RecoverableOperation.get(record.classId));
+            out.writeBytes(record.bytes);
+          }
+          out.flush();
+        }
+      } else {
+        LOG.warn("Journal output stream is null. Skipping write of {} operations to the WAL.", records.size());
+      }
+      for (Record record : records) {
+        record.future.set(null);
+      }
+    } catch (RuntimeException e) {
+      LOG.error("Failed to write {} operations to the WAL", records.size(), e);
+      fail(records, e);
+    }
+  }
+
+  private static void fail(List<Record> records, Throwable cause)
+  {
+    for (Record record : records) {
+      record.future.setException(cause);
+    }
   }
 
   final void replay(final InputStream input)
@@ -203,4 +332,73 @@ public final class Journal
     }
   }
 
+  private static class Record
+  {
+    final int classId;
+    final byte[] bytes;
+    final SettableFuture<Void> future = SettableFuture.create();
+
+    Record(int classId, byte[] bytes)
+    {
+      this.classId = classId;
+      this.bytes = bytes;
+    }
+  }
+
+  /**
+   * Appends the pending operations to the log, one flush for all the operations that were written while the previous
+   * flush was in progress.
+   */
+  private class Writer implements Runnable
+  {
+    @Override
+    public void run()
+    {
+      List<Record> records = null;
+      try {
+        while (true) {
+          final Output out;
+          synchronized (Journal.this) {
+            while (pending.isEmpty() && !closed) {
+              try {
+                Journal.this.wait();
+              } catch (InterruptedException e) {
+                // write what is pending and stop
+                LOG.debug("Journal writer interrupted", e);
+                closed = true;
+              }
+            }
+            if (pending.isEmpty()) {
+              return;
+            }
+            records = pending;
+            pending = new ArrayList<>();
+            out = output.get();
+            writing = true;
+          }
+          try {
+            write(out, records);
+          } finally {
+            synchronized (Journal.this) {
+              writing = false;
+              Journal.this.notifyAll();
+            }
+          }
+        }
+      } catch (Throwable t) {
+        // nobody waits on a future forever, the operations written from now on fail right away
+        LOG.error("Journal writer failed", t);
+        synchronized (Journal.this) {
+          closed = true;
+          writerFailure = t;
+          if (records != null) {
+            fail(records, t);
+          }
+          fail(pending, t);
+          pending = new ArrayList<>();
+        }
+      }
+    }
+  }
+
 }
@@ -46,6 +46,7 @@ import com.datatorrent.api.LocalMode.Controller;
 import com.datatorrent.api.Operator;
 import com.datatorrent.bufferserver.server.Server;
 import com.datatorrent.bufferserver.storage.DiskStorage;
+import com.datatorrent.bufferserver.util.SharedMemoryRing;
 import com.datatorrent.common.util.AsyncFSStorageAgent;
 import com.datatorrent.stram.StreamingContainerAgent.ContainerStartRequest;
 import com.datatorrent.stram.StreamingContainerManager.ContainerResource;
@@ -311,6 +312,13 @@ public class StramLocalCluster implements Runnable, Controller
     if (dag.getAttributes().get(OperatorContext.STORAGE_AGENT) == null) {
       dag.setAttribute(OperatorContext.STORAGE_AGENT, new AsyncFSStorageAgent(new Path(pathUri, LogicalPlan.SUBDIR_CHECKPOINTS).toString(), null));
     }
+    /*
+     * all the containers run on this host, so the subscribers can read the buffer server through shared memory, a
+     * subscriber whose ring the shared memory directory has no room for uses the socket
+     */
+    if (dag.getAttributes().get(LogicalPlan.BUFFER_SERVER_SHARED_MEMORY) == null) {
+      dag.setAttribute(LogicalPlan.BUFFER_SERVER_SHARED_MEMORY, true);
+    }
     this.dnmgr = new StreamingContainerManager(dag);
     this.umbilical = new UmbilicalProtocolLocalImpl();
   }
@@ -485,6 +493,10 @@ public class StramLocalCluster implements Runnable, Controller
         } catch (IOException e) {
           throw new RuntimeException(e);
         }
+        if (getDAG().getValue(LogicalPlan.BUFFER_SERVER_SHARED_MEMORY)) {
+          bufferServer.setSharedMemoryDirectory(SharedMemoryRing.getDefaultDirectory());
+          bufferServer.setSharedMemoryRingCapacity(getDAG().getValue(LogicalPlan.BUFFER_SERVER_SHARED_MEMORY_RING_CAPACITY));
+        }
         bufferServerAddress = InetSocketAddress.createUnresolved(LOCALHOST, bufferServer.run().getPort());
         LOG.info("Buffer server started: {}", bufferServerAddress);
       }
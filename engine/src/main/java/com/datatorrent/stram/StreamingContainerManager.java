@@ -51,6 +51,7 @@ import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.ConcurrentSkipListMap;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.concurrent.FutureTask;
 import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.TimeUnit;
@@ -238,6 +239,13 @@ public class StreamingContainerManager implements PlanContext
   // window id to node id to end window stats
   private final ConcurrentSkipListMap<Long, Map<Integer, EndWindowStats>> endWindowStatsOperatorMap = new ConcurrentSkipListMap<>();
   private final ConcurrentMap<PTOperator, PTOperator> slowestUpstreamOp = new ConcurrentHashMap<>();
+  // operators with new end window stats since the latency was last calculated
+  private final Set<PTOperator> latencyUpdates =
+      Collections.newSetFromMap(new ConcurrentHashMap<PTOperator, Boolean>());
+  // physical operators in topological order, ignoring the loops through delay operators
+  private List<PTOperator> topologicalOrder = Collections.emptyList();
+  private Map<PTOperator, List<PTOperator>> downstreamOperators = Collections.emptyMap();
+  private int topologyDeployChangeCnt = -1;
   private long committedWindowId;
   private long lastCommittedWindowId = Checkpoint.INITIAL_CHECKPOINT.getWindowId();
   // (operator id, port name) to timestamp
@@ -428,7 +436,7 @@ public class StreamingContainerManager implements PlanContext
       this.eventBus = new MBassador<>(BusConfiguration.Default(1, 1, 1));
     }
     this.plan = new PhysicalPlan(dag, this);
-    this.journal = new Journal(this);
+    this.journal = new Journal(this, dag.getValue(LogicalPlan.JOURNAL_GROUP_COMMIT));
     init(enableEventRecording);
   }
 
@@ -439,7 +447,7 @@ public class StreamingContainerManager implements PlanContext
     poolExecutor = Executors.newFixedThreadPool(4);
     this.plan = checkpointedState.physicalPlan;
     this.eventBus = new MBassador<>(BusConfiguration.Default(1, 1, 1));
-    this.journal = new Journal(this);
+    this.journal = new Journal(this, plan.getLogicalPlan().getValue(LogicalPlan.JOURNAL_GROUP_COMMIT));
     init(enableEventRecording);
   }
 
@@ -583,6 +591,7 @@ public class StreamingContainerManager implements PlanContext
     if (poolExecutor != null) {
       poolExecutor.shutdown();
     }
+    journal.close();
   }
 
   public void subscribeToEvents(Object listener)
@@ -832,10 +841,28 @@ public class StreamingContainerManager implements PlanContext
   {
     Map<Integer, PTOperator> allOperators = plan.getAllOperators();
 
-    UpdateOperatorLatencyContext ctx = new UpdateOperatorLatencyContext(rpcLatencies, endWindowStatsOperatorMap);
+    boolean topologyChanged = updateTopology(allOperators);
+    Set<PTOperator> operators = new HashSet<>();
+    Iterator<PTOperator> iterator = latencyUpdates.iterator();
+    while (iterator.hasNext()) {
+      PTOperator operator = iterator.next();
+      iterator.remove();
+      List<PTOperator> downstream = downstreamOperators.get(operator);
+      if (downstream != null) {
+        // the latency of an operator depends on the end window stats of its upstream operators
+        operators.add(operator);
+        operators.addAll(downstream);
+      }
+    }
 
-    for (PTOperator operator : allOperators.values()) {
-      updateOperatorLatency(operator, ctx);
+    if (!operators.isEmpty()) {
+      UpdateOperatorLatencyContext ctx = new UpdateOperatorLatencyContext(rpcLatencies, endWindowStatsOperatorMap);
+      for (PTOperator operator : operators) {
+        updateOperatorLatency(operator, ctx);
+      }
+    }
+    if (topologyChanged || !operators.isEmpty()) {
+      criticalPathInfo = findCriticalPath();
     }
 
     if (!endWindowStatsOperatorMap.isEmpty()) {
@@ -857,7 +884,6 @@ public class StreamingContainerManager implements PlanContext
         Set<Integer> endWindowStatsOperators = endWindowStatsMap.keySet();
 
         aggregateMetrics(windowId, endWindowStatsMap);
-        criticalPathInfo = findCriticalPath();
 
         if (allOperators.keySet().containsAll(endWindowStatsOperators)) {
           if (endWindowStatsMap.size() < numOperators) {
@@ -993,41 +1019,98 @@ public class StreamingContainerManager implements PlanContext
     return logicalMetrics.get(operatorName);
   }
 
-  private CriticalPathInfo findCriticalPath()
+  /**
+   * Recalculates the topological order of the physical operators when the plan changed since the last calculation.
+   *
+   * @return whether the plan changed
+   */
+  private boolean updateTopology(Map<Integer, PTOperator> allOperators)
   {
-    CriticalPathInfo result = null;
-    List<PTOperator> leafOperators = plan.getLeafOperators();
-    Map<PTOperator, CriticalPathInfo> cache = new HashMap<>();
-    for (PTOperator leafOperator : leafOperators) {
-      CriticalPathInfo cpi = findCriticalPathHelper(leafOperator, cache);
-      if (result == null || result.latency < cpi.latency) {
-        result = cpi;
+    if (topologyDeployChangeCnt == deployChangeCnt && topologicalOrder.size() == allOperators.size()) {
+      return false;
+    }
+    Map<PTOperator, List<PTOperator>> downstream = new HashMap<>();
+    Map<PTOperator, Integer> upstreamCounts = new HashMap<>();
+    for (PTOperator operator : allOperators.values()) {
+      downstream.put(operator, new ArrayList<PTOperator>());
+      upstreamCounts.put(operator, 0);
+    }
+    for (PTOperator operator : allOperators.values()) {
+      for (PTInput input : operator.getInputs()) {
+        PTOperator upstreamOp = input.source.source;
+        if (upstreamOp.getOperatorMeta().getOperator() instanceof Operator.DelayOperator) {
+          continue;
+        }
+        List<PTOperator> upstreamDownstream = downstream.get(upstreamOp);
+        if (upstreamDownstream != null) {
+          upstreamDownstream.add(operator);
+          upstreamCounts.put(operator, upstreamCounts.get(operator) + 1);
+        }
+      }
+    }
+
+    List<PTOperator> order = new ArrayList<>(allOperators.size());
+    for (Map.Entry<PTOperator, Integer> entry : upstreamCounts.entrySet()) {
+      if (entry.getValue() == 0) {
+        order.add(entry.getKey());
+      }
+    }
+    for (int i = 0; i < order.size(); i++) {
+      for (PTOperator operator : downstream.get(order.get(i))) {
+        int upstreamCount = upstreamCounts.get(operator) - 1;
+        upstreamCounts.put(operator, upstreamCount);
+        if (upstreamCount == 0) {
+          order.add(operator);
+        }
       }
     }
-    return result;
+    if (order.size() < allOperators.size()) {
+      LOG.warn("Physical plan contains a loop without a delay operator, critical path may be incomplete");
+    }
+
+    slowestUpstreamOp.keySet().retainAll(downstream.keySet());
+    topologicalOrder = order;
+    downstreamOperators = downstream;
+    topologyDeployChangeCnt = deployChangeCnt;
+    latencyUpdates.addAll(allOperators.values());
+    return true;
   }
 
-  private CriticalPathInfo findCriticalPathHelper(PTOperator operator, Map<PTOperator, CriticalPathInfo> cache)
+  private CriticalPathInfo findCriticalPath()
   {
-    CriticalPathInfo cpi = cache.get(operator);
-    if (cpi != null) {
-      return cpi;
+    // latency of the path through the slowest upstream operators to each operator, calculated in topological order
+    Map<PTOperator, Long> pathLatencies = new HashMap<>(topologicalOrder.size() * 2);
+    Map<PTOperator, PTOperator> pathUpstream = new HashMap<>(topologicalOrder.size() * 2);
+    for (PTOperator operator : topologicalOrder) {
+      long latency = operator.stats.getLatencyMA();
+      PTOperator slowestUpstreamOperator = slowestUpstreamOp.get(operator);
+      if (slowestUpstreamOperator != null) {
+        Long upstreamLatency = pathLatencies.get(slowestUpstreamOperator);
+        if (upstreamLatency != null) {
+          latency += upstreamLatency;
+          pathUpstream.put(operator, slowestUpstreamOperator);
+        }
+      }
+      pathLatencies.put(operator, latency);
     }
-    PTOperator slowestUpstreamOperator = slowestUpstreamOp.get(operator);
-    if (slowestUpstreamOperator != null) {
-      cpi = findCriticalPathHelper(slowestUpstreamOperator, cache);
-      try {
-        cpi = (CriticalPathInfo)cpi.clone();
-      } catch (CloneNotSupportedException ex) {
-        throw new RuntimeException();
+
+    PTOperator criticalLeafOperator = null;
+    long criticalLatency = 0;
+    for (PTOperator leafOperator : plan.getLeafOperators()) {
+      Long latency = pathLatencies.get(leafOperator);
+      if (latency != null && (criticalLeafOperator == null || criticalLatency < latency)) {
+        criticalLeafOperator = leafOperator;
+        criticalLatency = latency;
       }
-    } else {
-      cpi = new CriticalPathInfo();
     }
-    cpi.latency += operator.stats.getLatencyMA();
-    cpi.path.addLast(operator.getId());
-    cache.put(operator, cpi);
-    return cpi;
+    if (criticalLeafOperator == null) {
+      return null;
+    }
+    LinkedList<Integer> path = new LinkedList<>();
+    for (PTOperator operator = criticalLeafOperator; operator != null; operator = pathUpstream.get(operator)) {
+      path.addFirst(operator.getId());
+    }
+    return new CriticalPathInfo(criticalLatency, path);
   }
 
   public int processEvents()
@@ -1317,6 +1400,7 @@ public class StreamingContainerManager implements PlanContext
       StreamingContainerContext scc = new StreamingContainerContext(plan.getLogicalPlan().getAttributes().clone(), null);
       scc.attributes.put(ContainerContext.IDENTIFIER, container.getExternalId());
       scc.attributes.put(ContainerContext.BUFFER_SERVER_MB, bufferServerMemory);
+      scc.attributes.put(ContainerContext.VCORES, container.getAllocatedVCores());
       scc.attributes.put(ContainerContext.BUFFER_SERVER_TOKEN, container.getBufferServerToken());
       scc.startWindowMillis = this.vars.windowStartMillis;
       return scc;
@@ -1579,6 +1663,10 @@ public class StreamingContainerManager implements PlanContext
         long tuplesEmitted = 0;
         long totalCpuTimeUsed = 0;
         int statCount = 0;
+        long windowCount = 0;
+        long minEndWindowLatency = Long.MAX_VALUE;
+        long maxEndWindowLatency = 0;
+        long totalEndWindowLatency = 0;
         long maxDequeueTimestamp = -1;
         oper.stats.recordingId = null;
 
@@ -1641,6 +1729,7 @@ public class StreamingContainerManager implements PlanContext
               //LOG.debug("=== PROCESSED TUPLE COUNT for {}: {}, {}, {}, {}", operatorPortName, s.tupleCount, portElapsedMillis, operatorPortLastEndWindowTimestamps.get(operatorPortName), lastStatsTimestamp);
               ps.tuplesPMSMA.add(s.tupleCount, portElapsedMillis);
               ps.bufferServerBytesPMSMA.add(s.bufferServerBytes, portElapsedMillis);
+              ps.bufferServerUncompressedBytesPMSMA.add(s.bufferServerUncompressedBytes, portElapsedMillis);
               ps.queueSizeMA.add(s.queueSize);
 
               operatorPortLastEndWindowTimestamps.put(operatorPortName, s.endWindowTimestamp);
@@ -1685,6 +1774,7 @@ public class StreamingContainerManager implements PlanContext
               //LOG.debug("=== EMITTED TUPLE COUNT for {}: {}, {}, {}, {}", operatorPortName, s.tupleCount, portElapsedMillis, operatorPortLastEndWindowTimestamps.get(operatorPortName), lastStatsTimestamp);
               ps.tuplesPMSMA.add(s.tupleCount, portElapsedMillis);
               ps.bufferServerBytesPMSMA.add(s.bufferServerBytes, portElapsedMillis);
+              ps.bufferServerUncompressedBytesPMSMA.add(s.bufferServerUncompressedBytes, portElapsedMillis);
 
               operatorPortLastEndWindowTimestamps.put(operatorPortName, s.endWindowTimestamp);
               if (maxEndWindowTimestamp < s.endWindowTimestamp) {
@@ -1716,6 +1806,11 @@ public class StreamingContainerManager implements PlanContext
           }
           totalCpuTimeUsed += stats.cpuTimeUsed;
           statCount++;
+          // an entry covers more than one window when the container rolls up the stats between heartbeats
+          windowCount += stats.windowCount;
+          minEndWindowLatency = Math.min(minEndWindowLatency, stats.minEndWindowLatency);
+          maxEndWindowLatency = Math.max(maxEndWindowLatency, stats.maxEndWindowLatency);
+          totalEndWindowLatency += stats.totalEndWindowLatency;
 
           if (oper.getOperatorMeta().getValue(OperatorContext.COUNTERS_AGGREGATOR) != null) {
             endWindowStats.counters = stats.counters;
@@ -1739,14 +1834,22 @@ public class StreamingContainerManager implements PlanContext
 
             Set<Integer> allCurrentOperators = plan.getAllOperators().keySet();
             int numOperators = plan.getAllOperators().size();
-            if (allCurrentOperators.containsAll(endWindowStatsMap.keySet()) && endWindowStatsMap.size() == numOperators) {
+            if (endWindowStatsMap.size() == numOperators
+                && allCurrentOperators.containsAll(endWindowStatsMap.keySet())) {
               completeEndWindowStatsWindowId = stats.windowId;
             }
           }
         }
 
+        latencyUpdates.add(oper);
         status.totalTuplesProcessed.add(tuplesProcessed);
         status.totalTuplesEmitted.add(tuplesEmitted);
+        if (windowCount > 0) {
+          status.totalWindowsProcessed.add(windowCount);
+          status.minEndWindowLatency.set(minEndWindowLatency);
+          status.maxEndWindowLatency.set(maxEndWindowLatency);
+          status.endWindowLatencyMA.add(totalEndWindowLatency / windowCount);
+        }
         OperatorMeta logicalOperator = oper.getOperatorMeta();
         LogicalOperatorStatus logicalStatus = logicalOperator.getStatus();
         if (!oper.isUnifier()) {
@@ -2557,6 +2660,10 @@ public class StreamingContainerManager implements PlanContext
     oi.tuplesEmittedPSMA = os.tuplesEmittedPSMA.get();
     oi.cpuPercentageMA = os.cpuNanosPMSMA.getAvg() / 10000;
     oi.latencyMA = os.latencyMA.getAvg();
+    oi.totalWindowsProcessed = os.totalWindowsProcessed.get();
+    oi.minEndWindowLatency = os.minEndWindowLatency.get();
+    oi.maxEndWindowLatency = os.maxEndWindowLatency.get();
+    oi.endWindowLatencyMA = os.endWindowLatencyMA.getAvg();
     oi.failureCount = operator.failureCount;
     oi.recoveryWindowId = toWsWindowId(operator.getRecoveryCheckpoint().windowId);
     oi.currentWindowId = toWsWindowId(os.currentWindowId.get());
@@ -2575,6 +2682,7 @@ public class StreamingContainerManager implements PlanContext
       pinfo.totalTuples = ps.totalTuples;
       pinfo.tuplesPSMA = Math.round(ps.tuplesPMSMA.getAvg() * 1000);
       pinfo.bufferServerBytesPSMA = Math.round(ps.bufferServerBytesPMSMA.getAvg() * 1000);
+      pinfo.bufferServerCompressionRatio = getCompressionRatio(ps);
       pinfo.queueSizeMA = ps.queueSizeMA.getAvg();
       pinfo.recordingId = ps.recordingId;
       oi.addPort(pinfo);
@@ -2586,6 +2694,7 @@ public class StreamingContainerManager implements PlanContext
       pinfo.totalTuples = ps.totalTuples;
       pinfo.tuplesPSMA = Math.round(ps.tuplesPMSMA.getAvg() * 1000);
       pinfo.bufferServerBytesPSMA = Math.round(ps.bufferServerBytesPMSMA.getAvg() * 1000);
+      pinfo.bufferServerCompressionRatio = getCompressionRatio(ps);
       pinfo.recordingId = ps.recordingId;
       oi.addPort(pinfo);
     }
@@ -2597,6 +2706,17 @@ public class StreamingContainerManager implements PlanContext
     return oi;
   }
 
+  /**
+   * Returns the ratio of the bytes the port would have exchanged with the buffer server without compression to the
+   * bytes it actually exchanged, 1 if the stream is not compressed or did not carry any data.
+   */
+  private static double getCompressionRatio(PortStatus ps)
+  {
+    double bytes = ps.bufferServerBytesPMSMA.getAvg();
+    double uncompressedBytes = ps.bufferServerUncompressedBytesPMSMA.getAvg();
+    return bytes > 0 && uncompressedBytes > bytes ? uncompressedBytes / bytes : 1;
+  }
+
   private LogicalOperatorInfo fillLogicalOperatorInfo(OperatorMeta operator)
   {
     LogicalOperatorInfo loi = new LogicalOperatorInfo();
@@ -2874,7 +2994,7 @@ public class StreamingContainerManager implements PlanContext
       throw new IllegalArgumentException("Unknown operator " + operatorName);
     }
 
-    writeJournal(new SetOperatorProperty(operatorName, propertyName, propertyValue));
+    writeJournal(new SetOperatorProperty(operatorName, propertyName, propertyValue), true);
 
     setOperatorProperty(logicalOperator, propertyName, propertyValue);
   }
@@ -2912,7 +3032,7 @@ public class StreamingContainerManager implements PlanContext
     if (o == null) {
       return;
     }
-    writeJournal(new SetPhysicalOperatorProperty(operatorId, propertyName, propertyValue));
+    writeJournal(new SetPhysicalOperatorProperty(operatorId, propertyName, propertyValue), true);
     setPhysicalOperatorProperty(o, propertyName, propertyValue);
   }
 
@@ -3114,10 +3234,22 @@ public class StreamingContainerManager implements PlanContext
 
   @Override
   public void writeJournal(Recoverable operation)
+  {
+    writeJournal(operation, false);
+  }
+
+  /**
+   * @param operation the operation
+   * @param durable whether to wait for the operation to be flushed to the log
+   */
+  private void writeJournal(Recoverable operation, boolean durable)
   {
     try {
       if (journal != null) {
-        journal.write(operation);
+        Future<Void> future = journal.write(operation);
+        if (durable) {
+          future.get();
+        }
       }
     } catch (Exception e) {
       throw new IllegalStateException("Failed to write to journal " + operation, e);
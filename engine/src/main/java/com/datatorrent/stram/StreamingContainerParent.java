@@ -227,7 +227,7 @@ public class StreamingContainerParent extends org.apache.hadoop.service.Composit
     //LOG.debug("RPC latency from child container {} is {} ms (according to system clocks)", msg.getContainerId(),
     // now - msg.sentTms);
     dagManager.updateRPCLatency(msg.getContainerId(), now - msg.sentTms);
-    return SecureExecutor.execute(new SecureExecutor.WorkLoad<ContainerHeartbeatResponse>()
+    ContainerHeartbeatResponse rsp = SecureExecutor.execute(new SecureExecutor.WorkLoad<ContainerHeartbeatResponse>()
     {
       @Override
       public ContainerHeartbeatResponse run()
@@ -235,6 +235,11 @@ public class StreamingContainerParent extends org.apache.hadoop.service.Composit
         return dagManager.processHeartbeat(msg);
       }
     });
+    if (rsp != null) {
+      // respond in the encoding the container understands
+      rsp.setBinaryEncoding(msg.isBinaryEncoding());
+    }
+    return rsp;
   }
 
 }
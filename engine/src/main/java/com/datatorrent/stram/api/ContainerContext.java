@@ -31,6 +31,7 @@ public interface ContainerContext extends Context
 {
   Attribute<String> IDENTIFIER = new Attribute<>("unknown_container_id");
   Attribute<Integer> BUFFER_SERVER_MB = new Attribute<>(8 * 64);
+  Attribute<Integer> VCORES = new Attribute<>(0);
   Attribute<byte[]> BUFFER_SERVER_TOKEN = new Attribute<>(null, null);
   Attribute<RequestFactory> REQUEST_FACTORY = new Attribute<>(null, null);
   @SuppressWarnings("FieldNameHidesFieldInSuperclass")
@@ -0,0 +1,623 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package com.datatorrent.stram.api;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.hadoop.io.WritableUtils;
+
+import com.datatorrent.api.Stats;
+import com.datatorrent.api.Stats.OperatorStats.PortStats;
+import com.datatorrent.api.StatsListener;
+import com.datatorrent.common.metric.AutoMetricValues;
+import com.datatorrent.stram.api.StreamingContainerUmbilicalProtocol.ContainerHeartbeat;
+import com.datatorrent.stram.api.StreamingContainerUmbilicalProtocol.ContainerHeartbeatResponse;
+import com.datatorrent.stram.api.StreamingContainerUmbilicalProtocol.ContainerStats;
+import com.datatorrent.stram.api.StreamingContainerUmbilicalProtocol.OperatorHeartbeat;
+import com.datatorrent.stram.api.StreamingContainerUmbilicalProtocol.ShutdownType;
+import com.datatorrent.stram.api.StreamingContainerUmbilicalProtocol.StramToNodeRequest;
+
+/**
+ * Compact binary encoding of the heartbeat of a container and of the response of the master to it.
+ * <p/>
+ * The Java serialization of {@link com.datatorrent.stram.util.AbstractWritableAdapter} writes the class descriptors
+ * of the whole object graph and boxes every number of every window of every operator. This encoding writes the fields
+ * of the heartbeat in a fixed order instead, numbers as variable length integers, and every window relative to the
+ * window before it in the same heartbeat: the window id and the timestamps as differences, the port names, the
+ * checkpoint and the names and types of the {@link com.datatorrent.api.AutoMetric}s only when they changed. Objects
+ * that the engine does not know, such as custom counters or the requests of {@link StatsListener}s, are still written
+ * with Java serialization.
+ * <p/>
+ * An encoded message starts with {@link #MARKER}, which the Java serialization never starts with since it starts
+ * with the length of the serialized data, followed by the {@link #VERSION} of the encoding. A field added to any of
+ * the encoded classes requires a new version.
+ *
+ * @since 4.0.0
+ */
+final class HeartbeatCodec
+{
+  static final int MARKER = -1;
+  static final byte VERSION = 3;
+
+  private static final int CHECKPOINT = 1;
+  private static final int CHECKPOINT_SAME = 1 << 1;
+  private static final int CHECKPOINT_OTHER = 1 << 2;
+  private static final int INPUT_PORTS = 1 << 3;
+  private static final int INPUT_PORTS_SAME = 1 << 4;
+  private static final int OUTPUT_PORTS = 1 << 5;
+  private static final int OUTPUT_PORTS_SAME = 1 << 6;
+  private static final int CHECKPOINT_STATS = 1 << 7;
+  private static final int IDLE_STATS = 1 << 8;
+  private static final int COUNTERS = 1 << 9;
+  private static final int METRIC_VALUES = 1 << 10;
+  private static final int METRIC_VALUES_SAME = 1 << 11;
+  private static final int METRIC_MAP = 1 << 12;
+  private static final int RECORDING = 1 << 13;
+
+  private static final byte OBJECT_NULL = 0;
+  private static final byte OBJECT_STRING = 1;
+  private static final byte OBJECT_INTEGER = 2;
+  private static final byte OBJECT_LONG = 3;
+  private static final byte OBJECT_DOUBLE = 4;
+  private static final byte OBJECT_BOOLEAN = 5;
+  private static final byte OBJECT_SERIALIZED = 6;
+
+  private HeartbeatCodec()
+  {
+  }
+
+  static void write(ContainerHeartbeat heartbeat, DataOutput out) throws IOException
+  {
+    out.writeInt(MARKER);
+    out.writeByte(VERSION);
+    out.writeBoolean(heartbeat.restartRequested);
+    writeString(out, heartbeat.bufferServerHost);
+    WritableUtils.writeVInt(out, heartbeat.bufferServerPort);
+    writeString(out, heartbeat.jvmName);
+    WritableUtils.writeVInt(out, heartbeat.memoryMBFree);
+    WritableUtils.writeVLong(out, heartbeat.gcCollectionTime);
+    WritableUtils.writeVLong(out, heartbeat.gcCollectionCount);
+    WritableUtils.writeVLong(out, heartbeat.sentTms);
+    writeString(out, heartbeat.stackTrace);
+
+    ContainerStats stats = heartbeat.stats;
+    out.writeBoolean(stats != null);
+    if (stats != null) {
+      writeString(out, stats.id);
+      new StatsWriter(out, heartbeat.sentTms).write(stats.operators);
+    }
+  }
+
+  static void read(ContainerHeartbeat heartbeat, DataInput in) throws IOException
+  {
+    readVersion(in);
+    heartbeat.restartRequested = in.readBoolean();
+    heartbeat.bufferServerHost = readString(in);
+    heartbeat.bufferServerPort = WritableUtils.readVInt(in);
+    heartbeat.jvmName = readString(in);
+    heartbeat.memoryMBFree = WritableUtils.readVInt(in);
+    heartbeat.gcCollectionTime = WritableUtils.readVLong(in);
+    heartbeat.gcCollectionCount = WritableUtils.readVLong(in);
+    heartbeat.sentTms = WritableUtils.readVLong(in);
+    heartbeat.stackTrace = readString(in);
+
+    if (in.readBoolean()) {
+      ContainerStats stats = new ContainerStats(readString(in));
+      new StatsReader(in, heartbeat.sentTms).read(stats.operators);
+      heartbeat.stats = stats;
+    } else {
+      heartbeat.stats = null;
+    }
+  }
+
+  static void write(ContainerHeartbeatResponse response, DataOutput out) throws IOException
+  {
+    out.writeInt(MARKER);
+    out.writeByte(VERSION);
+    out.writeByte(response.shutdown == null ? -1 : response.shutdown.ordinal());
+    out.writeBoolean(response.hasPendingRequests);
+    out.writeBoolean(response.stackTraceRequired);
+    WritableUtils.writeVLong(out, response.committedWindowId);
+    if (response.undeployRequest == null) {
+      WritableUtils.writeVInt(out, -1);
+    } else {
+      WritableUtils.writeVInt(out, response.undeployRequest.size());
+      for (Integer operatorId : response.undeployRequest) {
+        WritableUtils.writeVInt(out, operatorId);
+      }
+    }
+    writeObject(out, response.nodeRequests);
+    writeObject(out, response.deployRequest);
+  }
+
+  @SuppressWarnings("unchecked")
+  static void read(ContainerHeartbeatResponse response, DataInput in) throws IOException
+  {
+    readVersion(in);
+    byte shutdown = in.readByte();
+    response.shutdown = shutdown < 0 ? null : ShutdownType.values()[shutdown];
+    response.hasPendingRequests = in.readBoolean();
+    response.stackTraceRequired = in.readBoolean();
+    response.committedWindowId = WritableUtils.readVLong(in);
+    int undeployCount = WritableUtils.readVInt(in);
+    if (undeployCount < 0) {
+      response.undeployRequest = null;
+    } else {
+      response.undeployRequest = new ArrayList<>(undeployCount);
+      for (int i = 0; i < undeployCount; i++) {
+        response.undeployRequest.add(WritableUtils.readVInt(in));
+      }
+    }
+    response.nodeRequests = (List<StramToNodeRequest>)readObject(in);
+    response.deployRequest = (List<OperatorDeployInfo>)readObject(in);
+  }
+
+  private static void readVersion(DataInput in) throws IOException
+  {
+    byte version = in.readByte();
+    if (version != VERSION) {
+      throw new IOException("Unsupported heartbeat encoding version " + version + ", expected " + VERSION);
+    }
+  }
+
+  private static void writeString(DataOutput out, String value) throws IOException
+  {
+    if (value == null) {
+      WritableUtils.writeVInt(out, -1);
+    } else {
+      byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+      WritableUtils.writeVInt(out, bytes.length);
+      out.write(bytes);
+    }
+  }
+
+  private static String readString(DataInput in) throws IOException
+  {
+    int length = WritableUtils.readVInt(in);
+    if (length < 0) {
+      return null;
+    }
+    byte[] bytes = new byte[length];
+    in.readFully(bytes);
+    return new String(bytes, StandardCharsets.UTF_8);
+  }
+
+  private static void writeObject(DataOutput out, Object value) throws IOException
+  {
+    if (value == null) {
+      out.writeByte(OBJECT_NULL);
+    } else if (value instanceof String) {
+      out.writeByte(OBJECT_STRING);
+      writeString(out, (String)value);
+    } else if (value instanceof Integer) {
+      out.writeByte(OBJECT_INTEGER);
+      WritableUtils.writeVInt(out, (Integer)value);
+    } else if (value instanceof Long) {
+      out.writeByte(OBJECT_LONG);
+      WritableUtils.writeVLong(out, (Long)value);
+    } else if (value instanceof Double) {
+      out.writeByte(OBJECT_DOUBLE);
+      out.writeDouble((Double)value);
+    } else if (value instanceof Boolean) {
+      out.writeByte(OBJECT_BOOLEAN);
+      out.writeBoolean((Boolean)value);
+    } else {
+      out.writeByte(OBJECT_SERIALIZED);
+      ByteArrayOutputStream bos = new ByteArrayOutputStream();
+      try (ObjectOutputStream oos = new ObjectOutputStream(bos)) {
+        oos.writeObject(value);
+      }
+      byte[] bytes = bos.toByteArray();
+      WritableUtils.writeVInt(out, bytes.length);
+      out.write(bytes);
+    }
+  }
+
+  private static Object readObject(DataInput in) throws IOException
+  {
+    byte tag = in.readByte();
+    switch (tag) {
+      case OBJECT_NULL:
+        return null;
+      case OBJECT_STRING:
+        return readString(in);
+      case OBJECT_INTEGER:
+        return WritableUtils.readVInt(in);
+      case OBJECT_LONG:
+        return WritableUtils.readVLong(in);
+      case OBJECT_DOUBLE:
+        return in.readDouble();
+      case OBJECT_BOOLEAN:
+        return in.readBoolean();
+      case OBJECT_SERIALIZED:
+        byte[] bytes = new byte[WritableUtils.readVInt(in)];
+        in.readFully(bytes);
+        try (ObjectInputStream ois = new ObjectInputStream(new ByteArrayInputStream(bytes))) {
+          return ois.readObject();
+        } catch (ClassNotFoundException e) {
+          throw new IOException(e);
+        }
+      default:
+        throw new IOException("Unknown object tag " + tag);
+    }
+  }
+
+  /**
+   * Writes the stats of the operators, each window relative to the window written before it.
+   */
+  private static class StatsWriter
+  {
+    private final DataOutput out;
+    private long windowId;
+    private long timestamp;
+    private Stats.Checkpoint checkpoint;
+    private List<PortStats> inputPorts;
+    private List<PortStats> outputPorts;
+    private AutoMetricValues.Schema schema;
+
+    StatsWriter(DataOutput out, long timestamp)
+    {
+      this.out = out;
+      this.timestamp = timestamp;
+    }
+
+    void write(List<OperatorHeartbeat> operators) throws IOException
+    {
+      WritableUtils.writeVInt(out, operators.size());
+      for (OperatorHeartbeat operator : operators) {
+        WritableUtils.writeVInt(out, operator.nodeId);
+        WritableUtils.writeVLong(out, operator.generatedTms - timestamp);
+        WritableUtils.writeVLong(out, operator.intervalMs);
+        out.writeByte(operator.state == null ? -1 : operator.state.ordinal());
+        writeObject(out, operator.requestResponse);
+
+        inputPorts = null;
+        outputPorts = null;
+        WritableUtils.writeVInt(out, operator.windowStats.size());
+        for (ContainerStats.OperatorStats stats : operator.windowStats) {
+          write(stats);
+        }
+      }
+    }
+
+    private void write(Stats.OperatorStats stats) throws IOException
+    {
+      int flags = 0;
+      if (stats.checkpoint != null) {
+        if (stats.checkpoint.equals(checkpoint)) {
+          flags |= CHECKPOINT_SAME;
+        } else {
+          flags |= stats.checkpoint.getClass() == Checkpoint.class ? CHECKPOINT : CHECKPOINT_OTHER;
+        }
+      }
+      if (stats.inputPorts != null) {
+        flags |= samePorts(stats.inputPorts, inputPorts) ? INPUT_PORTS_SAME : INPUT_PORTS;
+      }
+      if (stats.outputPorts != null) {
+        flags |= samePorts(stats.outputPorts, outputPorts) ? OUTPUT_PORTS_SAME : OUTPUT_PORTS;
+      }
+      if (stats.checkpointStats != null) {
+        flags |= CHECKPOINT_STATS;
+      }
+      if (stats.idleStats != null) {
+        flags |= IDLE_STATS;
+      }
+      if (stats.counters != null) {
+        flags |= COUNTERS;
+      }
+      if (stats.metrics instanceof AutoMetricValues) {
+        flags |= ((AutoMetricValues)stats.metrics).getSchema() == schema ? METRIC_VALUES_SAME : METRIC_VALUES;
+      } else if (stats.metrics != null) {
+        flags |= METRIC_MAP;
+      }
+      if (stats.recordingId != null) {
+        flags |= RECORDING;
+      }
+      WritableUtils.writeVInt(out, flags);
+
+      WritableUtils.writeVLong(out, stats.windowId - windowId);
+      windowId = stats.windowId;
+      WritableUtils.writeVLong(out, stats.cpuTimeUsed);
+      WritableUtils.writeVInt(out, stats.windowCount);
+      WritableUtils.writeVLong(out, stats.minEndWindowLatency);
+      WritableUtils.writeVLong(out, stats.maxEndWindowLatency);
+      WritableUtils.writeVLong(out, stats.totalEndWindowLatency);
+
+      if ((flags & CHECKPOINT) != 0) {
+        Checkpoint checkpoint = (Checkpoint)stats.checkpoint;
+        WritableUtils.writeVLong(out, checkpoint.windowId);
+        WritableUtils.writeVInt(out, checkpoint.applicationWindowCount);
+        WritableUtils.writeVInt(out, checkpoint.checkpointWindowCount);
+      } else if ((flags & CHECKPOINT_OTHER) != 0) {
+        writeObject(out, stats.checkpoint);
+      }
+      if (stats.checkpoint != null) {
+        checkpoint = stats.checkpoint;
+      }
+
+      if (stats.inputPorts != null) {
+        write(stats.inputPorts, (flags & INPUT_PORTS_SAME) != 0);
+        inputPorts = stats.inputPorts;
+      }
+      if (stats.outputPorts != null) {
+        write(stats.outputPorts, (flags & OUTPUT_PORTS_SAME) != 0);
+        outputPorts = stats.outputPorts;
+      }
+
+      if (stats.checkpointStats != null) {
+        Stats.CheckpointStats checkpointStats = stats.checkpointStats;
+        WritableUtils.writeVLong(out, checkpointStats.checkpointStartTime - timestamp);
+        WritableUtils.writeVLong(out, checkpointStats.checkpointTime);
+        WritableUtils.writeVLong(out, checkpointStats.checkpointBytes);
+        WritableUtils.writeVLong(out, checkpointStats.spillBytes);
+        WritableUtils.writeVLong(out, checkpointStats.uploadBytesPerSecond);
+      }
+      if (stats.idleStats != null) {
+        Stats.IdleStats idleStats = stats.idleStats;
+        WritableUtils.writeVLong(out, idleStats.spinTime);
+        WritableUtils.writeVLong(out, idleStats.yieldTime);
+        WritableUtils.writeVLong(out, idleStats.parkTime);
+        WritableUtils.writeVLong(out, idleStats.idleCount);
+      }
+      if (stats.counters != null) {
+        writeObject(out, stats.counters);
+      }
+
+      if (stats.metrics instanceof AutoMetricValues) {
+        AutoMetricValues values = (AutoMetricValues)stats.metrics;
+        if (values.getSchema() != schema) {
+          schema = values.getSchema();
+          WritableUtils.writeVInt(out, schema.size());
+          for (int i = 0; i < schema.size(); i++) {
+            writeString(out, schema.getName(i));
+            out.writeByte(schema.getType(i));
+          }
+        }
+        for (int i = 0; i < values.size(); i++) {
+          if (values.isLong(i)) {
+            WritableUtils.writeVLong(out, values.getLong(i));
+          } else if (values.isDouble(i)) {
+            out.writeDouble(values.getDouble(i));
+          } else {
+            writeObject(out, values.getObject(i));
+          }
+        }
+      } else if (stats.metrics != null) {
+        WritableUtils.writeVInt(out, stats.metrics.size());
+        for (Map.Entry<String, Object> entry : stats.metrics.entrySet()) {
+          writeString(out, entry.getKey());
+          writeObject(out, entry.getValue());
+        }
+      }
+
+      if (stats.recordingId != null) {
+        writeString(out, stats.recordingId);
+      }
+    }
+
+    private void write(List<PortStats> ports, boolean same) throws IOException
+    {
+      if (!same) {
+        WritableUtils.writeVInt(out, ports.size());
+        for (PortStats port : ports) {
+          writeString(out, port.id);
+        }
+      }
+      for (PortStats port : ports) {
+        WritableUtils.writeVInt(out, port.tupleCount);
+        WritableUtils.writeVLong(out, port.endWindowTimestamp - timestamp);
+        timestamp = port.endWindowTimestamp;
+        WritableUtils.writeVLong(out, port.bufferServerBytes);
+        /* the bytes saved by compression, zero for the uncompressed streams */
+        WritableUtils.writeVLong(out, port.bufferServerUncompressedBytes - port.bufferServerBytes);
+        WritableUtils.writeVInt(out, port.queueSize);
+        writeString(out, port.recordingId);
+      }
+    }
+
+    private static boolean samePorts(List<PortStats> ports, List<PortStats> previous)
+    {
+      if (previous == null || ports.size() != previous.size()) {
+        return false;
+      }
+      for (int i = 0; i < ports.size(); i++) {
+        if (!ports.get(i).id.equals(previous.get(i).id)) {
+          return false;
+        }
+      }
+      return true;
+    }
+  }
+
+  /**
+   * Reads what {@link StatsWriter} wrote.
+   */
+  private static class StatsReader
+  {
+    private final DataInput in;
+    private long windowId;
+    private long timestamp;
+    private Stats.Checkpoint checkpoint;
+    private String[] inputPorts;
+    private String[] outputPorts;
+    private AutoMetricValues.Schema schema;
+
+    StatsReader(DataInput in, long timestamp)
+    {
+      this.in = in;
+      this.timestamp = timestamp;
+    }
+
+    @SuppressWarnings("unchecked")
+    void read(List<OperatorHeartbeat> operators) throws IOException
+    {
+      int operatorCount = WritableUtils.readVInt(in);
+      for (int i = 0; i < operatorCount; i++) {
+        OperatorHeartbeat operator = new OperatorHeartbeat();
+        operator.nodeId = WritableUtils.readVInt(in);
+        operator.generatedTms = timestamp + WritableUtils.readVLong(in);
+        operator.intervalMs = WritableUtils.readVLong(in);
+        byte state = in.readByte();
+        operator.state = state < 0 ? null : OperatorHeartbeat.DeployState.values()[state];
+        operator.requestResponse = (ArrayList<StatsListener.OperatorResponse>)readObject(in);
+
+        inputPorts = null;
+        outputPorts = null;
+        int windowCount = WritableUtils.readVInt(in);
+        operator.windowStats.ensureCapacity(windowCount);
+        for (int j = 0; j < windowCount; j++) {
+          operator.windowStats.add(read());
+        }
+        operators.add(operator);
+      }
+    }
+
+    @SuppressWarnings("unchecked")
+    private ContainerStats.OperatorStats read() throws IOException
+    {
+      ContainerStats.OperatorStats stats = new ContainerStats.OperatorStats();
+      int flags = WritableUtils.readVInt(in);
+
+      windowId += WritableUtils.readVLong(in);
+      stats.windowId = windowId;
+      stats.cpuTimeUsed = WritableUtils.readVLong(in);
+      stats.windowCount = WritableUtils.readVInt(in);
+      stats.minEndWindowLatency = WritableUtils.readVLong(in);
+      stats.maxEndWindowLatency = WritableUtils.readVLong(in);
+      stats.totalEndWindowLatency = WritableUtils.readVLong(in);
+
+      if ((flags & CHECKPOINT) != 0) {
+        checkpoint = new Checkpoint(WritableUtils.readVLong(in), WritableUtils.readVInt(in),
+            WritableUtils.readVInt(in));
+      } else if ((flags & CHECKPOINT_OTHER) != 0) {
+        checkpoint = (Stats.Checkpoint)readObject(in);
+      }
+      if ((flags & (CHECKPOINT | CHECKPOINT_SAME | CHECKPOINT_OTHER)) != 0) {
+        stats.checkpoint = checkpoint;
+      }
+
+      if ((flags & (INPUT_PORTS | INPUT_PORTS_SAME)) != 0) {
+        if ((flags & INPUT_PORTS) != 0) {
+          inputPorts = readPortIds();
+        }
+        stats.inputPorts = readPorts(inputPorts);
+      }
+      if ((flags & (OUTPUT_PORTS | OUTPUT_PORTS_SAME)) != 0) {
+        if ((flags & OUTPUT_PORTS) != 0) {
+          outputPorts = readPortIds();
+        }
+        stats.outputPorts = readPorts(outputPorts);
+      }
+
+      if ((flags & CHECKPOINT_STATS) != 0) {
+        Stats.CheckpointStats checkpointStats = new Stats.CheckpointStats();
+        checkpointStats.checkpointStartTime = timestamp + WritableUtils.readVLong(in);
+        checkpointStats.checkpointTime = WritableUtils.readVLong(in);
+        checkpointStats.checkpointBytes = WritableUtils.readVLong(in);
+        checkpointStats.spillBytes = WritableUtils.readVLong(in);
+        checkpointStats.uploadBytesPerSecond = WritableUtils.readVLong(in);
+        stats.checkpointStats = checkpointStats;
+      }
+      if ((flags & IDLE_STATS) != 0) {
+        Stats.IdleStats idleStats = new Stats.IdleStats();
+        idleStats.spinTime = WritableUtils.readVLong(in);
+        idleStats.yieldTime = WritableUtils.readVLong(in);
+        idleStats.parkTime = WritableUtils.readVLong(in);
+        idleStats.idleCount = WritableUtils.readVLong(in);
+        stats.idleStats = idleStats;
+      }
+      if ((flags & COUNTERS) != 0) {
+        stats.counters = readObject(in);
+      }
+
+      if ((flags & (METRIC_VALUES | METRIC_VALUES_SAME)) != 0) {
+        if ((flags & METRIC_VALUES) != 0) {
+          int size = WritableUtils.readVInt(in);
+          String[] names = new String[size];
+          byte[] types = new byte[size];
+          for (int i = 0; i < size; i++) {
+            names[i] = readString(in);
+            types[i] = in.readByte();
+          }
+          schema = new AutoMetricValues.Schema(names, types);
+        }
+        AutoMetricValues values = new AutoMetricValues(schema);
+        for (int i = 0; i < values.size(); i++) {
+          if (values.isLong(i)) {
+            values.setLong(i, WritableUtils.readVLong(in));
+          } else if (values.isDouble(i)) {
+            values.setDouble(i, in.readDouble());
+          } else {
+            values.setObject(i, readObject(in));
+          }
+        }
+        stats.metrics = values;
+      } else if ((flags & METRIC_MAP) != 0) {
+        int size = WritableUtils.readVInt(in);
+        Map<String, Object> metrics = new HashMap<>(size * 2);
+        for (int i = 0; i < size; i++) {
+          metrics.put(readString(in), readObject(in));
+        }
+        stats.metrics = metrics;
+      }
+
+      if ((flags & RECORDING) != 0) {
+        stats.recordingId = readString(in);
+      }
+      return stats;
+    }
+
+    private String[] readPortIds() throws IOException
+    {
+      String[] ids = new String[WritableUtils.readVInt(in)];
+      for (int i = 0; i < ids.length; i++) {
+        ids[i] = readString(in);
+      }
+      return ids;
+    }
+
+    private ArrayList<PortStats> readPorts(String[] ids) throws IOException
+    {
+      ArrayList<PortStats> ports = new ArrayList<>(ids.length);
+      for (String id : ids) {
+        PortStats port = new PortStats(id);
+        port.tupleCount = WritableUtils.readVInt(in);
+        port.endWindowTimestamp = timestamp + WritableUtils.readVLong(in);
+        timestamp = port.endWindowTimestamp;
+        port.bufferServerBytes = WritableUtils.readVLong(in);
+        port.bufferServerUncompressedBytes = port.bufferServerBytes + WritableUtils.readVLong(in);
+        port.queueSize = WritableUtils.readVInt(in);
+        port.recordingId = readString(in);
+        ports.add(port);
+      }
+      return ports;
+    }
+  }
+}
@@ -18,6 +18,8 @@
  */
 package com.datatorrent.stram.api;
 
+import java.io.DataInput;
+import java.io.DataOutput;
 import java.io.IOException;
 import java.io.Serializable;
 import java.util.ArrayList;
@@ -256,6 +258,43 @@ public interface StreamingContainerUmbilicalProtocol extends VersionedProtocol
     }
 
     public String stackTrace;
+
+    /**
+     * Whether the heartbeat is written with the {@link HeartbeatCodec} rather than with Java serialization.
+     */
+    private transient boolean binaryEncoding;
+
+    public boolean isBinaryEncoding()
+    {
+      return binaryEncoding;
+    }
+
+    public void setBinaryEncoding(boolean binaryEncoding)
+    {
+      this.binaryEncoding = binaryEncoding;
+    }
+
+    @Override
+    public void write(DataOutput out) throws IOException
+    {
+      if (binaryEncoding) {
+        HeartbeatCodec.write(this, out);
+      } else {
+        super.write(out);
+      }
+    }
+
+    @Override
+    public void readFields(DataInput in) throws IOException
+    {
+      int len = in.readInt();
+      binaryEncoding = len == HeartbeatCodec.MARKER;
+      if (binaryEncoding) {
+        HeartbeatCodec.read(this, in);
+      } else {
+        readFields(in, len);
+      }
+    }
   }
 
   /**
@@ -403,6 +442,44 @@ public interface StreamingContainerUmbilicalProtocol extends VersionedProtocol
     public long committedWindowId = -1;
 
     public boolean stackTraceRequired = false;
+
+    /**
+     * Whether the response is written with the {@link HeartbeatCodec} rather than with Java serialization. The master
+     * responds in the encoding of the heartbeat.
+     */
+    private transient boolean binaryEncoding;
+
+    public boolean isBinaryEncoding()
+    {
+      return binaryEncoding;
+    }
+
+    public void setBinaryEncoding(boolean binaryEncoding)
+    {
+      this.binaryEncoding = binaryEncoding;
+    }
+
+    @Override
+    public void write(DataOutput out) throws IOException
+    {
+      if (binaryEncoding) {
+        HeartbeatCodec.write(this, out);
+      } else {
+        super.write(out);
+      }
+    }
+
+    @Override
+    public void readFields(DataInput in) throws IOException
+    {
+      int len = in.readInt();
+      binaryEncoding = len == HeartbeatCodec.MARKER;
+      if (binaryEncoding) {
+        HeartbeatCodec.read(this, in);
+      } else {
+        readFields(in, len);
+      }
+    }
   }
 
   /**
@@ -18,7 +18,9 @@
  */
 package com.datatorrent.stram.debug;
 
+import com.datatorrent.api.BatchSink;
 import com.datatorrent.api.Sink;
+import com.datatorrent.stram.engine.NotifyingReservoir;
 import com.datatorrent.stram.engine.SweepableReservoir;
 import com.datatorrent.stram.tuple.Tuple;
 
@@ -27,7 +29,7 @@ import com.datatorrent.stram.tuple.Tuple;
  *
  * @since 0.3.2
  */
-public class TappedReservoir extends MuxSink implements SweepableReservoir
+public class TappedReservoir extends MuxSink implements NotifyingReservoir, BatchSink<Object>
 {
   public final SweepableReservoir reservoir;
   private Sink<Object> sink;
@@ -74,6 +76,12 @@ public class TappedReservoir extends MuxSink implements SweepableReservoir
     return reservoir.isEmpty();
   }
 
+  @Override
+  public boolean setListener(Runnable listener)
+  {
+    return reservoir instanceof NotifyingReservoir && ((NotifyingReservoir)reservoir).setListener(listener);
+  }
+
   @Override
   public void put(Object tuple)
   {
@@ -81,6 +89,23 @@ public class TappedReservoir extends MuxSink implements SweepableReservoir
     sink.put(tuple);
   }
 
+  @Override
+  @SuppressWarnings("unchecked")
+  public void putBatch(Object[] tuples, int offset, int length)
+  {
+    for (int i = offset, end = offset + length; i < end; i++) {
+      super.put(tuples[i]);
+    }
+
+    if (sink instanceof BatchSink) {
+      ((BatchSink<Object>)sink).putBatch(tuples, offset, length);
+    } else {
+      for (int i = offset, end = offset + length; i < end; i++) {
+        sink.put(tuples[i]);
+      }
+    }
+  }
+
   @Override
   public Object remove()
   {
@@ -23,6 +23,8 @@ import java.util.Collection;
 import java.util.Iterator;
 import java.util.concurrent.ArrayBlockingQueue;
 import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.locks.Condition;
 import java.util.concurrent.locks.ReentrantLock;
@@ -47,7 +49,7 @@ import static java.lang.Thread.sleep;
  *
  * @since 3.4.0
  */
-public abstract class AbstractReservoir implements SweepableReservoir, BlockingQueue<Object>
+public abstract class AbstractReservoir implements NotifyingReservoir, BlockingQueue<Object>
 {
   private static final Logger logger = LoggerFactory.getLogger(AbstractReservoir.class);
   static final String reservoirClassNameProperty = "com.datatorrent.stram.engine.Reservoir";
@@ -89,8 +91,10 @@ public abstract class AbstractReservoir implements SweepableReservoir, BlockingQ
   }
 
   private Sink<Object> sink;
+  private TupleBatch batch;
   private String id;
   protected int count;
+  private volatile Runnable listener;
 
   protected AbstractReservoir(final String id)
   {
@@ -107,6 +111,7 @@ public abstract class AbstractReservoir implements SweepableReservoir, BlockingQ
       return this.sink;
     } finally {
       this.sink = sink;
+      batch = TupleBatch.newInstance(sink);
     }
   }
 
@@ -151,6 +156,65 @@ public abstract class AbstractReservoir implements SweepableReservoir, BlockingQ
     return sink;
   }
 
+  /**
+   * @return the batch that collects the data tuples for the sink when it is a {@link com.datatorrent.api.BatchSink},
+   * null otherwise
+   */
+  protected TupleBatch getBatch()
+  {
+    return batch;
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public boolean setListener(Runnable listener)
+  {
+    this.listener = listener;
+    return true;
+  }
+
+  /**
+   * Runs the listener, if any, after tuples are added to the reservoir.
+   */
+  protected final void notifyListener()
+  {
+    final Runnable listener = this.listener;
+    if (listener != null) {
+      listener.run();
+    }
+  }
+
+  /**
+   * Waits for room in the reservoir when the producer runs on a {@link ForkJoinPool} such as the one of
+   * {@link NodeScheduler}. The pool is told about the wait, so that it can run the consumer on another thread.
+   *
+   * @param o the tuple to add once there is room for it
+   * @throws InterruptedException if interrupted while waiting
+   */
+  protected void managedPut(final Object o) throws InterruptedException
+  {
+    ForkJoinPool.managedBlock(new ForkJoinPool.ManagedBlocker()
+    {
+      long spinMillis = 0;
+
+      @Override
+      public boolean block() throws InterruptedException
+      {
+        sleep(spinMillis);
+        spinMillis = Math.min(10, spinMillis + 1);
+        return offer(o);
+      }
+
+      @Override
+      public boolean isReleasable()
+      {
+        return offer(o);
+      }
+    });
+  }
+
   @Override
   public String toString()
   {
@@ -179,6 +243,20 @@ public abstract class AbstractReservoir implements SweepableReservoir, BlockingQ
     {
       Object o;
       final SpscArrayQueue<Object> queue = this.queue;
+      final TupleBatch batch = getBatch();
+      if (batch != null) {
+        while ((o = queue.peek()) != null) {
+          if (o instanceof Tuple) {
+            batch.flush();
+            return (Tuple)o;
+          }
+          count++;
+          batch.add(queue.poll());
+        }
+        batch.flush();
+        return null;
+      }
+
       final Sink<Object> sink = getSink();
       while ((o = queue.peek()) != null) {
         if (o instanceof Tuple) {
@@ -193,7 +271,9 @@ public abstract class AbstractReservoir implements SweepableReservoir, BlockingQ
     @Override
     public boolean add(Object o)
     {
-      return queue.add(o);
+      final boolean added = queue.add(o);
+      notifyListener();
+      return added;
     }
 
     @Override
@@ -244,10 +324,17 @@ public abstract class AbstractReservoir implements SweepableReservoir, BlockingQ
     {
       long spinMillis = 0;
       final SpscArrayQueue<Object> queue = this.queue;
-      while (!queue.offer(o)) {
-        sleep(spinMillis);
-        spinMillis = Math.min(maxSpinMillis, spinMillis + 1);
+      if (!queue.offer(o)) {
+        if (ForkJoinTask.inForkJoinPool()) {
+          managedPut(o);
+        } else {
+          while (!queue.offer(o)) {
+            sleep(spinMillis);
+            spinMillis = Math.min(maxSpinMillis, spinMillis + 1);
+          }
+        }
       }
+      notifyListener();
     }
 
     @Override
@@ -403,6 +490,7 @@ public abstract class AbstractReservoir implements SweepableReservoir, BlockingQ
       final ReentrantLock lock = this.lock;
       final SpscArrayQueue<Object> queue = getQueue();
       final Sink<Object> sink = getSink();
+      final TupleBatch batch = getBatch();
       lock.lock();
       try {
         while ((o = queue.peek()) != null) {
@@ -410,7 +498,11 @@ public abstract class AbstractReservoir implements SweepableReservoir, BlockingQ
             return (Tuple)o;
           }
           count++;
-          sink.put(queue.poll());
+          if (batch == null) {
+            sink.put(queue.poll());
+          } else {
+            batch.add(queue.poll());
+          }
           notFull.signal();
           if (lock.hasQueuedThreads()) {
             return null;
@@ -418,6 +510,9 @@ public abstract class AbstractReservoir implements SweepableReservoir, BlockingQ
         }
         return null;
       } finally {
+        if (batch != null) {
+          batch.flush();
+        }
         lock.unlock();
       }
     }
@@ -427,16 +522,21 @@ public abstract class AbstractReservoir implements SweepableReservoir, BlockingQ
     {
       final SpscArrayQueue<Object> queue = getQueue();
       if (!queue.offer(o)) {
-        final ReentrantLock lock = this.lock;
-        lock.lockInterruptibly();
-        try {
-          while (!queue.offer(o)) {
-            notFull.await();
+        if (ForkJoinTask.inForkJoinPool()) {
+          managedPut(o);
+        } else {
+          final ReentrantLock lock = this.lock;
+          lock.lockInterruptibly();
+          try {
+            while (!queue.offer(o)) {
+              notFull.await();
+            }
+          } finally {
+            lock.unlock();
           }
-        } finally {
-          lock.unlock();
         }
       }
+      notifyListener();
     }
 
     @Override
@@ -479,6 +579,20 @@ public abstract class AbstractReservoir implements SweepableReservoir, BlockingQ
     {
       Object o;
       final ArrayBlockingQueue<Object> queue = this.queue;
+      final TupleBatch batch = getBatch();
+      if (batch != null) {
+        while ((o = queue.peek()) != null) {
+          if (o instanceof Tuple) {
+            batch.flush();
+            return (Tuple)o;
+          }
+          count++;
+          batch.add(queue.poll());
+        }
+        batch.flush();
+        return null;
+      }
+
       final Sink<Object> sink = getSink();
       while ((o = queue.peek()) != null) {
         if (o instanceof Tuple) {
@@ -493,7 +607,9 @@ public abstract class AbstractReservoir implements SweepableReservoir, BlockingQ
     @Override
     public boolean add(Object o)
     {
-      return queue.add(o);
+      final boolean added = queue.add(o);
+      notifyListener();
+      return added;
     }
 
     @Override
@@ -505,7 +621,14 @@ public abstract class AbstractReservoir implements SweepableReservoir, BlockingQ
     @Override
     public void put(Object o) throws InterruptedException
     {
-      queue.put(o);
+      if (!queue.offer(o)) {
+        if (ForkJoinTask.inForkJoinPool()) {
+          managedPut(o);
+        } else {
+          queue.put(o);
+        }
+      }
+      notifyListener();
     }
 
     @Override
@@ -680,8 +803,24 @@ public abstract class AbstractReservoir implements SweepableReservoir, BlockingQ
     public Tuple sweep()
     {
       final CircularBuffer<Object> circularBuffer = this.circularBuffer;
-      final Sink<Object> sink = getSink();
       final int size = circularBuffer.size();
+      final TupleBatch batch = getBatch();
+      if (batch != null) {
+        for (int i = 0; i < size; i++) {
+          if (circularBuffer.peekUnsafe() instanceof Tuple) {
+            count += i;
+            batch.flush();
+            return (Tuple)peekUnsafe();
+          }
+          batch.add(pollUnsafe());
+        }
+
+        count += size;
+        batch.flush();
+        return null;
+      }
+
+      final Sink<Object> sink = getSink();
       for (int i = 0; i < size; i++) {
         if (circularBuffer.peekUnsafe() instanceof Tuple) {
           count += i;
@@ -697,7 +836,9 @@ public abstract class AbstractReservoir implements SweepableReservoir, BlockingQ
     @Override
     public boolean add(Object o)
     {
-      return circularBuffer.add(o);
+      final boolean added = circularBuffer.add(o);
+      notifyListener();
+      return added;
     }
 
     @Override
@@ -748,7 +889,14 @@ public abstract class AbstractReservoir implements SweepableReservoir, BlockingQ
     @Override
     public void put(Object o) throws InterruptedException
     {
-      circularBuffer.put(o);
+      if (!circularBuffer.offer(o)) {
+        if (ForkJoinTask.inForkJoinPool()) {
+          managedPut(o);
+        } else {
+          circularBuffer.put(o);
+        }
+      }
+      notifyListener();
     }
 
     @Override
@@ -0,0 +1,204 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package com.datatorrent.stram.engine;
+
+import java.beans.IntrospectionException;
+import java.beans.Introspector;
+import java.beans.PropertyDescriptor;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.apache.hadoop.util.ReflectionUtils;
+
+import com.google.common.base.Throwables;
+
+import com.datatorrent.api.AutoMetric;
+import com.datatorrent.common.metric.AutoMetricValues;
+
+/**
+ * Reads the {@link AutoMetric}s of an operator into {@link AutoMetricValues}.
+ * <p/>
+ * The fields and the getters annotated with {@link AutoMetric} are looked up once, when the node is created, and
+ * turned into method handles that return the primitive metrics as longs and doubles, so that collecting the metrics
+ * at the end of an application window neither reflects on the operator nor boxes the primitive values. The layout of
+ * the values is shared by all the windows of the operator.
+ *
+ * @since 4.0.0
+ */
+class AutoMetricCollector
+{
+  private static final MethodType LONG_ACCESSOR = MethodType.methodType(long.class, Object.class);
+  private static final MethodType DOUBLE_ACCESSOR = MethodType.methodType(double.class, Object.class);
+  private static final MethodType OBJECT_ACCESSOR = MethodType.methodType(Object.class, Object.class);
+
+  private final AutoMetricValues.Schema schema;
+  private final MethodHandle[] accessors;
+  private final AutoMetricValues empty;
+  // the last selection of metrics, reused while the names do not change so that the windows share the schema
+  private Set<String> selectedNames;
+  private AutoMetricValues.Schema selected;
+  private int[] selectedIndexes;
+
+  AutoMetricCollector(Class<?> operatorClass)
+  {
+    final MethodHandles.Lookup lookup = MethodHandles.lookup();
+    final Map<String, Accessor> accessors = new LinkedHashMap<>();
+    try {
+      for (Field field : ReflectionUtils.getDeclaredFieldsIncludingInherited(operatorClass)) {
+        if (field.isAnnotationPresent(AutoMetric.class)) {
+          field.setAccessible(true);
+          MethodHandle handle = lookup.unreflectGetter(field);
+          if (Modifier.isStatic(field.getModifiers())) {
+            handle = MethodHandles.dropArguments(handle, 0, Object.class);
+          }
+          accessors.put(field.getName(), new Accessor(field.getType(), handle));
+        }
+      }
+
+      for (PropertyDescriptor pd : Introspector.getBeanInfo(operatorClass).getPropertyDescriptors()) {
+        Method readMethod = pd.getReadMethod();
+        if (readMethod != null && readMethod.getAnnotation(AutoMetric.class) != null) {
+          readMethod.setAccessible(true);
+          accessors.put(pd.getName(), new Accessor(readMethod.getReturnType(), lookup.unreflect(readMethod)));
+        }
+      }
+    } catch (IntrospectionException | IllegalAccessException e) {
+      throw new RuntimeException("introspecting " + operatorClass, e);
+    }
+
+    final String[] names = new String[accessors.size()];
+    final byte[] types = new byte[accessors.size()];
+    this.accessors = new MethodHandle[accessors.size()];
+    int i = 0;
+    for (Map.Entry<String, Accessor> entry : accessors.entrySet()) {
+      names[i] = entry.getKey();
+      types[i] = entry.getValue().type;
+      this.accessors[i++] = entry.getValue().handle;
+    }
+    schema = new AutoMetricValues.Schema(names, types);
+    empty = new AutoMetricValues(new AutoMetricValues.Schema(new String[0], new byte[0]));
+  }
+
+  /**
+   * @param operator the operator
+   * @return values of all the metrics of the operator
+   */
+  AutoMetricValues collect(Object operator)
+  {
+    return collect(operator, schema, null);
+  }
+
+  /**
+   * @param operator the operator
+   * @param names names of the metrics to collect
+   * @return values of the metrics of the operator that are among the given names
+   */
+  AutoMetricValues collect(Object operator, Collection<String> names)
+  {
+    if (selectedNames == null || selectedNames.size() != names.size() || !selectedNames.containsAll(names)) {
+      selected = schema.select(names);
+      if (selected == schema) {
+        selectedIndexes = null;
+      } else {
+        selectedIndexes = new int[selected.size()];
+        for (int i = 0; i < selectedIndexes.length; i++) {
+          selectedIndexes[i] = schema.indexOf(selected.getName(i));
+        }
+      }
+      selectedNames = new HashSet<>(names);
+    }
+    return collect(operator, selected, selectedIndexes);
+  }
+
+  private AutoMetricValues collect(final Object operator, AutoMetricValues.Schema schema, int[] indexes)
+  {
+    if (schema.size() == 0) {
+      return empty;
+    }
+
+    final AutoMetricValues values = new AutoMetricValues(schema);
+    try {
+      for (int i = 0; i < schema.size(); i++) {
+        final MethodHandle accessor = accessors[indexes == null ? i : indexes[i]];
+        if (values.isLong(i)) {
+          values.setLong(i, (long)accessor.invokeExact(operator));
+        } else if (values.isDouble(i)) {
+          values.setDouble(i, (double)accessor.invokeExact(operator));
+        } else {
+          values.setObject(i, (Object)accessor.invokeExact(operator));
+        }
+      }
+    } catch (Throwable t) {
+      throw Throwables.propagate(t);
+    }
+    return values;
+  }
+
+  private static class Accessor
+  {
+    final byte type;
+    final MethodHandle handle;
+
+    Accessor(Class<?> clazz, MethodHandle handle)
+    {
+      if (clazz == byte.class) {
+        type = AutoMetricValues.TYPE_BYTE;
+      } else if (clazz == short.class) {
+        type = AutoMetricValues.TYPE_SHORT;
+      } else if (clazz == int.class) {
+        type = AutoMetricValues.TYPE_INT;
+      } else if (clazz == long.class) {
+        type = AutoMetricValues.TYPE_LONG;
+      } else if (clazz == float.class) {
+        type = AutoMetricValues.TYPE_FLOAT;
+      } else if (clazz == double.class) {
+        type = AutoMetricValues.TYPE_DOUBLE;
+      } else {
+        type = AutoMetricValues.TYPE_OBJECT;
+      }
+
+      switch (type) {
+        case AutoMetricValues.TYPE_BYTE:
+        case AutoMetricValues.TYPE_SHORT:
+        case AutoMetricValues.TYPE_INT:
+        case AutoMetricValues.TYPE_LONG:
+          this.handle = handle.asType(LONG_ACCESSOR);
+          break;
+        case AutoMetricValues.TYPE_FLOAT:
+        case AutoMetricValues.TYPE_DOUBLE:
+          this.handle = handle.asType(DOUBLE_ACCESSOR);
+          break;
+        default:
+          this.handle = handle.asType(OBJECT_ACCESSOR);
+          break;
+      }
+    }
+  }
+}
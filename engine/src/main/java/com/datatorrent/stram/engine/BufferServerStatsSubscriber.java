@@ -98,6 +98,7 @@ public class BufferServerStatsSubscriber
             ByteCounterStream stream = inputStreams.get(ps.id);
             if (stream != null) {
               ps.bufferServerBytes = stream.getByteCount(true);
+              ps.bufferServerUncompressedBytes = stream.getUncompressedByteCount(true);
             }
           }
         }
@@ -105,10 +106,12 @@ public class BufferServerStatsSubscriber
         if (os.outputPorts != null) {
           for (PortStats ps : os.outputPorts) {
             List<ByteCounterStream> portStreams = outputStreams.get(ps.id);
-            if (outputStreams != null) {
+            if (portStreams != null) {
               ps.bufferServerBytes = 0;
+              ps.bufferServerUncompressedBytes = 0;
               for (ByteCounterStream stream : portStreams) {
-                ps.bufferServerBytes = stream.getByteCount(true);
+                ps.bufferServerBytes += stream.getByteCount(true);
+                ps.bufferServerUncompressedBytes += stream.getUncompressedByteCount(true);
               }
             }
           }
@@ -26,4 +26,13 @@ package com.datatorrent.stram.engine;
 public interface ByteCounterStream extends Stream
 {
   long getByteCount(boolean reset);
+
+  /**
+   * Returns the number of bytes the stream would have transferred without compression, which is the same as the byte
+   * count unless the payloads of the stream are compressed.
+   *
+   * @param reset whether the count is reset after it is read
+   * @return number of uncompressed bytes
+   */
+  long getUncompressedByteCount(boolean reset);
 }
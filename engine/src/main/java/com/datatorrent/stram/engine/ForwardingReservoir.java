@@ -24,7 +24,7 @@ import com.datatorrent.stram.tuple.Tuple;
 /**
  * @since 3.4.0
  */
-public class ForwardingReservoir implements SweepableReservoir
+public class ForwardingReservoir implements NotifyingReservoir
 {
   public static ForwardingReservoir newReservoir(final String id, final int capacity)
   {
@@ -94,6 +94,12 @@ public class ForwardingReservoir implements SweepableReservoir
     return reservoir.isEmpty();
   }
 
+  @Override
+  public boolean setListener(Runnable listener)
+  {
+    return reservoir.setListener(listener);
+  }
+
   public AbstractReservoir getReservoir()
   {
     return reservoir;
@@ -0,0 +1,269 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package com.datatorrent.stram.engine;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+import com.datatorrent.api.Context.IdleStrategy;
+import com.datatorrent.api.Stats.IdleStats;
+
+/**
+ * <p>Waits for tuples on behalf of a node that runs on a thread of its own, according to the {@link IdleStrategy} of
+ * the operator.</p>
+ * <br>
+ * The node calls {@link #idle(Node, boolean)} every time it finds no work to do and {@link #busy()} every time it
+ * does some. The time spent between the two is accounted in the phase the idler was in, so that the breakdown reported
+ * in {@link IdleStats} also includes the time spent polling the input ports.
+ *
+ * @since 4.0.0
+ */
+abstract class Idler
+{
+  private static final int NONE = -1;
+  private static final int SPIN = 0;
+  private static final int YIELD = 1;
+  private static final int PARK = 2;
+
+  /**
+   * number of consecutive idle polls before the spin phase gives way to the next one.
+   */
+  static final int SPIN_TRIES = 100;
+
+  private final long[] idleTime = new long[3];
+  private long idleCount;
+  private int phase = NONE;
+  private long phaseStartTime;
+  int tries;
+
+  /**
+   * Wait for tuples.
+   *
+   * @param node the node that is idle
+   * @param backoff whether the wait may grow longer as the node stays idle; an input node that expects the next
+   * streaming window does not back off
+   * @throws InterruptedException when the thread of the node is interrupted
+   */
+  abstract void idle(Node<?> node, boolean backoff) throws InterruptedException;
+
+  /**
+   * Notify the idler that the node found work to do.
+   */
+  void busy()
+  {
+    if (phase != NONE) {
+      idleTime[phase] += System.nanoTime() - phaseStartTime;
+      phase = NONE;
+      tries = 0;
+      reset();
+    }
+  }
+
+  /**
+   * Reset the state of the strategy at the end of an idle period.
+   */
+  void reset()
+  {
+  }
+
+  /**
+   * Account the time spent from now on in the given phase.
+   */
+  final void enter(int phase)
+  {
+    if (this.phase != phase) {
+      final long now = System.nanoTime();
+      if (this.phase == NONE) {
+        idleCount++;
+      } else {
+        idleTime[this.phase] += now - phaseStartTime;
+      }
+      this.phase = phase;
+      phaseStartTime = now;
+    }
+  }
+
+  /**
+   * @return the idle time accounted since the last call
+   */
+  IdleStats getStats()
+  {
+    if (phase != NONE) {
+      final long now = System.nanoTime();
+      idleTime[phase] += now - phaseStartTime;
+      phaseStartTime = now;
+    }
+
+    IdleStats stats = new IdleStats();
+    stats.spinTime = idleTime[SPIN];
+    stats.yieldTime = idleTime[YIELD];
+    stats.parkTime = idleTime[PARK];
+    stats.idleCount = idleCount;
+
+    idleTime[SPIN] = idleTime[YIELD] = idleTime[PARK] = 0;
+    idleCount = 0;
+    return stats;
+  }
+
+  static Idler newIdler(IdleStrategy strategy, long maxSleepMillis)
+  {
+    switch (strategy) {
+      case BUSY_SPIN:
+        return new BusySpinIdler();
+
+      case SPIN_YIELD:
+        return new SpinYieldIdler();
+
+      case PARK:
+        return new ParkIdler(maxSleepMillis);
+
+      default:
+        return new SleepIdler(maxSleepMillis);
+    }
+  }
+
+  /**
+   * Sleeps for a period that grows by a millisecond with every idle poll, which is the way the nodes always waited.
+   */
+  static class SleepIdler extends Idler
+  {
+    private final long maxSleepMillis;
+    private long sleepMillis;
+
+    SleepIdler(long maxSleepMillis)
+    {
+      this.maxSleepMillis = maxSleepMillis;
+    }
+
+    @Override
+    void idle(Node<?> node, boolean backoff) throws InterruptedException
+    {
+      enter(PARK);
+      if (backoff) {
+        Thread.sleep(sleepMillis);
+        sleepMillis = Math.min(maxSleepMillis, sleepMillis + 1);
+      } else {
+        Thread.sleep(0);
+      }
+    }
+
+    @Override
+    void reset()
+    {
+      sleepMillis = 0;
+    }
+  }
+
+  static class BusySpinIdler extends Idler
+  {
+    @Override
+    void idle(Node<?> node, boolean backoff)
+    {
+      enter(SPIN);
+    }
+  }
+
+  static class SpinYieldIdler extends Idler
+  {
+    @Override
+    void idle(Node<?> node, boolean backoff)
+    {
+      if (tries < SPIN_TRIES) {
+        tries++;
+        enter(SPIN);
+      } else {
+        enter(YIELD);
+        Thread.yield();
+      }
+    }
+  }
+
+  /**
+   * Parks the thread of the node once it spun for a while. The input reservoirs of the node unpark it as soon as a
+   * tuple is added to any of them. When the node cannot be notified, it is parked for the periods it would sleep for.
+   */
+  static class ParkIdler extends Idler
+  {
+    private final long maxParkNanos;
+    private long parkNanos;
+    private volatile boolean parked;
+    private volatile Thread thread;
+    private boolean notifying;
+    private final Runnable unparker = new Runnable()
+    {
+      @Override
+      public void run()
+      {
+        if (parked) {
+          LockSupport.unpark(thread);
+        }
+      }
+
+    };
+
+    ParkIdler(long maxParkMillis)
+    {
+      maxParkNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(1, maxParkMillis));
+    }
+
+    @Override
+    void idle(Node<?> node, boolean backoff) throws InterruptedException
+    {
+      if (tries < SPIN_TRIES) {
+        tries++;
+        enter(SPIN);
+        return;
+      }
+
+      if (!parked) {
+        /*
+         * tuples added from now on unpark the thread, the ones added before the listener is set are found by polling
+         * the input ports once more before parking
+         */
+        thread = Thread.currentThread();
+        parked = true;
+        notifying = node.setInputListener(unparker);
+        return;
+      }
+
+      if (notifying) {
+        enter(PARK);
+        LockSupport.parkNanos(this, maxParkNanos);
+      } else if (backoff) {
+        enter(PARK);
+        parkNanos = Math.min(maxParkNanos, parkNanos + TimeUnit.MILLISECONDS.toNanos(1));
+        LockSupport.parkNanos(this, parkNanos);
+      } else {
+        enter(YIELD);
+        Thread.yield();
+      }
+
+      if (Thread.interrupted()) {
+        throw new InterruptedException();
+      }
+    }
+
+    @Override
+    void reset()
+    {
+      parked = false;
+      parkNanos = 0;
+    }
+  }
+}
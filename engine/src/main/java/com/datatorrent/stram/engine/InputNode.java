@@ -23,12 +23,9 @@ import java.util.ArrayList;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import com.google.common.base.Throwables;
-
 import com.datatorrent.api.InputOperator;
 import com.datatorrent.api.Operator.IdleTimeHandler;
 import com.datatorrent.api.Operator.ProcessingMode;
-import com.datatorrent.api.Operator.ShutdownException;
 import com.datatorrent.api.Sink;
 import com.datatorrent.api.annotation.Stateless;
 import com.datatorrent.stram.api.StreamingContainerUmbilicalProtocol.ContainerStats;
@@ -45,6 +42,10 @@ public class InputNode extends Node<InputOperator>
   private final ArrayList<SweepableReservoir> deferredInputConnections = new ArrayList<>();
   protected SweepableReservoir controlTuples;
   long lastCheckpointWindowId = Stateless.WINDOW_ID;
+  private boolean handleIdleTime;
+  private boolean insideApplicationWindow;
+  private boolean doCheckpoint;
+  private boolean insideStreamingWindow;
 
   public InputNode(InputOperator operator, OperatorContext context)
   {
@@ -67,164 +68,179 @@ public class InputNode extends Node<InputOperator>
   @SuppressWarnings(value = {"SleepWhileInLoop", "BroadCatchBlock", "TooBroadCatch"})
   public final void run()
   {
-    long maxSpinMillis = context.getValue(OperatorContext.SPIN_MILLIS);
-    long spinMillis = 0;
-    final boolean handleIdleTime = operator instanceof IdleTimeHandler;
-
-    boolean insideApplicationWindow = applicationWindowCount != 0;
-    boolean doCheckpoint = false;
-    boolean insideStreamingWindow = false;
-
-    calculateNextCheckpointWindow();
+    startProcessing();
 
+    idler = Idler.newIdler(context.getValue(OperatorContext.IDLE_STRATEGY),
+        context.getValue(OperatorContext.SPIN_MILLIS));
     try {
       while (alive) {
-        Tuple t = controlTuples.sweep();
-        if (t == null) {
-          if (insideStreamingWindow) {
-            int generatedTuples = 0;
-
-            for (Sink<Object> cs : sinks) {
-              generatedTuples -= cs.getCount(false);
-            }
-
-            operator.emitTuples();
-
-            for (Sink<Object> cs : sinks) {
-              generatedTuples += cs.getCount(false);
-            }
-
-            if (generatedTuples == 0) {
-              if (handleIdleTime) {
-                ((IdleTimeHandler)operator).handleIdleTime();
-              } else {
-                Thread.sleep(spinMillis);
-                spinMillis = Math.min(spinMillis + 1, maxSpinMillis);
-              }
-            } else {
-              spinMillis = 0;
-            }
-          } else {
-            Thread.sleep(0);
-          }
+        if (process() || processIdleTime()) {
+          idler.busy();
         } else {
-          controlTuples.remove();
-          switch (t.getType()) {
-            case BEGIN_WINDOW:
-              for (int i = sinks.length; i-- > 0; ) {
-                sinks[i].put(t);
-              }
-              controlTupleCount++;
-              currentWindowId = t.getWindowId();
-              insideStreamingWindow = true;
-              if (applicationWindowCount == 0) {
-                insideApplicationWindow = true;
-                operator.beginWindow(currentWindowId);
-              }
-              operator.emitTuples(); /* give at least one chance to emit the tuples */
-
-              break;
-
-            case END_WINDOW:
-              insideStreamingWindow = false;
-              if (++applicationWindowCount == APPLICATION_WINDOW_COUNT) {
-                insideApplicationWindow = false;
-                operator.endWindow();
-                applicationWindowCount = 0;
-              }
-              endWindowEmitTime = System.currentTimeMillis();
-
-              for (int i = sinks.length; i-- > 0;) {
-                sinks[i].put(t);
-              }
-              controlTupleCount++;
-
-              if (doCheckpoint) {
-                dagCheckpointOffsetCount = (dagCheckpointOffsetCount + 1) % DAG_CHECKPOINT_WINDOW_COUNT;
-              }
-
-              if (++checkpointWindowCount == CHECKPOINT_WINDOW_COUNT) {
-                checkpointWindowCount = 0;
-                if (doCheckpoint) {
-                  checkpoint(currentWindowId);
-                  lastCheckpointWindowId = currentWindowId;
-                  doCheckpoint = false;
-                } else if (PROCESSING_MODE == ProcessingMode.EXACTLY_ONCE) {
-                  checkpoint(currentWindowId);
-                  lastCheckpointWindowId = currentWindowId;
-                }
-              }
-
-              ContainerStats.OperatorStats stats = new ContainerStats.OperatorStats();
-              reportStats(stats, currentWindowId);
-              if (!insideApplicationWindow) {
-                stats.metrics = collectMetrics();
-              }
-              handleRequests(currentWindowId);
-              break;
-
-            case CHECKPOINT:
-              dagCheckpointOffsetCount = 0;
-              if (lastCheckpointWindowId < currentWindowId) {
-                if (checkpointWindowCount == 0 && PROCESSING_MODE != ProcessingMode.EXACTLY_ONCE) {
-                  checkpoint(currentWindowId);
-                  lastCheckpointWindowId = currentWindowId;
-                } else {
-                  doCheckpoint = true;
-                }
-              }
-              for (int i = sinks.length; i-- > 0;) {
-                sinks[i].put(t);
-              }
-              controlTupleCount++;
-              break;
-
-            case END_STREAM:
-              if (deferredInputConnections.isEmpty()) {
-                for (int i = sinks.length; i-- > 0;) {
-                  sinks[i].put(t);
-                }
-                controlTupleCount++;
-                alive = false;
-              } else {
-                controlTuples = deferredInputConnections.remove(0);
-              }
-              break;
-
-            default:
-              for (int i = sinks.length; i-- > 0;) {
-                sinks[i].put(t);
-              }
-              controlTupleCount++;
-              break;
-          }
+          idler.idle(this, insideStreamingWindow);
         }
       }
-    } catch (ShutdownException se) {
-      logger.debug("Shutdown requested by the operator when alive = {}.", alive);
-      alive = false;
     } catch (Throwable cause) {
-      synchronized (this) {
-        if (alive) {
-          throw Throwables.propagate(cause);
+      handleProcessingException(cause);
+    }
+
+    stopProcessing();
+  }
+
+  @Override
+  void startProcessing()
+  {
+    handleIdleTime = operator instanceof IdleTimeHandler;
+
+    insideApplicationWindow = applicationWindowCount != 0;
+    doCheckpoint = false;
+    insideStreamingWindow = false;
+
+    calculateNextCheckpointWindow();
+  }
+
+  @Override
+  boolean process()
+  {
+    Tuple t = controlTuples.sweep();
+    if (t == null) {
+      if (insideStreamingWindow) {
+        int generatedTuples = 0;
+
+        for (Sink<Object> cs : sinks) {
+          generatedTuples -= cs.getCount(false);
         }
-      }
 
-      Throwable rootCause = cause;
-      while (rootCause != null) {
-        if (rootCause instanceof InterruptedException) {
-          break;
+        operator.emitTuples();
+
+        for (Sink<Object> cs : sinks) {
+          generatedTuples += cs.getCount(false);
         }
-        rootCause = rootCause.getCause();
-      }
 
-      if (rootCause == null) {
-        throw Throwables.propagate(cause);
-      } else {
-        logger.debug("Ignoring InterruptedException after shutdown", cause);
+        if (generatedTuples != 0) {
+          return true;
+        }
       }
+
+      return false;
+    }
+
+    controlTuples.remove();
+    switch (t.getType()) {
+      case BEGIN_WINDOW:
+        for (int i = sinks.length; i-- > 0; ) {
+          sinks[i].put(t);
+        }
+        controlTupleCount++;
+        currentWindowId = t.getWindowId();
+        insideStreamingWindow = true;
+        if (applicationWindowCount == 0) {
+          insideApplicationWindow = true;
+          operator.beginWindow(currentWindowId);
+        }
+        operator.emitTuples(); /* give at least one chance to emit the tuples */
+
+        break;
+
+      case END_WINDOW:
+        insideStreamingWindow = false;
+        if (++applicationWindowCount == APPLICATION_WINDOW_COUNT) {
+          insideApplicationWindow = false;
+          operator.endWindow();
+          applicationWindowCount = 0;
+        }
+        endWindowEmitTime = System.currentTimeMillis();
+
+        for (int i = sinks.length; i-- > 0;) {
+          sinks[i].put(t);
+        }
+        controlTupleCount++;
+
+        if (doCheckpoint) {
+          dagCheckpointOffsetCount = (dagCheckpointOffsetCount + 1) % DAG_CHECKPOINT_WINDOW_COUNT;
+        }
+
+        if (++checkpointWindowCount == CHECKPOINT_WINDOW_COUNT) {
+          checkpointWindowCount = 0;
+          if (doCheckpoint) {
+            checkpoint(currentWindowId);
+            lastCheckpointWindowId = currentWindowId;
+            doCheckpoint = false;
+          } else if (PROCESSING_MODE == ProcessingMode.EXACTLY_ONCE) {
+            checkpoint(currentWindowId);
+            lastCheckpointWindowId = currentWindowId;
+          }
+        }
+
+        ContainerStats.OperatorStats stats = new ContainerStats.OperatorStats();
+        if (!insideApplicationWindow) {
+          stats.metrics = collectMetrics();
+        }
+        reportStats(stats, currentWindowId);
+        handleRequests(currentWindowId);
+        break;
+
+      case CHECKPOINT:
+        dagCheckpointOffsetCount = 0;
+        if (lastCheckpointWindowId < currentWindowId) {
+          if (checkpointWindowCount == 0 && PROCESSING_MODE != ProcessingMode.EXACTLY_ONCE) {
+            checkpoint(currentWindowId);
+            lastCheckpointWindowId = currentWindowId;
+          } else {
+            doCheckpoint = true;
+          }
+        }
+        for (int i = sinks.length; i-- > 0;) {
+          sinks[i].put(t);
+        }
+        controlTupleCount++;
+        break;
+
+      case END_STREAM:
+        if (deferredInputConnections.isEmpty()) {
+          for (int i = sinks.length; i-- > 0;) {
+            sinks[i].put(t);
+          }
+          controlTupleCount++;
+          alive = false;
+        } else {
+          controlTuples = deferredInputConnections.remove(0);
+        }
+        break;
+
+      default:
+        for (int i = sinks.length; i-- > 0;) {
+          sinks[i].put(t);
+        }
+        controlTupleCount++;
+        break;
+    }
+
+    return true;
+  }
+
+  @Override
+  boolean processIdleTime()
+  {
+    if (handleIdleTime && insideStreamingWindow) {
+      ((IdleTimeHandler)operator).handleIdleTime();
+      return true;
     }
 
+    return false;
+  }
+
+  @Override
+  boolean setInputListener(Runnable listener)
+  {
+    /* the operator is polled for tuples inside the streaming window */
+    return controlTuples instanceof NotifyingReservoir && ((NotifyingReservoir)controlTuples).setListener(listener)
+        && !insideStreamingWindow;
+  }
+
+  @Override
+  void stopProcessing()
+  {
     if (insideApplicationWindow) {
       operator.endWindow();
       endWindowEmitTime = System.currentTimeMillis();
@@ -246,8 +262,8 @@ public class InputNode extends Node<InputOperator>
       }
 
       ContainerStats.OperatorStats stats = new ContainerStats.OperatorStats();
-      reportStats(stats, currentWindowId);
       stats.metrics = collectMetrics();
+      reportStats(stats, currentWindowId);
       handleRequests(currentWindowId);
     }
   }
@@ -77,10 +77,25 @@ public abstract class MuxReservoir
 
   protected abstract Queue getQueue();
 
-  class SubReservoir extends CircularBuffer<Object> implements SweepableReservoir
+  /**
+   * Notify the reservoirs that tuples were added to the queue.
+   */
+  protected void notifyListeners()
+  {
+    for (SubReservoir reservoir : reservoirs) {
+      Runnable listener = reservoir.listener;
+      if (listener != null) {
+        listener.run();
+      }
+    }
+  }
+
+  class SubReservoir extends CircularBuffer<Object> implements NotifyingReservoir
   {
     int count;
     private Sink<Object> sink;
+    private TupleBatch batch;
+    private volatile Runnable listener;
 
     SubReservoir(int capacity)
     {
@@ -109,23 +124,42 @@ public abstract class MuxReservoir
         return this.sink;
       } finally {
         this.sink = sink;
+        batch = TupleBatch.newInstance(sink);
       }
     }
 
+    @Override
+    public boolean setListener(Runnable listener)
+    {
+      this.listener = listener;
+      return true;
+    }
+
     @Override
     public Tuple sweep()
     {
       final int size = size();
       if (size > 0) {
+        final TupleBatch batch = this.batch;
         for (int i = 0; i < size; i++) {
           if (peekUnsafe() instanceof Tuple) {
             count += i;
+            if (batch != null) {
+              batch.flush();
+            }
             return (Tuple)peekUnsafe();
           }
-          sink.put(pollUnsafe());
+          if (batch == null) {
+            sink.put(pollUnsafe());
+          } else {
+            batch.add(pollUnsafe());
+          }
         }
 
         count += size;
+        if (batch != null) {
+          batch.flush();
+        }
       }
 
       final Queue queue = getQueue();
@@ -18,16 +18,10 @@
  */
 package com.datatorrent.stram.engine;
 
-import java.beans.IntrospectionException;
-import java.beans.Introspector;
-import java.beans.PropertyDescriptor;
 import java.io.IOException;
 import java.lang.management.ManagementFactory;
 import java.lang.management.ThreadMXBean;
 import java.lang.reflect.Array;
-import java.lang.reflect.Field;
-import java.lang.reflect.InvocationTargetException;
-import java.lang.reflect.Method;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.HashMap;
@@ -49,14 +43,11 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import org.apache.apex.common.util.AsyncStorageAgent;
-import org.apache.hadoop.util.ReflectionUtils;
+import org.apache.apex.common.util.CheckpointStatsReporter;
 
 import com.google.common.base.Throwables;
-import com.google.common.collect.Lists;
-import com.google.common.collect.Maps;
 import com.google.common.math.IntMath;
 
-import com.datatorrent.api.AutoMetric;
 import com.datatorrent.api.Component;
 import com.datatorrent.api.Context;
 import com.datatorrent.api.InputOperator;
@@ -64,6 +55,7 @@ import com.datatorrent.api.Operator;
 import com.datatorrent.api.Operator.InputPort;
 import com.datatorrent.api.Operator.OutputPort;
 import com.datatorrent.api.Operator.ProcessingMode;
+import com.datatorrent.api.Operator.ShutdownException;
 import com.datatorrent.api.Operator.Unifier;
 import com.datatorrent.api.Sink;
 import com.datatorrent.api.Stats;
@@ -76,6 +68,7 @@ import com.datatorrent.stram.api.Checkpoint;
 import com.datatorrent.stram.api.OperatorDeployInfo;
 import com.datatorrent.stram.api.StreamingContainerUmbilicalProtocol.ContainerStats;
 import com.datatorrent.stram.debug.MuxSink;
+import com.datatorrent.stram.plan.logical.LogicalPlan;
 import com.datatorrent.stram.plan.logical.Operators;
 import com.datatorrent.stram.plan.logical.Operators.PortContextPair;
 import com.datatorrent.stram.plan.logical.Operators.PortMappingDescriptor;
@@ -118,6 +111,14 @@ public abstract class Node<OPERATOR extends Operator> implements Component<Opera
   protected long endWindowEmitTime;
   protected long lastSampleCpuTime;
   protected ThreadMXBean tmb;
+  /**
+   * task that runs the node on the pool of a {@link NodeScheduler}, null if the node runs on a thread of its own.
+   */
+  NodeScheduler.Task task;
+  /**
+   * waits for tuples when the node runs on a thread of its own.
+   */
+  Idler idler;
   protected HashMap<SweepableReservoir, Long> endWindowDequeueTimes; // end window dequeue time for input ports
   protected Checkpoint checkpoint;
   public int applicationWindowCount;
@@ -127,8 +128,7 @@ public abstract class Node<OPERATOR extends Operator> implements Component<Opera
   protected int controlTupleCount;
   public final OperatorContext context;
   public final BlockingQueue<StatsListener.OperatorResponse> commandResponse;
-  private final List<Field> metricFields;
-  private final Map<String, Method> metricMethods;
+  private final AutoMetricCollector metricCollector;
   private ExecutorService executorService;
   private Queue<Pair<FutureTask<Stats.CheckpointStats>, CheckpointWindowInfo>> taskQueue;
   protected Stats.CheckpointStats checkpointStats;
@@ -153,28 +153,7 @@ public abstract class Node<OPERATOR extends Operator> implements Component<Opera
     tmb = ManagementFactory.getThreadMXBean();
     commandResponse = new LinkedBlockingQueue<>();
 
-    metricFields = Lists.newArrayList();
-    for (Field field : ReflectionUtils.getDeclaredFieldsIncludingInherited(operator.getClass())) {
-      if (field.isAnnotationPresent(AutoMetric.class)) {
-        metricFields.add(field);
-        field.setAccessible(true);
-      }
-    }
-
-    metricMethods = Maps.newHashMap();
-    try {
-      for (PropertyDescriptor pd : Introspector.getBeanInfo(operator.getClass()).getPropertyDescriptors()) {
-        Method readMethod = pd.getReadMethod();
-        if (readMethod != null) {
-          AutoMetric rfa = readMethod.getAnnotation(AutoMetric.class);
-          if (rfa != null) {
-            metricMethods.put(pd.getName(), readMethod);
-          }
-        }
-      }
-    } catch (IntrospectionException e) {
-      throw new RuntimeException("introspecting {}", e);
-    }
+    metricCollector = new AutoMetricCollector(operator.getClass());
   }
 
   public Operator getOperator()
@@ -368,6 +347,75 @@ public abstract class Node<OPERATOR extends Operator> implements Component<Opera
     shutdown(false);
   }
 
+  /**
+   * Prepare the node to process tuples. {@link #run()} does it before it processes the tuples in a loop, a
+   * {@link NodeScheduler} does it before it calls {@link #process()} for the first time.
+   */
+  abstract void startProcessing();
+
+  /**
+   * Process the tuples that are available without waiting for more.
+   *
+   * @return true if there may be more tuples to process right away, false if the node is idle
+   */
+  abstract boolean process();
+
+  /**
+   * Let the operator use the time when the node is idle.
+   *
+   * @return true if the operator used the idle time, false if the node may wait for tuples
+   */
+  abstract boolean processIdleTime();
+
+  /**
+   * Set the listener to run when tuples are added to the reservoirs that the node reads.
+   *
+   * @param listener the listener or null to remove it
+   * @return true if the listener is enough to know when there are tuples to process, false if the node has to be polled
+   */
+  abstract boolean setInputListener(Runnable listener);
+
+  /**
+   * Finish processing tuples once the node is no longer alive.
+   */
+  abstract void stopProcessing();
+
+  /**
+   * Handle the exception that stopped the node while processing tuples. The operator may stop the node with
+   * {@link ShutdownException} and the exceptions caused by the interruption of a node that is no longer alive are
+   * ignored; any other exception is rethrown.
+   *
+   * @param cause the exception
+   */
+  void handleProcessingException(Throwable cause)
+  {
+    if (cause instanceof ShutdownException) {
+      logger.debug("Shutdown requested by the operator when alive = {}.", alive);
+      alive = false;
+      return;
+    }
+
+    synchronized (this) {
+      if (alive) {
+        throw Throwables.propagate(cause);
+      }
+    }
+
+    Throwable rootCause = cause;
+    while (rootCause != null) {
+      if (rootCause instanceof InterruptedException) {
+        break;
+      }
+      rootCause = rootCause.getCause();
+    }
+
+    if (rootCause == null) {
+      throw Throwables.propagate(cause);
+    } else {
+      logger.debug("Ignoring InterruptedException after shutdown", cause);
+    }
+  }
+
   @Override
   public String toString()
   {
@@ -430,27 +478,10 @@ public abstract class Node<OPERATOR extends Operator> implements Component<Opera
     if (context.areMetricsListed() && (context.metricsToSend == null || context.metricsToSend.isEmpty())) {
       return null;
     }
-    Map<String, Object> metricValues = Maps.newHashMap();
-    try {
-      for (Field field : metricFields) {
-        if (context.metricsToSend != null && !context.metricsToSend.contains(field.getName())) {
-          continue;
-        }
-        metricValues.put(field.getName(), field.get(operator));
-      }
-
-      for (Map.Entry<String, Method> methodEntry : metricMethods.entrySet()) {
-        if (context.metricsToSend != null && !context.metricsToSend.contains(methodEntry.getKey())) {
-          continue;
-        }
-        metricValues.put(methodEntry.getKey(), methodEntry.getValue().invoke(operator));
-      }
-
-      context.clearMetrics();
-      return metricValues;
-    } catch (IllegalAccessException | InvocationTargetException iae) {
-      throw new RuntimeException(iae);
-    }
+    Map<String, Object> metricValues = context.metricsToSend == null ? metricCollector.collect(operator) :
+        metricCollector.collect(operator, context.metricsToSend);
+    context.clearMetrics();
+    return metricValues;
   }
 
   protected void reportStats(ContainerStats.OperatorStats stats, long windowId)
@@ -464,9 +495,12 @@ public abstract class Node<OPERATOR extends Operator> implements Component<Opera
     }
     controlTupleCount = 0;
 
-    long currentCpuTime = tmb.getCurrentThreadCpuTime();
+    long currentCpuTime = task == null ? tmb.getCurrentThreadCpuTime() : task.getCpuTime();
     stats.cpuTimeUsed = currentCpuTime - lastSampleCpuTime;
     lastSampleCpuTime = currentCpuTime;
+    if (idler != null) {
+      stats.idleStats = idler.getStats();
+    }
 
     if (checkpoint != null) {
       stats.checkpoint = checkpoint;
@@ -552,6 +586,9 @@ public abstract class Node<OPERATOR extends Operator> implements Component<Opera
               }
             }
           }
+          if (ba instanceof CheckpointStatsReporter) {
+            ((CheckpointStatsReporter)ba).reportCheckpointStats(id, windowId, checkpointStats);
+          }
           checkpointStats.checkpointTime = System.currentTimeMillis() - checkpointStats.checkpointStartTime;
         } catch (IOException ie) {
           try {
@@ -666,6 +703,21 @@ public abstract class Node<OPERATOR extends Operator> implements Component<Opera
     if (!DATA_TUPLE_AWARE && (operator instanceof StatsListener)) {
       DATA_TUPLE_AWARE = operator.getClass().isAnnotationPresent(StatsListener.DataQueueSize.class);
     }
+
+    if (context.getValue(LogicalPlan.AGGREGATE_WINDOW_STATS)) {
+      boolean perWindowStats = operator instanceof StatsListener
+          && operator.getClass().isAnnotationPresent(StatsListener.PerWindowStats.class);
+      if (statsListeners != null) {
+        for (StatsListener statsListener : statsListeners) {
+          perWindowStats |= statsListener.getClass().isAnnotationPresent(StatsListener.PerWindowStats.class);
+        }
+      }
+      if (!perWindowStats) {
+        int stride = context.getValue(Context.DAGContext.HEARTBEAT_INTERVAL_MILLIS)
+            / context.getValue(Context.DAGContext.STREAMING_WINDOW_SIZE_MILLIS);
+        context.setStatsAggregator(new WindowStatsAggregator(Math.max(stride, 1)));
+      }
+    }
     /*
      * If there were any requests which needed to be executed before the operator started
      * its normal execution, execute those requests now - e.g. Restarting the operator
@@ -685,6 +737,7 @@ public abstract class Node<OPERATOR extends Operator> implements Component<Opera
     }
 
     deactivateSinks();
+    context.flushStats();
   }
 
   private class CheckpointHandler implements Callable<Stats.CheckpointStats>
@@ -698,6 +751,9 @@ public abstract class Node<OPERATOR extends Operator> implements Component<Opera
     public Stats.CheckpointStats call() throws Exception
     {
       agent.flush(id, windowId);
+      if (agent instanceof CheckpointStatsReporter) {
+        ((CheckpointStatsReporter)agent).reportCheckpointStats(id, windowId, stats);
+      }
       stats.checkpointTime = System.currentTimeMillis() - stats.checkpointStartTime;
       return stats;
     }
@@ -0,0 +1,323 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package com.datatorrent.stram.engine;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.google.common.base.Throwables;
+
+import com.datatorrent.api.Context.OperatorContext;
+import com.datatorrent.common.util.ScheduledThreadPoolExecutor;
+
+/**
+ * <p>Runs the nodes of a container as cooperative tasks on a shared pool of threads.</p>
+ * <br>
+ * Instead of polling its reservoirs on a thread of its own, a node processes the tuples that are available and gives
+ * the thread back to the pool when it is idle. The reservoirs wake the node up when tuples are added to them. The
+ * nodes that need to be polled, such as an input operator inside a streaming window, are resumed after a delay that
+ * grows up to {@link OperatorContext#SPIN_MILLIS} like the one of a node that runs on its own thread.<br>
+ * <br>
+ * The pool is a {@link ForkJoinPool}, so that a node that waits for room in a full reservoir does not keep the node
+ * that drains the reservoir from running, see {@link AbstractReservoir#managedPut(Object)}.
+ *
+ * @since 4.0.0
+ */
+public class NodeScheduler
+{
+  /**
+   * time that a node may keep a thread of the pool while it has tuples to process.
+   */
+  static final long QUANTUM_NANOS = TimeUnit.MILLISECONDS.toNanos(1);
+  /**
+   * interval at which the idle nodes are checked for tuples whose notification was missed.
+   */
+  static final long IDLE_CHECK_MILLIS = 1000;
+
+  private final ForkJoinPool pool;
+  private final ScheduledThreadPoolExecutor timer;
+  private final Set<Task> tasks = ConcurrentHashMap.newKeySet();
+  private final ThreadMXBean tmb = ManagementFactory.getThreadMXBean();
+
+  public NodeScheduler(final String name, int threads)
+  {
+    pool = new ForkJoinPool(threads, new ForkJoinPool.ForkJoinWorkerThreadFactory()
+    {
+      @Override
+      public ForkJoinWorkerThread newThread(ForkJoinPool pool)
+      {
+        ForkJoinWorkerThread thread = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(pool);
+        thread.setName(name + "-" + thread.getPoolIndex());
+        return thread;
+      }
+
+    }, null, true);
+
+    timer = new ScheduledThreadPoolExecutor(1, name + "-timer");
+    timer.scheduleWithFixedDelay(new Runnable()
+    {
+      @Override
+      public void run()
+      {
+        for (Task task : tasks) {
+          task.signal();
+        }
+      }
+
+    }, IDLE_CHECK_MILLIS, IDLE_CHECK_MILLIS, TimeUnit.MILLISECONDS);
+  }
+
+  /**
+   * Run the node on the pool and wait for it to finish. It is the counterpart of {@link Node#run()} and throws the
+   * same exceptions.
+   *
+   * @param node the node to run
+   */
+  public void run(Node<?> node)
+  {
+    Task task = new Task(node);
+    node.task = task;
+    tasks.add(task);
+    try {
+      task.signal();
+      while (true) {
+        try {
+          task.finished.await();
+          break;
+        } catch (InterruptedException ex) {
+          task.interrupt();
+        }
+      }
+    } finally {
+      tasks.remove(task);
+    }
+
+    if (task.failure != null) {
+      throw Throwables.propagate(task.failure);
+    }
+  }
+
+  public void shutdown()
+  {
+    timer.shutdownNow();
+    pool.shutdownNow();
+  }
+
+  /**
+   * @return the number of threads the pool runs, including the ones started in place of the threads that wait for
+   * room in a reservoir
+   */
+  public int getPoolSize()
+  {
+    return pool.getPoolSize();
+  }
+
+  /**
+   * Node that runs on the pool.
+   */
+  class Task implements Runnable
+  {
+    private static final int IDLE = 0;
+    private static final int SCHEDULED = 1;
+    private static final int RUNNING = 2;
+    private static final int SIGNALLED = 3;
+    private static final int DONE = 4;
+
+    final Node<?> node;
+    final CountDownLatch finished = new CountDownLatch(1);
+    private final AtomicInteger state = new AtomicInteger(IDLE);
+    private final long maxPollMillis;
+    private long pollMillis;
+    private boolean started;
+    private volatile boolean interrupted;
+    private volatile Thread runner;
+    private long cpuTime;
+    private long startCpuTime;
+    Throwable failure;
+
+    /**
+     * listener that the reservoirs of the node run when tuples are added to them.
+     */
+    private final Runnable listener = new Runnable()
+    {
+      @Override
+      public void run()
+      {
+        signal();
+      }
+
+    };
+
+    Task(Node<?> node)
+    {
+      this.node = node;
+      maxPollMillis = node.context.getValue(OperatorContext.SPIN_MILLIS);
+    }
+
+    /**
+     * Make sure that the node runs after this call.
+     */
+    void signal()
+    {
+      while (true) {
+        switch (state.get()) {
+          case IDLE:
+            if (state.compareAndSet(IDLE, SCHEDULED)) {
+              pool.execute(this);
+              return;
+            }
+            break;
+
+          case RUNNING:
+            if (state.compareAndSet(RUNNING, SIGNALLED)) {
+              return;
+            }
+            break;
+
+          default:
+            return;
+        }
+      }
+    }
+
+    void interrupt()
+    {
+      interrupted = true;
+      Thread thread = runner;
+      if (thread != null) {
+        thread.interrupt();
+      }
+      signal();
+    }
+
+    /**
+     * @return the CPU time used by the node on all the threads it ran on, when called by the node
+     */
+    long getCpuTime()
+    {
+      return cpuTime + tmb.getCurrentThreadCpuTime() - startCpuTime;
+    }
+
+    @Override
+    public void run()
+    {
+      state.set(RUNNING);
+      runner = Thread.currentThread();
+      /* an interrupt meant for another node must not reach this one */
+      Thread.interrupted();
+      if (interrupted) {
+        runner.interrupt();
+      }
+      startCpuTime = tmb.getCurrentThreadCpuTime();
+
+      int next;
+      try {
+        next = runQuantum();
+      } catch (Throwable th) {
+        failure = th;
+        next = DONE;
+      } finally {
+        cpuTime += tmb.getCurrentThreadCpuTime() - startCpuTime;
+        runner = null;
+        Thread.interrupted();
+      }
+
+      switch (next) {
+        case SCHEDULED:
+          state.set(SCHEDULED);
+          pool.execute(this);
+          break;
+
+        case IDLE:
+          if (!state.compareAndSet(RUNNING, IDLE)) {
+            /* tuples arrived while the node was running */
+            state.set(SCHEDULED);
+            pool.execute(this);
+          } else if (pollMillis > 0) {
+            timer.schedule(listener, pollMillis, TimeUnit.MILLISECONDS);
+          }
+          break;
+
+        default:
+          state.set(DONE);
+          finished.countDown();
+          break;
+      }
+    }
+
+    /**
+     * Let the node process tuples for at most {@link #QUANTUM_NANOS}.
+     *
+     * @return the state of the task after this quantum
+     */
+    private int runQuantum()
+    {
+      if (!started) {
+        started = true;
+        node.startProcessing();
+      }
+
+      final long deadline = System.nanoTime() + QUANTUM_NANOS;
+      boolean busy;
+      try {
+        do {
+          busy = node.process() || node.processIdleTime();
+        } while (busy && node.alive && System.nanoTime() < deadline);
+
+        if (!busy && node.alive) {
+          /* tuples added before the listener is set are found by processing once more */
+          final boolean notifying = node.setInputListener(listener);
+          busy = node.process();
+          if (busy || notifying) {
+            pollMillis = 0;
+          } else if (pollMillis == 0) {
+            pollMillis = 1;
+          } else {
+            pollMillis = Math.min(maxPollMillis, pollMillis + 1);
+          }
+        }
+      } catch (Throwable cause) {
+        node.handleProcessingException(cause);
+        busy = false;
+      }
+
+      if (node.alive) {
+        return busy ? SCHEDULED : IDLE;
+      }
+
+      node.setInputListener(null);
+      node.stopProcessing();
+      return DONE;
+    }
+
+    @Override
+    public String toString()
+    {
+      return "Task{node=" + node + ", state=" + state + '}';
+    }
+
+  }
+}
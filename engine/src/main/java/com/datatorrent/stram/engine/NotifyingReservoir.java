@@ -0,0 +1,39 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package com.datatorrent.stram.engine;
+
+/**
+ * <p>Reservoir that tells the node consuming it when tuples are added to it.</p>
+ * <br>
+ * A node that waits for tuples on such reservoirs does not need to poll them.
+ *
+ * @since 4.0.0
+ */
+public interface NotifyingReservoir extends SweepableReservoir
+{
+  /**
+   * Set the listener to run after tuples are added to the reservoir. The listener runs on the thread that adds the
+   * tuples, so it has to be cheap.
+   *
+   * @param listener the listener or null to remove it
+   * @return true if the listener runs whenever tuples are added, false if the reservoir still needs to be polled
+   */
+  boolean setListener(Runnable listener);
+
+}
@@ -51,6 +51,7 @@ public class OperatorContext extends BaseContext implements Context.OperatorCont
   private final String name;
   // the size of the circular queue should be configurable. hardcoded to 1024 for now.
   private final CircularBuffer<ContainerStats.OperatorStats> statsBuffer = new CircularBuffer<>(1024);
+  private WindowStatsAggregator statsAggregator;
   private final CircularBuffer<OperatorRequest> requests = new CircularBuffer<>(1024);
   public final boolean stateless;
   private int windowsFromCheckpoint;
@@ -147,6 +148,36 @@ public class OperatorContext extends BaseContext implements Context.OperatorCont
     stats.counters = this.counters;
     this.counters = null;
 
+    WindowStatsAggregator.setEndWindowLatency(stats);
+    if (statsAggregator != null) {
+      stats = statsAggregator.aggregate(stats);
+      if (stats == null) {
+        return;
+      }
+    }
+    offer(stats);
+  }
+
+  /**
+   * Reports the stats of the windows which were rolled up but not reported yet.
+   */
+  void flushStats()
+  {
+    if (statsAggregator != null) {
+      ContainerStats.OperatorStats stats = statsAggregator.flush();
+      if (stats != null) {
+        offer(stats);
+      }
+    }
+  }
+
+  void setStatsAggregator(WindowStatsAggregator statsAggregator)
+  {
+    this.statsAggregator = statsAggregator;
+  }
+
+  private void offer(ContainerStats.OperatorStats stats)
+  {
     if (!statsBuffer.offer(stats)) {
       statsBuffer.poll();
       statsBuffer.offer(stats);
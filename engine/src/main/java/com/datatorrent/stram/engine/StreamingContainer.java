@@ -70,9 +70,12 @@ import com.datatorrent.api.annotation.OperatorAnnotation;
 import com.datatorrent.api.annotation.Stateless;
 import com.datatorrent.bufferserver.server.Server;
 import com.datatorrent.bufferserver.storage.DiskStorage;
+import com.datatorrent.bufferserver.storage.MappedSegmentStorage;
 import com.datatorrent.bufferserver.util.Codec;
+import com.datatorrent.bufferserver.util.SharedMemoryRing;
 import com.datatorrent.common.util.ScheduledThreadPoolExecutor;
 import com.datatorrent.netlet.DefaultEventLoop;
+import com.datatorrent.netlet.EventLoop;
 import com.datatorrent.netlet.util.Slice;
 import com.datatorrent.stram.ComponentContextPair;
 import com.datatorrent.stram.RecoverableRpcProxy;
@@ -144,9 +147,14 @@ public class StreamingContainer extends YarnContainerMain
   private final Map<Stream, StreamContext> activeStreams = new ConcurrentHashMap<>();
   private final Map<WindowGenerator, Object> activeGenerators = new ConcurrentHashMap<>();
   private int heartbeatIntervalMillis = 1000;
+  private boolean binaryHeartbeatEncoding;
   private volatile boolean exitHeartbeatLoop = false;
   private final Object heartbeatTrigger = new Object();
   public static DefaultEventLoop eventloop;
+  /**
+   * Event loops of the buffer server and stream connections of this container, the first one being {@link #eventloop}.
+   */
+  private DefaultEventLoop[] eventloops;
   /**
    * List of listeners interested in listening into the status change of the nodes.
    */
@@ -156,6 +164,8 @@ public class StreamingContainer extends YarnContainerMain
   protected Server bufferServer;
   private int checkpointWindowCount;
   private boolean fastPublisherSubscriber;
+  private boolean sharedMemoryTransport;
+  private NodeScheduler nodeScheduler;
   private StreamingContainerContext containerContext;
   private List<StramToNodeRequest> nodeRequests;
   private final HashMap<String, Object> singletons;
@@ -197,15 +207,38 @@ public class StreamingContainer extends YarnContainerMain
     ctx.attributes.put(ContainerContext.REQUEST_FACTORY, requestFactory);
 
     heartbeatIntervalMillis = ctx.getValue(Context.DAGContext.HEARTBEAT_INTERVAL_MILLIS);
+    binaryHeartbeatEncoding = ctx.getValue(LogicalPlan.BINARY_HEARTBEAT_ENCODING);
     firstWindowMillis = ctx.startWindowMillis;
     windowWidthMillis = ctx.getValue(Context.DAGContext.STREAMING_WINDOW_SIZE_MILLIS);
     checkpointWindowCount = ctx.getValue(Context.DAGContext.CHECKPOINT_WINDOW_COUNT);
 
     fastPublisherSubscriber = ctx.getValue(LogicalPlan.FAST_PUBLISHER_SUBSCRIBER);
+    sharedMemoryTransport = ctx.getValue(LogicalPlan.BUFFER_SERVER_SHARED_MEMORY);
+
+    if (ctx.getValue(LogicalPlan.SHARED_OPERATOR_THREADS)) {
+      int threads = ctx.getValue(ContainerContext.VCORES);
+      if (threads <= 0) {
+        threads = Runtime.getRuntime().availableProcessors();
+      }
+      nodeScheduler = new NodeScheduler("Operators", threads);
+      logger.debug("Operators run on {} shared threads", threads);
+    }
 
     Map<Class<?>, Class<? extends StringCodec<?>>> codecs = ctx.getValue(Context.DAGContext.STRING_CODECS);
     StringCodecs.loadConverters(codecs);
 
+    eventloops = new DefaultEventLoop[Math.max(ctx.getValue(LogicalPlan.EVENT_LOOP_COUNT), 1)];
+    eventloops[0] = eventloop;
+    try {
+      for (int i = 1; i < eventloops.length; i++) {
+        eventloops[i] = DefaultEventLoop.createEventLoop("EventLoop-" + i);
+        eventloops[i].start();
+      }
+    } catch (IOException ex) {
+      throw new IllegalStateException("Failed to create event loops", ex);
+    }
+    logger.debug("Streams run on {} event loops", eventloops.length);
+
     try {
       if (ctx.deployBufferServer) {
         eventloop.start();
@@ -227,8 +260,18 @@ public class StreamingContainer extends YarnContainerMain
         // start buffer server, if it was not set externally
         bufferServer = new Server(eventloop, 0, blocksize * 1024 * 1024, blockCount);
         bufferServer.setAuthToken(ctx.getValue(StreamingContainerContext.BUFFER_SERVER_TOKEN));
+        if (eventloops.length > 1) {
+          bufferServer.setEventLoops(eventloops);
+        }
         if (ctx.getValue(Context.DAGContext.BUFFER_SPOOLING)) {
-          bufferServer.setSpoolStorage(new DiskStorage());
+          bufferServer.setSpoolStorage(ctx.getValue(LogicalPlan.BUFFER_SPOOLING_MAPPED_SEGMENTS) ?
+              new MappedSegmentStorage() : new DiskStorage(), ctx.getValue(LogicalPlan.BUFFER_SPOOLING_WORKERS));
+          bufferServer.setReadAheadBlocks(ctx.getValue(LogicalPlan.BUFFER_SPOOLING_READ_AHEAD_BLOCKS));
+        }
+        bufferServer.setFlowControlPolicy(ctx.getValue(LogicalPlan.BUFFER_SERVER_FLOW_CONTROL));
+        if (sharedMemoryTransport) {
+          bufferServer.setSharedMemoryDirectory(SharedMemoryRing.getDefaultDirectory());
+          bufferServer.setSharedMemoryRingCapacity(ctx.getValue(LogicalPlan.BUFFER_SERVER_SHARED_MEMORY_RING_CAPACITY));
         }
         bufferServerAddress = NetUtils.getConnectAddress(bufferServer.run());
         logger.debug("Buffer server started: {}", bufferServerAddress);
@@ -596,6 +639,18 @@ public class StreamingContainer extends YarnContainerMain
       eventloop.stop();
     }
 
+    if (eventloops != null) {
+      for (int i = 1; i < eventloops.length; i++) {
+        eventloops[i].stop();
+      }
+      eventloops = null;
+    }
+
+    if (nodeScheduler != null) {
+      nodeScheduler.shutdown();
+      nodeScheduler = null;
+    }
+
     gens.clear();
   }
 
@@ -632,6 +687,7 @@ public class StreamingContainer extends YarnContainerMain
 
       long currentTime = System.currentTimeMillis();
       ContainerHeartbeat msg = new ContainerHeartbeat();
+      msg.setBinaryEncoding(binaryHeartbeatEncoding);
       msg.jvmName = jvmName;
       if (this.bufferServerAddress != null) {
         msg.bufferServerHost = this.bufferServerAddress.getHostName();
@@ -965,6 +1021,15 @@ public class StreamingContainer extends YarnContainerMain
     }
   }
 
+  /**
+   * Returns the event loop of the stream connection to the given data list of a buffer server. The buffer server maps
+   * data lists to its event loops the same way, so a publisher and the subscribers of its data list share a loop.
+   */
+  private EventLoop getEventLoop(String connIdentifier)
+  {
+    return eventloops[Server.getEventLoopIndex(connIdentifier, eventloops.length)];
+  }
+
   private HashMap.SimpleEntry<String, ComponentContextPair<Stream, StreamContext>> deployBufferServerPublisher(
       String connIdentifier, StreamCodec<?> streamCodec, long finishedWindowId, int queueCapacity,
       OperatorDeployInfo.OutputDeployInfo nodi)
@@ -978,7 +1043,8 @@ public class StreamingContainer extends YarnContainerMain
     bssc.setSinkId(sinkIdentifier);
     bssc.setFinishedWindowId(finishedWindowId);
     bssc.put(StreamContext.CODEC, streamCodec);
-    bssc.put(StreamContext.EVENT_LOOP, eventloop);
+    bssc.put(StreamContext.EVENT_LOOP, getEventLoop(connIdentifier));
+    bssc.put(PortContext.BUFFER_SERVER_COMPRESSION, getValue(PortContext.BUFFER_SERVER_COMPRESSION, nodi, null));
     bssc.setBufferServerAddress(InetSocketAddress.createUnresolved(nodi.bufferServerHost, nodi.bufferServerPort));
     bssc.put(StreamContext.BUFFER_SERVER_TOKEN, nodi.bufferServerToken);
     InetAddress inetAddress = bssc.getBufferServerAddress().getAddress();
@@ -1123,6 +1189,8 @@ public class StreamingContainer extends YarnContainerMain
      * other streams,and many such streams may exist, we hash them against buffer server
      * info as we did for outputs but throw in the sinkid in the mix as well.
      */
+    /* partition aware sinks of a source port share the codec instance so that the partition is computed once */
+    HashMap<String, StreamCodec<Object>> partitionCodecs = new HashMap<>();
     for (OperatorDeployInfo ndi : operatorList) {
       if (ndi.inputs == null || ndi.inputs.isEmpty()) {
         /*
@@ -1178,7 +1246,12 @@ public class StreamingContainer extends YarnContainerMain
             String connIdentifier = sourceIdentifier + Component.CONCAT_SEPARATOR + streamCodecIdentifier;
             context.setPortId(nidi.portName);
             context.put(StreamContext.CODEC, streamCodec);
-            context.put(StreamContext.EVENT_LOOP, eventloop);
+            context.put(StreamContext.EVENT_LOOP, getEventLoop(connIdentifier));
+            context.put(PortContext.DESERIALIZATION_THREADS, getValue(PortContext.DESERIALIZATION_THREADS, nidi, ndi));
+            if (sharedMemoryTransport && !fastPublisherSubscriber &&
+                NetUtils.isLocalAddress(InetAddress.getByName(nidi.bufferServerHost))) {
+              context.put(StreamContext.SHARED_MEMORY_TRANSPORT, true);
+            }
             context.setPartitions(nidi.partitionMask, nidi.partitionKeys);
             //context.setSourceId(sourceIdentifier);
             context.setSourceId(connIdentifier);
@@ -1271,7 +1344,13 @@ public class StreamingContainer extends YarnContainerMain
                * generally speaking we do not have partitions on the inline streams so the control should not
                * come here but if it comes, then we are ready to handle it using the partition aware streams.
                */
-              PartitionAwareSink<Object> pas = new PartitionAwareSink<>(streamCodec == null ? nonSerializingStreamCodec : (StreamCodec<Object>)streamCodec, nidi.partitionKeys, nidi.partitionMask, stream);
+              String codecIdentifier = sourceIdentifier + Component.CONCAT_SEPARATOR + streamCodecIdentifier;
+              StreamCodec<Object> partitionCodec = partitionCodecs.get(codecIdentifier);
+              if (partitionCodec == null) {
+                partitionCodec = streamCodec == null ? nonSerializingStreamCodec : (StreamCodec<Object>)streamCodec;
+                partitionCodecs.put(codecIdentifier, partitionCodec);
+              }
+              PartitionAwareSink<Object> pas = new PartitionAwareSink<>(partitionCodec, nidi.partitionKeys, nidi.partitionMask, stream);
               ((Stream.MultiSinkCapableStream)pair.component).setSink(sinkIdentifier, pas);
             }
 
@@ -1446,7 +1525,11 @@ public class StreamingContainer extends YarnContainerMain
 
             currentdi = null;
 
-            node.run(); /* this is a blocking call */
+            if (nodeScheduler == null) {
+              node.run(); /* this is a blocking call */
+            } else {
+              nodeScheduler.run(node); /* this is a blocking call */
+            }
           } catch (Error error) {
             int[] operators;
             //fetch logFileInfo before logging exception, to get offset before exception
@@ -37,7 +37,9 @@ public interface SweepableReservoir extends Reservoir<Object>
   Sink<Object> setSink(Sink<Object> sink);
 
   /**
-   * Consume all the data tuples until control tuple is encountered.
+   * Consume all the data tuples until control tuple is encountered. When the sink is a
+   * {@link com.datatorrent.api.BatchSink}, the data tuples are handed over to it in runs that never span a control
+   * tuple, see {@link TupleBatch}.
    *
    * @return The control tuple encountered or null
    */
@@ -0,0 +1,81 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package com.datatorrent.stram.engine;
+
+import java.util.Arrays;
+
+import com.datatorrent.api.BatchSink;
+import com.datatorrent.api.Sink;
+
+/**
+ * <p>Run of data tuples that a reservoir hands over to a {@link BatchSink} in a single call.</p>
+ * <br>
+ * A reservoir whose sink is a batch sink adds the data tuples it sweeps to the batch and flushes the batch when it
+ * reaches a control tuple, when it runs out of tuples or when the batch is full.
+ *
+ * @since 4.0.0
+ */
+public class TupleBatch
+{
+  public static final int CAPACITY = 1024;
+
+  private final BatchSink<Object> sink;
+  private final Object[] tuples;
+  private int size;
+
+  public TupleBatch(BatchSink<Object> sink, int capacity)
+  {
+    this.sink = sink;
+    tuples = new Object[capacity];
+  }
+
+  /**
+   * @param sink sink of a reservoir
+   * @return batch for the sink if it is a batch sink, null otherwise
+   */
+  @SuppressWarnings("unchecked")
+  public static TupleBatch newInstance(Sink<Object> sink)
+  {
+    return sink instanceof BatchSink ? new TupleBatch((BatchSink<Object>)sink, CAPACITY) : null;
+  }
+
+  public void add(Object tuple)
+  {
+    tuples[size++] = tuple;
+    if (size == tuples.length) {
+      flush();
+    }
+  }
+
+  /**
+   * Hand the tuples added since the last flush over to the sink.
+   */
+  public void flush()
+  {
+    if (size > 0) {
+      final int length = size;
+      size = 0;
+      try {
+        sink.putBatch(tuples, 0, length);
+      } finally {
+        Arrays.fill(tuples, 0, length, null);
+      }
+    }
+  }
+}
@@ -32,7 +32,7 @@ import com.datatorrent.stram.tuple.Tuple;
  *
  * @since 0.3.2
  */
-public class WindowIdActivatedReservoir implements SweepableReservoir
+public class WindowIdActivatedReservoir implements NotifyingReservoir
 {
   private Sink<Object> sink;
   private final String identifier;
@@ -106,6 +106,12 @@ public class WindowIdActivatedReservoir implements SweepableReservoir
     return 0;
   }
 
+  @Override
+  public boolean setListener(Runnable listener)
+  {
+    return reservoir instanceof NotifyingReservoir && ((NotifyingReservoir)reservoir).setListener(listener);
+  }
+
   @Override
   public String toString()
   {
@@ -0,0 +1,148 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package com.datatorrent.stram.engine;
+
+import java.util.List;
+
+import com.datatorrent.api.Stats;
+import com.datatorrent.api.Stats.OperatorStats.PortStats;
+import com.datatorrent.stram.api.StreamingContainerUmbilicalProtocol.ContainerStats;
+
+/**
+ * Rolls up the stats of consecutive windows of an operator into the stats of the last of them.
+ * <p/>
+ * The stats of a window are reported when the sequence of the window is a multiple of the stride, which is the number
+ * of windows in a heartbeat interval. All the operators report the same windows that way, and the master can still
+ * compute the latencies and the critical path from them. A window that completes a checkpoint is reported right away
+ * to not hold up the committed window.
+ *
+ * @since 4.0.0
+ */
+class WindowStatsAggregator
+{
+  private final int stride;
+  private ContainerStats.OperatorStats pending;
+
+  WindowStatsAggregator(int stride)
+  {
+    this.stride = stride;
+  }
+
+  /**
+   * @param stats stats of the window
+   * @return the stats to report, which cover the windows since the ones last reported, null if there is nothing to
+   * report for the window
+   */
+  ContainerStats.OperatorStats aggregate(ContainerStats.OperatorStats stats)
+  {
+    if (pending != null) {
+      rollup(pending, stats);
+    }
+    pending = null;
+    if (stats.checkpoint != null || (stats.windowId & 0xffffffffL) % stride == 0) {
+      return stats;
+    }
+    pending = stats;
+    return null;
+  }
+
+  /**
+   * @return the stats of the windows that were not reported yet, null if there are none
+   */
+  ContainerStats.OperatorStats flush()
+  {
+    ContainerStats.OperatorStats stats = pending;
+    pending = null;
+    return stats;
+  }
+
+  /**
+   * Sets the end window latency of the stats of a window from the end window timestamps of its ports.
+   *
+   * @param stats stats of a window
+   */
+  static void setEndWindowLatency(Stats.OperatorStats stats)
+  {
+    long latency = 0;
+    if (stats.inputPorts != null && stats.outputPorts != null && !stats.outputPorts.isEmpty()) {
+      long dequeueTimestamp = Long.MIN_VALUE;
+      for (PortStats port : stats.inputPorts) {
+        dequeueTimestamp = Math.max(dequeueTimestamp, port.endWindowTimestamp);
+      }
+      if (dequeueTimestamp != Long.MIN_VALUE) {
+        latency = Math.max(stats.outputPorts.get(0).endWindowTimestamp - dequeueTimestamp, 0);
+      }
+    }
+    stats.minEndWindowLatency = latency;
+    stats.maxEndWindowLatency = latency;
+    stats.totalEndWindowLatency = latency;
+  }
+
+  /**
+   * Adds the stats of earlier windows to the stats of a later window.
+   */
+  private static void rollup(Stats.OperatorStats earlier, Stats.OperatorStats later)
+  {
+    later.windowCount += earlier.windowCount;
+    later.cpuTimeUsed += earlier.cpuTimeUsed;
+    later.minEndWindowLatency = Math.min(later.minEndWindowLatency, earlier.minEndWindowLatency);
+    later.maxEndWindowLatency = Math.max(later.maxEndWindowLatency, earlier.maxEndWindowLatency);
+    later.totalEndWindowLatency += earlier.totalEndWindowLatency;
+    rollup(earlier.inputPorts, later.inputPorts);
+    rollup(earlier.outputPorts, later.outputPorts);
+
+    if (earlier.idleStats != null) {
+      if (later.idleStats == null) {
+        later.idleStats = earlier.idleStats;
+      } else {
+        later.idleStats.spinTime += earlier.idleStats.spinTime;
+        later.idleStats.yieldTime += earlier.idleStats.yieldTime;
+        later.idleStats.parkTime += earlier.idleStats.parkTime;
+        later.idleStats.idleCount += earlier.idleStats.idleCount;
+      }
+    }
+    if (later.checkpoint == null) {
+      later.checkpoint = earlier.checkpoint;
+      later.checkpointStats = earlier.checkpointStats;
+    }
+    if (later.counters == null) {
+      later.counters = earlier.counters;
+    }
+    if (later.metrics == null) {
+      later.metrics = earlier.metrics;
+    }
+  }
+
+  private static void rollup(List<PortStats> earlier, List<PortStats> later)
+  {
+    if (earlier == null || later == null) {
+      return;
+    }
+    for (PortStats port : later) {
+      for (PortStats earlierPort : earlier) {
+        if (port.id.equals(earlierPort.id)) {
+          port.tupleCount += earlierPort.tupleCount;
+          port.bufferServerBytes += earlierPort.bufferServerBytes;
+          port.bufferServerUncompressedBytes += earlierPort.bufferServerUncompressedBytes;
+          break;
+        }
+      }
+    }
+  }
+}
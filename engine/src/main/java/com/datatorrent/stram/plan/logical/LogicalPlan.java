@@ -94,6 +94,7 @@ import com.datatorrent.api.StringCodec;
 import com.datatorrent.api.annotation.InputPortFieldAnnotation;
 import com.datatorrent.api.annotation.OperatorAnnotation;
 import com.datatorrent.api.annotation.OutputPortFieldAnnotation;
+import com.datatorrent.bufferserver.internal.FlowControlPolicy;
 import com.datatorrent.common.experimental.AppData;
 import com.datatorrent.common.metric.MetricsAggregator;
 import com.datatorrent.common.metric.SingleMetricAggregator;
@@ -161,6 +162,64 @@ public class LogicalPlan implements Serializable, DAG
    * Then it can be moved back to DAGContext.
    */
   public static Attribute<Boolean> FAST_PUBLISHER_SUBSCRIBER = new Attribute<>(false);
+  /**
+   * A flag to spool buffer server blocks into preallocated memory mapped segment files instead of a file per block.
+   */
+  public static Attribute<Boolean> BUFFER_SPOOLING_MAPPED_SEGMENTS = new Attribute<>(false);
+  /**
+   * Number of threads that spool the buffer server blocks and read them back, typically one per disk of the spool.
+   */
+  public static Attribute<Integer> BUFFER_SPOOLING_WORKERS = new Attribute<>(1);
+  /**
+   * Number of spooled buffer server blocks that are read back ahead of a subscriber reading from the spool.
+   */
+  public static Attribute<Integer> BUFFER_SPOOLING_READ_AHEAD_BLOCKS = new Attribute<>(2);
+  /**
+   * A flag to run the operators of a container as tasks on a pool of threads sized to the vcores of the container,
+   * instead of a thread per operator that polls its input streams.
+   */
+  public static Attribute<Boolean> SHARED_OPERATOR_THREADS = new Attribute<>(false);
+  /**
+   * A flag to send the heartbeats of the containers in a compact binary encoding instead of with Java serialization.
+   * The master reads both and responds to a heartbeat in the encoding of the heartbeat. Turn it off to run containers
+   * against a master that predates the binary encoding.
+   */
+  public static Attribute<Boolean> BINARY_HEARTBEAT_ENCODING = new Attribute<>(true);
+  /**
+   * A flag to roll up the stats of the windows of an operator in the container between two heartbeats instead of
+   * sending the stats of every window to the master. The stats of the operators with a stats listener annotated with
+   * {@link com.datatorrent.api.StatsListener.PerWindowStats} are not rolled up.
+   */
+  public static Attribute<Boolean> AGGREGATE_WINDOW_STATS = new Attribute<>(false);
+  /**
+   * A flag to append the changes of the physical plan to the write ahead log in a journal writer thread, which flushes
+   * the changes written while the previous flush was in progress at once, instead of flushing every change in the
+   * thread that made it. The changes which are acknowledged to a client, such as property changes, are still waited
+   * for.
+   */
+  public static Attribute<Boolean> JOURNAL_GROUP_COMMIT = new Attribute<>(false);
+  /**
+   * Number of event loops that drive the buffer server and the buffer server publishers and subscribers of a container.
+   * The connections are spread over the loops by data list, so that a publisher and its subscribers share a loop.
+   */
+  public static Attribute<Integer> EVENT_LOOP_COUNT = new Attribute<>(1);
+  /**
+   * A flag to have the buffer server write the tuples of a subscriber on the same host to a memory mapped ring shared
+   * with the subscriber instead of its socket. The buffer server still manages the windows, purge and reset of the
+   * stream. {@link com.datatorrent.stram.StramLocalCluster} turns it on unless it is set.
+   */
+  public static Attribute<Boolean> BUFFER_SERVER_SHARED_MEMORY = new Attribute<>(false);
+  /**
+   * Capacity in bytes of the shared memory ring of a subscriber, a power of 2. The buffer server creates a ring file of
+   * this size per subscriber and uses the socket for a subscriber whose ring the file system has no room for.
+   */
+  public static Attribute<Integer> BUFFER_SERVER_SHARED_MEMORY_RING_CAPACITY = new Attribute<>(8 * 1024 * 1024);
+  /**
+   * Policy of the buffer server that decides which subscribers of a stream hold back its publisher once they fall
+   * behind. {@link FlowControlPolicy#SLOWEST} waits for the slowest subscriber, the other policies let the laggards read
+   * from the spool instead.
+   */
+  public static Attribute<FlowControlPolicy> BUFFER_SERVER_FLOW_CONTROL = new Attribute<>(FlowControlPolicy.SLOWEST);
   public static Attribute<Long> HDFS_TOKEN_RENEWAL_INTERVAL = new Attribute<>(86400000L);
   public static Attribute<Long> HDFS_TOKEN_LIFE_TIME = new Attribute<>(604800000L);
   public static Attribute<Long> RM_TOKEN_RENEWAL_INTERVAL = new Attribute<>(YarnConfiguration.DELEGATION_TOKEN_RENEW_INTERVAL_DEFAULT);
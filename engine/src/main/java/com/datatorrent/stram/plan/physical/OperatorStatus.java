@@ -53,12 +53,15 @@ public class OperatorStatus implements BatchedOperatorStats, java.io.Serializabl
     public String recordingId;
     public final TimedMovingAverageLong tuplesPMSMA;
     public final TimedMovingAverageLong bufferServerBytesPMSMA;
+    public final TimedMovingAverageLong bufferServerUncompressedBytesPMSMA;
     public final MovingAverageLong queueSizeMA;
 
     public PortStatus()
     {
       tuplesPMSMA = new TimedMovingAverageLong(throughputCalculationMaxSamples, throughputCalculationInterval);
       bufferServerBytesPMSMA = new TimedMovingAverageLong(throughputCalculationMaxSamples, throughputCalculationInterval);
+      bufferServerUncompressedBytesPMSMA = new TimedMovingAverageLong(throughputCalculationMaxSamples,
+          throughputCalculationInterval);
       queueSizeMA = new MovingAverageLong(10);
     }
   }
@@ -71,11 +74,18 @@ public class OperatorStatus implements BatchedOperatorStats, java.io.Serializabl
   public final VersionedLong currentWindowId = statsRevs.newVersionedLong();
   public final VersionedLong tuplesProcessedPSMA = statsRevs.newVersionedLong();
   public final VersionedLong tuplesEmittedPSMA = statsRevs.newVersionedLong();
+  public final VersionedLong totalWindowsProcessed = statsRevs.newVersionedLong();
+  /**
+   * minimum and maximum end window latency of the windows reported in the last heartbeat
+   */
+  public final VersionedLong minEndWindowLatency = statsRevs.newVersionedLong();
+  public final VersionedLong maxEndWindowLatency = statsRevs.newVersionedLong();
   public String recordingId;
   public Stats.CheckpointStats checkpointStats;
   public final MovingAverageLong checkpointTimeMA;
   public final TimedMovingAverageLong cpuNanosPMSMA;
   public final MovingAverageLong latencyMA;
+  public final MovingAverageLong endWindowLatencyMA;
   public final Map<String, PortStatus> inputPortStatusList = new ConcurrentHashMap<>();
   public final Map<String, PortStatus> outputPortStatusList = new ConcurrentHashMap<>();
   public List<OperatorStats> lastWindowedStats = Collections.emptyList();
@@ -101,6 +111,7 @@ public class OperatorStatus implements BatchedOperatorStats, java.io.Serializabl
 
     cpuNanosPMSMA = new TimedMovingAverageLong(throughputCalculationMaxSamples, throughputCalculationInterval);
     latencyMA = new MovingAverageLong(throughputCalculationInterval / heartbeatInterval);
+    endWindowLatencyMA = new MovingAverageLong(throughputCalculationInterval / heartbeatInterval);
     checkpointTimeMA = new MovingAverageLong(throughputCalculationInterval / heartbeatInterval);
     this.windowProcessingTimeoutMillis = dag.getValue(LogicalPlan.STREAMING_WINDOW_SIZE_MILLIS)
       * om.getValue(OperatorContext.TIMEOUT_WINDOW_COUNT);
@@ -18,26 +18,31 @@
  */
 package com.datatorrent.stram.stream;
 
+import java.io.IOException;
 import java.net.InetSocketAddress;
+import java.nio.channels.SelectionKey;
+import java.util.ArrayDeque;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import org.apache.apex.api.operator.ControlTuple;
 
+import com.datatorrent.api.Context.PortContext;
 import com.datatorrent.api.StreamCodec;
 import com.datatorrent.bufferserver.client.Publisher;
 import com.datatorrent.bufferserver.packet.BeginWindowTuple;
-import com.datatorrent.bufferserver.packet.DataTuple;
-import com.datatorrent.bufferserver.packet.EndStreamTuple;
 import com.datatorrent.bufferserver.packet.EndWindowTuple;
 import com.datatorrent.bufferserver.packet.MessageType;
-import com.datatorrent.bufferserver.packet.PayloadTuple;
 import com.datatorrent.bufferserver.packet.ResetWindowTuple;
-import com.datatorrent.bufferserver.packet.WindowIdTuple;
 import com.datatorrent.bufferserver.util.Codec;
+import com.datatorrent.bufferserver.util.LZ4Codec;
 import com.datatorrent.netlet.EventLoop;
+import com.datatorrent.netlet.util.Slice;
+import com.datatorrent.netlet.util.VarInt;
 import com.datatorrent.stram.codec.StatefulStreamCodec;
 import com.datatorrent.stram.codec.StatefulStreamCodec.DataStatePair;
 import com.datatorrent.stram.engine.ByteCounterStream;
@@ -45,7 +50,8 @@ import com.datatorrent.stram.engine.StreamContext;
 import com.datatorrent.stram.tuple.CustomControlTuple;
 import com.datatorrent.stram.tuple.Tuple;
 
-import static java.lang.Thread.sleep;
+import static com.datatorrent.bufferserver.packet.Tuple.LZ4_COMPRESSION;
+import static com.datatorrent.bufferserver.packet.Tuple.NO_COMPRESSION;
 
 /**
  * Implements tuple flow of node to then buffer server in a logical stream<p>
@@ -54,16 +60,40 @@ import static java.lang.Thread.sleep;
  * This buffer server is a write instance of a stream and hence would take care of persistence and retaining tuples till they are consumed<br>
  * Partitioning is managed by this instance of the buffer server<br>
  * <br>
+ * Tuples are serialized along with their length into frame buffers owned by the publisher and the frames are handed
+ * over to the event loop without copying. When the send queue is full or all the frame buffers are in flight, the
+ * publisher parks until the event loop writes to the socket.<br>
+ * <br>
+ * When {@link PortContext#BUFFER_SERVER_COMPRESSION} is set, the payloads that shrink when compressed with LZ4 are sent
+ * compressed, the small ones are not worth the effort and are always sent as they are.<br>
+ * <br>
  *
  * @since 0.3.2
  */
 public class BufferServerPublisher extends Publisher implements ByteCounterStream
 {
+  public static final int FRAME_BUFFER_SIZE = 64 * 1024;
+  public static final int MAX_FRAME_BUFFERS = 32;
+  private static final long PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(5);
+  /**
+   * payloads shorter than this are sent uncompressed.
+   */
+  static final int MIN_COMPRESSED_PAYLOAD_LENGTH = 64;
   private StreamCodec<Object> serde;
   private final AtomicLong publishedByteCount;
+  private final AtomicLong uncompressedByteCount = new AtomicLong();
+  private LZ4Codec compressor;
+  private byte[] compressionBuffer;
   private EventLoop eventloop;
   private int count;
   private StatefulStreamCodec<Object> statefulSerde;
+  private final ArrayDeque<FrameBuffer> inFlight = new ArrayDeque<>();
+  private final ArrayDeque<FrameBuffer> freeBuffers = new ArrayDeque<>();
+  private FrameBuffer frameBuffer = new FrameBuffer(FRAME_BUFFER_SIZE);
+  private volatile long sentSequence;
+  private volatile long flushedSequence;
+  private volatile Thread waiter;
+  private SelectionKey selectionKey;
 
   public BufferServerPublisher(String sourceId, int queueCapacity)
   {
@@ -76,11 +106,9 @@ public class BufferServerPublisher extends Publisher implements ByteCounterStrea
    * @param payload
    */
   @Override
-  @SuppressWarnings("SleepWhileInLoop")
   public void put(Object payload)
   {
     count++;
-    byte[] array;
     if (payload instanceof Tuple) {
       final Tuple t = (Tuple)payload;
 
@@ -89,47 +117,36 @@ public class BufferServerPublisher extends Publisher implements ByteCounterStrea
           if (statefulSerde != null) {
             statefulSerde.resetState();
           }
-          array = WindowIdTuple.getSerializedTuple((int)t.getWindowId());
-          array[0] = MessageType.CHECKPOINT_VALUE;
+          writeWindowIdFrame(MessageType.CHECKPOINT_VALUE, (int)t.getWindowId());
           break;
 
         case BEGIN_WINDOW:
-          array = BeginWindowTuple.getSerializedTuple((int)t.getWindowId());
+          writeFrame(BeginWindowTuple.getSerializedTuple((int)t.getWindowId()));
           break;
 
         case END_WINDOW:
-          array = EndWindowTuple.getSerializedTuple((int)t.getWindowId());
+          writeFrame(EndWindowTuple.getSerializedTuple((int)t.getWindowId()));
           break;
 
         case CUSTOM_CONTROL:
           if (statefulSerde == null) {
-            array = com.datatorrent.bufferserver.packet.CustomControlTuple
-                .getSerializedTuple(MessageType.CUSTOM_CONTROL_VALUE, serde.toByteArray(payload));
+            writeDataFrame(MessageType.CUSTOM_CONTROL_VALUE, serde.toByteArray(payload));
           } else {
             DataStatePair dsp = statefulSerde.toDataStatePair(payload);
             if (dsp.state != null) {
-              array = com.datatorrent.bufferserver.packet.CustomControlTuple
-                  .getSerializedTuple(MessageType.CODEC_STATE_VALUE, dsp.state);
-              try {
-                while (!write(array)) {
-                  sleep(5);
-                }
-              } catch (InterruptedException ie) {
-                throw new RuntimeException(ie);
-              }
+              writeDataFrame(MessageType.CODEC_STATE_VALUE, dsp.state);
             }
-            array = com.datatorrent.bufferserver.packet.CustomControlTuple
-                .getSerializedTuple(MessageType.CUSTOM_CONTROL_VALUE, dsp.data);
+            writeDataFrame(MessageType.CUSTOM_CONTROL_VALUE, dsp.data);
           }
           break;
 
         case END_STREAM:
-          array = EndStreamTuple.getSerializedTuple((int)t.getWindowId());
+          writeWindowIdFrame(MessageType.END_STREAM_VALUE, (int)t.getWindowId());
           break;
 
         case RESET_WINDOW:
           com.datatorrent.stram.tuple.ResetWindowTuple rwt = (com.datatorrent.stram.tuple.ResetWindowTuple)t;
-          array = ResetWindowTuple.getSerializedTuple(rwt.getBaseSeconds(), rwt.getIntervalMillis());
+          writeFrame(ResetWindowTuple.getSerializedTuple(rwt.getBaseSeconds(), rwt.getIntervalMillis()));
           break;
 
         default:
@@ -137,39 +154,238 @@ public class BufferServerPublisher extends Publisher implements ByteCounterStrea
       }
     } else {
       if (statefulSerde == null) {
-        array = PayloadTuple.getSerializedTuple(serde.getPartition(payload), serde.toByteArray(payload));
+        writePayloadFrame(serde.getPartition(payload), serde.toByteArray(payload));
       } else {
         DataStatePair dsp = statefulSerde.toDataStatePair(payload);
         /*
          * if there is any state write that for the subscriber before we write the data.
          */
         if (dsp.state != null) {
-          array = DataTuple.getSerializedTuple(MessageType.CODEC_STATE_VALUE, dsp.state);
-          try {
-            while (!write(array)) {
-              sleep(5);
-            }
-          } catch (InterruptedException ie) {
-            throw new RuntimeException(ie);
-          }
+          writeDataFrame(MessageType.CODEC_STATE_VALUE, dsp.state);
         }
         /*
          * Now that the state if any has been sent, we can proceed with the actual data we want to send.
          */
-        array = PayloadTuple.getSerializedTuple(statefulSerde.getPartition(payload), dsp.data);
+        writePayloadFrame(statefulSerde.getPartition(payload), dsp.data);
       }
     }
+  }
 
-    try {
-      while (!write(array)) {
-        sleep(5);
+  private void writeFrame(byte[] array)
+  {
+    final int offset = beginFrame(array.length);
+    System.arraycopy(array, 0, frameBuffer.array, offset, array.length);
+    endFrame(offset + array.length);
+  }
+
+  private void writeWindowIdFrame(byte type, int windowId)
+  {
+    final int size = 1 + (32 - Integer.numberOfLeadingZeros(windowId)) / 7 + 1;
+    final int offset = beginFrame(size);
+    final byte[] array = frameBuffer.array;
+    array[offset] = type;
+    VarInt.write(windowId, array, offset + 1);
+    endFrame(offset + size);
+  }
+
+  private void writeDataFrame(byte type, Slice f)
+  {
+    final int offset = beginFrame(1 + f.length);
+    final byte[] array = frameBuffer.array;
+    array[offset] = type;
+    System.arraycopy(f.buffer, f.offset, array, offset + 1, f.length);
+    endFrame(offset + 1 + f.length);
+  }
+
+  private void writePayloadFrame(int partition, Slice f)
+  {
+    if (compressor != null && f.length >= MIN_COMPRESSED_PAYLOAD_LENGTH && writeCompressedPayloadFrame(partition, f)) {
+      return;
+    }
+    final int offset = beginFrame(5 + f.length);
+    final byte[] array = frameBuffer.array;
+    array[offset] = MessageType.PAYLOAD_VALUE;
+    array[offset + 1] = (byte)(partition >> 24);
+    array[offset + 2] = (byte)(partition >> 16);
+    array[offset + 3] = (byte)(partition >> 8);
+    array[offset + 4] = (byte)partition;
+    System.arraycopy(f.buffer, f.offset, array, offset + 5, f.length);
+    endFrame(offset + 5 + f.length);
+  }
+
+  /**
+   * Writes the payload compressed unless it does not get any smaller.
+   *
+   * @return true if the compressed payload was written
+   */
+  private boolean writeCompressedPayloadFrame(int partition, Slice f)
+  {
+    final int maxLength = LZ4Codec.maxCompressedLength(f.length);
+    if (compressionBuffer == null || compressionBuffer.length < maxLength) {
+      compressionBuffer = new byte[Math.max(maxLength, FRAME_BUFFER_SIZE)];
+    }
+    final int compressedLength = compressor.compress(f.buffer, f.offset, f.length, compressionBuffer, 0);
+    final int headerSize = 5 + VarInt.getSize(f.length);
+    if (headerSize + compressedLength >= 5 + f.length) {
+      return false;
+    }
+
+    final int offset = beginFrame(headerSize + compressedLength);
+    final byte[] array = frameBuffer.array;
+    array[offset] = MessageType.COMPRESSED_PAYLOAD_VALUE;
+    array[offset + 1] = (byte)(partition >> 24);
+    array[offset + 2] = (byte)(partition >> 16);
+    array[offset + 3] = (byte)(partition >> 8);
+    array[offset + 4] = (byte)partition;
+    VarInt.write(f.length, array, offset + 5);
+    System.arraycopy(compressionBuffer, 0, array, offset + headerSize, compressedLength);
+    uncompressedByteCount.addAndGet(5 + f.length - headerSize - compressedLength);
+    endFrame(offset + headerSize + compressedLength);
+    return true;
+  }
+
+  /**
+   * Reserves room for a frame in the current frame buffer and writes its length.
+   *
+   * @param size size of the serialized tuple
+   * @return offset at which the serialized tuple is to be written
+   */
+  private int beginFrame(int size)
+  {
+    final int frameSize = size + 5; /* for the length */
+    FrameBuffer fb = frameBuffer;
+    if (fb.array.length - fb.position < frameSize) {
+      fb = acquireFrameBuffer(frameSize);
+    }
+    fb.start = fb.position;
+    return VarInt.write(size, fb.array, fb.position);
+  }
+
+  /**
+   * Hands the frame that begins at the start of the current frame buffer over to the event loop.
+   *
+   * @param end offset following the last byte of the frame
+   */
+  private void endFrame(int end)
+  {
+    final FrameBuffer fb = frameBuffer;
+    final int length = end - fb.start;
+    if (!send(fb.array, fb.start, length)) {
+      final Thread thread = Thread.currentThread();
+      waiter = thread;
+      try {
+        while (!send(fb.array, fb.start, length)) {
+          park();
+        }
+      } finally {
+        waiter = null;
+      }
+    }
+    fb.position = end;
+    fb.sequence = ++sentSequence;
+    publishedByteCount.addAndGet(length);
+    uncompressedByteCount.addAndGet(length);
+  }
+
+  /**
+   * Switches to a frame buffer with at least the given number of bytes available. Frame buffers are recycled once
+   * the event loop has flushed all the frames handed over from them, a new one is allocated only while fewer than
+   * {@link #MAX_FRAME_BUFFERS} are in flight and otherwise the publisher waits for the event loop to catch up.
+   *
+   * @param frameSize size of the frame including its length
+   * @return the current frame buffer
+   */
+  private FrameBuffer acquireFrameBuffer(int frameSize)
+  {
+    if (frameBuffer.sequence <= flushedSequence) {
+      frameBuffer.position = 0;
+      if (frameBuffer.array.length >= frameSize) {
+        return frameBuffer;
+      }
+    }
+    if (frameBuffer.position > 0) {
+      inFlight.add(frameBuffer);
+    } else if (frameBuffer.array.length == FRAME_BUFFER_SIZE) {
+      freeBuffers.add(frameBuffer);
+    }
+
+    FrameBuffer fb = frameSize > FRAME_BUFFER_SIZE ? null : reclaimFrameBuffer();
+    if (fb == null) {
+      if (inFlight.size() >= MAX_FRAME_BUFFERS) {
+        waiter = Thread.currentThread();
+        try {
+          while (inFlight.size() >= MAX_FRAME_BUFFERS && inFlight.peekFirst().sequence > flushedSequence) {
+            park();
+          }
+        } finally {
+          waiter = null;
+        }
+        if (frameSize <= FRAME_BUFFER_SIZE) {
+          fb = reclaimFrameBuffer();
+        }
+      }
+      if (fb == null) {
+        fb = new FrameBuffer(Math.max(frameSize, FRAME_BUFFER_SIZE));
+      }
+    }
+
+    return frameBuffer = fb;
+  }
+
+  private FrameBuffer reclaimFrameBuffer()
+  {
+    final long flushed = flushedSequence;
+    FrameBuffer fb;
+    while ((fb = inFlight.peekFirst()) != null && fb.sequence <= flushed) {
+      inFlight.pollFirst();
+      fb.position = 0;
+      if (fb.array.length == FRAME_BUFFER_SIZE) {
+        freeBuffers.add(fb);
       }
-      publishedByteCount.addAndGet(array.length);
-    } catch (InterruptedException ie) {
-      throw new RuntimeException(ie);
+    }
+    return freeBuffers.pollFirst();
+  }
+
+  private void park()
+  {
+    LockSupport.parkNanos(this, PARK_NANOS);
+    if (Thread.interrupted()) {
+      throw new RuntimeException(new InterruptedException());
     }
   }
 
+  /**
+   * Records how far the event loop got with the frames handed over to it and wakes up the publisher if it waits for
+   * room in the send queue or for a frame buffer.
+   *
+   * @throws IOException
+   */
+  @Override
+  public void write() throws IOException
+  {
+    final long sequence = sentSequence;
+    super.write();
+    /*
+     * the client stops watching for the socket to become writable only once all the queued data has been written to
+     * it, at which point the frame buffers holding the frames queued before this call may be reused.
+     */
+    final SelectionKey key = selectionKey;
+    if (key != null && key.isValid() && (key.interestOps() & SelectionKey.OP_WRITE) == 0) {
+      flushedSequence = sequence;
+    }
+    final Thread thread = waiter;
+    if (thread != null) {
+      LockSupport.unpark(thread);
+    }
+  }
+
+  @Override
+  public void registered(SelectionKey key)
+  {
+    super.registered(key);
+    selectionKey = key;
+  }
+
   @Override
   public boolean putControl(ControlTuple payload)
   {
@@ -191,7 +407,7 @@ public class BufferServerPublisher extends Publisher implements ByteCounterStrea
     eventloop.connect(address.isUnresolved() ? new InetSocketAddress(address.getHostName(), address.getPort()) : address, this);
 
     logger.debug("Registering publisher: {} {} windowId={} server={}", new Object[] {context.getSourceId(), context.getId(), Codec.getStringWindowId(context.getFinishedWindowId()), context.getBufferServerAddress()});
-    super.activate(null, context.getFinishedWindowId());
+    super.activate(null, context.getFinishedWindowId(), compressor == null ? NO_COMPRESSION : LZ4_COMPRESSION);
   }
 
   @Override
@@ -219,6 +435,9 @@ public class BufferServerPublisher extends Publisher implements ByteCounterStrea
     } else {
       serde = (StreamCodec<Object>)codec;
     }
+    if (context.getValue(PortContext.BUFFER_SERVER_COMPRESSION)) {
+      compressor = new LZ4Codec();
+    }
   }
 
   @Override
@@ -236,6 +455,16 @@ public class BufferServerPublisher extends Publisher implements ByteCounterStrea
     return publishedByteCount.get();
   }
 
+  @Override
+  public long getUncompressedByteCount(boolean reset)
+  {
+    if (reset) {
+      return uncompressedByteCount.getAndSet(0);
+    }
+
+    return uncompressedByteCount.get();
+  }
+
   @Override
   public int getCount(boolean reset)
   {
@@ -248,5 +477,21 @@ public class BufferServerPublisher extends Publisher implements ByteCounterStrea
     }
   }
 
+  private static class FrameBuffer
+  {
+    final byte[] array;
+    int start;
+    int position;
+    /**
+     * sequence number of the last frame handed over to the event loop from this buffer.
+     */
+    long sequence;
+
+    FrameBuffer(int capacity)
+    {
+      array = new byte[capacity];
+    }
+  }
+
   private static final Logger logger = LoggerFactory.getLogger(BufferServerPublisher.class);
 }
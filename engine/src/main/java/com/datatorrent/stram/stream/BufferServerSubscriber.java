@@ -18,29 +18,42 @@
  */
 package com.datatorrent.stram.stream;
 
+import java.io.Serializable;
 import java.net.InetSocketAddress;
 import java.util.ArrayDeque;
+import java.util.Arrays;
 import java.util.HashMap;
-import java.util.Iterator;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicLong;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import org.apache.apex.api.operator.ControlTuple;
+import org.apache.commons.lang3.SerializationUtils;
 
+import com.datatorrent.api.Context.PortContext;
 import com.datatorrent.api.Sink;
 import com.datatorrent.api.StreamCodec;
 import com.datatorrent.bufferserver.client.Subscriber;
+import com.datatorrent.bufferserver.packet.CompressedPayloadTuple;
+import com.datatorrent.bufferserver.packet.MessageType;
 import com.datatorrent.bufferserver.util.Codec;
+import com.datatorrent.common.util.NameableThreadFactory;
 import com.datatorrent.netlet.EventLoop;
 import com.datatorrent.netlet.util.CircularBuffer;
 import com.datatorrent.netlet.util.Slice;
+import com.datatorrent.netlet.util.VarInt;
+import com.datatorrent.netlet.util.VarInt.MutableInt;
 import com.datatorrent.stram.codec.StatefulStreamCodec;
 import com.datatorrent.stram.codec.StatefulStreamCodec.DataStatePair;
 import com.datatorrent.stram.engine.ByteCounterStream;
+import com.datatorrent.stram.engine.NotifyingReservoir;
 import com.datatorrent.stram.engine.StreamContext;
 import com.datatorrent.stram.engine.SweepableReservoir;
+import com.datatorrent.stram.engine.TupleBatch;
 import com.datatorrent.stram.engine.WindowGenerator;
 import com.datatorrent.stram.plan.logical.StreamCodecWrapperForPersistance;
 import com.datatorrent.stram.tuple.CheckpointTuple;
@@ -49,11 +62,28 @@ import com.datatorrent.stram.tuple.EndWindowTuple;
 import com.datatorrent.stram.tuple.ResetWindowTuple;
 import com.datatorrent.stram.tuple.Tuple;
 
+import static com.datatorrent.bufferserver.packet.Tuple.LZ4_COMPRESSION;
+import static com.datatorrent.bufferserver.packet.Tuple.SHARED_MEMORY_TRANSPORT;
+import static com.datatorrent.bufferserver.packet.Tuple.SOCKET_TRANSPORT;
+
 /**
  * Implement tuple flow from buffer server to the node in a logical stream<p>
  * <br>
  * Extends SocketInputStream as buffer server and node communicate via a socket<br>
  * This buffer server is a read instance of a stream and takes care of connectivity with upstream buffer server<br>
+ * <br>
+ * The fragments received from the buffer server are decoded once into a ring shared by all the reservoirs. Each
+ * reservoir has its own read index into the ring, and a reservoir that finds the ring drained decodes more fragments
+ * unless another reservoir already does. A slow reservoir holds back the others only once it is a full ring behind.<br>
+ * <br>
+ * When {@link PortContext#DESERIALIZATION_THREADS} is set, runs of payload fragments are deserialized by worker threads
+ * with their own copy of the codec. The ring then holds the pending run in place of its tuples, so the reservoirs still
+ * read the tuples in order. Codec state and resets are passed to every worker in order with the runs.<br>
+ * <br>
+ * The subscriber accepts payloads compressed by the publisher and decompresses them before they are deserialized.<br>
+ * <br>
+ * When {@link StreamContext#SHARED_MEMORY_TRANSPORT} is set, the subscriber asks the buffer server on the same host to
+ * write the fragments to a shared memory ring instead of the socket.<br>
  *
  * @since 0.3.2
  */
@@ -65,12 +95,33 @@ public class BufferServerSubscriber extends Subscriber implements ByteCounterStr
   protected StatefulStreamCodec<Object> statefulSerde;
   protected EventLoop eventloop;
   private final DataStatePair dsp;
-  CircularBuffer<Slice> offeredFragments;
+  volatile CircularBuffer<Slice> offeredFragments;
   CircularBuffer<Slice> polledFragments;
   CircularBuffer<Slice> freeFragments;
   private final ArrayDeque<CircularBuffer<Slice>> backlog;
   private int lastWindowId = WindowGenerator.MAX_WINDOW_ID;
   private final AtomicLong readByteCount;
+  private final AtomicLong uncompressedByteCount = new AtomicLong();
+  /**
+   * decoded tuples shared by all the reservoirs, the tuple with sequence number n is stored at n &amp; mask.
+   */
+  private final Object[] ring;
+  private final int mask;
+  /**
+   * sequence number of the next tuple to be decoded into the ring.
+   */
+  private volatile long head;
+  private final AtomicBoolean decoding;
+  private final MutableInt nextOffset;
+  private final Slice data;
+  private final Slice state;
+  private DeserializationWorker[] workers;
+  private int nextWorker;
+  private Batch batch;
+  /**
+   * maximum number of payload fragments handed over to a deserialization worker at once.
+   */
+  private static final int BATCH_SIZE = 64;
 
   public BufferServerSubscriber(String id, int queueCapacity)
   {
@@ -82,6 +133,12 @@ public class BufferServerSubscriber extends Subscriber implements ByteCounterStr
     polledFragments = offeredFragments = new CircularBuffer<>(queueCapacity);
     freeFragments = new CircularBuffer<>(queueCapacity);
     backlog = new ArrayDeque<>();
+    ring = new Object[Integer.highestOneBit(Math.max(queueCapacity, 2) - 1) << 1];
+    mask = ring.length - 1;
+    decoding = new AtomicBoolean();
+    nextOffset = new MutableInt();
+    data = new Slice(null, 0, 0);
+    state = new Slice(null, 0, 0);
   }
 
   @Override
@@ -89,6 +146,14 @@ public class BufferServerSubscriber extends Subscriber implements ByteCounterStr
   {
     super.read(len);
     readByteCount.addAndGet(len);
+    uncompressedByteCount.addAndGet(len);
+  }
+
+  @Override
+  protected void readFromRing(int len)
+  {
+    readByteCount.addAndGet(len);
+    uncompressedByteCount.addAndGet(len);
   }
 
   @Override
@@ -100,12 +165,17 @@ public class BufferServerSubscriber extends Subscriber implements ByteCounterStr
     eventloop.connect(address.isUnresolved() ? new InetSocketAddress(address.getHostName(), address.getPort()) : address, this);
 
     logger.debug("Registering subscriber: id={} upstreamId={} streamLogicalName={} windowId={} mask={} partitions={} server={}", new Object[] {context.getSinkId(), context.getSourceId(), context.getId(), Codec.getStringWindowId(context.getFinishedWindowId()), context.getPartitionMask(), context.getPartitions(), context.getBufferServerAddress()});
-    activate(null, context.getId() + '/' + context.getSinkId(), context.getSourceId(), context.getPartitionMask(), context.getPartitions(), context.getFinishedWindowId(), freeFragments.capacity());
+    final int transport = context.getValue(StreamContext.SHARED_MEMORY_TRANSPORT) ? SHARED_MEMORY_TRANSPORT : SOCKET_TRANSPORT;
+    activate(null, context.getId() + '/' + context.getSinkId(), context.getSourceId(), context.getPartitionMask(), context.getPartitions(), context.getFinishedWindowId(), freeFragments.capacity(), LZ4_COMPRESSION, transport);
   }
 
   @Override
   public void onMessage(byte[] buffer, int offset, int length)
   {
+    if (onTransportMessage(buffer, offset, length)) {
+      return;
+    }
+
     Slice f;
     if (freeFragments.isEmpty()) {
       f = new Slice(buffer, offset, length);
@@ -127,6 +197,13 @@ public class BufferServerSubscriber extends Subscriber implements ByteCounterStr
         offeredFragments.add(f);
       }
     }
+
+    for (BufferReservoir reservoir : reservoirs) {
+      final Runnable listener = reservoir.listener;
+      if (listener != null) {
+        listener.run();
+      }
+    }
   }
 
   @Override
@@ -142,6 +219,18 @@ public class BufferServerSubscriber extends Subscriber implements ByteCounterStr
       serde = (StreamCodec<Object>)codec;
     }
     baseSeconds = context.getFinishedWindowId() & 0xffffffff00000000L;
+
+    final int threads = context.getValue(PortContext.DESERIALIZATION_THREADS);
+    if (threads > 0) {
+      if (statefulSerde == null && !(serde instanceof Serializable)) {
+        logger.warn("Stream codec {} cannot be copied, tuples are deserialized on the operator thread", serde);
+      } else {
+        workers = new DeserializationWorker[threads];
+        for (int i = threads; i-- > 0;) {
+          workers[i] = new DeserializationWorker(context.getSinkId() + "-deserializer-" + i);
+        }
+      }
+    }
   }
 
   @Override
@@ -154,6 +243,12 @@ public class BufferServerSubscriber extends Subscriber implements ByteCounterStr
   @Override
   public void teardown()
   {
+    if (workers != null) {
+      for (DeserializationWorker worker : workers) {
+        worker.executor.shutdown();
+      }
+      workers = null;
+    }
   }
 
   @SuppressWarnings("VolatileArrayField")
@@ -239,25 +334,423 @@ public class BufferServerSubscriber extends Subscriber implements ByteCounterStr
     return readByteCount.get();
   }
 
-  class BufferReservoir extends CircularBuffer<Object> implements SweepableReservoir
+  @Override
+  public long getUncompressedByteCount(boolean reset)
+  {
+    if (reset) {
+      return uncompressedByteCount.getAndSet(0);
+    }
+
+    return uncompressedByteCount.get();
+  }
+
+  /**
+   * Decodes the pending fragments into the ring until it is full or no fragments are left. Only one thread decodes at
+   * a time, the others return right away and pick up the decoded tuples on their next sweep.
+   */
+  void decode()
+  {
+    if (!decoding.compareAndSet(false, true)) {
+      return;
+    }
+
+    try {
+      long sequence = head;
+      long limit = sequence + ring.length;
+      for (BufferReservoir reservoir : reservoirs) {
+        if (reservoir.readIndex + ring.length < limit) {
+          limit = reservoir.readIndex + ring.length;
+        }
+      }
+
+      while (sequence < limit) {
+        Slice fm = pollFragment();
+        if (fm == null) {
+          break;
+        }
+        Object o = decode(fm.buffer, fm.offset, fm.length, sequence);
+        freeFragments.offer(fm);
+        if (o != null) {
+          if (batch != null && o != batch) {
+            /* a batch covers consecutive sequence numbers */
+            dispatchBatch();
+          }
+          ring[(int)sequence++ & mask] = o;
+        }
+      }
+
+      if (batch != null) {
+        dispatchBatch();
+      }
+      head = sequence;
+    } finally {
+      decoding.set(false);
+    }
+  }
+
+  private Slice pollFragment()
+  {
+    if (polledFragments.isEmpty()) {
+      if (polledFragments == offeredFragments) {
+        if (suspended) {
+          synchronized (backlog) {
+            if (suspended && polledFragments == offeredFragments) {
+              resumeRead();
+              suspended = false;
+            }
+          }
+        }
+        return null;
+      }
+
+      synchronized (backlog) {
+        polledFragments = backlog.remove();
+      }
+    }
+
+    return polledFragments.pollUnsafe();
+  }
+
+  /**
+   * Decodes a fragment without creating a buffer server tuple for it.
+   *
+   * @return the decoded tuple or null if the fragment does not produce a tuple
+   */
+  private Object decode(byte[] buffer, int offset, int length, long sequence)
+  {
+    switch (buffer[offset]) {
+      case MessageType.NO_MESSAGE_VALUE:
+      case MessageType.NO_MESSAGE_ODD_VALUE:
+        return null;
+
+      case MessageType.CODEC_STATE_VALUE:
+        if (workers != null) {
+          broadcast(new Slice(buffer, offset + 1, length - 1));
+          return null;
+        }
+        state.buffer = buffer;
+        state.offset = offset + 1;
+        state.length = length - 1;
+        dsp.state = state;
+        return null;
+
+      case MessageType.RESET_WINDOW_VALUE:
+        baseSeconds = (long)VarInt.read(buffer, offset + 1, offset + length, nextOffset) << 32;
+        if (lastWindowId < WindowGenerator.MAX_WINDOW_ID) {
+          return null;
+        }
+        return new ResetWindowTuple(baseSeconds | VarInt.read(buffer, nextOffset.integer, offset + length, nextOffset));
+
+      case MessageType.PAYLOAD_VALUE:
+        if (workers != null) {
+          return addToBatch(buffer, offset + 5, length - 5, sequence);
+        }
+        return processPayload(buffer, offset + 5, length - 5);
+
+      case MessageType.COMPRESSED_PAYLOAD_VALUE:
+        return decodeCompressedPayload(buffer, offset, length, sequence);
+
+      case MessageType.CHECKPOINT_VALUE:
+        if (workers != null) {
+          if (statefulSerde != null) {
+            broadcast(null);
+          }
+        } else if (statefulSerde != null) {
+          statefulSerde.resetState();
+        }
+        return new CheckpointTuple(baseSeconds | readWindowId(buffer, offset, length));
+
+      case MessageType.END_WINDOW_VALUE:
+        lastWindowId = readWindowId(buffer, offset, length);
+        return new EndWindowTuple(baseSeconds | lastWindowId);
+
+      case MessageType.CUSTOM_CONTROL_VALUE:
+        if (workers != null) {
+          return addToBatch(buffer, offset + 1, length - 1, sequence);
+        }
+        return processPayload(buffer, offset + 1, length - 1);
+
+      case MessageType.END_STREAM_VALUE:
+        return new EndStreamTuple(baseSeconds | readWindowId(buffer, offset, length));
+
+      case MessageType.BEGIN_WINDOW_VALUE:
+        return new Tuple(MessageType.BEGIN_WINDOW, baseSeconds | readWindowId(buffer, offset, length));
+
+      default:
+        throw new IllegalArgumentException("Unhandled Message Type " + MessageType.valueOf(buffer[offset]));
+    }
+  }
+
+  private Object decodeCompressedPayload(byte[] buffer, int offset, int length, long sequence)
+  {
+    /* the decompressed payload gets its own array as the batches hold on to the arrays of their payloads */
+    final byte[] payload = CompressedPayloadTuple.getSerializedPayloadTuple(buffer, offset, length);
+    uncompressedByteCount.addAndGet(payload.length - length);
+    if (workers != null) {
+      return addToBatch(payload, 5, payload.length - 5, sequence);
+    }
+    return processPayload(payload, 5, payload.length - 5);
+  }
+
+  private int readWindowId(byte[] buffer, int offset, int length)
+  {
+    return VarInt.read(buffer, offset + 1, offset + length, nextOffset);
+  }
+
+  protected Object processPayload(byte[] buffer, int offset, int length)
+  {
+    data.buffer = buffer;
+    data.offset = offset;
+    data.length = length;
+    Object o;
+    if (statefulSerde == null) {
+      o = serde.fromByteArray(data);
+    } else {
+      dsp.data = data;
+      o = statefulSerde.fromDataStatePair(dsp);
+    }
+    return o;
+  }
+
+  private Batch addToBatch(byte[] buffer, int offset, int length, long sequence)
+  {
+    Batch b = batch;
+    if (b == null) {
+      batch = b = new Batch(workers[nextWorker], sequence);
+      if (++nextWorker == workers.length) {
+        nextWorker = 0;
+      }
+    }
+    b.add(buffer, offset, length);
+    if (b.size == BATCH_SIZE) {
+      dispatchBatch();
+    }
+    return b;
+  }
+
+  private void dispatchBatch()
+  {
+    batch.worker.executor.execute(batch);
+    batch = null;
+  }
+
+  /**
+   * Passes the codec state, or a reset of the codec state if null, to all the workers after the pending payloads.
+   */
+  private void broadcast(final Slice codecState)
+  {
+    if (batch != null) {
+      dispatchBatch();
+    }
+    for (final DeserializationWorker worker : workers) {
+      worker.executor.execute(new Runnable()
+      {
+        @Override
+        public void run()
+        {
+          if (codecState == null) {
+            worker.resetState();
+          } else {
+            worker.addState(codecState);
+          }
+        }
+      });
+    }
+  }
+
+  /**
+   *
+   * @param o element of the ring
+   * @param sequence sequence number of the element
+   * @return the tuple at the given sequence number, waiting for it to be deserialized if needed
+   */
+  static Object resolve(Object o, long sequence)
+  {
+    return o instanceof Batch ? ((Batch)o).get(sequence) : o;
+  }
+
+  /**
+   * Thread with its own copy of the codec that deserializes the payload handed over to it in order.<p>
+   * <br>
+   * A worker gets every codec state frame but only some of the payload, so the states that arrive between two of its
+   * payloads are concatenated and passed along with the next one. This relies on the state being a sequence of
+   * incremental updates that is wiped out by a reset, as is the case for the default stateful codec.
+   */
+  private class DeserializationWorker
+  {
+    final ExecutorService executor;
+    final StatefulStreamCodec<Object> statefulCodec;
+    final StreamCodec<Object> codec;
+    final DataStatePair dsp = new DataStatePair();
+    final Slice data = new Slice(null, 0, 0);
+    final Slice state = new Slice(new byte[0], 0, 0);
+
+    @SuppressWarnings("unchecked")
+    DeserializationWorker(String name)
+    {
+      executor = Executors.newSingleThreadExecutor(new NameableThreadFactory(name, true));
+      if (statefulSerde == null) {
+        statefulCodec = null;
+        codec = (StreamCodec<Object>)SerializationUtils.clone((Serializable)serde);
+      } else {
+        statefulCodec = statefulSerde.newInstance();
+        codec = null;
+      }
+    }
+
+    void addState(Slice codecState)
+    {
+      if (state.buffer.length - state.length < codecState.length) {
+        state.buffer = Arrays.copyOf(state.buffer, state.length + codecState.length);
+      }
+      System.arraycopy(codecState.buffer, codecState.offset, state.buffer, state.length, codecState.length);
+      state.length += codecState.length;
+    }
+
+    void resetState()
+    {
+      state.length = 0;
+      statefulCodec.resetState();
+    }
+
+    Object deserialize(byte[] buffer, int offset, int length)
+    {
+      data.buffer = buffer;
+      data.offset = offset;
+      data.length = length;
+      if (statefulCodec == null) {
+        return codec.fromByteArray(data);
+      }
+      if (state.length > 0) {
+        dsp.state = state;
+      }
+      dsp.data = data;
+      try {
+        return statefulCodec.fromDataStatePair(dsp);
+      } finally {
+        state.length = 0;
+      }
+    }
+  }
+
+  /**
+   * Run of consecutive payload fragments deserialized by one worker. The batch takes the place of its tuples in the
+   * ring until they are deserialized.
+   */
+  private static class Batch implements Runnable
+  {
+    final DeserializationWorker worker;
+    final long firstSequence;
+    final byte[][] buffers = new byte[BATCH_SIZE][];
+    final int[] offsets = new int[BATCH_SIZE];
+    final int[] lengths = new int[BATCH_SIZE];
+    final Object[] tuples = new Object[BATCH_SIZE];
+    int size;
+    private volatile boolean done;
+    private RuntimeException error;
+
+    Batch(DeserializationWorker worker, long firstSequence)
+    {
+      this.worker = worker;
+      this.firstSequence = firstSequence;
+    }
+
+    void add(byte[] buffer, int offset, int length)
+    {
+      buffers[size] = buffer;
+      offsets[size] = offset;
+      lengths[size++] = length;
+    }
+
+    @Override
+    public void run()
+    {
+      try {
+        for (int i = 0; i < size; i++) {
+          tuples[i] = worker.deserialize(buffers[i], offsets[i], lengths[i]);
+          buffers[i] = null;
+        }
+      } catch (RuntimeException ex) {
+        error = ex;
+      } catch (Throwable th) {
+        error = new RuntimeException(th);
+      } finally {
+        synchronized (this) {
+          done = true;
+          notifyAll();
+        }
+      }
+    }
+
+    /**
+     *
+     * @param sequence sequence number of a tuple in this batch
+     * @return the tuple if it is deserialized, null otherwise
+     */
+    Object peek(long sequence)
+    {
+      return done ? tuples[(int)(sequence - firstSequence)] : null;
+    }
+
+    Object get(long sequence)
+    {
+      if (!done) {
+        synchronized (this) {
+          while (!done) {
+            try {
+              wait();
+            } catch (InterruptedException ex) {
+              throw new RuntimeException(ex);
+            }
+          }
+        }
+      }
+      if (error != null) {
+        throw error;
+      }
+      return tuples[(int)(sequence - firstSequence)];
+    }
+  }
+
+  class BufferReservoir implements NotifyingReservoir
   {
-    protected boolean skipObject = false;
     private Sink<Object> sink;
+    private TupleBatch batch;
     int count;
+    volatile Runnable listener;
+    /**
+     * sequence number of the next tuple this reservoir reads from the ring.
+     */
+    volatile long readIndex;
 
     BufferReservoir(int capacity)
     {
-      super(capacity);
+      readIndex = head;
+    }
+
+    /**
+     *
+     * @param o data tuple read from the ring
+     * @return true if the tuple is to be delivered to the sink of this reservoir
+     */
+    protected boolean accept(Object o)
+    {
+      return true;
     }
 
     @Override
     public int size(final boolean dataTupleAware)
     {
-      int size = size();
+      long index = readIndex;
+      final long end = head;
+      int size = (int)(end - index);
       if (dataTupleAware) {
-        Iterator<Object> iterator = getFrozenIterator();
-        while (iterator.hasNext()) {
-          if (iterator.next() instanceof Tuple) {
+        for (; index < end; index++) {
+          Object o = ring[(int)index & mask];
+          if (o instanceof Batch) {
+            o = ((Batch)o).peek(index);
+          }
+          if (o instanceof Tuple) {
             size--;
           }
         }
@@ -265,6 +758,24 @@ public class BufferServerSubscriber extends Subscriber implements ByteCounterStr
       return size;
     }
 
+    @Override
+    public boolean isEmpty()
+    {
+      return readIndex == head;
+    }
+
+    @Override
+    public Object remove()
+    {
+      final long index = readIndex;
+      if (index == head) {
+        throw new IllegalStateException("Reservoir is empty");
+      }
+      final Object o = resolve(ring[(int)index & mask], index);
+      readIndex = index + 1;
+      return o;
+    }
+
     @Override
     public Sink<Object> setSink(Sink<Object> sink)
     {
@@ -272,125 +783,53 @@ public class BufferServerSubscriber extends Subscriber implements ByteCounterStr
         return this.sink;
       } finally {
         this.sink = sink;
+        batch = TupleBatch.newInstance(sink);
       }
     }
 
     @Override
-    public Tuple sweep()
+    public boolean setListener(Runnable listener)
     {
-      final int size = size();
-      if (size > 0) {
-        for (int i = 0; i < size; i++) {
-          if (peekUnsafe() instanceof Tuple) {
-            count += i;
-            return (Tuple)peekUnsafe();
-          }
-          sink.put(pollUnsafe());
-        }
+      this.listener = listener;
+      return true;
+    }
 
-        count += size;
+    @Override
+    public Tuple sweep()
+    {
+      long index = readIndex;
+      long end = head;
+      if (index == end) {
+        decode();
+        end = head;
       }
 
-      synchronized (backlog) {
-        /* find out the minimum remaining capacity in all the other buffers and consume those many tuples from bufferserver */
-        int min = polledFragments.size();
-        if (min == 0) {
-          if (offeredFragments == polledFragments) {
-            if (suspended) {
-              resumeRead();
-              suspended = false;
-            }
-            return null;
+      final TupleBatch batch = this.batch;
+      while (index < end) {
+        final Object o = resolve(ring[(int)index & mask], index);
+        if (o instanceof Tuple) {
+          readIndex = index;
+          if (batch != null) {
+            batch.flush();
           }
-          polledFragments = backlog.remove();
-          min = polledFragments.size();
+          return (Tuple)o;
         }
-
-        for (int i = reservoirs.length; i-- > 0;) {
-          if (reservoirs[i].remainingCapacity() < min) {
-            min = reservoirs[i].remainingCapacity();
-          }
-        }
-
-        while (min-- > 0) {
-          Slice fm = polledFragments.pollUnsafe();
-          com.datatorrent.bufferserver.packet.Tuple data = com.datatorrent.bufferserver.packet.Tuple.getTuple(fm.buffer, fm.offset, fm.length);
-          Object o;
-          switch (data.getType()) {
-            case NO_MESSAGE:
-              freeFragments.offer(fm);
-              continue;
-
-            case CODEC_STATE:
-              dsp.state = data.getData();
-              freeFragments.offer(fm);
-              continue;
-
-            case RESET_WINDOW:
-              baseSeconds = (long)data.getBaseSeconds() << 32;
-              if (lastWindowId < WindowGenerator.MAX_WINDOW_ID) {
-                freeFragments.offer(fm);
-                continue;
-              }
-              o = new ResetWindowTuple(baseSeconds | data.getWindowWidth());
-              break;
-
-            case PAYLOAD:
-              o = processPayload(data);
-              break;
-
-            case CHECKPOINT:
-              if (statefulSerde != null) {
-                statefulSerde.resetState();
-              }
-              o = new CheckpointTuple(baseSeconds | data.getWindowId());
-              break;
-
-            case END_WINDOW:
-              //logger.debug("received {}", data);
-              o = new EndWindowTuple(baseSeconds | (lastWindowId = data.getWindowId()));
-              break;
-
-            case CUSTOM_CONTROL:
-              o = processPayload(data);
-              break;
-
-            case END_STREAM:
-              o = new EndStreamTuple(baseSeconds | data.getWindowId());
-              break;
-
-            case BEGIN_WINDOW:
-              o = new Tuple(data.getType(), baseSeconds | data.getWindowId());
-              break;
-
-            default:
-              throw new IllegalArgumentException("Unhandled Message Type " + data.getType());
-          }
-
-          freeFragments.offer(fm);
-          if (skipObject) {
-            skipObject = false;
+        if (accept(o)) {
+          if (batch == null) {
+            sink.put(o);
           } else {
-            for (int i = reservoirs.length; i-- > 0;) {
-              reservoirs[i].add(o);
-            }
+            batch.add(o);
           }
+          count++;
         }
+        index++;
       }
 
-      return null;
-    }
-
-    protected Object processPayload(com.datatorrent.bufferserver.packet.Tuple data)
-    {
-      Object o;
-      if (statefulSerde == null) {
-        o = serde.fromByteArray(data.getData());
-      } else {
-        dsp.data = data.getData();
-        o = statefulSerde.fromDataStatePair(dsp);
+      readIndex = index;
+      if (batch != null) {
+        batch.flush();
       }
-      return o;
+      return null;
     }
 
     @Override
@@ -418,14 +857,10 @@ public class BufferServerSubscriber extends Subscriber implements ByteCounterStr
     }
 
     @Override
-    protected Object processPayload(com.datatorrent.bufferserver.packet.Tuple data)
+    @SuppressWarnings("unchecked")
+    protected boolean accept(Object o)
     {
-      Object o = wrapperStreamCodec.fromByteArray(data.getData());
-      if (!wrapperStreamCodec.shouldCaptureEvent(o)) {
-        skipObject = true;
-      }
-
-      return o;
+      return wrapperStreamCodec.shouldCaptureEvent(o);
     }
   }
 
@@ -18,7 +18,6 @@
  */
 package com.datatorrent.stram.stream;
 
-import java.lang.reflect.Array;
 import java.util.HashMap;
 
 import org.slf4j.Logger;
@@ -40,8 +39,7 @@ public class MuxStream implements Stream.MultiSinkCapableStream
 {
   public static final String MULTI_SINK_ID_CONCAT_SEPARATOR = ", ";
   private HashMap<String, Sink<Object>> outputs = new HashMap<>();
-  @SuppressWarnings("VolatileArrayField")
-  private volatile Sink<Object>[] sinks = NO_SINKS;
+  private volatile PartitionDispatcher dispatcher = PartitionDispatcher.EMPTY;
   private int count;
 
   /**
@@ -69,14 +67,7 @@ public class MuxStream implements Stream.MultiSinkCapableStream
   @Override
   public void activate(StreamContext context)
   {
-    @SuppressWarnings("unchecked")
-    Sink<Object>[] newSinks = (Sink<Object>[])Array.newInstance(Sink.class, outputs.size());
-
-    int i = 0;
-    for (final Sink<Object> s: outputs.values()) {
-      newSinks[i++] = s;
-    }
-    sinks = newSinks;
+    dispatcher = new PartitionDispatcher(outputs.values());
   }
 
   /**
@@ -85,7 +76,7 @@ public class MuxStream implements Stream.MultiSinkCapableStream
   @Override
   public void deactivate()
   {
-    sinks = NO_SINKS;
+    dispatcher = PartitionDispatcher.EMPTY;
   }
 
   /**
@@ -99,11 +90,11 @@ public class MuxStream implements Stream.MultiSinkCapableStream
     if (sink == null) {
       outputs.remove(id);
       if (outputs.isEmpty()) {
-        sinks = NO_SINKS;
+        dispatcher = PartitionDispatcher.EMPTY;
       }
     } else {
       outputs.put(id, sink);
-      if (sinks != NO_SINKS) {
+      if (dispatcher != PartitionDispatcher.EMPTY) {
         activate(null);
       }
     }
@@ -117,9 +108,7 @@ public class MuxStream implements Stream.MultiSinkCapableStream
   public void put(Object payload)
   {
     count++;
-    for (int i = sinks.length; i-- > 0;) {
-      sinks[i].put(payload);
-    }
+    dispatcher.put(payload);
   }
 
   @Override
@@ -74,6 +74,32 @@ public class PartitionAwareSink<T> implements Sink<T>
     return partitions.contains(serde.getPartition(payload) & mask);
   }
 
+  /**
+   * Put a data tuple that is known to belong to the partitions of this sink.
+   *
+   * @param payload
+   */
+  void deliver(T payload)
+  {
+    count++;
+    output.put(payload);
+  }
+
+  StreamCodec<T> getStreamCodec()
+  {
+    return serde;
+  }
+
+  Set<Integer> getPartitions()
+  {
+    return partitions;
+  }
+
+  int getMask()
+  {
+    return mask;
+  }
+
   @Override
   public int getCount(boolean reset)
   {
@@ -0,0 +1,165 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package com.datatorrent.stram.stream;
+
+import java.lang.reflect.Array;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+
+import com.datatorrent.api.Sink;
+import com.datatorrent.api.StreamCodec;
+import com.datatorrent.stram.plan.logical.StreamCodecWrapperForPersistance;
+import com.datatorrent.stram.tuple.Tuple;
+
+/**
+ * <p>Routes the tuples of a {@link MuxStream} to its sinks.</p>
+ * <br>
+ * The {@link PartitionAwareSink}s that share the codec and the mask are precompiled into a table indexed by the
+ * partition, so that the partition of a data tuple is computed once for all of them and the sinks that receive the
+ * tuple are found without boxing the partition. Control tuples are broadcast to all the sinks.
+ *
+ * @since 4.0.0
+ */
+public class PartitionDispatcher
+{
+  /**
+   * largest mask for which the table of sinks is built, the sinks with a larger mask filter the tuples themselves.
+   */
+  static final int MAX_MASK = 0xffff;
+
+  public static final PartitionDispatcher EMPTY = new PartitionDispatcher(new ArrayList<Sink<Object>>());
+
+  private final Sink<Object>[] sinks;
+  private final Sink<Object>[] unpartitionedSinks;
+  private final Route[] routes;
+
+  public PartitionDispatcher(Collection<Sink<Object>> sinks)
+  {
+    this.sinks = newSinkArray(sinks);
+
+    List<Sink<Object>> unpartitioned = new ArrayList<>();
+    List<Route> routes = new ArrayList<>();
+    for (Sink<Object> sink : sinks) {
+      Route route = null;
+      if (isPrecompilable(sink)) {
+        PartitionAwareSink<Object> pas = (PartitionAwareSink<Object>)sink;
+        for (Route r : routes) {
+          if (r.accepts(pas)) {
+            route = r;
+            break;
+          }
+        }
+        if (route == null) {
+          routes.add(route = new Route(pas));
+        }
+        route.add(pas);
+      } else {
+        unpartitioned.add(sink);
+      }
+    }
+
+    unpartitionedSinks = newSinkArray(unpartitioned);
+    this.routes = routes.toArray(new Route[routes.size()]);
+  }
+
+  @SuppressWarnings("unchecked")
+  private static Sink<Object>[] newSinkArray(Collection<Sink<Object>> sinks)
+  {
+    return sinks.toArray((Sink<Object>[])Array.newInstance(Sink.class, sinks.size()));
+  }
+
+  /**
+   * Only the partition aware sinks whose filter is known to depend on nothing but the partition and the persistence
+   * codec are precompiled.
+   */
+  private static boolean isPrecompilable(Sink<Object> sink)
+  {
+    return (sink.getClass() == PartitionAwareSink.class || sink.getClass() == PartitionAwareSinkForPersistence.class)
+        && ((PartitionAwareSink<?>)sink).getMask() <= MAX_MASK;
+  }
+
+  public void put(Object payload)
+  {
+    if (payload instanceof Tuple) {
+      for (int i = sinks.length; i-- > 0;) {
+        sinks[i].put(payload);
+      }
+    } else {
+      for (int i = unpartitionedSinks.length; i-- > 0;) {
+        unpartitionedSinks[i].put(payload);
+      }
+      for (int i = routes.length; i-- > 0;) {
+        routes[i].put(payload);
+      }
+    }
+  }
+
+  /**
+   * Partition aware sinks that share the codec and the mask.
+   */
+  private static class Route
+  {
+    private final StreamCodec<Object> codec;
+    private final StreamCodecWrapperForPersistance<Object> persistenceCodec;
+    private final int mask;
+    private final PartitionAwareSink<Object>[][] sinks;
+
+    @SuppressWarnings("unchecked")
+    Route(PartitionAwareSink<Object> pas)
+    {
+      codec = pas.getStreamCodec();
+      persistenceCodec = pas instanceof PartitionAwareSinkForPersistence
+          ? ((PartitionAwareSinkForPersistence)pas).serdeForPersistence : null;
+      mask = pas.getMask();
+      sinks = (PartitionAwareSink<Object>[][])Array.newInstance(PartitionAwareSink.class, mask + 1, 0);
+    }
+
+    boolean accepts(PartitionAwareSink<Object> pas)
+    {
+      return pas.getStreamCodec() == codec && pas.getMask() == mask
+          && pas instanceof PartitionAwareSinkForPersistence == (persistenceCodec != null);
+    }
+
+    void add(PartitionAwareSink<Object> pas)
+    {
+      for (Integer partition : pas.getPartitions()) {
+        if (partition >= 0 && partition <= mask) {
+          PartitionAwareSink<Object>[] partitionSinks = sinks[partition];
+          partitionSinks = Arrays.copyOf(partitionSinks, partitionSinks.length + 1);
+          partitionSinks[partitionSinks.length - 1] = pas;
+          sinks[partition] = partitionSinks;
+        }
+      }
+    }
+
+    void put(Object payload)
+    {
+      if (persistenceCodec != null && !persistenceCodec.shouldCaptureEvent(payload)) {
+        return;
+      }
+
+      final PartitionAwareSink<Object>[] partitionSinks = sinks[codec.getPartition(payload) & mask];
+      for (int i = partitionSinks.length; i-- > 0;) {
+        partitionSinks[i].deliver(payload);
+      }
+    }
+  }
+}
@@ -71,6 +71,14 @@ public class OperatorInfo
   public double cpuPercentageMA;
   @RecordField(type = "stats")
   public long latencyMA;
+  @RecordField(type = "stats")
+  public long totalWindowsProcessed;
+  @RecordField(type = "stats")
+  public long minEndWindowLatency;
+  @RecordField(type = "stats")
+  public long maxEndWindowLatency;
+  @RecordField(type = "stats")
+  public long endWindowLatencyMA;
   public String status;
   public long lastHeartbeat;
   public long failureCount;
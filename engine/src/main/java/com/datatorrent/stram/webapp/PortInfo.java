@@ -37,6 +37,10 @@ public class PortInfo
   public long totalTuples;
   public long tuplesPSMA;
   public long bufferServerBytesPSMA;
+  /**
+   * ratio of the uncompressed to the transferred buffer server bytes, 1 for the streams that are not compressed.
+   */
+  public double bufferServerCompressionRatio = 1;
   public long queueSizeMA;
   public String recordingId;
 }
@@ -31,8 +31,13 @@ import java.lang.reflect.Field;
 import java.net.InetSocketAddress;
 import java.net.URI;
 import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
 import java.util.concurrent.FutureTask;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.junit.Assert;
 import org.junit.Before;
@@ -398,6 +403,192 @@ public class StramRecoveryTest
     scm.setPhysicalOperatorProperty(o1p1.getId(), "maxTuples", "50");
   }
 
+  @Test
+  public void testWriteAheadLogGroupCommit() throws Exception
+  {
+    final AtomicInteger flushCount = new AtomicInteger();
+    final CountDownLatch release = new CountDownLatch(1);
+    dag.setAttribute(LogicalPlan.JOURNAL_GROUP_COMMIT, true);
+    dag.setAttribute(OperatorContext.STORAGE_AGENT, new FSStorageAgent(testMeta.getPath(), null));
+
+    TestGeneratorInputOperator o1 = dag.addOperator("o1", TestGeneratorInputOperator.class);
+    StreamingContainerManager scm = new StreamingContainerManager(dag);
+    PhysicalPlan plan = scm.getPhysicalPlan();
+    Journal j = scm.getJournal();
+    ByteArrayOutputStream bos = new ByteArrayOutputStream()
+    {
+      @Override
+      public void flush() throws IOException
+      {
+        super.flush();
+        flushCount.incrementAndGet();
+        // hold the writer in the first flush, the operations written in the meantime are batched
+        try {
+          release.await();
+        } catch (InterruptedException e) {
+          throw new IOException(e);
+        }
+      }
+    };
+    j.setOutputStream(new DataOutputStream(bos));
+
+    PTOperator o1p1 = plan.getOperators(dag.getMeta(o1)).get(0);
+    PTContainer c1 = plan.getContainers().get(0);
+    for (int i = 0; i < 100; i++) {
+      o1p1.setState(i % 2 == 0 ? PTOperator.State.INACTIVE : PTOperator.State.ACTIVE);
+    }
+    c1.setState(PTContainer.State.ALLOCATED);
+    c1.host = "host1";
+    Future<Void> written = j.write(c1.getSetContainerState());
+    Assert.assertFalse("written before flush", written.isDone());
+
+    release.countDown();
+    written.get();
+    Assert.assertTrue("flush count " + flushCount.get(), flushCount.get() <= 2);
+
+    j.setOutputStream(null);
+    o1p1.setState(PTOperator.State.PENDING_DEPLOY);
+    c1.setState(PTContainer.State.NEW);
+    c1.host = null;
+
+    j.replay(new DataInputStream(new ByteArrayInputStream(bos.toByteArray())));
+    assertEquals("operator state", PTOperator.State.ACTIVE, o1p1.getState());
+    assertEquals("container state", PTContainer.State.ALLOCATED, c1.getState());
+    assertEquals("container host", "host1", c1.host);
+    scm.teardown();
+  }
+
+  @Test
+  public void testWriteAheadLogGroupCommitRotation() throws Exception
+  {
+    final CountDownLatch release = new CountDownLatch(1);
+    dag.setAttribute(LogicalPlan.JOURNAL_GROUP_COMMIT, true);
+    dag.setAttribute(OperatorContext.STORAGE_AGENT, new FSStorageAgent(testMeta.getPath(), null));
+
+    TestGeneratorInputOperator o1 = dag.addOperator("o1", TestGeneratorInputOperator.class);
+    StreamingContainerManager scm = new StreamingContainerManager(dag);
+    PhysicalPlan plan = scm.getPhysicalPlan();
+    final Journal j = scm.getJournal();
+    ByteArrayOutputStream bos1 = new ByteArrayOutputStream()
+    {
+      @Override
+      public void flush() throws IOException
+      {
+        super.flush();
+        try {
+          release.await();
+        } catch (InterruptedException e) {
+          throw new IOException(e);
+        }
+      }
+    };
+    final ByteArrayOutputStream bos2 = new ByteArrayOutputStream();
+    j.setOutputStream(new DataOutputStream(bos1));
+
+    PTOperator o1p1 = plan.getOperators(dag.getMeta(o1)).get(0);
+    o1p1.setState(PTOperator.State.ACTIVE);
+    o1p1.setState(PTOperator.State.INACTIVE);
+
+    // operations pending when the log is rotated are written to the old log
+    Thread rotate = new Thread()
+    {
+      @Override
+      public void run()
+      {
+        try {
+          j.setOutputStream(new DataOutputStream(bos2));
+        } catch (IOException e) {
+          throw new RuntimeException(e);
+        }
+      }
+    };
+    rotate.start();
+    release.countDown();
+    rotate.join();
+    assertEquals("rotated log", 0, bos2.size());
+
+    j.write(scm.getSetOperatorProperty("o1", "maxTuples", "100")).get();
+    j.setOutputStream(null);
+
+    o1p1.setState(PTOperator.State.PENDING_DEPLOY);
+    o1.setMaxTuples(10);
+    j.replay(new DataInputStream(new ByteArrayInputStream(bos1.toByteArray())));
+    assertEquals("operator state", PTOperator.State.INACTIVE, o1p1.getState());
+    assertEquals("max tuples", 10, o1.getMaxTuples());
+    j.replay(new DataInputStream(new ByteArrayInputStream(bos2.toByteArray())));
+    assertEquals("max tuples", 100, o1.getMaxTuples());
+    scm.teardown();
+  }
+
+  @Test
+  public void testWriteAheadLogGroupCommitFailure() throws Exception
+  {
+    dag.setAttribute(LogicalPlan.JOURNAL_GROUP_COMMIT, true);
+    dag.setAttribute(OperatorContext.STORAGE_AGENT, new FSStorageAgent(testMeta.getPath(), null));
+
+    dag.addOperator("o1", TestGeneratorInputOperator.class);
+    StreamingContainerManager scm = new StreamingContainerManager(dag);
+    PhysicalPlan plan = scm.getPhysicalPlan();
+    Journal j = scm.getJournal();
+    j.setOutputStream(new DataOutputStream(new ByteArrayOutputStream()
+    {
+      private boolean failed;
+
+      @Override
+      public void flush() throws IOException
+      {
+        if (!failed) {
+          failed = true;
+          throw new IllegalStateException("flush failed");
+        }
+      }
+    }));
+
+    PTContainer c1 = plan.getContainers().get(0);
+    c1.setState(PTContainer.State.ALLOCATED);
+    try {
+      j.write(c1.getSetContainerState()).get(10, TimeUnit.SECONDS);
+      Assert.fail("write to a log that fails to flush");
+    } catch (ExecutionException e) {
+      assertEquals("cause", "flush failed", e.getCause().getMessage());
+    }
+
+    // the writer keeps running
+    ByteArrayOutputStream bos = new ByteArrayOutputStream();
+    j.setOutputStream(new DataOutputStream(bos));
+    j.write(c1.getSetContainerState()).get(10, TimeUnit.SECONDS);
+    j.setOutputStream(null);
+    Assert.assertTrue("written", bos.size() > 0);
+    scm.teardown();
+  }
+
+  @Test
+  public void testRestoreWithGroupCommit() throws Exception
+  {
+    dag.setAttribute(LogicalPlan.JOURNAL_GROUP_COMMIT, true);
+    dag.setAttribute(OperatorContext.STORAGE_AGENT, new FSStorageAgent(testMeta.getPath(), null));
+    TestGeneratorInputOperator o1 = dag.addOperator("o1", TestGeneratorInputOperator.class);
+    StreamingContainerManager scm = StreamingContainerManager.getInstance(new FSRecoveryHandler(dag.assertAppPath(),
+        new Configuration(false)), dag, false);
+    PTOperator o1p1 = scm.getPhysicalPlan().getOperators(dag.getMeta(o1)).get(0);
+    for (int i = 0; i < 10; i++) {
+      o1p1.setState(i % 2 == 0 ? PTOperator.State.ACTIVE : PTOperator.State.INACTIVE);
+    }
+    // the property change waits for its write and the writes before it to be flushed
+    scm.setOperatorProperty("o1", "maxTuples", "7");
+
+    dag = StramTestSupport.createDAG(testMeta);
+    StreamingContainerManager restored = StreamingContainerManager.getInstance(
+        new FSRecoveryHandler(dag.assertAppPath(), new Configuration(false)), dag, false);
+    dag = restored.getLogicalPlan();
+    o1p1 = restored.getPhysicalPlan().getOperators(dag.getOperatorMeta("o1")).get(0);
+    assertEquals("post restore state", PTOperator.State.INACTIVE, o1p1.getState());
+    o1 = (TestGeneratorInputOperator)dag.getOperatorMeta("o1").getOperator();
+    assertEquals("post restore max tuples", 7, o1.getMaxTuples());
+    scm.teardown();
+    restored.teardown();
+  }
+
   private void testRestartApp(StorageAgent agent, String appPath1) throws Exception
   {
     String appId1 = "app1";
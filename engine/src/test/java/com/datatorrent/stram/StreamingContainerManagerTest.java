@@ -645,10 +645,14 @@ public class StreamingContainerManagerTest
     Assert.assertNotNull("port stats", o1p1ps);
     Assert.assertEquals("port stats", 1, o1p1ps.totalTuples);
 
-    // second operator heartbeat
+    // second operator heartbeat, rolled up over three windows
     stats = new OperatorStats();
     stats.checkpoint = new Checkpoint(2, 0, 0);
     stats.windowId = 4;
+    stats.windowCount = 3;
+    stats.minEndWindowLatency = 2;
+    stats.maxEndWindowLatency = 6;
+    stats.totalEndWindowLatency = 12;
 
     stats.outputPorts = Lists.newArrayList();
     ps = new PortStats(TestGeneratorInputOperator.OUTPUT_PORT);
@@ -663,6 +667,9 @@ public class StreamingContainerManagerTest
 
     Assert.assertEquals("tuples " + o1p1, 2, o1p1.stats.totalTuplesEmitted.get());
     Assert.assertEquals("window " + o1p1, 4, o1p1.stats.currentWindowId.get());
+    Assert.assertEquals("windows " + o1p1, 4, o1p1.stats.totalWindowsProcessed.get());
+    Assert.assertEquals("min end window latency " + o1p1, 2, o1p1.stats.minEndWindowLatency.get());
+    Assert.assertEquals("max end window latency " + o1p1, 6, o1p1.stats.maxEndWindowLatency.get());
     Assert.assertEquals("statsQueue " + o1p1, 2, o1p1.stats.listenerStats.size());
 
     scm.processEvents();
@@ -0,0 +1,255 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package com.datatorrent.stram.api;
+
+import java.io.IOException;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import org.apache.hadoop.io.DataInputByteBuffer;
+import org.apache.hadoop.io.DataOutputByteBuffer;
+import org.apache.hadoop.io.Writable;
+
+import com.google.common.collect.Sets;
+
+import com.datatorrent.api.Stats;
+import com.datatorrent.api.Stats.OperatorStats.PortStats;
+import com.datatorrent.common.metric.AutoMetricValues;
+import com.datatorrent.stram.api.StreamingContainerUmbilicalProtocol.ContainerHeartbeat;
+import com.datatorrent.stram.api.StreamingContainerUmbilicalProtocol.ContainerHeartbeatResponse;
+import com.datatorrent.stram.api.StreamingContainerUmbilicalProtocol.ContainerStats;
+import com.datatorrent.stram.api.StreamingContainerUmbilicalProtocol.OperatorHeartbeat;
+import com.datatorrent.stram.api.StreamingContainerUmbilicalProtocol.ShutdownType;
+
+public class HeartbeatCodecTest
+{
+  private static final AutoMetricValues.Schema SCHEMA = new AutoMetricValues.Schema(
+      new String[] {"count", "rate", "label"},
+      new byte[] {AutoMetricValues.TYPE_INT, AutoMetricValues.TYPE_DOUBLE, AutoMetricValues.TYPE_OBJECT});
+
+  static ContainerHeartbeat newHeartbeat(int operators, int windows)
+  {
+    long now = System.currentTimeMillis();
+    ContainerHeartbeat heartbeat = new ContainerHeartbeat();
+    heartbeat.jvmName = "1234@localhost";
+    heartbeat.bufferServerHost = "localhost";
+    heartbeat.bufferServerPort = 34567;
+    heartbeat.memoryMBFree = 512;
+    heartbeat.gcCollectionCount = 12;
+    heartbeat.gcCollectionTime = 345;
+    heartbeat.sentTms = now;
+    heartbeat.stats = new ContainerStats("container_1_0001_01_000002");
+
+    long windowId = (now / 1000) << 32;
+    for (int i = 0; i < operators; i++) {
+      OperatorHeartbeat operator = new OperatorHeartbeat();
+      operator.nodeId = i + 1;
+      operator.generatedTms = now - 1;
+      operator.intervalMs = 1000;
+      operator.state = OperatorHeartbeat.DeployState.ACTIVE;
+      for (int j = 0; j < windows; j++) {
+        ContainerStats.OperatorStats stats = new ContainerStats.OperatorStats();
+        stats.windowId = windowId + j;
+        stats.checkpoint = new Checkpoint(windowId - 60, 1, 60);
+        stats.cpuTimeUsed = 1000000 + j;
+        stats.windowCount = 1 + j;
+        stats.minEndWindowLatency = j;
+        stats.maxEndWindowLatency = 2 * j;
+        stats.totalEndWindowLatency = 3 * j;
+        stats.inputPorts = new ArrayList<>();
+        stats.outputPorts = new ArrayList<>();
+        PortStats input = new PortStats("input");
+        input.tupleCount = 1000 * j;
+        input.endWindowTimestamp = now - 500 + j * 500;
+        input.bufferServerBytes = 64000;
+        input.bufferServerUncompressedBytes = 256000;
+        input.queueSize = 3;
+        stats.inputPorts.add(input);
+        PortStats output = new PortStats("output");
+        output.tupleCount = 1000 * j;
+        output.endWindowTimestamp = now - 499 + j * 500;
+        stats.outputPorts.add(output);
+        stats.idleStats = new Stats.IdleStats();
+        stats.idleStats.parkTime = 1234567;
+        stats.idleStats.idleCount = j;
+        AutoMetricValues metrics = new AutoMetricValues(SCHEMA);
+        metrics.setLong(0, j);
+        metrics.setDouble(1, 0.5 * j);
+        metrics.setObject(2, j % 2 == 0 ? "even" : null);
+        stats.metrics = metrics;
+        operator.windowStats.add(stats);
+      }
+      heartbeat.stats.addNodeStats(operator);
+    }
+    return heartbeat;
+  }
+
+  private static DataOutputByteBuffer write(Writable writable) throws IOException
+  {
+    DataOutputByteBuffer out = new DataOutputByteBuffer();
+    writable.write(out);
+    return out;
+  }
+
+  private static <T extends Writable> T read(DataOutputByteBuffer out, T writable) throws IOException
+  {
+    DataInputByteBuffer in = new DataInputByteBuffer();
+    in.reset(out.getData());
+    writable.readFields(in);
+    return writable;
+  }
+
+  private static void assertEquals(ContainerHeartbeat expected, ContainerHeartbeat actual)
+  {
+    Assert.assertEquals("jvmName", expected.jvmName, actual.jvmName);
+    Assert.assertEquals("bufferServerHost", expected.bufferServerHost, actual.bufferServerHost);
+    Assert.assertEquals("bufferServerPort", expected.bufferServerPort, actual.bufferServerPort);
+    Assert.assertEquals("memoryMBFree", expected.memoryMBFree, actual.memoryMBFree);
+    Assert.assertEquals("gcCollectionCount", expected.gcCollectionCount, actual.gcCollectionCount);
+    Assert.assertEquals("gcCollectionTime", expected.gcCollectionTime, actual.gcCollectionTime);
+    Assert.assertEquals("sentTms", expected.sentTms, actual.sentTms);
+    Assert.assertEquals("containerId", expected.getContainerId(), actual.getContainerId());
+    Assert.assertEquals("operators", expected.stats.operators.size(), actual.stats.operators.size());
+    for (int i = 0; i < expected.stats.operators.size(); i++) {
+      OperatorHeartbeat expectedOperator = expected.stats.operators.get(i);
+      OperatorHeartbeat actualOperator = actual.stats.operators.get(i);
+      Assert.assertEquals("nodeId", expectedOperator.nodeId, actualOperator.nodeId);
+      Assert.assertEquals("generatedTms", expectedOperator.generatedTms, actualOperator.generatedTms);
+      Assert.assertEquals("state", expectedOperator.state, actualOperator.state);
+      Assert.assertEquals("windows", expectedOperator.windowStats.size(), actualOperator.windowStats.size());
+      for (int j = 0; j < expectedOperator.windowStats.size(); j++) {
+        Stats.OperatorStats expectedStats = expectedOperator.windowStats.get(j);
+        Stats.OperatorStats actualStats = actualOperator.windowStats.get(j);
+        Assert.assertEquals("windowId", expectedStats.windowId, actualStats.windowId);
+        Assert.assertEquals("checkpoint", expectedStats.checkpoint, actualStats.checkpoint);
+        Assert.assertEquals("cpuTimeUsed", expectedStats.cpuTimeUsed, actualStats.cpuTimeUsed);
+        Assert.assertEquals("windowCount", expectedStats.windowCount, actualStats.windowCount);
+        Assert.assertEquals("minEndWindowLatency", expectedStats.minEndWindowLatency, actualStats.minEndWindowLatency);
+        Assert.assertEquals("maxEndWindowLatency", expectedStats.maxEndWindowLatency, actualStats.maxEndWindowLatency);
+        Assert.assertEquals("totalEndWindowLatency", expectedStats.totalEndWindowLatency,
+            actualStats.totalEndWindowLatency);
+        Assert.assertEquals("inputPorts", expectedStats.inputPorts.toString(), actualStats.inputPorts.toString());
+        Assert.assertEquals("outputPorts", expectedStats.outputPorts.toString(), actualStats.outputPorts.toString());
+        Assert.assertEquals("idleStats", String.valueOf(expectedStats.idleStats),
+            String.valueOf(actualStats.idleStats));
+        Assert.assertEquals("metrics", expectedStats.metrics, actualStats.metrics);
+      }
+    }
+  }
+
+  @Test
+  public void testHeartbeat() throws IOException
+  {
+    ContainerHeartbeat heartbeat = newHeartbeat(3, 2);
+    Map<String, Object> counters = new HashMap<>();
+    counters.put("key", 1);
+    heartbeat.stats.operators.get(0).windowStats.get(1).metrics = counters;
+    heartbeat.stats.operators.get(1).windowStats.get(0).checkpointStats = new Stats.CheckpointStats();
+
+    heartbeat.setBinaryEncoding(false);
+    DataOutputByteBuffer serialized = write(heartbeat);
+    ContainerHeartbeat clone = read(serialized, new ContainerHeartbeat());
+    Assert.assertFalse("binary", clone.isBinaryEncoding());
+    assertEquals(heartbeat, clone);
+
+    heartbeat.setBinaryEncoding(true);
+    DataOutputByteBuffer encoded = write(heartbeat);
+    clone = read(encoded, new ContainerHeartbeat());
+    Assert.assertTrue("binary", clone.isBinaryEncoding());
+    assertEquals(heartbeat, clone);
+    Assert.assertNotNull("checkpointStats", clone.stats.operators.get(1).windowStats.get(0).checkpointStats);
+    Assert.assertTrue("encoded " + encoded.getLength() + " serialized " + serialized.getLength(),
+        encoded.getLength() * 4 < serialized.getLength());
+  }
+
+  @Test
+  public void testResponse() throws IOException
+  {
+    ContainerHeartbeatResponse response = new ContainerHeartbeatResponse();
+    response.shutdown = ShutdownType.WAIT_TERMINATE;
+    response.committedWindowId = 1234;
+    response.stackTraceRequired = true;
+    response.undeployRequest = Arrays.asList(1, 2);
+    OperatorDeployInfo ndi = new OperatorDeployInfo();
+    ndi.name = "node1";
+    response.deployRequest = Collections.singletonList(ndi);
+    response.setBinaryEncoding(true);
+
+    ContainerHeartbeatResponse clone = read(write(response), new ContainerHeartbeatResponse());
+    Assert.assertTrue("binary", clone.isBinaryEncoding());
+    Assert.assertEquals("shutdown", response.shutdown, clone.shutdown);
+    Assert.assertEquals("committedWindowId", response.committedWindowId, clone.committedWindowId);
+    Assert.assertTrue("stackTraceRequired", clone.stackTraceRequired);
+    Assert.assertFalse("hasPendingRequests", clone.hasPendingRequests);
+    Assert.assertEquals("undeployRequest", response.undeployRequest, clone.undeployRequest);
+    Assert.assertNull("nodeRequests", clone.nodeRequests);
+    Assert.assertEquals("deployRequest", "node1", clone.deployRequest.get(0).name);
+
+    clone = read(write(new ContainerHeartbeatResponse()), new ContainerHeartbeatResponse());
+    Assert.assertFalse("binary", clone.isBinaryEncoding());
+    Assert.assertNull("shutdown", clone.shutdown);
+    Assert.assertEquals("committedWindowId", -1, clone.committedWindowId);
+  }
+
+  /**
+   * The codec writes the fields it knows about. A field added to any of the encoded classes has to be added to the
+   * codec, and the version of the encoding increased.
+   */
+  @Test
+  public void testEncodedFields()
+  {
+    assertFields(ContainerHeartbeat.class, "bufferServerHost", "bufferServerPort", "jvmName", "memoryMBFree",
+        "restartRequested", "gcCollectionTime", "gcCollectionCount", "stats", "sentTms", "stackTrace");
+    assertFields(ContainerStats.class, "id", "operators");
+    assertFields(OperatorHeartbeat.class, "windowStats", "nodeId", "generatedTms", "intervalMs", "state",
+        "requestResponse");
+    assertFields(Stats.OperatorStats.class, "windowId", "checkpoint", "inputPorts", "outputPorts", "cpuTimeUsed",
+        "checkpointStats", "idleStats", "counters", "metrics", "recordingId", "windowCount", "minEndWindowLatency",
+        "maxEndWindowLatency", "totalEndWindowLatency");
+    assertFields(PortStats.class, "id", "tupleCount", "endWindowTimestamp", "bufferServerBytes",
+        "bufferServerUncompressedBytes", "queueSize", "recordingId");
+    assertFields(Stats.CheckpointStats.class, "checkpointStartTime", "checkpointTime", "checkpointBytes",
+        "spillBytes", "uploadBytesPerSecond");
+    assertFields(Stats.IdleStats.class, "spinTime", "yieldTime", "parkTime", "idleCount");
+    assertFields(Checkpoint.class, "windowId", "applicationWindowCount", "checkpointWindowCount");
+    assertFields(ContainerHeartbeatResponse.class, "shutdown", "nodeRequests", "hasPendingRequests",
+        "undeployRequest", "deployRequest", "committedWindowId", "stackTraceRequired");
+  }
+
+  private static void assertFields(Class<?> clazz, String... expected)
+  {
+    Set<String> fields = new TreeSet<>();
+    for (Field field : clazz.getDeclaredFields()) {
+      if (!Modifier.isStatic(field.getModifiers()) && !Modifier.isTransient(field.getModifiers())) {
+        fields.add(field.getName());
+      }
+    }
+    Assert.assertEquals("fields of " + clazz.getSimpleName(), new TreeSet<>(Sets.newHashSet(expected)), fields);
+  }
+}
@@ -18,6 +18,9 @@
  */
 package com.datatorrent.stram.engine;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
 import java.util.NoSuchElementException;
 import java.util.concurrent.ArrayBlockingQueue;
 import java.util.concurrent.locks.Condition;
@@ -34,6 +37,7 @@ import org.junit.runner.RunWith;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import com.datatorrent.api.BatchSink;
 import com.datatorrent.api.Sink;
 import com.datatorrent.netlet.util.CircularBuffer;
 import com.datatorrent.stram.tuple.Tuple;
@@ -155,6 +159,101 @@ public class AbstractReservoirTest
     return performanceTestParameters;
   }
 
+  /**
+   * Batch sink that keeps the runs of tuples it receives.
+   */
+  private static class BatchCollectingSink implements BatchSink<Object>
+  {
+    final List<List<Object>> batches = new ArrayList<>();
+    private int count;
+
+    @Override
+    public void putBatch(Object[] tuples, int offset, int length)
+    {
+      count += length;
+      batches.add(new ArrayList<>(Arrays.asList(tuples).subList(offset, offset + length)));
+    }
+
+    @Override
+    public void put(Object tuple)
+    {
+      throw new UnsupportedOperationException("data tuples are expected in batches");
+    }
+
+    @Override
+    public int getCount(boolean reset)
+    {
+      try {
+        return count;
+      } finally {
+        if (reset) {
+          count = 0;
+        }
+      }
+    }
+  }
+
+  @SuppressWarnings("unused")
+  private Object batchTestParameters()
+  {
+    Object[][] batchTestParameters = new Object[][] {
+        {null},
+        {"com.datatorrent.stram.engine.AbstractReservoir$SpscArrayQueueReservoir"},
+        {"com.datatorrent.stram.engine.AbstractReservoir$SpscArrayBlockingQueueReservoir"},
+        {"com.datatorrent.stram.engine.AbstractReservoir$ArrayBlockingQueueReservoir"},
+        {"com.datatorrent.stram.engine.AbstractReservoir$CircularBufferReservoir"}
+    };
+
+    for (Object[] o : batchTestParameters) {
+      o[0] = newReservoir((String)o[0], 16);
+      setSink((AbstractReservoir)o[0], new BatchCollectingSink());
+    }
+    return batchTestParameters;
+  }
+
+  @SuppressWarnings("unused")
+  private Object batchPerformanceTestParameters()
+  {
+    Object[][] batchPerformanceTestParameters = new Object[][] {
+        {null, 2500},
+        {"com.datatorrent.stram.engine.AbstractReservoir$SpscArrayQueueReservoir", 10000},
+        {"com.datatorrent.stram.engine.AbstractReservoir$SpscArrayBlockingQueueReservoir", 2500},
+        {"com.datatorrent.stram.engine.AbstractReservoir$ArrayBlockingQueueReservoir", 10000},
+        {"com.datatorrent.stram.engine.AbstractReservoir$CircularBufferReservoir", 100000}
+    };
+    for (Object[] o : batchPerformanceTestParameters) {
+      o[0] = newReservoir((String)o[0], CAPACITY);
+      final Sink<Object> sink = new BatchSink<Object>()
+      {
+        private int count = 0;
+
+        @Override
+        public void putBatch(Object[] tuples, int offset, int length)
+        {
+          for (int i = offset, end = offset + length; i < end; i++) {
+            put(tuples[i]);
+          }
+        }
+
+        @Override
+        public void put(Object tuple)
+        {
+          if (++count == COUNT) {
+            throw new RuntimeException();
+          }
+        }
+
+        @Override
+        public int getCount(boolean reset)
+        {
+          return count;
+        }
+      };
+      setSink((AbstractReservoir)o[0], sink);
+    }
+    return batchPerformanceTestParameters;
+  }
+
   @Test
   @Parameters(method = "defaultTestParameters")
   public void testEmpty(final AbstractReservoir reservoir, final Class<? extends Throwable> type)
@@ -227,6 +326,40 @@ public class AbstractReservoirTest
     reservoir.add(o);
   }
 
+  @Test
+  @Parameters(method = "batchTestParameters")
+  public void testSweepBatch(final AbstractReservoir reservoir)
+  {
+    final BatchCollectingSink sink = (BatchCollectingSink)reservoir.getSink();
+    final Tuple t = new Tuple(BEGIN_WINDOW, 0L);
+    for (Object o : new Object[] {0, 1, 2, t, 3, 4}) {
+      assertTrue(reservoir.add(o));
+    }
+
+    assertEquals(t, reservoir.sweep());
+    assertEquals(Arrays.asList(Arrays.<Object>asList(0, 1, 2)), sink.batches);
+    assertEquals(3, reservoir.getCount(false));
+    assertEquals(t, reservoir.remove());
+    assertNull(reservoir.sweep());
+    assertEquals(Arrays.asList(Arrays.<Object>asList(0, 1, 2), Arrays.<Object>asList(3, 4)), sink.batches);
+    assertEquals(5, reservoir.getCount(false));
+    assertEquals(5, sink.getCount(false));
+    assertTrue(reservoir.isEmpty());
+    assertNull(reservoir.sweep());
+    assertEquals(2, sink.batches.size());
+  }
+
+  /**
+   * Same as {@link #performanceTest(AbstractReservoir, long)} with a sink that receives the data tuples in batches.
+   */
+  @Test
+  @Ignore
+  @Parameters(method = "batchPerformanceTestParameters")
+  public void batchPerformanceTest(final AbstractReservoir reservoir, final long expectedTime)
+  {
+    performanceTest(reservoir, expectedTime);
+  }
+
   @Test
   @Ignore
   @Parameters(method = "performanceTestParameters")
@@ -0,0 +1,113 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package com.datatorrent.stram.engine;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.datatorrent.api.AutoMetric;
+import com.datatorrent.common.metric.AutoMetricValues;
+import com.datatorrent.common.util.BaseOperator;
+
+public class AutoMetricCollectorTest
+{
+  public static class MetricsOperator extends BaseOperator
+  {
+    @AutoMetric
+    static long instances = 2;
+
+    @AutoMetric
+    private int count = 3;
+
+    @AutoMetric
+    protected double rate = 0.5;
+
+    @AutoMetric
+    boolean active = true;
+
+    @AutoMetric
+    Long boxed;
+
+    private short level = 7;
+
+    @AutoMetric
+    public short getLevel()
+    {
+      return level;
+    }
+
+    @AutoMetric
+    public String getLabel()
+    {
+      return "metrics";
+    }
+  }
+
+  @Test
+  public void testCollect()
+  {
+    MetricsOperator operator = new MetricsOperator();
+    AutoMetricCollector collector = new AutoMetricCollector(MetricsOperator.class);
+
+    AutoMetricValues values = collector.collect(operator);
+    Assert.assertEquals("size", 7, values.size());
+    Assert.assertEquals("instances", 2L, values.get("instances"));
+    Assert.assertEquals("count", 3, values.get("count"));
+    Assert.assertEquals("rate", 0.5, values.get("rate"));
+    Assert.assertEquals("active", true, values.get("active"));
+    Assert.assertTrue("boxed", values.containsKey("boxed"));
+    Assert.assertNull("boxed", values.get("boxed"));
+    Assert.assertEquals("level", (short)7, values.get("level"));
+    Assert.assertEquals("label", "metrics", values.get("label"));
+
+    operator.count = 4;
+    operator.boxed = 5L;
+    values = collector.collect(operator);
+    Assert.assertEquals("count", 4, values.get("count"));
+    Assert.assertEquals("boxed", 5L, values.get("boxed"));
+  }
+
+  @Test
+  public void testCollectSelected()
+  {
+    MetricsOperator operator = new MetricsOperator();
+    AutoMetricCollector collector = new AutoMetricCollector(MetricsOperator.class);
+
+    AutoMetricValues values = collector.collect(operator, Arrays.asList("rate", "label", "unknown"));
+    Assert.assertEquals("size", 2, values.size());
+    Assert.assertEquals("rate", 0.5, values.get("rate"));
+    Assert.assertEquals("label", "metrics", values.get("label"));
+    Assert.assertFalse("count", values.containsKey("count"));
+    Assert.assertSame("schema of the next window", values.getSchema(),
+        collector.collect(operator, Arrays.asList("label", "rate", "unknown")).getSchema());
+
+    values = collector.collect(operator, Collections.<String>emptyList());
+    Assert.assertTrue("empty", values.isEmpty());
+  }
+
+  @Test
+  public void testNoMetrics()
+  {
+    AutoMetricCollector collector = new AutoMetricCollector(BaseOperator.class);
+    Assert.assertTrue("empty", collector.collect(new BaseOperator()).isEmpty());
+  }
+}
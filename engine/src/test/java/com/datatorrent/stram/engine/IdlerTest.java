@@ -0,0 +1,184 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package com.datatorrent.stram.engine;
+
+import java.lang.management.ManagementFactory;
+import java.util.Arrays;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Assert;
+import org.junit.Ignore;
+import org.junit.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.datatorrent.api.Attribute.AttributeMap.DefaultAttributeMap;
+import com.datatorrent.api.Context.IdleStrategy;
+import com.datatorrent.api.Sink;
+import com.datatorrent.api.Stats.IdleStats;
+import com.datatorrent.bufferserver.packet.MessageType;
+import com.datatorrent.stram.engine.GenericNodeTest.GenericOperator;
+import com.datatorrent.stram.tuple.EndStreamTuple;
+import com.datatorrent.stram.tuple.Tuple;
+
+/**
+ *
+ */
+public class IdlerTest
+{
+  /**
+   * Generic node that passes the tuples it receives to a queue, running on a thread of its own.
+   */
+  private static class Runner extends Thread
+  {
+    final GenericNode node;
+    final AbstractReservoir input = AbstractReservoir.newReservoir("input", 1024);
+    final BlockingQueue<Object> output = new ArrayBlockingQueue<>(1024);
+
+    Runner(IdleStrategy strategy, int spinMillis)
+    {
+      DefaultAttributeMap attributes = new DefaultAttributeMap();
+      attributes.put(OperatorContext.IDLE_STRATEGY, strategy);
+      attributes.put(OperatorContext.SPIN_MILLIS, spinMillis);
+      node = new GenericNode(new GenericOperator(), new OperatorContext(1, "operator", attributes, null));
+      node.setId(1);
+      node.connectInputPort("ip1", input);
+      node.connectOutputPort("op", new Sink<Object>()
+      {
+        @Override
+        public void put(Object tuple)
+        {
+          if (!(tuple instanceof Tuple)) {
+            output.add(tuple);
+          }
+        }
+
+        @Override
+        public int getCount(boolean reset)
+        {
+          return 0;
+        }
+
+      });
+      node.firstWindowMillis = 0;
+      node.windowWidthMillis = 100;
+    }
+
+    @Override
+    public void run()
+    {
+      node.activate();
+      node.run();
+      node.deactivate();
+    }
+
+    void finish() throws InterruptedException
+    {
+      input.put(new EndStreamTuple(1));
+      join();
+    }
+  }
+
+  @Test
+  public void testParkedNodeIsUnparked() throws InterruptedException
+  {
+    /* a node that is not unparked waits for the next tuple for a minute */
+    Runner runner = new Runner(IdleStrategy.PARK, 60000);
+    runner.start();
+    runner.input.put(new Tuple(MessageType.BEGIN_WINDOW, 1));
+    for (int i = 0; i < 10; i++) {
+      /* let the node park */
+      Thread.sleep(20);
+      runner.input.put(i);
+      Assert.assertEquals("tuple " + i, i, runner.output.poll(10, TimeUnit.SECONDS));
+    }
+    runner.finish();
+
+    Assert.assertTrue(runner.node.idler instanceof Idler.ParkIdler);
+    IdleStats stats = runner.node.idler.getStats();
+    Assert.assertTrue("idle count " + stats, stats.idleCount >= 10);
+    Assert.assertTrue("park time " + stats, stats.parkTime > 0);
+  }
+
+  @Test
+  public void testIdleStats() throws InterruptedException
+  {
+    for (IdleStrategy strategy : IdleStrategy.values()) {
+      Runner runner = new Runner(strategy, 10);
+      runner.start();
+      runner.input.put(new Tuple(MessageType.BEGIN_WINDOW, 1));
+      Thread.sleep(50);
+      runner.finish();
+
+      IdleStats stats = runner.node.idler.getStats();
+      Assert.assertTrue(strategy + " idle count " + stats, stats.idleCount > 0);
+      switch (strategy) {
+        case BUSY_SPIN:
+          Assert.assertTrue(strategy + " spin time " + stats, stats.spinTime > 0);
+          Assert.assertEquals(strategy + " park time " + stats, 0, stats.parkTime);
+          break;
+
+        case SPIN_YIELD:
+          Assert.assertEquals(strategy + " park time " + stats, 0, stats.parkTime);
+          break;
+
+        default:
+          Assert.assertTrue(strategy + " park time " + stats, stats.parkTime > 0);
+          break;
+      }
+    }
+  }
+
+  /**
+   * Reports the latency of a generic node and the CPU time it uses with each idle strategy, for tuples that arrive a
+   * millisecond apart.
+   */
+  @Test
+  @Ignore
+  public void benchmarkIdleStrategies() throws InterruptedException
+  {
+    final java.lang.management.ThreadMXBean threadMXBean = ManagementFactory.getThreadMXBean();
+    final long[] latencies = new long[2000];
+    for (int round = 0; round < 3; round++) {
+      for (IdleStrategy strategy : IdleStrategy.values()) {
+        Runner runner = new Runner(strategy, 10);
+        runner.start();
+        runner.input.put(new Tuple(MessageType.BEGIN_WINDOW, 1));
+        final long cpuTime = threadMXBean.getThreadCpuTime(runner.getId());
+        for (int i = 0; i < latencies.length; i++) {
+          Thread.sleep(1);
+          runner.input.put(System.nanoTime());
+          latencies[i] = System.nanoTime() - (Long)runner.output.take();
+        }
+        final long usedCpuTime = threadMXBean.getThreadCpuTime(runner.getId()) - cpuTime;
+        runner.finish();
+        IdleStats stats = runner.node.idler.getStats();
+
+        Arrays.sort(latencies);
+        logger.info("{}: latency p50 {} us p99 {} us max {} us, {} ms CPU, {}", strategy,
+            latencies[latencies.length / 2] / 1000, latencies[latencies.length * 99 / 100] / 1000,
+            latencies[latencies.length - 1] / 1000, usedCpuTime / 1000000, stats);
+      }
+    }
+  }
+
+  private static final Logger logger = LoggerFactory.getLogger(IdlerTest.class);
+}
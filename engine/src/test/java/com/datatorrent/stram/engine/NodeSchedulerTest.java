@@ -0,0 +1,237 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package com.datatorrent.stram.engine;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.Assert;
+import org.junit.Ignore;
+import org.junit.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.datatorrent.api.Attribute.AttributeMap.DefaultAttributeMap;
+import com.datatorrent.api.Sink;
+import com.datatorrent.bufferserver.packet.MessageType;
+import com.datatorrent.stram.engine.GenericNodeTest.GenericOperator;
+import com.datatorrent.stram.tuple.EndStreamTuple;
+import com.datatorrent.stram.tuple.EndWindowTuple;
+import com.datatorrent.stram.tuple.Tuple;
+
+/**
+ *
+ */
+public class NodeSchedulerTest
+{
+  /**
+   * Pipeline of generic nodes that pass the tuples through, run either on a thread each or on a {@link NodeScheduler}.
+   */
+  private static class Pipeline
+  {
+    final List<GenericNode> nodes = new ArrayList<>();
+    final List<Thread> threads = new ArrayList<>();
+    final AbstractReservoir input;
+    final AtomicLong received = new AtomicLong();
+    final long[] latencies;
+
+    Pipeline(int length, int reservoirCapacity, int expected)
+    {
+      latencies = new long[expected];
+      input = AbstractReservoir.newReservoir("input", reservoirCapacity);
+      AbstractReservoir reservoir = input;
+      for (int i = 0; i < length; i++) {
+        GenericNode node = new GenericNode(new GenericOperator(), new OperatorContext(i, "operator" + i,
+            new DefaultAttributeMap(), null));
+        node.setId(i);
+        node.connectInputPort("ip1", reservoir);
+        if (i + 1 < length) {
+          reservoir = AbstractReservoir.newReservoir("reservoir" + i, reservoirCapacity);
+          node.connectOutputPort("op", reservoir);
+        } else {
+          node.connectOutputPort("op", new Sink<Object>()
+          {
+            @Override
+            public void put(Object tuple)
+            {
+              if (!(tuple instanceof Tuple)) {
+                latencies[(int)received.getAndIncrement()] = System.nanoTime() - (Long)tuple;
+              }
+            }
+
+            @Override
+            public int getCount(boolean reset)
+            {
+              return 0;
+            }
+
+          });
+        }
+        node.firstWindowMillis = 0;
+        node.windowWidthMillis = 100;
+        nodes.add(node);
+      }
+    }
+
+    void start(final NodeScheduler scheduler)
+    {
+      for (final GenericNode node : nodes) {
+        Thread thread = new Thread("lifecycle-" + node.getId())
+        {
+          @Override
+          public void run()
+          {
+            node.activate();
+            if (scheduler == null) {
+              node.run();
+            } else {
+              scheduler.run(node);
+            }
+            node.deactivate();
+          }
+
+        };
+        thread.start();
+        threads.add(thread);
+      }
+    }
+
+    /**
+     * Send the tuples, each one carrying the time it is sent at, pausing between the windows.
+     */
+    void send(int windows, int tuplesPerWindow, long pauseMillis) throws InterruptedException
+    {
+      for (long windowId = 1; windowId <= windows; windowId++) {
+        input.put(new Tuple(MessageType.BEGIN_WINDOW, windowId));
+        for (int i = 0; i < tuplesPerWindow; i++) {
+          input.put(System.nanoTime());
+        }
+        input.put(new EndWindowTuple(windowId));
+        if (pauseMillis > 0) {
+          Thread.sleep(pauseMillis);
+        }
+      }
+      input.put(new EndStreamTuple(windows));
+    }
+
+    boolean join(long millis) throws InterruptedException
+    {
+      long deadline = System.currentTimeMillis() + millis;
+      for (Thread thread : threads) {
+        thread.join(Math.max(1, deadline - System.currentTimeMillis()));
+        if (thread.isAlive()) {
+          return false;
+        }
+      }
+      return true;
+    }
+  }
+
+  @Test
+  public void testPipeline() throws InterruptedException
+  {
+    NodeScheduler scheduler = new NodeScheduler("testPipeline", 2);
+    try {
+      /* small reservoirs so that the nodes wait for room in them on the pool */
+      Pipeline pipeline = new Pipeline(6, 16, 20 * 1000);
+      pipeline.start(scheduler);
+      pipeline.send(20, 1000, 0);
+
+      Assert.assertTrue("nodes finished", pipeline.join(30000));
+      Assert.assertEquals("received tuples", 20 * 1000, pipeline.received.get());
+      for (GenericNode node : pipeline.nodes) {
+        Assert.assertFalse("alive " + node, node.alive);
+      }
+    } finally {
+      scheduler.shutdown();
+    }
+  }
+
+  @Test
+  public void testIdleNodesAreNotified() throws InterruptedException
+  {
+    NodeScheduler scheduler = new NodeScheduler("testIdleNodesAreNotified", 1);
+    try {
+      Pipeline pipeline = new Pipeline(3, 1024, 1);
+      pipeline.start(scheduler);
+      /* let the nodes go idle before sending any tuple */
+      Thread.sleep(100);
+      long start = System.currentTimeMillis();
+      pipeline.send(1, 1, 0);
+
+      Assert.assertTrue("nodes finished", pipeline.join(30000));
+      Assert.assertEquals("received tuples", 1, pipeline.received.get());
+      Assert.assertTrue("woken up before the idle check",
+          System.currentTimeMillis() - start < NodeScheduler.IDLE_CHECK_MILLIS);
+    } finally {
+      scheduler.shutdown();
+    }
+  }
+
+  /**
+   * Compares the throughput, the end-to-end latency and the CPU time of a pipeline whose nodes run on a thread each
+   * with the ones of the same pipeline whose nodes run on a pool of as many threads as there are processors. The
+   * throughput is measured with back to back windows, the latency with windows of a few tuples sent every
+   * millisecond, which leaves the nodes idle most of the time.
+   */
+  @Test
+  @Ignore
+  public void benchmarkPipeline() throws InterruptedException
+  {
+    final int length = 16;
+    for (int round = 0; round < 5; round++) {
+      for (boolean pooled : new boolean[] {false, true}) {
+        run(pooled, length, 100, 10000, 0);
+        run(pooled, length, 2000, 10, 1);
+      }
+    }
+  }
+
+  private static void run(boolean pooled, int length, int windows, int tuplesPerWindow, long pauseMillis)
+      throws InterruptedException
+  {
+    final com.sun.management.OperatingSystemMXBean osMXBean =
+        (com.sun.management.OperatingSystemMXBean)ManagementFactory.getOperatingSystemMXBean();
+    NodeScheduler scheduler = pooled ? new NodeScheduler("benchmark", Runtime.getRuntime().availableProcessors())
+        : null;
+    Pipeline pipeline = new Pipeline(length, 1024, windows * tuplesPerWindow);
+    final long cpuTime = osMXBean.getProcessCpuTime();
+    final long start = System.nanoTime();
+    pipeline.start(scheduler);
+    pipeline.send(windows, tuplesPerWindow, pauseMillis);
+    Assert.assertTrue(pipeline.join(600000));
+    final long elapsed = System.nanoTime() - start;
+
+    final long[] latencies = pipeline.latencies;
+    Arrays.sort(latencies);
+    logger.info("{}, {} tuples/window, pause {} ms: {} tuples/s, {} ms CPU, {} threads, latency p50 {} us p99 {} us "
+        + "max {} us", pooled ? "pooled" : "thread per node", tuplesPerWindow, pauseMillis,
+        latencies.length * 1000000000L / elapsed, (osMXBean.getProcessCpuTime() - cpuTime) / 1000000,
+        pooled ? scheduler.getPoolSize() : length, latencies[latencies.length / 2] / 1000,
+        latencies[latencies.length * 99 / 100] / 1000, latencies[latencies.length - 1] / 1000);
+    if (scheduler != null) {
+      scheduler.shutdown();
+    }
+  }
+
+  private static final Logger logger = LoggerFactory.getLogger(NodeSchedulerTest.class);
+}
@@ -0,0 +1,129 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package com.datatorrent.stram.engine;
+
+import java.util.ArrayList;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.datatorrent.api.Stats;
+import com.datatorrent.api.Stats.OperatorStats.PortStats;
+import com.datatorrent.stram.api.Checkpoint;
+import com.datatorrent.stram.api.StreamingContainerUmbilicalProtocol.ContainerStats;
+
+public class WindowStatsAggregatorTest
+{
+  private static ContainerStats.OperatorStats newStats(long windowId, long dequeueTimestamp, long emitTimestamp)
+  {
+    ContainerStats.OperatorStats stats = new ContainerStats.OperatorStats();
+    stats.windowId = windowId;
+    stats.cpuTimeUsed = 10;
+    stats.inputPorts = new ArrayList<>();
+    PortStats input = new PortStats("input");
+    input.tupleCount = 100;
+    input.bufferServerBytes = 1000;
+    input.bufferServerUncompressedBytes = 3000;
+    input.queueSize = (int)windowId;
+    input.endWindowTimestamp = dequeueTimestamp;
+    stats.inputPorts.add(input);
+    stats.outputPorts = new ArrayList<>();
+    PortStats output = new PortStats("output");
+    output.tupleCount = 50;
+    output.endWindowTimestamp = emitTimestamp;
+    stats.outputPorts.add(output);
+    stats.idleStats = new Stats.IdleStats();
+    stats.idleStats.idleCount = 1;
+    stats.idleStats.parkTime = 5;
+    WindowStatsAggregator.setEndWindowLatency(stats);
+    return stats;
+  }
+
+  @Test
+  public void testRollup()
+  {
+    WindowStatsAggregator aggregator = new WindowStatsAggregator(4);
+    Assert.assertNull(aggregator.aggregate(newStats(1, 1000, 1002)));
+    Assert.assertNull(aggregator.aggregate(newStats(2, 1500, 1501)));
+    Assert.assertNull(aggregator.aggregate(newStats(3, 2000, 2007)));
+
+    ContainerStats.OperatorStats stats = aggregator.aggregate(newStats(4, 2500, 2503));
+    Assert.assertNotNull(stats);
+    Assert.assertEquals("windowId", 4, stats.windowId);
+    Assert.assertEquals("windowCount", 4, stats.windowCount);
+    Assert.assertEquals("cpuTimeUsed", 40, stats.cpuTimeUsed);
+    Assert.assertEquals("input tuples", 400, stats.inputPorts.get(0).tupleCount);
+    Assert.assertEquals("input bytes", 4000, stats.inputPorts.get(0).bufferServerBytes);
+    Assert.assertEquals("input uncompressed bytes", 12000, stats.inputPorts.get(0).bufferServerUncompressedBytes);
+    Assert.assertEquals("queue size", 4, stats.inputPorts.get(0).queueSize);
+    Assert.assertEquals("input end window", 2500, stats.inputPorts.get(0).endWindowTimestamp);
+    Assert.assertEquals("output tuples", 200, stats.outputPorts.get(0).tupleCount);
+    Assert.assertEquals("output end window", 2503, stats.outputPorts.get(0).endWindowTimestamp);
+    Assert.assertEquals("idle count", 4, stats.idleStats.idleCount);
+    Assert.assertEquals("park time", 20, stats.idleStats.parkTime);
+    Assert.assertEquals("min latency", 1, stats.minEndWindowLatency);
+    Assert.assertEquals("max latency", 7, stats.maxEndWindowLatency);
+    Assert.assertEquals("total latency", 13, stats.totalEndWindowLatency);
+    Assert.assertNull("flushed", aggregator.flush());
+  }
+
+  @Test
+  public void testCheckpoint()
+  {
+    WindowStatsAggregator aggregator = new WindowStatsAggregator(4);
+    Assert.assertNull(aggregator.aggregate(newStats(5, 1000, 1000)));
+    ContainerStats.OperatorStats checkpointed = newStats(6, 1500, 1500);
+    checkpointed.checkpoint = new Checkpoint(6, 0, 0);
+    ContainerStats.OperatorStats stats = aggregator.aggregate(checkpointed);
+    Assert.assertSame(checkpointed, stats);
+    Assert.assertEquals("windowCount", 2, stats.windowCount);
+
+    Assert.assertNull(aggregator.aggregate(newStats(7, 2000, 2000)));
+    stats = aggregator.aggregate(newStats(8, 2500, 2500));
+    Assert.assertEquals("windowCount", 2, stats.windowCount);
+    Assert.assertNull("checkpoint", stats.checkpoint);
+  }
+
+  @Test
+  public void testFlush()
+  {
+    WindowStatsAggregator aggregator = new WindowStatsAggregator(4);
+    ContainerStats.OperatorStats pending = newStats(9, 1000, 1000);
+    pending.counters = "counters";
+    Assert.assertNull(aggregator.aggregate(pending));
+    Assert.assertNull(aggregator.aggregate(newStats(10, 1500, 1500)));
+    ContainerStats.OperatorStats stats = aggregator.flush();
+    Assert.assertEquals("windowId", 10, stats.windowId);
+    Assert.assertEquals("windowCount", 2, stats.windowCount);
+    Assert.assertEquals("counters", "counters", stats.counters);
+    Assert.assertNull(aggregator.flush());
+  }
+
+  @Test
+  public void testEndWindowLatency()
+  {
+    ContainerStats.OperatorStats stats = newStats(1, 2000, 1990);
+    Assert.assertEquals("clamped latency", 0, stats.maxEndWindowLatency);
+
+    stats = newStats(1, 2000, 2010);
+    stats.inputPorts.clear();
+    WindowStatsAggregator.setEndWindowLatency(stats);
+    Assert.assertEquals("input operator latency", 0, stats.maxEndWindowLatency);
+  }
+}
@@ -0,0 +1,161 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package com.datatorrent.stram.stream;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.datatorrent.api.Sink;
+import com.datatorrent.bufferserver.server.Server;
+import com.datatorrent.netlet.DefaultEventLoop;
+import com.datatorrent.stram.codec.DefaultStatefulStreamCodec;
+import com.datatorrent.stram.engine.StreamContext;
+import com.datatorrent.stram.engine.SweepableReservoir;
+import com.datatorrent.stram.support.StramTestSupport;
+import com.datatorrent.stram.tuple.EndWindowTuple;
+import com.datatorrent.stram.tuple.Tuple;
+
+/**
+ *
+ */
+public class BufferServerPublisherTest
+{
+  private static final String streamName = "streamName";
+  private static final String upstreamNodeId = "upstreamNodeId";
+  private static final String downstreamNodeId = "downStreamNodeId";
+
+  private DefaultEventLoop eventloop;
+  private Server bufferServer;
+  private InetSocketAddress address;
+
+  @Before
+  public void setup() throws IOException
+  {
+    eventloop = DefaultEventLoop.createEventLoop("PublisherTestEventLoop");
+    eventloop.start();
+    bufferServer = new Server(eventloop, 0);
+    address = new InetSocketAddress("localhost", bufferServer.run().getPort());
+  }
+
+  @After
+  public void teardown()
+  {
+    bufferServer.stop();
+    eventloop.stop();
+  }
+
+  private StreamContext newContext()
+  {
+    StreamContext context = new StreamContext(streamName);
+    context.setSourceId(upstreamNodeId);
+    context.setSinkId(downstreamNodeId);
+    context.setFinishedWindowId(-1);
+    context.setBufferServerAddress(address);
+    context.put(StreamContext.CODEC, new DefaultStatefulStreamCodec<>());
+    context.put(StreamContext.EVENT_LOOP, eventloop);
+    return context;
+  }
+
+  private static byte[] newTuple(int sequence, int size)
+  {
+    byte[] tuple = new byte[Math.max(size, 4)];
+    ByteBuffer.wrap(tuple).putInt(sequence);
+    Arrays.fill(tuple, 4, tuple.length, (byte)sequence);
+    return tuple;
+  }
+
+  private static int sizeOf(int sequence)
+  {
+    /* a tuple larger than a frame buffer every now and then */
+    return sequence % 5000 == 0 ? BufferServerPublisher.FRAME_BUFFER_SIZE * 2 : sequence % 257;
+  }
+
+  /**
+   * Publishes more tuples than fit in all the frame buffers, so that the buffers are recycled, and verifies that the
+   * subscriber receives every tuple unchanged and in order.
+   */
+  @Test
+  public void testFrameBufferReuse() throws Exception
+  {
+    final int tupleCount = 50000;
+    final List<byte[]> received = new ArrayList<>(tupleCount);
+
+    StreamContext issContext = newContext();
+    BufferServerSubscriber iss = new BufferServerSubscriber(downstreamNodeId, 1024);
+    iss.setup(issContext);
+    SweepableReservoir reservoir = iss.acquireReservoir("testReservoir", 1024);
+    reservoir.setSink(new Sink<Object>()
+    {
+      @Override
+      public void put(Object tuple)
+      {
+        received.add((byte[])tuple);
+      }
+
+      @Override
+      public int getCount(boolean reset)
+      {
+        return 0;
+      }
+    });
+    iss.activate(issContext);
+
+    StreamContext ossContext = newContext();
+    BufferServerPublisher oss = new BufferServerPublisher(upstreamNodeId, 1024);
+    oss.setup(ossContext);
+    oss.activate(ossContext);
+
+    oss.put(StramTestSupport.generateBeginWindowTuple(upstreamNodeId, 0));
+    for (int i = 0; i < tupleCount; i++) {
+      oss.put(newTuple(i, sizeOf(i)));
+    }
+    oss.put(StramTestSupport.generateEndWindowTuple(upstreamNodeId, 0));
+
+    long deadline = System.currentTimeMillis() + StramTestSupport.DEFAULT_TIMEOUT_MILLIS;
+    boolean endWindow = false;
+    while (!endWindow && System.currentTimeMillis() < deadline) {
+      Tuple t = reservoir.sweep();
+      if (t == null) {
+        Thread.sleep(5);
+      } else {
+        reservoir.remove();
+        endWindow = t instanceof EndWindowTuple;
+      }
+    }
+
+    eventloop.disconnect(oss);
+    eventloop.disconnect(iss);
+
+    Assert.assertTrue("end window received", endWindow);
+    Assert.assertEquals("received tuples", tupleCount, received.size());
+    for (int i = 0; i < tupleCount; i++) {
+      Assert.assertArrayEquals("tuple " + i, newTuple(i, sizeOf(i)), received.get(i));
+    }
+    Assert.assertTrue(oss.getByteCount(false) > 0);
+  }
+}
@@ -20,18 +20,29 @@ package com.datatorrent.stram.stream;
 
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Date;
 import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.junit.Assert;
 import org.junit.Test;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import com.datatorrent.api.Context.PortContext;
 import com.datatorrent.api.Sink;
 import com.datatorrent.api.StreamCodec;
+import com.datatorrent.bufferserver.packet.DataTuple;
+import com.datatorrent.bufferserver.packet.MessageType;
 import com.datatorrent.bufferserver.packet.PayloadTuple;
+import com.datatorrent.bufferserver.packet.WindowIdTuple;
 import com.datatorrent.netlet.util.Slice;
+import com.datatorrent.stram.codec.DefaultStatefulStreamCodec;
+import com.datatorrent.stram.codec.StatefulStreamCodec.DataStatePair;
+import com.datatorrent.stram.engine.StreamContext;
 import com.datatorrent.stram.engine.SweepableReservoir;
+import com.datatorrent.stram.tuple.EndWindowTuple;
+import com.datatorrent.stram.tuple.Tuple;
 
 /**
  *
@@ -114,13 +125,203 @@ public class BufferServerSubscriberTest
       bss.onMessage(buffer, 0, buffer.length);
     }
 
-    reservoir.sweep(); /* 4 make it to the reservoir */
-    reservoir.sweep(); /* we consume the 4; and 4 more make it to the reservoir */
-    Assert.assertEquals("4 received", 4, list.size());
-    reservoir.sweep(); /* 8 consumed + 2 more make it to the reservoir */
+    reservoir.sweep(); /* 8, the size of the ring, are decoded and consumed */
+    Assert.assertEquals("8 received", 8, list.size());
     reservoir.sweep(); /* consume 2 more */
     Assert.assertEquals("10  received", 10, list.size());
   }
 
+  @Test
+  public void testSharedRing()
+  {
+    final AtomicInteger decoded = new AtomicInteger();
+    final StreamCodec<Object> countingSerde = new StreamCodec<Object>()
+    {
+      @Override
+      public Object fromByteArray(Slice fragment)
+      {
+        decoded.incrementAndGet();
+        return (int)fragment.buffer[fragment.offset];
+      }
+
+      @Override
+      public Slice toByteArray(Object o)
+      {
+        return new Slice(new byte[] {((Integer)o).byteValue()}, 0, 1);
+      }
+
+      @Override
+      public int getPartition(Object o)
+      {
+        return 0;
+      }
+    };
+
+    BufferServerSubscriber bss = new BufferServerSubscriber("subscriber", 8)
+    {
+      {
+        serde = countingSerde;
+      }
+
+      @Override
+      public void suspendRead()
+      {
+      }
+
+      @Override
+      public void resumeRead()
+      {
+      }
+    };
+
+    final List<Object> fast = new ArrayList<>();
+    final List<Object> slow = new ArrayList<>();
+    SweepableReservoir fastReservoir = bss.acquireReservoir("fast", 8);
+    fastReservoir.setSink(new CollectingSink(fast));
+    SweepableReservoir slowReservoir = bss.acquireReservoir("slow", 8);
+    slowReservoir.setSink(new CollectingSink(slow));
+
+    for (int i = 0; i < 20; i++) {
+      byte[] buffer = PayloadTuple.getSerializedTuple(0, countingSerde.toByteArray(i));
+      bss.onMessage(buffer, 0, buffer.length);
+    }
+    byte[] endWindow = com.datatorrent.bufferserver.packet.EndWindowTuple.getSerializedTuple(1);
+    bss.onMessage(endWindow, 0, endWindow.length);
+
+    /* the fast reservoir runs ahead of the slow one by at most the size of the ring */
+    for (int i = 0; i < 5; i++) {
+      Assert.assertNull(fastReservoir.sweep());
+    }
+    Assert.assertEquals("fast received", 8, fast.size());
+    Assert.assertEquals("slow received", 0, slow.size());
+
+    Assert.assertNull(slowReservoir.sweep());
+    Assert.assertEquals("slow received", 8, slow.size());
+
+    for (int i = 0; i < 10; i++) {
+      fastReservoir.sweep();
+      slowReservoir.sweep();
+    }
+    Assert.assertTrue(fastReservoir.sweep() instanceof EndWindowTuple);
+    Assert.assertTrue(slowReservoir.sweep() instanceof EndWindowTuple);
+    Assert.assertEquals(fast, slow);
+    Assert.assertEquals("fast received", 20, fast.size());
+    Assert.assertTrue(fastReservoir.remove() instanceof EndWindowTuple);
+    Assert.assertTrue(slowReservoir.remove() instanceof EndWindowTuple);
+    Assert.assertTrue(fastReservoir.isEmpty());
+
+    Assert.assertEquals("decoded once", 20, decoded.get());
+  }
+
+  /**
+   * Deserializes tuples that need the codec state on worker threads and verifies that the operator sees them in order
+   * even when the codec state is reset at checkpoints.
+   */
+  @Test
+  public void testParallelDeserialization()
+  {
+    BufferServerSubscriber bss = new BufferServerSubscriber("subscriber", 64)
+    {
+      @Override
+      public void suspendRead()
+      {
+      }
+
+      @Override
+      public void resumeRead()
+      {
+      }
+    };
+
+    StreamContext context = new StreamContext("stream");
+    context.setSinkId("subscriber");
+    context.setFinishedWindowId(-1);
+    context.put(StreamContext.CODEC, new DefaultStatefulStreamCodec<>());
+    context.put(PortContext.DESERIALIZATION_THREADS, 3);
+    bss.setup(context);
+
+    final List<Object> received = new ArrayList<>();
+    SweepableReservoir reservoir = bss.acquireReservoir("reservoir", 64);
+    reservoir.setSink(new CollectingSink(received));
+
+    final int windows = 10;
+    final int tuplesPerWindow = 100;
+    List<Object> sent = new ArrayList<>();
+    DefaultStatefulStreamCodec<Object> codec = new DefaultStatefulStreamCodec<>();
+    for (int window = 0; window < windows; window++) {
+      for (int i = 0; i < tuplesPerWindow; i++) {
+        Object tuple;
+        switch (i % 3) {
+          case 0:
+            tuple = new Date(i);
+            break;
+          case 1:
+            tuple = new ArrayList<>(Arrays.asList(window, i));
+            break;
+          default:
+            tuple = i;
+            break;
+        }
+        sent.add(tuple);
+
+        DataStatePair dsp = codec.toDataStatePair(tuple);
+        if (dsp.state != null) {
+          byte[] buffer = DataTuple.getSerializedTuple(MessageType.CODEC_STATE_VALUE, dsp.state);
+          bss.onMessage(buffer, 0, buffer.length);
+        }
+        byte[] buffer = PayloadTuple.getSerializedTuple(0, dsp.data);
+        bss.onMessage(buffer, 0, buffer.length);
+      }
+      byte[] endWindow = com.datatorrent.bufferserver.packet.EndWindowTuple.getSerializedTuple(window);
+      bss.onMessage(endWindow, 0, endWindow.length);
+      if (window % 3 == 0) {
+        byte[] checkpoint = WindowIdTuple.getSerializedTuple(window);
+        checkpoint[0] = MessageType.CHECKPOINT_VALUE;
+        bss.onMessage(checkpoint, 0, checkpoint.length);
+        codec.resetState();
+      }
+    }
+
+    int endWindows = 0;
+    long deadline = System.currentTimeMillis() + 10000;
+    while (endWindows < windows && System.currentTimeMillis() < deadline) {
+      Tuple t = reservoir.sweep();
+      if (t != null) {
+        reservoir.remove();
+        if (t instanceof EndWindowTuple) {
+          Assert.assertEquals("tuples before end window " + endWindows, (endWindows + 1) * tuplesPerWindow,
+              received.size());
+          endWindows++;
+        }
+      }
+    }
+    bss.teardown();
+
+    Assert.assertEquals("end windows", windows, endWindows);
+    Assert.assertEquals(sent, received);
+  }
+
+  private static class CollectingSink implements Sink<Object>
+  {
+    final List<Object> list;
+
+    CollectingSink(List<Object> list)
+    {
+      this.list = list;
+    }
+
+    @Override
+    public void put(Object tuple)
+    {
+      list.add(tuple);
+    }
+
+    @Override
+    public int getCount(boolean reset)
+    {
+      return 0;
+    }
+  }
+
   private static final Logger logger = LoggerFactory.getLogger(BufferServerSubscriberTest.class);
 }
@@ -0,0 +1,144 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package com.datatorrent.stram.stream;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.datatorrent.api.Sink;
+import com.datatorrent.api.StreamCodec;
+import com.datatorrent.bufferserver.packet.MessageType;
+import com.datatorrent.stram.codec.DefaultStatefulStreamCodec;
+import com.datatorrent.stram.plan.logical.LogicalPlan.InputPortMeta;
+import com.datatorrent.stram.plan.logical.StreamCodecWrapperForPersistance;
+import com.datatorrent.stram.tuple.Tuple;
+
+/**
+ *
+ */
+public class MuxStreamTest
+{
+  private static class CollectingSink implements Sink<Object>
+  {
+    final List<Object> tuples = new ArrayList<>();
+
+    @Override
+    public void put(Object tuple)
+    {
+      tuples.add(tuple);
+    }
+
+    @Override
+    public int getCount(boolean reset)
+    {
+      return tuples.size();
+    }
+  }
+
+  /**
+   * Filters the tuples the same way as {@link PartitionAwareSink} but is not precompiled by the dispatcher.
+   */
+  private static class CustomPartitionAwareSink extends PartitionAwareSink<Object>
+  {
+    CustomPartitionAwareSink(StreamCodec<Object> serde, Set<Integer> partitions, int mask, Sink<Object> output)
+    {
+      super(serde, partitions, mask, output);
+    }
+  }
+
+  private static Set<Integer> partitions(Integer... partitions)
+  {
+    Set<Integer> set = new HashSet<>();
+    Collections.addAll(set, partitions);
+    return set;
+  }
+
+  @Test
+  public void testDispatch()
+  {
+    final StreamCodec<Object> codec = new DefaultStatefulStreamCodec<>();
+    final StreamCodecWrapperForPersistance<Object> persistenceCodec = new StreamCodecWrapperForPersistance<Object>(
+        new HashMap<InputPortMeta, StreamCodec<Object>>(), codec)
+    {
+      @Override
+      public boolean shouldCaptureEvent(Object o)
+      {
+        return (Integer)o % 3 == 0;
+      }
+    };
+
+    CollectingSink even = new CollectingSink();
+    CollectingSink odd = new CollectingSink();
+    CollectingSink lowQuarter = new CollectingSink();
+    CollectingSink custom = new CollectingSink();
+    CollectingSink all = new CollectingSink();
+    CollectingSink persisted = new CollectingSink();
+
+    MuxStream stream = new MuxStream();
+    stream.setSink("even", new PartitionAwareSink<>(codec, partitions(0), 1, even));
+    stream.setSink("odd", new PartitionAwareSink<>(codec, partitions(1), 1, odd));
+    stream.setSink("lowQuarter", new PartitionAwareSink<>(codec, partitions(0, 1), 3, lowQuarter));
+    stream.setSink("custom", new CustomPartitionAwareSink(codec, partitions(3), 3, custom));
+    stream.setSink("all", all);
+    stream.setSink("persisted", new PartitionAwareSinkForPersistence(persistenceCodec, 1, persisted));
+    stream.activate(null);
+
+    Tuple beginWindow = new Tuple(MessageType.BEGIN_WINDOW, 1L);
+    stream.put(beginWindow);
+    for (int i = 0; i < 100; i++) {
+      stream.put(i);
+    }
+
+    for (CollectingSink sink : new CollectingSink[] {even, odd, lowQuarter, custom, all, persisted}) {
+      Assert.assertSame("control tuple", beginWindow, sink.tuples.remove(0));
+    }
+    for (int i = 0; i < 100; i++) {
+      Assert.assertEquals("all " + i, i, all.tuples.get(i));
+    }
+    assertTuples(even, 0, 2, 50);
+    assertTuples(odd, 1, 2, 50);
+    assertTuples(custom, 3, 4, 25);
+    assertTuples(persisted, 0, 3, 34);
+
+    Assert.assertEquals(50, lowQuarter.tuples.size());
+    for (Object tuple : lowQuarter.tuples) {
+      Assert.assertTrue("low quarter " + tuple, (Integer)tuple % 4 < 2);
+    }
+    Assert.assertEquals(101, stream.getCount(false));
+
+    stream.deactivate();
+    stream.put(100);
+    Assert.assertEquals(100, all.tuples.size());
+  }
+
+  private static void assertTuples(CollectingSink sink, int first, int step, int count)
+  {
+    Assert.assertEquals("tuples " + sink.tuples, count, sink.tuples.size());
+    for (int i = 0; i < count; i++) {
+      Assert.assertEquals(first + i * step, sink.tuples.get(i));
+    }
+  }
+}